@@ -107,6 +107,7 @@ export class ItemFormComponent {
       ppq: rawFormData.ppq ? Number(rawFormData.ppq) : null,
       quantity: Number(rawFormData.quantity),
       price: Number(rawFormData.price),
+      version: this.data?.version,
     };
 
 
@@ -3,18 +3,26 @@ import { NavbarComponent } from './navbar.component';
 import { Router } from '@angular/router';
 import { Location } from '@angular/common';
 import { NO_ERRORS_SCHEMA } from '@angular/core';
+import { of } from 'rxjs';
+import { LoginService } from '../../services/login.service';
 
 describe('NavbarComponent', () => {
   let component: NavbarComponent;
   let fixture: ComponentFixture<NavbarComponent>;
   let mockRouter: jasmine.SpyObj<Router>;
+  let mockLoginService: jasmine.SpyObj<LoginService>;
 
   beforeEach(async () => {
     mockRouter = jasmine.createSpyObj('Router', ['navigate']);
+    mockLoginService = jasmine.createSpyObj('LoginService', ['logout']);
+    mockLoginService.logout.and.returnValue(of(undefined));
 
     await TestBed.configureTestingModule({
       imports: [NavbarComponent],
-      providers: [{ provide: Router, useValue: mockRouter }],
+      providers: [
+        { provide: Router, useValue: mockRouter },
+        { provide: LoginService, useValue: mockLoginService }
+      ],
       schemas: [NO_ERRORS_SCHEMA]
     }).compileComponents();
 
@@ -33,14 +41,10 @@ describe('NavbarComponent', () => {
     expect(component.role).toBe('Admin');
   });
 
-  it('should clear localStorage and navigate to root on logout', () => {
-    localStorage.setItem('token', 'sampleToken');
-    localStorage.setItem('role', 'Doctor');
-
+  it('should log out through the login service and navigate to root', () => {
     component.logoutAndRedirect();
 
-    expect(localStorage.getItem('token')).toBeNull();
-    expect(localStorage.getItem('role')).toBeNull();
+    expect(mockLoginService.logout).toHaveBeenCalled();
     expect(mockRouter.navigate).toHaveBeenCalledWith(['/']);
   });
 });
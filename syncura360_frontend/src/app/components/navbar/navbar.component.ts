@@ -2,6 +2,7 @@ import { Component, Inject } from '@angular/core';
 import { Router, RouterLink } from '@angular/router';
 import { CommonModule } from '@angular/common';
 import {MatIcon} from '@angular/material/icon';
+import { LoginService } from '../../services/login.service';
 
 @Component({
   selector: 'app-navbar',
@@ -14,7 +15,8 @@ export class NavbarComponent {
   role: string | null = null;
 
   constructor(
-    @Inject(Router) private router: Router
+    @Inject(Router) private router: Router,
+    private loginService: LoginService
   ) {}
 
     ngOnInit() {
@@ -22,9 +24,7 @@ export class NavbarComponent {
     }
 
   logoutAndRedirect() {
-    localStorage.removeItem('token');
-    localStorage.removeItem('role');
-    this.router.navigate(['/']);
+    this.loginService.logout().subscribe(() => this.router.navigate(['/']));
   }
 
 }
@@ -0,0 +1,87 @@
+import { TestBed } from '@angular/core/testing';
+import { HTTP_INTERCEPTORS, HttpClient, provideHttpClient, withInterceptorsFromDi } from '@angular/common/http';
+import { HttpTestingController, provideHttpClientTesting } from '@angular/common/http/testing';
+import { Router } from '@angular/router';
+import { AuthRefreshInterceptor } from './auth-refresh.interceptor';
+
+describe('AuthRefreshInterceptor', () => {
+  let http: HttpClient;
+  let httpMock: HttpTestingController;
+  let routerSpy: jasmine.SpyObj<Router>;
+
+  beforeEach(() => {
+    routerSpy = jasmine.createSpyObj('Router', ['navigate']);
+
+    TestBed.configureTestingModule({
+      providers: [
+        provideHttpClient(withInterceptorsFromDi()),
+        provideHttpClientTesting(),
+        { provide: HTTP_INTERCEPTORS, useClass: AuthRefreshInterceptor, multi: true },
+        { provide: Router, useValue: routerSpy }
+      ]
+    });
+
+    http = TestBed.inject(HttpClient);
+    httpMock = TestBed.inject(HttpTestingController);
+    localStorage.clear();
+  });
+
+  afterEach(() => {
+    httpMock.verify();
+    localStorage.clear();
+  });
+
+  it('should refresh and retry a request rejected with 401', () => {
+    localStorage.setItem('refreshToken', 'old-refresh');
+    let body: unknown;
+
+    http.get('http://localhost:8080/visit').subscribe(response => body = response);
+
+    httpMock.expectOne('http://localhost:8080/visit').flush(null, { status: 401, statusText: 'Unauthorized' });
+    httpMock.expectOne('http://localhost:8080/login/refresh')
+      .flush({ message: 'Refresh successful.', role: 'Nurse' }, { headers: { Authorization: 'Bearer new-token', 'Refresh-Token': 'new-refresh' } });
+
+    const retry = httpMock.expectOne('http://localhost:8080/visit');
+    expect(retry.request.headers.get('Authorization')).toBe('Bearer new-token');
+    retry.flush({ visits: [] });
+
+    expect(body).toEqual({ visits: [] });
+  });
+
+  it('should log out when the refresh fails', () => {
+    localStorage.setItem('token', 'expired');
+    localStorage.setItem('refreshToken', 'revoked');
+    let status = 0;
+
+    http.get('http://localhost:8080/visit').subscribe({ error: error => status = error.status });
+
+    httpMock.expectOne('http://localhost:8080/visit').flush(null, { status: 401, statusText: 'Unauthorized' });
+    httpMock.expectOne('http://localhost:8080/login/refresh').flush(null, { status: 401, statusText: 'Unauthorized' });
+
+    expect(status).toBe(401);
+    expect(localStorage.getItem('token')).toBeNull();
+    expect(routerSpy.navigate).toHaveBeenCalledWith(['/']);
+  });
+
+  it('should send the rotated refresh token when retrying a logout', () => {
+    localStorage.setItem('refreshToken', 'old-refresh');
+
+    http.post('http://localhost:8080/logout', null, { headers: { 'Refresh-Token': 'old-refresh' } }).subscribe();
+
+    httpMock.expectOne('http://localhost:8080/logout').flush(null, { status: 401, statusText: 'Unauthorized' });
+    httpMock.expectOne('http://localhost:8080/login/refresh')
+      .flush({ message: 'Refresh successful.', role: 'Nurse' }, { headers: { Authorization: 'Bearer new-token', 'Refresh-Token': 'new-refresh' } });
+
+    const retry = httpMock.expectOne('http://localhost:8080/logout');
+    expect(retry.request.headers.get('Refresh-Token')).toBe('new-refresh');
+    retry.flush({ message: 'Logout successful.', role: 'None' });
+  });
+
+  it('should not retry login requests', () => {
+    localStorage.setItem('refreshToken', 'old-refresh');
+
+    http.post('http://localhost:8080/login', {}).subscribe({ error: () => {} });
+
+    httpMock.expectOne('http://localhost:8080/login').flush(null, { status: 401, statusText: 'Unauthorized' });
+  });
+});
@@ -0,0 +1,44 @@
+import { Injectable } from '@angular/core';
+import { HttpErrorResponse, HttpEvent, HttpHandler, HttpInterceptor, HttpRequest } from '@angular/common/http';
+import { Router } from '@angular/router';
+import { Observable, throwError } from 'rxjs';
+import { catchError, switchMap } from 'rxjs/operators';
+import { LoginService } from '../services/login.service';
+
+/**
+ * Access tokens are short-lived. When a request is rejected with 401, the refresh token is exchanged
+ * for a new access token and the request is sent once more; if the refresh fails the session is over
+ * and the user is sent back to the login page.
+ */
+@Injectable()
+export class AuthRefreshInterceptor implements HttpInterceptor {
+
+  constructor(private loginService: LoginService, private router: Router) {}
+
+  intercept(req: HttpRequest<unknown>, next: HttpHandler): Observable<HttpEvent<unknown>> {
+    // Login and refresh answer 401 for bad credentials or tokens; retrying those would loop
+    if (req.url.includes('/login')) {
+      return next.handle(req);
+    }
+
+    return next.handle(req).pipe(
+      catchError(error => {
+        if (!(error instanceof HttpErrorResponse) || error.status !== 401 || !this.loginService.hasRefreshToken()) {
+          return throwError(() => error);
+        }
+
+        return this.loginService.refresh().pipe(
+          catchError(() => {
+            this.loginService.clearSession();
+            this.router.navigate(['/']);
+            return throwError(() => error);
+          }),
+          // A request carrying the refresh token (logout) must carry the rotated one, the old one is spent
+          switchMap(token => next.handle(req.clone({ setHeaders: req.headers.has('Refresh-Token')
+            ? { Authorization: `Bearer ${token}`, 'Refresh-Token': localStorage.getItem('refreshToken') ?? '' }
+            : { Authorization: `Bearer ${token}` } })))
+        );
+      })
+    );
+  }
+}
@@ -11,6 +11,7 @@ export interface inventory {
   ppq: number;
   quantity?: number;
   price?: number;
+  version?: number; // sent back on update so a stale edit is rejected
 }
 
 export interface inventoryUpdateDto {
@@ -90,14 +90,67 @@ describe('LoginService', () => {
   });
   
 
-  it('should remove token and role on logout', () => {
+  it('should revoke both tokens on the server and remove them on logout', () => {
     localStorage.setItem('token', 'dummy-token');
+    localStorage.setItem('refreshToken', 'dummy-refresh');
     localStorage.setItem('role', 'User');
-    service.logout();
+    let done = false;
+
+    service.logout().subscribe(() => done = true);
+
+    const req = httpMock.expectOne('http://localhost:8080/logout');
+    expect(req.request.method).toBe('POST');
+    expect(req.request.headers.get('Authorization')).toBe('Bearer dummy-token');
+    expect(req.request.headers.get('Refresh-Token')).toBe('dummy-refresh');
+    req.flush({ message: 'Logout successful.', role: 'None' });
+
+    expect(done).toBeTrue();
     expect(localStorage.getItem('token')).toBeNull();
+    expect(localStorage.getItem('refreshToken')).toBeNull();
     expect(localStorage.getItem('role')).toBeNull();
   });
 
+  it('should remove tokens on logout even when the server call fails', () => {
+    localStorage.setItem('token', 'dummy-token');
+    localStorage.setItem('refreshToken', 'dummy-refresh');
+    let done = false;
+
+    service.logout().subscribe(() => done = true);
+
+    httpMock.expectOne('http://localhost:8080/logout').flush(null, { status: 500, statusText: 'Server Error' });
+
+    expect(done).toBeTrue();
+    expect(localStorage.getItem('token')).toBeNull();
+    expect(localStorage.getItem('refreshToken')).toBeNull();
+  });
+
+  it('should store rotated tokens on refresh', () => {
+    localStorage.setItem('refreshToken', 'old-refresh');
+
+    service.refresh().subscribe(token => {
+      expect(token).toBe('new-token');
+      expect(localStorage.getItem('token')).toBe('new-token');
+      expect(localStorage.getItem('refreshToken')).toBe('new-refresh');
+    });
+
+    const req = httpMock.expectOne('http://localhost:8080/login/refresh');
+    expect(req.request.method).toBe('POST');
+    expect(req.request.headers.get('Refresh-Token')).toBe('old-refresh');
+    req.flush(mockResponse, { headers: { Authorization: 'Bearer new-token', 'Refresh-Token': 'new-refresh' } });
+  });
+
+  it('should share one refresh between concurrent callers', () => {
+    localStorage.setItem('refreshToken', 'old-refresh');
+    const tokens: string[] = [];
+
+    service.refresh().subscribe(token => tokens.push(token));
+    service.refresh().subscribe(token => tokens.push(token));
+
+    const req = httpMock.expectOne('http://localhost:8080/login/refresh');
+    req.flush(mockResponse, { headers: { Authorization: 'Bearer new-token', 'Refresh-Token': 'new-refresh' } });
+    expect(tokens).toEqual(['new-token', 'new-token']);
+  });
+
   it('should return true if authenticated', () => {
     localStorage.setItem('token', 'dummy-token');
     expect(service.isAuthenticated()).toBeTrue();
@@ -1,7 +1,7 @@
 import { Injectable } from '@angular/core';
 import { HttpClient, HttpHeaders, HttpResponse } from '@angular/common/http';
-import { Observable, throwError } from 'rxjs';
-import { catchError, tap } from 'rxjs/operators';
+import { Observable, of, throwError } from 'rxjs';
+import { catchError, finalize, map, shareReplay, tap } from 'rxjs/operators';
 
 interface LoginResponse {
   message: string;
@@ -13,6 +13,11 @@ interface LoginResponse {
 })
 export class LoginService {
   private loginUrl = 'http://localhost:8080/login';
+  private refreshUrl = 'http://localhost:8080/login/refresh';
+  private logoutUrl = 'http://localhost:8080/logout';
+
+  // Shared by every request that hits an expired token at the same time, since a refresh token works once
+  private refreshInFlight: Observable<string> | null = null;
 
   constructor(private http: HttpClient) {}
 
@@ -28,6 +33,11 @@ export class LoginService {
         } else {
           console.warn('Authorization header missing or improperly formatted');
         }
+
+        const refreshToken = response.headers.get('Refresh-Token');
+        if (refreshToken) {
+          localStorage.setItem('refreshToken', refreshToken);
+        }
   
         const responseBody: LoginResponse | null = response.body;
         if (responseBody) {
@@ -41,8 +51,68 @@ export class LoginService {
     );    
   }
   
-  logout(): void {
+  /**
+   * Exchange the stored refresh token for a new access token and refresh token.
+   * Emits the new access token; concurrent callers share the same request.
+   */
+  refresh(): Observable<string> {
+    if (!this.refreshInFlight) {
+      const headers = new HttpHeaders({ 'Refresh-Token': localStorage.getItem('refreshToken') ?? '' });
+
+      this.refreshInFlight = this.http.post<LoginResponse>(this.refreshUrl, null, { headers, observe: 'response' }).pipe(
+        map(response => {
+          const authHeader = response.headers.get('Authorization');
+          const refreshToken = response.headers.get('Refresh-Token');
+          if (!authHeader || !authHeader.startsWith('Bearer ') || !refreshToken) {
+            throw new Error('Refresh response is missing its tokens');
+          }
+
+          const token = authHeader.split(' ')[1];
+          localStorage.setItem('token', token);
+          localStorage.setItem('refreshToken', refreshToken);
+          if (response.body) {
+            localStorage.setItem('role', response.body.role);
+          }
+          return token;
+        }),
+        finalize(() => this.refreshInFlight = null),
+        shareReplay(1)
+      );
+    }
+    return this.refreshInFlight;
+  }
+
+  hasRefreshToken(): boolean {
+    return typeof window !== 'undefined' && !!localStorage.getItem('refreshToken');
+  }
+
+  /**
+   * Revoke the session's access and refresh tokens on the server, then forget them locally.
+   * The stored tokens are cleared whether or not the server could be reached.
+   */
+  logout(): Observable<void> {
+    let headers = new HttpHeaders({ Authorization: `Bearer ${localStorage.getItem('token') ?? ''}` });
+    const refreshToken = localStorage.getItem('refreshToken');
+    if (refreshToken) {
+      headers = headers.set('Refresh-Token', refreshToken);
+    }
+
+    return this.http.post<LoginResponse>(this.logoutUrl, null, { headers }).pipe(
+      map(() => undefined),
+      catchError(error => {
+        console.error('Logout error:', error);
+        return of(undefined);
+      }),
+      tap(() => this.clearSession())
+    );
+  }
+
+  /**
+   * Forget the stored tokens without telling the server, for sessions the server already ended.
+   */
+  clearSession(): void {
     localStorage.removeItem('token');
+    localStorage.removeItem('refreshToken');
     localStorage.removeItem('role');
   }
 
@@ -2,11 +2,13 @@ package com.syncura360;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * The entry point for the Syncura360 Spring application.
  */
 @SpringBootApplication
+@EnableScheduling
 public class Syncura360SpringApplication {
 	public static void main(String[] args) {
 		
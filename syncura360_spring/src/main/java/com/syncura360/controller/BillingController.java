@@ -0,0 +1,56 @@
+package com.syncura360.controller;
+
+import com.syncura360.dto.Billing.ChargeRollupDTO;
+import com.syncura360.dto.GenericMessageResponseDTO;
+import com.syncura360.security.AuthenticatedStaff;
+import com.syncura360.service.BillingService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.format.DateTimeParseException;
+
+/**
+ * Serves hospital-wide charge totals. Bills of single visits are served by the visit endpoints.
+ *
+ * @author Benjamin Leiby
+ */
+@RestController
+@CrossOrigin(origins = "*")
+@RequestMapping("/billing")
+public class BillingController {
+    BillingService billingService;
+
+    /**
+     * Constructor to inject dependencies for the billing controller.
+     *
+     * @param billingService the service that sums the charges.
+     */
+    public BillingController(BillingService billingService) {
+        this.billingService = billingService;
+    }
+
+    /**
+     * Sums the charges of the hospital, which is retrieved using the JWT token, per service and drug category.
+     *
+     * @param principal the authenticated staff member making the request.
+     * @param from start of the window, inclusive; defaults to 30 days before its end.
+     * @param to end of the window, exclusive; defaults to now.
+     * @return a {@link ResponseEntity} containing a {@link ChargeRollupDTO} or an error message.
+     */
+    @GetMapping("/charges")
+    public ResponseEntity<?> getChargeRollup(
+            AuthenticatedStaff principal,
+            @RequestParam(value = "from", required = false) String from,
+            @RequestParam(value = "to", required = false) String to)
+    {
+        ChargeRollupDTO response;
+        try {
+            response = billingService.getChargeRollup(principal.hospitalId(), from, to);
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new GenericMessageResponseDTO(e.getMessage()));
+        }
+
+        return ResponseEntity.status(HttpStatus.OK).body(response);
+    }
+}
@@ -0,0 +1,44 @@
+package com.syncura360.controller;
+
+import com.syncura360.security.VerifiedToken;
+import com.syncura360.service.CensusFeed;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Streams live census changes of the staff member's hospital to dashboards, so they no longer have to poll
+ * the visit and room endpoints.
+ *
+ * @author Benjamin Leiby
+ */
+@RestController
+@CrossOrigin(origins = "*")
+@RequestMapping("/census")
+public class CensusController {
+    CensusFeed censusFeed;
+
+    /**
+     * Constructor to inject dependencies for the census feed.
+     *
+     * @param censusFeed the feed the stream subscribes to.
+     */
+    public CensusController(CensusFeed censusFeed) {
+        this.censusFeed = censusFeed;
+    }
+
+    /**
+     * Opens a server-sent event stream of census deltas for the hospital, which is retrieved using the JWT token.
+     * A client reconnecting with the Last-Event-ID header receives the deltas it missed, or a reset event if it
+     * should reload in full. The stream ends when the access token it was opened with expires.
+     *
+     * @param token the verified access token of the request.
+     * @param lastEventId id of the last event the client received, if it is reconnecting.
+     * @return the emitter the deltas are streamed through.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestAttribute(name = VerifiedToken.REQUEST_ATTRIBUTE) VerifiedToken token,
+                             @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return censusFeed.subscribe(token, lastEventId);
+    }
+}
@@ -6,10 +6,11 @@ import com.syncura360.dto.Drug.DrugFormDTO;
 import com.syncura360.dto.Drug.DrugUpdateDTO;
 import com.syncura360.dto.ErrorConvertor;
 import com.syncura360.dto.GenericMessageResponseDTO;
-import com.syncura360.security.JwtUtil;
+import com.syncura360.security.AuthenticatedStaff;
 import com.syncura360.service.DrugService;
 import jakarta.persistence.EntityExistsException;
 import jakarta.validation.Valid;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
@@ -25,18 +26,15 @@ import org.springframework.web.bind.annotation.*;
 @CrossOrigin(origins = "*")
 @RequestMapping("/drug")
 public class DrugController {
-    JwtUtil jwtUtil;
     DrugService drugService;
 
     /**
      * Constructor for initializing DrugController with required dependencies.
      * Uses constructor injection for necessary components.
      *
-     * @param jwtUtil Used to access jwt claims.
      * @param drugService The service layer used for performing operations related to drugs.
      */
-    public DrugController(JwtUtil jwtUtil, DrugService drugService) {
-        this.jwtUtil = jwtUtil;
+    public DrugController(DrugService drugService) {
         this.drugService = drugService;
     }
 
@@ -44,21 +42,21 @@ public class DrugController {
      * Processes the HTTP request to add a new drug in the system.
      * Validates drug data, and stores it in the database.
      *
-     * @param authorization The authorization token used to identify user making the request.
+     * @param principal The authenticated staff member making the request.
      * @param drugFormDTO DTO containing the details of the drug to be added.
      * @param bindingResult Holds the results of the validation of the {@link DrugFormDTO}. This allows for checking if the data is valid before proceeding.
      * @return A {@link ResponseEntity} containing a {@link GenericMessageResponseDTO} that indicated whether the drug was successfully added or if an error occurred.
      */
     @PostMapping
     public ResponseEntity<GenericMessageResponseDTO> addDrug(
-            @RequestHeader(name="Authorization") String authorization, @Valid @RequestBody DrugFormDTO drugFormDTO, BindingResult bindingResult) {
+            AuthenticatedStaff principal, @Valid @RequestBody DrugFormDTO drugFormDTO, BindingResult bindingResult) {
         // Basic DTO validation
         if (bindingResult.hasErrors()) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new GenericMessageResponseDTO("Invalid request: " + ErrorConvertor.convertErrorsToString(bindingResult)));
         }
 
         // Get the hospital id the logged in staff works at
-        int hospitalId = Integer.parseInt(jwtUtil.getHospitalID(authorization));
+        int hospitalId = principal.hospitalId();
 
         // Attempt to create new drug
         try {
@@ -77,27 +75,29 @@ public class DrugController {
      * Processes the HTTP request to update an existing drug in the system.
      * Validates drug data, and updates it in the database.
      *
-     * @param authorization The authorization token used to identify user making the request.
+     * @param principal The authenticated staff member making the request.
      * @param drugUpdateDTO DTO containing the details of the drug to be updated.
      * @param bindingResult Holds the results of the validation of the {@link DrugUpdateDTO}. This allows for checking if the data is valid before proceeding.
      * @return A {@link ResponseEntity} containing a {@link GenericMessageResponseDTO} that indicated whether the drug was successfully updated or if an error occurred.
      */
     @PutMapping
     public ResponseEntity<GenericMessageResponseDTO> modifyDrug(
-            @RequestHeader(name="Authorization") String authorization, @Valid @RequestBody DrugUpdateDTO drugUpdateDTO, BindingResult bindingResult) {
+            AuthenticatedStaff principal, @Valid @RequestBody DrugUpdateDTO drugUpdateDTO, BindingResult bindingResult) {
         // Basic DTO validation
         if (bindingResult.hasErrors()) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new GenericMessageResponseDTO("Invalid request: " + ErrorConvertor.convertErrorsToString(bindingResult)));
         }
 
         // Get the hospital id the logged in staff works at
-        int hospitalId = Integer.parseInt(jwtUtil.getHospitalID(authorization));
+        int hospitalId = principal.hospitalId();
 
         // Attempt to update the existing drug
         try {
             drugService.updateDrug(hospitalId, drugUpdateDTO);
         } catch (EntityExistsException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new GenericMessageResponseDTO(e.getMessage()));
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new GenericMessageResponseDTO("The drug was changed since it was loaded, please reload and try again."));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new GenericMessageResponseDTO("An unexpected error occurred."));
         }
@@ -110,21 +110,21 @@ public class DrugController {
      * Processes the HTTP request to delete an existing drug in the system.
      * Validates drug data, and removes it from the database.
      *
-     * @param authorization The authorization token used to identify user making the request.
+     * @param principal The authenticated staff member making the request.
      * @param drugDeletionDTO DTO containing the details of the drug to be removed.
      * @param bindingResult Holds the results of the validation of the {@link DrugDeletionDTO}. This allows for checking if the data is valid before proceeding.
      * @return A {@link ResponseEntity} containing a {@link GenericMessageResponseDTO} that indicated whether the drug was successfully deleted or if an error occurred.
      */
     @DeleteMapping
     public ResponseEntity<GenericMessageResponseDTO> removeDrug(
-            @RequestHeader(name="Authorization") String authorization, @Valid @RequestBody DrugDeletionDTO drugDeletionDTO, BindingResult bindingResult) {
+            AuthenticatedStaff principal, @Valid @RequestBody DrugDeletionDTO drugDeletionDTO, BindingResult bindingResult) {
         // Basic DTO validation
         if (bindingResult.hasErrors()) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new GenericMessageResponseDTO("Invalid request: " + ErrorConvertor.convertErrorsToString(bindingResult)));
         }
 
         // Get the hospital id the logged in staff works at
-        int hospitalId = Integer.parseInt(jwtUtil.getHospitalID(authorization));
+        int hospitalId = principal.hospitalId();
 
         // Attempt to delete the existing drug
         try {
@@ -142,13 +142,13 @@ public class DrugController {
     /**
      * Fetches a list of drugs from the inventory.
      *
-     * @param authorization The authorization token used to identify user making the request.
+     * @param principal The authenticated staff member making the request.
      * @return A {@link ResponseEntity} containing a {@link DrugFetchListDTO} with a list of drugs. Only sends necessary information contained in {@link DrugFormDTO}.
      */
     @GetMapping
-    public ResponseEntity<DrugFetchListDTO> getDrugs(@RequestHeader(name="Authorization") String authorization) {
+    public ResponseEntity<DrugFetchListDTO> getDrugs(AuthenticatedStaff principal) {
         // Get the hospital id the logged in staff works at
-        int hospitalId = Integer.parseInt(jwtUtil.getHospitalID(authorization));
+        int hospitalId = principal.hospitalId();
 
         // Retrieve the list of all the drugs at this hospital
         DrugFetchListDTO drugListDTO = drugService.fetchDrugs(hospitalId);
@@ -1,34 +1,45 @@
 package com.syncura360.controller;
 
 import com.syncura360.dto.Authentication.LoginInfo;
-import com.syncura360.model.Staff;
-import com.syncura360.repository.StaffRepository;
+import com.syncura360.security.HashingCapacityException;
 import com.syncura360.security.JwtUtil;
+import com.syncura360.security.RefreshToken;
+import com.syncura360.security.StaffDetailsService;
+import com.syncura360.security.StaffUserDetails;
+import com.syncura360.security.TokenRevocationService;
+import com.syncura360.security.VerifiedToken;
+import io.jsonwebtoken.JwtException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
 import java.util.NoSuchElementException;
-import java.util.Optional;
 
 /**
- * Handles all incoming login requests.
+ * Handles all incoming login requests, token refreshes and logouts.
+ * <p>
+ * A login returns a short-lived access token in the Authorization header and a refresh token in the
+ * {@value #REFRESH_TOKEN_HEADER} header. Refreshing rotates the refresh token, and logging out revokes both.
  *
  * @author Benjamin Leiby
  */
 @RestController
 @CrossOrigin(origins = "*")
 public class LoginController {
+    public static final String REFRESH_TOKEN_HEADER = "Refresh-Token";
+
     JwtUtil jwtUtil;
     private final AuthenticationManager authenticationManager;
-
-    StaffRepository staffRepository;
+    StaffDetailsService staffDetailsService;
+    TokenRevocationService tokenRevocationService;
 
     /**
      * Constructor for initializing LoginController with required dependencies.
@@ -36,12 +47,15 @@ public class LoginController {
      *
      * @param jwtUtil Used to add jwt details for logged-in user.
      * @param authenticationManager Used to authenticate the user trying to log in.
-     * @param staffRepository The repository used to access user details.
+     * @param staffDetailsService Used to reload the role and hospital when refreshing.
+     * @param tokenRevocationService Used to check and revoke tokens.
      */
-    public LoginController(JwtUtil jwtUtil, AuthenticationManager authenticationManager, StaffRepository staffRepository) {
+    public LoginController(JwtUtil jwtUtil, AuthenticationManager authenticationManager,
+                           StaffDetailsService staffDetailsService, TokenRevocationService tokenRevocationService) {
         this.jwtUtil = jwtUtil;
         this.authenticationManager = authenticationManager;
-        this.staffRepository = staffRepository;
+        this.staffDetailsService = staffDetailsService;
+        this.tokenRevocationService = tokenRevocationService;
     }
 
     /**
@@ -68,22 +82,26 @@ public class LoginController {
             // Throws no element exception if the credentials are not linked to a role (has no permissions).
             role = authentication.getAuthorities().iterator().next().getAuthority();
 
-            // Get the hospital ID where the staff works
-            Optional<Staff> staff = staffRepository.findByUsername(loginInfo.getUsername());
-            if (staff.isEmpty()) {
+            // Get the hospital ID where the staff works, already loaded during authentication
+            if (!(authentication.getPrincipal() instanceof StaffUserDetails staff)) {
                 responseMessage = "Unable to load staff's details.";
                 role = "None";
                 return ResponseEntity.status(responseType).headers(headers).body(new LoginResponse(responseMessage, role));
             }
-            String hospitalID = staff.get().getWorksAt().getId().toString();
+            String hospitalID = String.valueOf(staff.hospitalId());
 
-            String token = jwtUtil.generateJwtToken(authentication.getName(), role, hospitalID);
-            headers.add(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+            addTokens(headers, authentication.getName(), role, hospitalID);
 
             responseType = HttpStatus.OK;
             responseMessage = "Authentication successful.";
 
         }
+        catch (HashingCapacityException e) { return serverBusy(e); }
+        catch (InternalAuthenticationServiceException e) {
+            // Capacity rejections raised while loading the user arrive wrapped
+            if (e.getCause() instanceof HashingCapacityException capacityException) { return serverBusy(capacityException); }
+            responseMessage = "Failed: Invalid credentials.";
+        }
         catch (AuthenticationException e) { responseMessage = "Failed: Invalid credentials."; }
         catch (NoSuchElementException e) { responseMessage = "Failed: User access denied."; }
 
@@ -91,6 +109,100 @@ public class LoginController {
 
     }
 
+    /**
+     * Exchanges a refresh token for a new access token and a new refresh token.
+     * <p>
+     * The role and hospital are reloaded so that changes apply at the next refresh, and the used
+     * refresh token is revoked so it cannot be replayed. New tokens are only issued if that revocation
+     * was made by this request, so concurrent refreshes with the same token cannot both succeed.
+     *
+     * @param refreshToken The refresh token issued at login or at the previous refresh.
+     * @return {@link LoginResponse} DTO containing message and the staff member's role.
+     */
+    @PostMapping("/login/refresh")
+    public ResponseEntity<LoginResponse> refresh(@RequestHeader(name = REFRESH_TOKEN_HEADER) String refreshToken) {
+
+        HttpHeaders headers = new HttpHeaders();
+        StaffUserDetails staff;
+
+        try {
+
+            RefreshToken token = jwtUtil.verifyRefresh(refreshToken);
+            if (tokenRevocationService.isRevoked(token)) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(new LoginResponse("Failed: Token has been revoked.", "None"));
+            }
+
+            staff = (StaffUserDetails) staffDetailsService.loadUserByUsername(token.username());
+
+            // Rotate: the used refresh token cannot be presented again
+            if (!tokenRevocationService.revokeTokenOnce(token.tokenId(), token.expiresAt())) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(new LoginResponse("Failed: Token has been revoked.", "None"));
+            }
+            addTokens(headers, staff.username(), staff.role(), String.valueOf(staff.hospitalId()));
+
+        }
+        catch (JwtException e) { return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(new LoginResponse("Failed: Invalid refresh token.", "None")); }
+        catch (UsernameNotFoundException e) { return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(new LoginResponse("Failed: User access denied.", "None")); }
+
+        return ResponseEntity.status(HttpStatus.OK).headers(headers).body(new LoginResponse("Refresh successful.", staff.role()));
+
+    }
+
+    /**
+     * Revokes the caller's access token and, if given, their refresh token.
+     *
+     * @param accessToken The caller's verified access token.
+     * @param refreshToken The caller's refresh token, if they have one.
+     * @return {@link LoginResponse} DTO containing message.
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<LoginResponse> logout(
+            @RequestAttribute(name = VerifiedToken.REQUEST_ATTRIBUTE) VerifiedToken accessToken,
+            @RequestHeader(name = REFRESH_TOKEN_HEADER, required = false) String refreshToken) {
+
+        tokenRevocationService.revokeToken(accessToken.tokenId(), accessToken.expiresAt());
+
+        if (refreshToken != null) {
+            try {
+                RefreshToken token = jwtUtil.verifyRefresh(refreshToken);
+                // Only the owner may revoke a refresh token this way
+                if (token.username().equals(accessToken.staff().username())) {
+                    tokenRevocationService.revokeToken(token.tokenId(), token.expiresAt());
+                }
+            } catch (JwtException ignored) {
+                // Already expired or invalid, nothing to revoke
+            }
+        }
+
+        return ResponseEntity.status(HttpStatus.OK).body(new LoginResponse("Logout successful.", "None"));
+
+    }
+
+    /**
+     * Issues an access token and a refresh token into the response headers.
+     *
+     * @param headers Response headers to add the tokens to.
+     * @param username The staff member's username.
+     * @param role The staff member's role.
+     * @param hospitalID The id of the hospital the staff member works at.
+     */
+    private void addTokens(HttpHeaders headers, String username, String role, String hospitalID) {
+        headers.add(HttpHeaders.AUTHORIZATION, "Bearer " + jwtUtil.generateAccessToken(username, role, hospitalID));
+        headers.add(REFRESH_TOKEN_HEADER, jwtUtil.generateRefreshToken(username));
+    }
+
+    /**
+     * Builds the 503 response returned when password hashing capacity is exhausted.
+     *
+     * @param e The rejection, carrying how long the client should wait.
+     * @return {@link LoginResponse} with a Retry-After header.
+     */
+    private ResponseEntity<LoginResponse> serverBusy(HashingCapacityException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(new LoginResponse("Failed: Server is busy, please try again shortly.", "None"));
+    }
+
     /**
      * DTO for login response.
      *
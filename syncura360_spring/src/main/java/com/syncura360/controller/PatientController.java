@@ -10,6 +10,8 @@ import com.syncura360.service.PatientService;
 import jakarta.persistence.EntityExistsException;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
@@ -25,6 +27,8 @@ import org.springframework.web.bind.annotation.*;
 @CrossOrigin(origins = "*")
 @RequestMapping("/patient")
 public class PatientController {
+    private static final Logger log = LoggerFactory.getLogger(PatientController.class);
+
     PatientService patientService;
 
     /**
@@ -58,7 +62,7 @@ public class PatientController {
         } catch (EntityExistsException | EntityNotFoundException | IllegalArgumentException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new GenericMessageResponseDTO(e.getMessage()));
         } catch (Exception e) {
-            System.out.println(e.getMessage());
+            log.error("Failed to create patient", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new GenericMessageResponseDTO("An unexpected error occurred."));
         }
 
@@ -88,7 +92,7 @@ public class PatientController {
         } catch (EntityExistsException | EntityNotFoundException | IllegalArgumentException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new GenericMessageResponseDTO(e.getMessage()));
         } catch (Exception e) {
-            System.out.println(e.getMessage());
+            log.error("Failed to update patient", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new GenericMessageResponseDTO("An unexpected error occurred."));
         }
 
@@ -1,64 +1,232 @@
 package com.syncura360.controller;
 
+import com.syncura360.dto.Billing.BillDTO;
+import com.syncura360.dto.GenericMessageResponseDTO;
+import com.syncura360.dto.Visit.NotePageDTO;
 import com.syncura360.dto.Visit.RecordDTO;
+import com.syncura360.dto.Visit.RecordPageDTO;
+import com.syncura360.dto.Visit.TimelinePageDTO;
 import com.syncura360.dto.Visit.VisitDetailsDTO;
 import com.syncura360.dto.Visit.VisitListDTO;
-import com.syncura360.security.JwtUtil;
+import com.syncura360.model.Visit;
+import com.syncura360.security.AuthenticatedStaff;
+import com.syncura360.service.BillingService;
 import com.syncura360.service.VisitService;
+import com.syncura360.service.VisitTimelineService;
+import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.constraints.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.UncheckedIOException;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Optional;
 
 @RestController
 @CrossOrigin(origins="*")
 @RequestMapping("/record")
 public class RecordController {
+    private static final Logger log = LoggerFactory.getLogger(RecordController.class);
 
-    @Autowired
-    JwtUtil jwtUtil;
     @Autowired
     VisitService visitService;
+    @Autowired
+    VisitTimelineService visitTimelineService;
+    @Autowired
+    BillingService billingService;
 
+    /**
+     * Get one page of discharged visits, newest discharge first.
+     * When more records exist, the cursor for the next page is returned in the X-Next-Cursor header.
+     * @param principal Authenticated staff member.
+     * @param limit Maximum number of records.
+     * @param after Cursor from the previous page's X-Next-Cursor header.
+     * @param dischargedFrom Optional earliest discharge date time.
+     * @param dischargedTo Optional latest discharge date time.
+     * @param patientId Optional patient to restrict to.
+     * @param name Optional fragment of the patient's first or last name.
+     * @return List of RecordDTO.
+     */
     @GetMapping
-    public ResponseEntity<List<RecordDTO>> getRecords(@RequestHeader(name="Authorization") String authorization) {
-
-        int hospitalId = Integer.parseInt(jwtUtil.getHospitalID(authorization));
+    public ResponseEntity<List<RecordDTO>> getRecords(
+            AuthenticatedStaff principal,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "dischargedFrom", required = false) String dischargedFrom,
+            @RequestParam(value = "dischargedTo", required = false) String dischargedTo,
+            @RequestParam(value = "patientId", required = false) Integer patientId,
+            @RequestParam(value = "name", required = false) String name)
+    {
+        int hospitalId = principal.hospitalId();
 
-        List<RecordDTO> response;
+        RecordPageDTO page;
         try {
-            response = visitService.getRecords(hospitalId);
+            page = visitService.getRecords(hospitalId, limit, after, dischargedFrom, dischargedTo, patientId, name);
         } catch (NoSuchElementException e) {
             return ResponseEntity.status(HttpStatus.NO_CONTENT).body(new ArrayList<>());
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ArrayList<>());
         }
 
-        return ResponseEntity.status(HttpStatus.OK).body(response);
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.OK);
+        if (page.getNextCursor() != null) {
+            response.header("X-Next-Cursor", page.getNextCursor());
+        }
+        return response.body(page.getRecords());
     }
 
-
     @GetMapping("/{patientId}/{dateTime}")
     public ResponseEntity<VisitDetailsDTO> getRecordDetails(
-            @RequestHeader(name="Authorization") String authorization,
+            AuthenticatedStaff principal,
             @NotNull @PathVariable("patientId") int patientId,
-            @NotNull @PathVariable("dateTime") String dateTime)
+            @NotNull @PathVariable("dateTime") String dateTime,
+            WebRequest webRequest)
     {
-        int hospitalId = Integer.parseInt(jwtUtil.getHospitalID(authorization));
+        int hospitalId = principal.hospitalId();
 
         VisitDetailsDTO response;
+        String eTag;
         try {
-            response = new VisitDetailsDTO();
-            response.setTimeline(visitService.getTimeline(hospitalId, patientId, dateTime, true));
-            response.setVisitNote(visitService.getNote(hospitalId, patientId, dateTime, true));
-        } catch (NoSuchElementException e) {
+            // Records frozen at discharge are served whole from their snapshot
+            Optional<VisitService.RecordSnapshot> snapshot = readSnapshot(hospitalId, patientId, dateTime);
+            if (snapshot.isPresent()) {
+                eTag = snapshot.get().eTag();
+                if (webRequest.checkNotModified(eTag)) {
+                    return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+                }
+                return ResponseEntity.status(HttpStatus.OK).eTag(eTag).body(snapshot.get().record().getDetails());
+            }
+
+            // The visit row alone decides the ETag, so an unchanged visit is answered before any timeline query
+            Visit visit = visitService.findVisit(hospitalId, patientId, dateTime, true);
+            eTag = VisitService.eTagOf(visit);
+            if (webRequest.checkNotModified(eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+            }
+            response = visitService.getVisitDetails(hospitalId, visit, true);
+        } catch (EntityNotFoundException | NoSuchElementException e) {
             return ResponseEntity.status(HttpStatus.NO_CONTENT).body(new VisitDetailsDTO());
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new VisitDetailsDTO());
+        }
+
+        return ResponseEntity.status(HttpStatus.OK).eTag(eTag).body(response);
+    }
+
+    /**
+     * Get the bill of a discharged visit, as frozen at discharge.
+     * @param principal Authenticated staff member.
+     * @param patientId ID of patient for record lookup.
+     * @param dateTime Admission date time for record lookup.
+     * @return BillDTO holding the charges of the visit.
+     */
+    @GetMapping("/{patientId}/{dateTime}/bill")
+    public ResponseEntity<?> getBill(
+            AuthenticatedStaff principal,
+            @NotNull @PathVariable("patientId") int patientId,
+            @NotNull @PathVariable("dateTime") String dateTime)
+    {
+        int hospitalId = principal.hospitalId();
+
+        BillDTO response;
+        try {
+            Optional<VisitService.RecordSnapshot> snapshot = readSnapshot(hospitalId, patientId, dateTime);
+            if (snapshot.isPresent()) {
+                response = snapshot.get().record().getBill();
+            } else {
+                // Not frozen yet; archived records can only be billed from their snapshot
+                Visit visit = visitService.findVisit(hospitalId, patientId, dateTime, true);
+                if (visit.isArchived()) {
+                    return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new GenericMessageResponseDTO("No bill kept for this record."));
+                }
+                response = billingService.getBill(hospitalId, visit);
+            }
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new GenericMessageResponseDTO(e.getMessage()));
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new GenericMessageResponseDTO(e.getMessage()));
         }
 
         return ResponseEntity.status(HttpStatus.OK).body(response);
     }
 
+    /**
+     * Get one page of the record timeline, oldest first.
+     * @param principal Authenticated staff member.
+     * @param limit Maximum number of events in the page.
+     * @param after Cursor returned as nextCursor; continues forward from it.
+     * @param before Cursor returned as previousCursor; continues backward from it.
+     * @param since Only include events at or after this date time.
+     * @return TimelinePageDTO holding the page and its cursors.
+     */
+    @GetMapping("/{patientId}/{dateTime}/timeline")
+    public ResponseEntity<?> getTimelinePage(
+            AuthenticatedStaff principal,
+            @NotNull @PathVariable("patientId") int patientId,
+            @NotNull @PathVariable("dateTime") String dateTime,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "before", required = false) String before,
+            @RequestParam(value = "since", required = false) String since)
+    {
+        int hospitalId = principal.hospitalId();
+
+        TimelinePageDTO response;
+        try {
+            response = visitTimelineService.getTimelinePage(hospitalId, patientId, dateTime, true, limit, after, before, since);
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new GenericMessageResponseDTO(e.getMessage()));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new GenericMessageResponseDTO(e.getMessage()));
+        }
+
+        return ResponseEntity.status(HttpStatus.OK).body(response);
+    }
+
+    /**
+     * Get one page of the record note entries, newest first.
+     * @param principal Authenticated staff member.
+     * @param limit Maximum number of entries in the page.
+     * @param before Cursor returned as nextCursor; continues with older entries.
+     * @return NotePageDTO holding the page and the cursor of the next one.
+     */
+    @GetMapping("/{patientId}/{dateTime}/notes")
+    public ResponseEntity<?> getNotePage(
+            AuthenticatedStaff principal,
+            @NotNull @PathVariable("patientId") int patientId,
+            @NotNull @PathVariable("dateTime") String dateTime,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "before", required = false) String before)
+    {
+        int hospitalId = principal.hospitalId();
+
+        NotePageDTO response;
+        try {
+            response = visitService.getNotes(hospitalId, patientId, dateTime, true, limit, before);
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new GenericMessageResponseDTO(e.getMessage()));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new GenericMessageResponseDTO(e.getMessage()));
+        }
+
+        return ResponseEntity.status(HttpStatus.OK).body(response);
+    }
+
+    // A snapshot that no longer decodes is treated as missing, so the record is rebuilt from its rows instead
+    private Optional<VisitService.RecordSnapshot> readSnapshot(int hospitalId, int patientId, String dateTime) {
+        try {
+            return visitService.findRecordSnapshot(hospitalId, patientId, dateTime);
+        } catch (UncheckedIOException e) {
+            log.warn("Unreadable snapshot of the record of patient {} admitted {}, rebuilding it", patientId, dateTime, e);
+            return Optional.empty();
+        }
+    }
 }
@@ -7,9 +7,12 @@ import com.syncura360.model.enums.TraumaLevel;
 import com.syncura360.repository.HospitalRepository;
 import com.syncura360.dto.Authentication.RegistrationInfo;
 import com.syncura360.repository.StaffRepository;
-import com.syncura360.security.passwordSecurity;
+import com.syncura360.security.HashingCapacityException;
 import com.syncura360.dto.Hospital.HospitalCreationDto;
 import com.syncura360.dto.Staff.StaffCreationDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -26,18 +29,23 @@ import jakarta.validation.Valid;
 @CrossOrigin(origins = "*")
 @RequestMapping("/register")
 public class RegController {
+    private static final Logger log = LoggerFactory.getLogger(RegController.class);
+
     HospitalRepository hospitalRepository;
     StaffRepository staffRepository;
+    PasswordEncoder passwordEncoder;
 
     /**
      * Constructor to inject dependencies for hospital and staff repositories.
      *
      * @param hospitalRepository the repository for accessing hospital data.
      * @param staffRepository the repository for accessing staff data.
+     * @param passwordEncoder the admission-controlled encoder used to hash the head admin's password.
      */
-    public RegController(HospitalRepository hospitalRepository, StaffRepository staffRepository) {
+    public RegController(HospitalRepository hospitalRepository, StaffRepository staffRepository, PasswordEncoder passwordEncoder) {
         this.hospitalRepository = hospitalRepository;
         this.staffRepository = staffRepository;
+        this.passwordEncoder = passwordEncoder;
     }
 
     /**
@@ -58,9 +66,6 @@ public class RegController {
         HospitalCreationDto hospitalCreationDto = regInfo.getHospital();
         StaffCreationDto headAdminCreationDto = regInfo.getStaff();
 
-        System.out.println(hospitalCreationDto.toString());
-
-
         // Check for unique values. Not sure exactly which values we should be checking for, but we can decide soon.
         if (!hospitalRepository.addressLine1(hospitalCreationDto.getAddressLine1()).isEmpty()) { responseMessage = "Failed: Hospital address is taken.";}
         else if (!hospitalRepository.findByTelephone(hospitalCreationDto.getTelephone()).isEmpty()) { responseMessage = "Failed: Hospital phone is taken."; }
@@ -75,7 +80,7 @@ public class RegController {
                 hospitalRepository.save(hospital);
             } catch (Exception e) {
 
-                System.out.println(e.getMessage());
+                log.error("Failed to save hospital during registration", e);
 
                 responseType = HttpStatus.INTERNAL_SERVER_ERROR;
                 responseMessage = "Failed. Error saving hospital to database.";
@@ -83,8 +88,13 @@ public class RegController {
             }
 
             try {
-                staff = getStaff(headAdminCreationDto, hospital);
+                staff = getStaff(headAdminCreationDto, hospital, passwordEncoder);
                 staffRepository.save(staff);
+            } catch (HashingCapacityException e) {
+                hospitalRepository.delete(hospital);
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                        .body("Failed: Server is busy, please try again shortly.");
             } catch (Exception e) {
                 hospitalRepository.delete(hospital); // VERY IMPORTANT. Roll back hospital creation if user creation fails.
                 responseType = HttpStatus.INTERNAL_SERVER_ERROR;
@@ -107,10 +117,10 @@ public class RegController {
      *
      * @param headAdminCreationDto DTO containing head admin registration information.
      * @param hospital the hospital entity to associate the staff with.
+     * @param encoder the encoder used to hash the head admin's password.
      * @return a {@link Staff} entity populated with the provided details.
      */
-    private static Staff getStaff(StaffCreationDto headAdminCreationDto, Hospital hospital) {
-        PasswordEncoder encoder = passwordSecurity.getPasswordEncoder();
+    private static Staff getStaff(StaffCreationDto headAdminCreationDto, Hospital hospital, PasswordEncoder encoder) {
         Staff staff = new Staff();
         staff.setUsername(headAdminCreationDto.getUsername());
         staff.setPasswordHash(encoder.encode(headAdminCreationDto.getPasswordHash()));
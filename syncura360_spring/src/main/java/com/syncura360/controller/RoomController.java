@@ -3,7 +3,7 @@ package com.syncura360.controller;
 import com.syncura360.dto.ErrorConvertor;
 import com.syncura360.dto.GenericMessageResponseDTO;
 import com.syncura360.dto.Room.*;
-import com.syncura360.security.JwtUtil;
+import com.syncura360.security.AuthenticatedStaff;
 import com.syncura360.service.RoomService;
 import jakarta.persistence.EntityExistsException;
 import jakarta.persistence.EntityNotFoundException;
@@ -26,17 +26,14 @@ import java.util.List;
 @CrossOrigin(origins = "*")
 @RequestMapping("/room")
 public class RoomController {
-    JwtUtil jwtUtil;
     RoomService roomService;
 
     /**
-     * Constructor to inject dependencies for JWT utility and room service.
+     * Constructor to inject dependencies for the room service.
      *
-     * @param jwtUtil the utility class for handling JWT token validation and extraction.
      * @param roomService the service class for managing room-related operations.
      */
-    public RoomController(JwtUtil jwtUtil, RoomService roomService) {
-        this.jwtUtil = jwtUtil;
+    public RoomController(RoomService roomService) {
         this.roomService = roomService;
     }
 
@@ -45,21 +42,21 @@ public class RoomController {
      * This method validates the room data and creates the room for the relevant hospital,
      * which is retrieved using the JWT token.
      *
-     * @param authorization the JWT authorization token to authenticate the logged-in staff.
+     * @param principal the authenticated staff member making the request.
      * @param roomFormDTO the data transfer object containing the room details to be added.
      * @param bindingResult the result of the validation of the room form data.
      * @return a {@link ResponseEntity} containing a response message with a status code indicating the result.
      */
     @PostMapping
     public ResponseEntity<GenericMessageResponseDTO> addRoom(
-            @RequestHeader(name="Authorization") String authorization, @Valid @RequestBody RoomFormDTO roomFormDTO, BindingResult bindingResult) {
+            AuthenticatedStaff principal, @Valid @RequestBody RoomFormDTO roomFormDTO, BindingResult bindingResult) {
         // Basic DTO validation
         if (bindingResult.hasErrors()) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new GenericMessageResponseDTO("Invalid request: " + ErrorConvertor.convertErrorsToString(bindingResult)));
         }
 
         // Get the hospital id the logged in staff works at
-        int hospitalId = Integer.parseInt(jwtUtil.getHospitalID(authorization));
+        int hospitalId = principal.hospitalId();
 
         // Attempt to create new room
         try {
@@ -79,21 +76,21 @@ public class RoomController {
      * This method validates the room data and updates the room information for the relevant hospital,
      * using the hospital ID from the JWT token.
      *
-     * @param authorization the JWT authorization token to authenticate the logged-in staff.
+     * @param principal the authenticated staff member making the request.
      * @param roomUpdateDTO the data transfer object containing the updated room details.
      * @param bindingResult the result of the validation of the room update data.
      * @return a {@link ResponseEntity} containing a response message with a status code indicating the result.
      */
     @PutMapping
     public ResponseEntity<GenericMessageResponseDTO> modifyRoom(
-            @RequestHeader(name="Authorization") String authorization, @Valid @RequestBody RoomUpdateDTO roomUpdateDTO, BindingResult bindingResult) {
+            AuthenticatedStaff principal, @Valid @RequestBody RoomUpdateDTO roomUpdateDTO, BindingResult bindingResult) {
         // Basic DTO validation
         if (bindingResult.hasErrors()) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new GenericMessageResponseDTO("Invalid request: " + ErrorConvertor.convertErrorsToString(bindingResult)));
         }
 
         // Get the hospital id the logged in staff works at
-        int hospitalId = Integer.parseInt(jwtUtil.getHospitalID(authorization));
+        int hospitalId = principal.hospitalId();
 
         // Attempt to update the existing room
         try {
@@ -113,21 +110,21 @@ public class RoomController {
      * This method validates the room deletion request and deletes the room from the relevant hospital,
      * identified using the JWT token.
      *
-     * @param authorization the JWT authorization token to authenticate the logged-in staff.
+     * @param principal the authenticated staff member making the request.
      * @param roomDeletionDTO the data transfer object containing the details of the room to be deleted.
      * @param bindingResult the result of the validation of the room deletion data.
      * @return a {@link ResponseEntity} containing a response message with a status code indicating the result.
      */
     @DeleteMapping
     public ResponseEntity<GenericMessageResponseDTO> removeRoom(
-            @RequestHeader(name="Authorization") String authorization, @Valid @RequestBody RoomDeletionDTO roomDeletionDTO, BindingResult bindingResult) {
+            AuthenticatedStaff principal, @Valid @RequestBody RoomDeletionDTO roomDeletionDTO, BindingResult bindingResult) {
         // Basic DTO validation
         if (bindingResult.hasErrors()) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new GenericMessageResponseDTO("Invalid request: " + ErrorConvertor.convertErrorsToString(bindingResult)));
         }
 
         // Get the hospital id the logged in staff works at
-        int hospitalId = Integer.parseInt(jwtUtil.getHospitalID(authorization));
+        int hospitalId = principal.hospitalId();
 
         // Attempt to delete the existing room
         try {
@@ -148,14 +145,14 @@ public class RoomController {
      * or fetches all the rooms in the hospital if no specific room is requested.
      * The hospital ID is retrieved from the JWT token.
      *
-     * @param authorization the JWT authorization token to authenticate the logged-in staff.
+     * @param principal the authenticated staff member making the request.
      * @param roomFetchRequestDTO the optional data transfer object containing room search criteria.
      * @param bindingResult the result of the validation of the room fetch data.
      * @return a {@link ResponseEntity} containing a response message and a list of rooms or specific room details.
      */
     @GetMapping
     public ResponseEntity<RoomFetchContainerDTO> getRooms(
-            @RequestHeader(name="Authorization") String authorization, @Valid @RequestBody(required = false) RoomFetchRequestDTO roomFetchRequestDTO, BindingResult bindingResult) {
+            AuthenticatedStaff principal, @Valid @RequestBody(required = false) RoomFetchRequestDTO roomFetchRequestDTO, BindingResult bindingResult) {
         // Response container
         RoomFetchContainerDTO roomFetchContainerDTO = new RoomFetchContainerDTO();
 
@@ -166,7 +163,7 @@ public class RoomController {
         }
 
         // Get the hospital id the logged in staff works at
-        int hospitalId = Integer.parseInt(jwtUtil.getHospitalID(authorization));
+        int hospitalId = principal.hospitalId();
 
         // Check if a specific room is requested
         if (roomFetchRequestDTO != null && roomFetchRequestDTO.getRoomName() != null && !roomFetchRequestDTO.getRoomName().trim().isEmpty()) {
@@ -7,7 +7,7 @@ import com.syncura360.model.ScheduleId;
 import com.syncura360.model.Staff;
 import com.syncura360.repository.ScheduleRepository;
 import com.syncura360.repository.StaffRepository;
-import com.syncura360.security.JwtUtil;
+import com.syncura360.security.AuthenticatedStaff;
 import com.syncura360.service.ScheduleService;
 import jakarta.transaction.Transactional;
 import jakarta.validation.Valid;
@@ -36,7 +36,6 @@ public class ScheduleController {
     StaffRepository staffRepository;
     ScheduleRepository scheduleRepository;
     ScheduleService scheduleService;
-    JwtUtil jwtUtil;
 
     /**
      * Constructor to inject dependencies of the ScheduleController.
@@ -44,19 +43,17 @@ public class ScheduleController {
      * @param staffRepository the repository for accessing staff data.
      * @param scheduleRepository the repository for accessing scheduling data.
      * @param scheduleService the service for managing schedules.
-     * @param jwtUtil utility class for working with JWT tokens.
      */
-    public ScheduleController(StaffRepository staffRepository, ScheduleRepository scheduleRepository, ScheduleService scheduleService, JwtUtil jwtUtil) {
+    public ScheduleController(StaffRepository staffRepository, ScheduleRepository scheduleRepository, ScheduleService scheduleService) {
         this.staffRepository = staffRepository;
         this.scheduleRepository = scheduleRepository;
         this.scheduleService = scheduleService;
-        this.jwtUtil = jwtUtil;
     }
 
     /**
      * Retrieves the schedule for a specific staff member based on the provided time range.
      *
-     * @param authorization the JWT token for authentication.
+     * @param principal the authenticated staff member making the request.
      * @param staffScheduleRequestDTO the data transfer object (DTO) that contains the schedule request details.
      * @param bindingResult the result of the validation of the input data.
      * @return a {@link ResponseEntity} containing a {@link ScheduleDto} with the staff's schedule or error message.
@@ -64,14 +61,14 @@ public class ScheduleController {
     @PostMapping("/staff")
     @Transactional
     public ResponseEntity<ScheduleDto> getStaffSchedule(
-            @RequestHeader(name="Authorization") String authorization,
+            AuthenticatedStaff principal,
             @Valid @RequestBody StaffScheduleRequestDTO staffScheduleRequestDTO,
             BindingResult bindingResult) {
 
         List<ShiftDto> scheduledShifts;
         LocalDateTime start, end;
-        int hospitalId = Integer.parseInt(jwtUtil.getHospitalID(authorization));
-        String username = jwtUtil.getUsername(authorization);
+        int hospitalId = principal.hospitalId();
+        String username = principal.username();
 
         if (bindingResult.hasErrors()) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ScheduleDto("Invalid request: " + ErrorConvertor.convertErrorsToString(bindingResult)));
@@ -104,18 +101,18 @@ public class ScheduleController {
     /**
      * Updates the shifts for a given set of shifts.
      *
-     * @param authorization the JWT token for authentication.
+     * @param principal the authenticated staff member making the request.
      * @param shiftUpdateRequestDto the DTO containing the details of the shifts to update.
      * @return a {@link ResponseEntity} containing a {@link MessageResponse} with the result of the operation.
      */
     @PutMapping
     @Transactional
     public ResponseEntity<MessageResponse> updateShifts(
-            @RequestHeader(name="Authorization") String authorization,
+            AuthenticatedStaff principal,
             @RequestBody ShiftUpdateRequestDto shiftUpdateRequestDto)
     {
 
-        int hospitalId = Integer.parseInt(jwtUtil.getHospitalID(authorization));
+        int hospitalId = principal.hospitalId();
 
         try {
 
@@ -150,20 +147,20 @@ public class ScheduleController {
     /**
      * Retrieves all shifts based on the specified time range and search criteria.
      *
-     * @param authorization the JWT token for authentication.
+     * @param principal the authenticated staff member making the request.
      * @param shiftDto the DTO containing the search criteria for the shifts.
      * @return a {@link ResponseEntity} containing a {@link ScheduleDto} with the list of shifts or error message.
      */
     @PostMapping
     @Transactional
     public ResponseEntity<ScheduleDto> getAllShifts(
-            @RequestHeader(name="Authorization") String authorization,
+            AuthenticatedStaff principal,
             @RequestBody ShiftDto shiftDto)
     {
 
         LocalDateTime start, end;
         List<ShiftDto> dtoList;
-        int hospitalId = Integer.parseInt(jwtUtil.getHospitalID(authorization));
+        int hospitalId = principal.hospitalId();
 
         try {
 
@@ -189,20 +186,20 @@ public class ScheduleController {
     /**
      * Attempts to add a list of new shifts to the schedule.
      *
-     * @param authorization the JWT token for authentication.
+     * @param principal the authenticated staff member making the request.
      * @param newShiftsRequest the DTO containing the list of new shifts.
      * @return a {@link ResponseEntity} containing a {@link MessageResponse} with the success or failure message.
      */
     @PostMapping("/new")
     @Transactional
     public ResponseEntity<MessageResponse> addShifts(
-            @RequestHeader(name="Authorization") String authorization,
+            AuthenticatedStaff principal,
             @RequestBody ShiftsRequest newShiftsRequest)
     {
 
         LocalDateTime start, end;
         List<Schedule> shifts = new ArrayList<>();
-        int hospitalId = Integer.parseInt(jwtUtil.getHospitalID(authorization));
+        int hospitalId = principal.hospitalId();
 
         for (ShiftDto dto : newShiftsRequest.getShifts()) {
 
@@ -240,19 +237,19 @@ public class ScheduleController {
     /**
      * Attempts to delete a list of shifts from the schedule.
      *
-     * @param authorization the JWT token for authentication.
+     * @param principal the authenticated staff member making the request.
      * @param deleteShiftsRequest the DTO containing the list of shifts to delete.
      * @return a {@link ResponseEntity} containing a {@link MessageResponse} with the success or failure message.
      */
     @DeleteMapping
     @Transactional
     public ResponseEntity<MessageResponse> deleteShifts(
-        @RequestHeader(name="Authorization") String authorization,
+        AuthenticatedStaff principal,
         @RequestBody ShiftsRequest deleteShiftsRequest)
     {
 
         ArrayList<ScheduleId> toDelete = new ArrayList<>();
-        int hospitalId = Integer.parseInt(jwtUtil.getHospitalID(authorization));
+        int hospitalId = principal.hospitalId();
 
         for (ShiftDto dto : deleteShiftsRequest.getShifts()) {
 
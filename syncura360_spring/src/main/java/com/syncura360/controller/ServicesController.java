@@ -4,8 +4,10 @@ import com.syncura360.dto.GenericMessageResponseDTO;
 import com.syncura360.dto.Service.*;
 import com.syncura360.model.*;
 import com.syncura360.repository.ServiceRepository;
-import com.syncura360.security.JwtUtil;
+import com.syncura360.security.AuthenticatedStaff;
+import com.syncura360.service.BillingService;
 import jakarta.transaction.Transactional;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -27,35 +29,35 @@ import java.util.Optional;
 @CrossOrigin(origins = "*")
 @RequestMapping("/services")
 public class ServicesController {
-    JwtUtil jwtUtil;
     ServiceRepository serviceRepository;
+    ApplicationEventPublisher eventPublisher;
 
     /**
      * Constructor to inject dependencies for the Services Controller.
      *
-     * @param jwtUtil the utility class for managing JWT authentication tokens.
      * @param serviceRepository the repository for accessing service data.
+     * @param eventPublisher publishes cost changes so cached bills are dropped.
      */
-    public ServicesController(JwtUtil jwtUtil, ServiceRepository serviceRepository) {
-        this.jwtUtil = jwtUtil;
+    public ServicesController(ServiceRepository serviceRepository, ApplicationEventPublisher eventPublisher) {
         this.serviceRepository = serviceRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
      * Deletes a list of services based on the names provided in the request.
      *
-     * @param authorization the JWT token for authentication.
+     * @param principal the authenticated staff member making the request.
      * @param deleteServicesDTO the DTO containing the list of service names to delete.
      * @return a {@link ResponseEntity} containing a {@link GenericMessageResponseDTO} with the result message.
      */
     @DeleteMapping
     @Transactional
     public ResponseEntity<GenericMessageResponseDTO> deleteServices(
-            @RequestHeader(name = "Authorization") String authorization,
+            AuthenticatedStaff principal,
             @RequestBody DeleteServicesDTO deleteServicesDTO)
     {
 
-        int hospitalId = Integer.parseInt(jwtUtil.getHospitalID(authorization));
+        int hospitalId = principal.hospitalId();
         List<Service> toDelete = new ArrayList<>();
 
         for (String name: deleteServicesDTO.getNames()) {
@@ -86,18 +88,18 @@ public class ServicesController {
     /**
      * Updates the details of existing services in the database.
      *
-     * @param authorization the JWT token for authentication.
+     * @param principal the authenticated staff member making the request.
      * @param updateServicesRequest the DTO containing the list of service updates.
      * @return a {@link ResponseEntity} containing a {@link GenericMessageResponseDTO} with the result message.
      */
     @PutMapping("/update")
     @Transactional
     public ResponseEntity<GenericMessageResponseDTO> updateServices(
-            @RequestHeader(name="Authorization") String authorization,
+            AuthenticatedStaff principal,
             @RequestBody UpdateServicesRequest updateServicesRequest)
     {
 
-        int hospitalId = Integer.parseInt(jwtUtil.getHospitalID(authorization));
+        int hospitalId = principal.hospitalId();
 
         try {
             for (ServiceUpdate update : updateServicesRequest.getUpdates()) {
@@ -121,6 +123,8 @@ public class ServicesController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new GenericMessageResponseDTO("Failed: error saving changes to database."));
         }
 
+        eventPublisher.publishEvent(new BillingService.PricesChanged(hospitalId));
+
         return ResponseEntity.status(HttpStatus.OK).body(new GenericMessageResponseDTO("Success."));
 
     }
@@ -128,18 +132,18 @@ public class ServicesController {
     /**
      * Retrieves a list of services based on the name and category provided in the request.
      *
-     * @param authorization the JWT token for authentication.
+     * @param principal the authenticated staff member making the request.
      * @param serviceDTO the DTO containing the search criteria for services.
      * @return a {@link ResponseEntity} containing a {@link ServicesDTO} with the list of services or error message.
      */
     @PostMapping
     @Transactional
     public ResponseEntity<ServicesDTO> getAllServices(
-            @RequestHeader(name="Authorization") String authorization,
+            AuthenticatedStaff principal,
             @RequestBody ServiceDTO serviceDTO)
     {
 
-        int hospitalId = Integer.parseInt(jwtUtil.getHospitalID(authorization));
+        int hospitalId = principal.hospitalId();
         List<ServiceDTO> dtos = new ArrayList<>();
         List<Service> serviceEntities;
 
@@ -169,7 +173,7 @@ public class ServicesController {
     /**
      * Creates new services and saves them to the database.
      *
-     * @param authorization the JWT token for authentication.
+     * @param principal the authenticated staff member making the request.
      * @param serviceRequest the DTO containing the list of services to create.
      * @return a {@link ResponseEntity} containing a {@link GenericMessageResponseDTO} with the result message.
      */
@@ -177,11 +181,11 @@ public class ServicesController {
     @PostMapping("/new")
     @Transactional
     public ResponseEntity<GenericMessageResponseDTO> createNewServices(
-            @RequestHeader(name="Authorization") String authorization,
+            AuthenticatedStaff principal,
             @RequestBody ServicesRequest serviceRequest)
     {
 
-        int hospitalId = Integer.parseInt(jwtUtil.getHospitalID(authorization));
+        int hospitalId = principal.hospitalId();
         List<Service> serviceEntities = new ArrayList<>();
 
         for (ServiceDTO serviceDTO : serviceRequest.getServices()) {
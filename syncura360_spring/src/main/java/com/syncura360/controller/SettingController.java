@@ -5,12 +5,14 @@ import com.syncura360.dto.GenericMessageResponseDTO;
 import com.syncura360.dto.Hospital.HospitalSettingFetch;
 import com.syncura360.dto.Staff.StaffPasswordChangeForm;
 import com.syncura360.dto.Staff.StaffSettingFetch;
-import com.syncura360.security.JwtUtil;
+import com.syncura360.security.AuthenticatedStaff;
+import com.syncura360.security.HashingCapacityException;
 import com.syncura360.security.PasswordService;
 import com.syncura360.service.HospitalService;
 import com.syncura360.service.StaffService;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -27,7 +29,6 @@ import org.springframework.web.bind.annotation.*;
 @CrossOrigin(origins = "*")
 @RequestMapping("/setting")
 public class SettingController {
-    JwtUtil jwtUtil;
     HospitalService hospitalService;
     StaffService staffService;
     PasswordService passwordService;
@@ -35,13 +36,11 @@ public class SettingController {
     /**
      * Constructs a SettingController with the required dependencies.
      *
-     * @param jwtUtil          Utility for working with JWT tokens.
      * @param hospitalService  Service for handling hospital-related operations.
      * @param staffService     Service for handling staff-related operations.
      * @param passwordService  Service for handling password-related operations.
      */
-    public SettingController(JwtUtil jwtUtil, HospitalService hospitalService, StaffService staffService, PasswordService passwordService) {
-        this.jwtUtil = jwtUtil;
+    public SettingController(HospitalService hospitalService, StaffService staffService, PasswordService passwordService) {
         this.hospitalService = hospitalService;
         this.staffService = staffService;
         this.passwordService = passwordService;
@@ -50,27 +49,31 @@ public class SettingController {
     /**
      * Endpoint to modify a staff member's password.
      *
-     * @param authorization             JWT token in the request header.
+     * @param principal                 Authenticated staff member.
      * @param staffPasswordChangeForm  DTO containing current and new password.
      * @param bindingResult             Result of validating the form.
      * @return A response entity with a status message indicating success or failure.
      */
     @PutMapping("/password")
     public ResponseEntity<GenericMessageResponseDTO> modifyPassword(
-            @RequestHeader(name="Authorization") String authorization, @Valid @RequestBody StaffPasswordChangeForm staffPasswordChangeForm, BindingResult bindingResult) {
+            AuthenticatedStaff principal, @Valid @RequestBody StaffPasswordChangeForm staffPasswordChangeForm, BindingResult bindingResult) {
         // Basic DTO validation
         if (bindingResult.hasErrors()) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new GenericMessageResponseDTO("Invalid request: " + ErrorConvertor.convertErrorsToString(bindingResult)));
         }
 
         // Get the username from the logged in staff
-        String username = jwtUtil.getUsername(authorization);
+        String username = principal.username();
 
         // Attempt to change the staff's password
         try {
             passwordService.changeStaffPassword(username, staffPasswordChangeForm.getCurrentPassword(), staffPasswordChangeForm.getNewPassword());
         } catch (BadCredentialsException e) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(new GenericMessageResponseDTO(e.getMessage()));
+        } catch (HashingCapacityException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(new GenericMessageResponseDTO("Server is busy, please try again shortly."));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new GenericMessageResponseDTO("An unexpected error occurred."));
         }
@@ -82,14 +85,14 @@ public class SettingController {
     /**
      * Endpoint to fetch the settings of the hospital associated with the logged-in staff member.
      *
-     * @param authorization JWT token in the request header.
+     * @param principal Authenticated staff member.
      * @return A response entity containing hospital settings or an appropriate error response.
      */
     @GetMapping("/hospital")
     public ResponseEntity<HospitalSettingFetch> fetchHospitalSetting(
-            @RequestHeader(name="Authorization") String authorization) {
+            AuthenticatedStaff principal) {
         // Get the hospital id from the logged in staff
-        int hospitalId = Integer.parseInt(jwtUtil.getHospitalID(authorization));
+        int hospitalId = principal.hospitalId();
 
         // Attempt to fetch the hospital settings (info)
         HospitalSettingFetch hospitalSettingFetch;
@@ -108,14 +111,14 @@ public class SettingController {
     /**
      * Endpoint to fetch the settings of the logged-in staff member.
      *
-     * @param authorization JWT token in the request header.
+     * @param principal Authenticated staff member.
      * @return A response entity containing staff settings or an appropriate error response.
      */
     @GetMapping("/staff")
     public ResponseEntity<StaffSettingFetch> fetchStaffSetting(
-            @RequestHeader(name="Authorization") String authorization) {
+            AuthenticatedStaff principal) {
         // Get the username from the logged in staff
-        String username = jwtUtil.getUsername(authorization);
+        String username = principal.username();
 
         // Attempt to fetch the staff settings (info)
         StaffSettingFetch staffSettingFetch;
@@ -3,14 +3,23 @@ package com.syncura360.controller;
 import com.syncura360.model.Hospital;
 import com.syncura360.model.Staff;
 import com.syncura360.model.enums.Role;
-import com.syncura360.security.passwordSecurity;
 import com.syncura360.dto.Staff.StaffCreationRequest;
 import com.syncura360.dto.Staff.StaffCreationResponse;
+import com.syncura360.dto.Staff.StaffOnboardingStatus;
+import com.syncura360.dto.GenericMessageResponseDTO;
 import com.syncura360.repository.StaffRepository;
 import com.syncura360.dto.Staff.StaffUpdateRequest;
-import com.syncura360.security.JwtUtil;
+import com.syncura360.security.AuthenticatedStaff;
+import com.syncura360.security.HashingCapacityException;
+import com.syncura360.security.StaffCredentialCache;
+import com.syncura360.security.TokenRevocationService;
+import com.syncura360.service.StaffOnboardingService;
+import jakarta.persistence.EntityNotFoundException;
 import lombok.Data;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -33,11 +42,22 @@ import java.util.stream.Collectors;
 @CrossOrigin(origins="*")
 @RequestMapping("/staff")
 public class StaffController {
+    private static final Logger log = LoggerFactory.getLogger(StaffController.class);
 
     @Autowired
     StaffRepository staffRepository;
+
+    @Autowired
+    PasswordEncoder passwordEncoder;
+
+    @Autowired
+    StaffOnboardingService staffOnboardingService;
+
+    @Autowired
+    StaffCredentialCache staffCredentialCache;
+
     @Autowired
-    JwtUtil jwtUtil;
+    TokenRevocationService tokenRevocationService;
 
     /**
      * Attempts to apply a list of staff information updates.
@@ -46,20 +66,20 @@ public class StaffController {
      * If an update fails (either due to a staff member not existing or not being authorized),
      * it will be tracked and communicated in the response.
      *
-     * @param authorization the JWT token of the authorized user.
+     * @param principal the authenticated staff member making the request.
      * @param staffUpdateRequest the DTO containing a collection of attempted staff updates.
      * @return a {@link ResponseEntity} containing a {@link StaffUpdateResponse} with the result message and list of updated staff.
      */
     @PutMapping("/batch")
     public ResponseEntity<StaffUpdateResponse> updateStaff(
-            @RequestHeader(name="Authorization") String authorization,
+            AuthenticatedStaff principal,
             @RequestBody StaffUpdateRequest staffUpdateRequest)
     {
 
         StaffUpdateResponse response = new StaffUpdateResponse();
         List<String> failed = new ArrayList<>(); // Track to determine partial success.
 
-        String authenticatedUsername = jwtUtil.getUsername(authorization);
+        String authenticatedUsername = principal.username();
         Optional<Staff> authenticatedStaff = staffRepository.findByUsername(authenticatedUsername);
         if (authenticatedStaff.isEmpty()) {
             response.setMessage("Failed: Accessing user not found.");
@@ -68,9 +88,6 @@ public class StaffController {
 
         Hospital hospital = authenticatedStaff.get().getWorksAt();
 
-        System.out.println(staffUpdateRequest.getUpdates().toString());
-
-
         for (StaffUpdateRequest.StaffUpdateDto updateDto : staffUpdateRequest.getUpdates()) {
 
             Optional<Staff> optionalStaff = staffRepository.findByUsername(updateDto.getUsername());
@@ -84,10 +101,14 @@ public class StaffController {
                 try {
                     applyUpdates(staff, updateDto.getFields());
                     staffRepository.save(staff);
+                    // Role or username may have changed, so cached login details are stale
+                    staffCredentialCache.evict(updateDto.getUsername());
+                    staffCredentialCache.evict(staff.getUsername());
                     response.getStaffUsernames().add(updateDto.getUsername());
                     // Failed if saving changes causes any error.
                 } catch (Exception e) {
-                    System.out.println(e.getMessage());
+                    // Only the exception type; the message may echo submitted values
+                    log.warn("Failed to update staff member: {}", e.getClass().getSimpleName());
                     failed.add(updateDto.getUsername()); }
             }
 
@@ -194,19 +215,19 @@ public class StaffController {
      * It securely hashes the password and associates the staff with the hospital
      * the authenticated user works at.
      *
-     * @param authorization the JWT token of the authorized user.
+     * @param principal the authenticated staff member making the request.
      * @param staffCreationRequest the DTO containing a collection of new staff member information.
      * @return a {@link ResponseEntity} containing a {@link StaffCreationResponse} with the result message and list of added staff.
      */
     @PostMapping
     public ResponseEntity<StaffCreationResponse> createStaff(
-            @RequestHeader(name="Authorization") String authorization,
+            AuthenticatedStaff principal,
             @RequestBody StaffCreationRequest staffCreationRequest)
     {
 
         StaffCreationResponse response = new StaffCreationResponse();
 
-        String authenticatedUsername = jwtUtil.getUsername(authorization);
+        String authenticatedUsername = principal.username();
         Optional<Staff> authenticatedStaff = staffRepository.findByUsername(authenticatedUsername);
         if (authenticatedStaff.isEmpty()) {
             response.setMessage("Failed: Accessing user not found.");
@@ -214,29 +235,37 @@ public class StaffController {
         }
 
         Hospital hospital = authenticatedStaff.get().getWorksAt();
-        PasswordEncoder encoder = passwordSecurity.getPasswordEncoder();
-
-        List<Staff> staffList = staffCreationRequest.getStaff().stream()
-                .map(dto -> {
-                    Staff staff = new Staff();
-                    staff.setUsername(dto.getUsername());
-                    staff.setPasswordHash(encoder.encode(dto.getPasswordHash()));
-                    staff.setRole(Role.fromValue(dto.getRole()));
-                    staff.setFirstName(dto.getFirstName());
-                    staff.setLastName(dto.getLastName());
-                    staff.setEmail(dto.getEmail());
-                    staff.setPhone(dto.getPhone());
-                    staff.setAddressLine1(dto.getAddressLine1());
-                    staff.setAddressLine2(dto.getAddressLine2());
-                    staff.setCity(dto.getCity());
-                    staff.setState(dto.getState());
-                    staff.setPostal(dto.getPostal());
-                    staff.setCountry(dto.getCountry());
-                    staff.setDateOfBirth(dto.getDateOfBirth());
-                    staff.setWorksAt(hospital);
-                    return staff;
-                })
-                .toList();
+
+        List<Staff> staffList;
+        try {
+            staffList = staffCreationRequest.getStaff().stream()
+                    .map(dto -> {
+                        Staff staff = new Staff();
+                        staff.setUsername(dto.getUsername());
+                        staff.setPasswordHash(passwordEncoder.encode(dto.getPasswordHash()));
+                        staff.setRole(Role.fromValue(dto.getRole()));
+                        staff.setFirstName(dto.getFirstName());
+                        staff.setLastName(dto.getLastName());
+                        staff.setEmail(dto.getEmail());
+                        staff.setPhone(dto.getPhone());
+                        staff.setAddressLine1(dto.getAddressLine1());
+                        staff.setAddressLine2(dto.getAddressLine2());
+                        staff.setCity(dto.getCity());
+                        staff.setState(dto.getState());
+                        staff.setPostal(dto.getPostal());
+                        staff.setCountry(dto.getCountry());
+                        staff.setDateOfBirth(dto.getDateOfBirth());
+                        staff.setWorksAt(hospital);
+                        return staff;
+                    })
+                    .toList();
+        } catch (HashingCapacityException e) {
+            response.setMessage("Failed: Server is busy, please try again shortly.");
+            response.setStaffUsernames(new ArrayList<>());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(response);
+        }
 
         try { staffRepository.saveAll(staffList); }
         catch (Exception e) {
@@ -256,21 +285,105 @@ public class StaffController {
 
     }
 
+    /**
+     * Queues a bulk onboarding job for a large list of new staff members.
+     * <p>
+     * Passwords are hashed in the background and staff are inserted in batches, so this returns
+     * immediately with a job id that can be polled through {@link #getOnboardingStatus}.
+     *
+     * @param principal the authenticated staff member making the request.
+     * @param staffCreationRequest the DTO containing a collection of new staff member information.
+     * @return a {@link ResponseEntity} containing the initial {@link StaffOnboardingStatus} of the job.
+     */
+    @PostMapping("/bulk")
+    public ResponseEntity<?> onboardStaff(
+            AuthenticatedStaff principal,
+            @RequestBody StaffCreationRequest staffCreationRequest)
+    {
+
+        if (staffCreationRequest.getStaff() == null || staffCreationRequest.getStaff().isEmpty()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new GenericMessageResponseDTO("Failed: No staff provided."));
+        }
+
+        String jobId;
+        try { jobId = staffOnboardingService.submit(principal.hospitalId(), staffCreationRequest.getStaff()); }
+        catch (HashingCapacityException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(new GenericMessageResponseDTO("Failed: Server is busy, please try again shortly."));
+        }
+
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .header(HttpHeaders.LOCATION, "/staff/bulk/" + jobId)
+                .body(staffOnboardingService.getStatus(principal.hospitalId(), jobId));
+
+    }
+
+    /**
+     * Retrieves the progress of a bulk onboarding job, including the result of every row.
+     *
+     * @param principal the authenticated staff member making the request.
+     * @param jobId the id returned when the job was queued.
+     * @return a {@link ResponseEntity} containing the {@link StaffOnboardingStatus} of the job.
+     */
+    @GetMapping("/bulk/{jobId}")
+    public ResponseEntity<?> getOnboardingStatus(
+            AuthenticatedStaff principal,
+            @PathVariable String jobId)
+    {
+
+        try { return ResponseEntity.status(HttpStatus.OK).body(staffOnboardingService.getStatus(principal.hospitalId(), jobId)); }
+        catch (EntityNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new GenericMessageResponseDTO(e.getMessage()));
+        }
+
+    }
+
+    /**
+     * Revokes every access and refresh token issued so far to a staff member at the accessing user's hospital.
+     * <p>
+     * Takes effect on the next request the staff member makes; they have to log in again to regain access.
+     *
+     * @param principal the authenticated staff member making the request.
+     * @param username the staff member whose tokens are revoked.
+     * @return a {@link ResponseEntity} containing a {@link GenericMessageResponseDTO} with the result message.
+     */
+    @PostMapping("/revoke/{username}")
+    public ResponseEntity<GenericMessageResponseDTO> revokeStaffTokens(
+            AuthenticatedStaff principal,
+            @PathVariable String username)
+    {
+
+        Optional<Staff> staff = staffRepository.findByUsername(username);
+        if (staff.isEmpty() || staff.get().getWorksAt().getId() != principal.hospitalId()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new GenericMessageResponseDTO("Failed: Staff member not found."));
+        }
+
+        try { tokenRevocationService.revokeStaff(username); }
+        catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new GenericMessageResponseDTO("Failed. Error saving revocation to database."));
+        }
+        staffCredentialCache.evict(username);
+
+        return ResponseEntity.status(HttpStatus.OK).body(new GenericMessageResponseDTO("Success. Tokens revoked."));
+
+    }
+
     /**
      * Retrieves the list of staff members' information at the accessing user's hospital.
      * <p>
      * This method returns a list of all staff members working at the same hospital as the
      * authenticated user.
      *
-     * @param authorization the JWT token of the authorized user.
+     * @param principal the authenticated staff member making the request.
      * @return a {@link ResponseEntity} containing an {@link AllStaffDTO} with the list of staff information.
      */
     @GetMapping("/all")
     public ResponseEntity<AllStaffDTO> getAllStaff(
-            @RequestHeader(name="Authorization") String authorization)
+            AuthenticatedStaff principal)
     {
 
-        String authenticatedUsername = jwtUtil.getUsername(authorization);
+        String authenticatedUsername = principal.username();
         Optional<Staff> authenticatedStaff = staffRepository.findByUsername(authenticatedUsername);
         if (authenticatedStaff.isEmpty()) {
             AllStaffDTO response = new AllStaffDTO("Failed: Accessing user not found.", new ArrayList<>());
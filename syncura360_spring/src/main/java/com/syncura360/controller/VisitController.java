@@ -1,20 +1,30 @@
 package com.syncura360.controller;
 
+import com.syncura360.dto.Billing.BillDTO;
 import com.syncura360.dto.Drug.DrugFetchListDTO;
 import com.syncura360.dto.ErrorConvertor;
 import com.syncura360.dto.GenericMessageResponseDTO;
 import com.syncura360.dto.Visit.*;
-import com.syncura360.security.JwtUtil;
+import com.syncura360.model.Visit;
+import com.syncura360.security.AuthenticatedStaff;
+import com.syncura360.service.BatchChartRejectedException;
+import com.syncura360.service.BillingService;
+import com.syncura360.service.VisitChartingService;
 import com.syncura360.service.VisitService;
+import com.syncura360.service.VisitTimelineService;
 import jakarta.persistence.EntityExistsException;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.LocalDateTime;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.NoSuchElementException;
@@ -28,21 +38,25 @@ import java.util.NoSuchElementException;
 @RequestMapping("/visit")
 public class VisitController {
 
-    @Autowired
-    JwtUtil jwtUtil;
     @Autowired
     VisitService visitService;
+    @Autowired
+    VisitTimelineService visitTimelineService;
+    @Autowired
+    VisitChartingService visitChartingService;
+    @Autowired
+    BillingService billingService;
 
     /**
      * Starts a new visit.
-     * @param authorization JWT header.
+     * @param principal Authenticated staff member.
      * @param visitCreationDTO DTO to model incoming visit creation request.
      * @param bindingResult Result of parsing the request.
      * @return GenericMessageResponseDTO containing the result of the request.
      */
     @PostMapping
     public ResponseEntity<GenericMessageResponseDTO> createVisit(
-        @RequestHeader(name="Authorization") String authorization,
+        AuthenticatedStaff principal,
         @RequestBody VisitCreationDTO visitCreationDTO,
         BindingResult bindingResult)
     {
@@ -50,7 +64,7 @@ public class VisitController {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new GenericMessageResponseDTO("Invalid request: " + ErrorConvertor.convertErrorsToString(bindingResult)));
         }
 
-        int hospitalId = Integer.parseInt(jwtUtil.getHospitalID(authorization));
+        int hospitalId = principal.hospitalId();
 
         try {
             visitService.createVisit(hospitalId, visitCreationDTO);
@@ -65,14 +79,14 @@ public class VisitController {
 
     /**
      * Attempt to discharge a patient.
-     * @param authorization JWT header.
+     * @param principal Authenticated staff member.
      * @param dischargeDTO DTO to model incoming discharge request.
      * @param bindingResult Result of parsing request.
      * @return GenericMessageResponseDTO indicating result of action.
      */
     @PostMapping("/discharge")
     public ResponseEntity<GenericMessageResponseDTO> discharge(
-        @RequestHeader(name="Authorization") String authorization,
+        AuthenticatedStaff principal,
         @RequestBody DischargeDTO dischargeDTO,
         BindingResult bindingResult)
     {
@@ -80,7 +94,7 @@ public class VisitController {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new GenericMessageResponseDTO("Invalid request: " + ErrorConvertor.convertErrorsToString(bindingResult)));
         }
 
-        int hospitalId = Integer.parseInt(jwtUtil.getHospitalID(authorization));
+        int hospitalId = principal.hospitalId();
 
         try {
             visitService.discharge(hospitalId, dischargeDTO);
@@ -95,14 +109,14 @@ public class VisitController {
 
     /**
      * Add a service to a given visit.
-     * @param authorization JWT header.
+     * @param principal Authenticated staff member.
      * @param addServiceDTO DTO to model request to add service.
      * @param bindingResult Result of parsing the request.
      * @return GenericMessageResponseDTO containing the result of the request.
      */
     @PostMapping("/service")
     public ResponseEntity<GenericMessageResponseDTO> addService(
-        @RequestHeader(name="Authorization") String authorization,
+        AuthenticatedStaff principal,
         @RequestBody AddServiceDTO addServiceDTO,
         BindingResult bindingResult)
     {
@@ -110,7 +124,7 @@ public class VisitController {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new GenericMessageResponseDTO("Invalid request: " + ErrorConvertor.convertErrorsToString(bindingResult)));
         }
 
-        int hospitalId = Integer.parseInt(jwtUtil.getHospitalID(authorization));
+        int hospitalId = principal.hospitalId();
 
         try {
             visitService.addService(hospitalId, addServiceDTO);
@@ -125,14 +139,14 @@ public class VisitController {
 
     /**
      * Add a drug to a given visit.
-     * @param authorization JWT header.
+     * @param principal Authenticated staff member.
      * @param addDrugDTO DTO to model request to add drug.
      * @param bindingResult Result of parsing the request.
      * @return GenericMessageResponseDTO containing the result of the request.
      */
     @PostMapping("/drug")
     public ResponseEntity<GenericMessageResponseDTO> addDrug(
-        @RequestHeader(name="Authorization") String authorization,
+        AuthenticatedStaff principal,
         @RequestBody AddDrugDTO addDrugDTO,
         BindingResult bindingResult)
     {
@@ -140,7 +154,7 @@ public class VisitController {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new GenericMessageResponseDTO("Invalid request: " + ErrorConvertor.convertErrorsToString(bindingResult)));
         }
 
-        int hospitalId = Integer.parseInt(jwtUtil.getHospitalID(authorization));
+        int hospitalId = principal.hospitalId();
 
         try {
             visitService.addDrug(hospitalId, addDrugDTO);
@@ -155,14 +169,14 @@ public class VisitController {
 
     /**
      * Attempt to add a room to a visit.
-     * @param authorization JWT header.
+     * @param principal Authenticated staff member.
      * @param addRoomDTO DTO to model incoming room addition request.
      * @param bindingResult Result of parsing request.
      * @return GenericMessageResponseDTO indicating result of action.
      */
     @PostMapping("/room")
     public ResponseEntity<GenericMessageResponseDTO> addRoom(
-        @RequestHeader(name="Authorization") String authorization,
+        AuthenticatedStaff principal,
         @RequestBody AddRoomDTO addRoomDTO,
         BindingResult bindingResult)
     {
@@ -170,7 +184,7 @@ public class VisitController {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new GenericMessageResponseDTO("Invalid request: " + ErrorConvertor.convertErrorsToString(bindingResult)));
         }
 
-        int hospitalId = Integer.parseInt(jwtUtil.getHospitalID(authorization));
+        int hospitalId = principal.hospitalId();
 
         try {
             visitService.addRoom(hospitalId, addRoomDTO);
@@ -185,14 +199,14 @@ public class VisitController {
 
     /**
      * Attempts to remove a patient from a room.
-     * @param authorization JWT header.
+     * @param principal Authenticated staff member.
      * @param deleteRoomDTO DTO to model removal request.
      * @param bindingResult Result of parsing request.
      * @return GenericMessageResponseDTO indicating result of request.
      */
     @DeleteMapping("/room")
     public ResponseEntity<GenericMessageResponseDTO> removeRoom(
-            @RequestHeader(name="Authorization") String authorization,
+            AuthenticatedStaff principal,
             @RequestBody DeleteRoomDTO deleteRoomDTO,
             BindingResult bindingResult)
     {
@@ -200,7 +214,7 @@ public class VisitController {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new GenericMessageResponseDTO("Invalid request: " + ErrorConvertor.convertErrorsToString(bindingResult)));
         }
 
-        int hospitalId = Integer.parseInt(jwtUtil.getHospitalID(authorization));
+        int hospitalId = principal.hospitalId();
 
         try {
             visitService.removeRoom(hospitalId, deleteRoomDTO);
@@ -213,62 +227,254 @@ public class VisitController {
         return ResponseEntity.status(HttpStatus.OK).body(new GenericMessageResponseDTO("Successfully removed patient from room."));
     }
 
+    /**
+     * Attempts to move a patient from their current room to another room in one step.
+     * @param principal Authenticated staff member.
+     * @param transferDTO DTO to model transfer request.
+     * @param bindingResult Result of parsing request.
+     * @return GenericMessageResponseDTO indicating result of request.
+     */
+    @PostMapping("/transfer")
+    public ResponseEntity<GenericMessageResponseDTO> transferRoom(
+            AuthenticatedStaff principal,
+            @RequestBody TransferDTO transferDTO,
+            BindingResult bindingResult)
+    {
+        if (bindingResult.hasErrors()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new GenericMessageResponseDTO("Invalid request: " + ErrorConvertor.convertErrorsToString(bindingResult)));
+        }
+
+        int hospitalId = principal.hospitalId();
+
+        try {
+            visitService.transferRoom(hospitalId, transferDTO);
+        } catch (EntityNotFoundException | IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new GenericMessageResponseDTO(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new GenericMessageResponseDTO("An unexpected error occurred."));
+        }
+
+        return ResponseEntity.status(HttpStatus.OK).body(new GenericMessageResponseDTO("Successfully transferred patient."));
+    }
+
+    /**
+     * Chart several services, drugs and room moves against a visit at once.
+     * Either every event is charted or none is.
+     * @param principal Authenticated staff member.
+     * @param batchChartDTO DTO to model the batch of events.
+     * @param bindingResult Result of parsing request.
+     * @return BatchChartResultDTO with a result per event, or GenericMessageResponseDTO if the batch could not be processed.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<?> chartBatch(
+            AuthenticatedStaff principal,
+            @Valid @RequestBody BatchChartDTO batchChartDTO,
+            BindingResult bindingResult)
+    {
+        if (bindingResult.hasErrors()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new GenericMessageResponseDTO("Invalid request: " + ErrorConvertor.convertErrorsToString(bindingResult)));
+        }
+
+        int hospitalId = principal.hospitalId();
+        BatchChartResultDTO result;
+
+        try {
+            result = visitChartingService.chart(hospitalId, batchChartDTO);
+        } catch (BatchChartRejectedException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getResult());
+        } catch (EntityNotFoundException | IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new GenericMessageResponseDTO(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new GenericMessageResponseDTO("An unexpected error occurred."));
+        }
+
+        if (result.getFailed() > 0) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(result);
+        }
+        return ResponseEntity.status(HttpStatus.CREATED).body(result);
+    }
+
     /**
      * Attempt to retrieve details of a given visit.
-     * @param authorization JWT header.
+     * @param principal Authenticated staff member.
      * @param patientId ID of patient for visit lookup.
      * @param dateTime Admission date time for visit lookup.
      * @return VisitDetailsDTO DTO to containerize visit timeline and visit note.
      */
     @GetMapping("/{patientId}/{dateTime}")
     public ResponseEntity<VisitDetailsDTO> getVisitDetails(
-            @RequestHeader(name="Authorization") String authorization,
+            AuthenticatedStaff principal,
             @NotNull @PathVariable("patientId") int patientId,
-            @NotNull @PathVariable("dateTime") String dateTime)
+            @NotNull @PathVariable("dateTime") String dateTime,
+            WebRequest webRequest)
     {
-        int hospitalId = Integer.parseInt(jwtUtil.getHospitalID(authorization));
+        int hospitalId = principal.hospitalId();
 
         VisitDetailsDTO response;
+        String eTag;
         try {
-            response = new VisitDetailsDTO();
-            response.setTimeline(visitService.getTimeline(hospitalId, patientId, dateTime, false));
-            response.setVisitNote(visitService.getNote(hospitalId, patientId, dateTime, false));
-        } catch (NoSuchElementException e) {
+            // The visit row alone decides the ETag, so an unchanged visit is answered before any timeline query
+            Visit visit = visitService.findVisit(hospitalId, patientId, dateTime, false);
+            eTag = VisitService.eTagOf(visit);
+            if (webRequest.checkNotModified(eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+            }
+            response = visitService.getVisitDetails(hospitalId, visit, false);
+        } catch (EntityNotFoundException | NoSuchElementException e) {
             return ResponseEntity.status(HttpStatus.NO_CONTENT).body(new VisitDetailsDTO());
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new VisitDetailsDTO());
+        }
+
+        return ResponseEntity.status(HttpStatus.OK).eTag(eTag).body(response);
+    }
+
+    /**
+     * Get one page of the visit timeline, oldest first.
+     * @param principal Authenticated staff member.
+     * @param limit Maximum number of events in the page.
+     * @param after Cursor returned as nextCursor; continues forward from it.
+     * @param before Cursor returned as previousCursor; continues backward from it.
+     * @param since Only include events at or after this date time.
+     * @return TimelinePageDTO holding the page and its cursors.
+     */
+    @GetMapping("/{patientId}/{dateTime}/timeline")
+    public ResponseEntity<?> getTimelinePage(
+            AuthenticatedStaff principal,
+            @NotNull @PathVariable("patientId") int patientId,
+            @NotNull @PathVariable("dateTime") String dateTime,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "before", required = false) String before,
+            @RequestParam(value = "since", required = false) String since)
+    {
+        int hospitalId = principal.hospitalId();
+
+        TimelinePageDTO response;
+        try {
+            response = visitTimelineService.getTimelinePage(hospitalId, patientId, dateTime, false, limit, after, before, since);
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new GenericMessageResponseDTO(e.getMessage()));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new GenericMessageResponseDTO(e.getMessage()));
+        }
+
+        return ResponseEntity.status(HttpStatus.OK).body(response);
+    }
+
+    /**
+     * Get the bill of a visit, broken down by service, drug and room.
+     * @param principal Authenticated staff member.
+     * @param patientId ID of patient for visit lookup.
+     * @param dateTime Admission date time for visit lookup.
+     * @return BillDTO holding the charges of the visit.
+     */
+    @GetMapping("/{patientId}/{dateTime}/bill")
+    public ResponseEntity<?> getBill(
+            AuthenticatedStaff principal,
+            @NotNull @PathVariable("patientId") int patientId,
+            @NotNull @PathVariable("dateTime") String dateTime)
+    {
+        int hospitalId = principal.hospitalId();
+
+        BillDTO response;
+        try {
+            Visit visit = visitService.findVisit(hospitalId, patientId, dateTime, false);
+            // The open visit may be a later one than the visit the caller asked for
+            if (!visit.getId().getAdmissionDateTime().equals(LocalDateTime.parse(dateTime))) {
+                throw new EntityNotFoundException("Patient visit not found.");
+            }
+            response = billingService.getBill(hospitalId, visit);
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new GenericMessageResponseDTO(e.getMessage()));
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new GenericMessageResponseDTO(e.getMessage()));
+        }
+
+        return ResponseEntity.status(HttpStatus.OK).body(response);
+    }
+
+    /**
+     * Get one page of the visit note entries, newest first.
+     * @param principal Authenticated staff member.
+     * @param limit Maximum number of entries in the page.
+     * @param before Cursor returned as nextCursor; continues with older entries.
+     * @return NotePageDTO holding the page and the cursor of the next one.
+     */
+    @GetMapping("/{patientId}/{dateTime}/notes")
+    public ResponseEntity<?> getNotePage(
+            AuthenticatedStaff principal,
+            @NotNull @PathVariable("patientId") int patientId,
+            @NotNull @PathVariable("dateTime") String dateTime,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "before", required = false) String before)
+    {
+        int hospitalId = principal.hospitalId();
+
+        NotePageDTO response;
+        try {
+            response = visitService.getNotes(hospitalId, patientId, dateTime, false, limit, before);
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new GenericMessageResponseDTO(e.getMessage()));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new GenericMessageResponseDTO(e.getMessage()));
         }
 
         return ResponseEntity.status(HttpStatus.OK).body(response);
     }
 
     /**
-     * Get a list of currently ongoing visits.
-      * @param authorization JWT header.
+     * Get currently ongoing visits, all of them unless a page or size is requested. Paging details are
+     * returned in the X-Total-Count, X-Total-Pages, X-Page and X-Page-Size headers.
+     * @param principal Authenticated staff member.
+     * @param page Zero based page number.
+     * @param size Page size, {@value VisitService#DEFAULT_CENSUS_PAGE_SIZE} if only a page is requested.
+     * @param sort admissionDateTime, firstName, lastName or patientId.
+     * @param direction asc or desc.
+     * @param name Optional fragment of the patient's first or last name.
+     * @param admittedFrom Optional earliest admission date time.
+     * @param admittedTo Optional latest admission date time.
      * @return VisitListDTO to model response.
      */
     @GetMapping
-    public ResponseEntity<VisitListDTO> getVisits(@RequestHeader(name="Authorization") String authorization) {
-
-        int hospitalId = Integer.parseInt(jwtUtil.getHospitalID(authorization));
+    public ResponseEntity<VisitListDTO> getVisits(
+            AuthenticatedStaff principal,
+            @RequestParam(value = "page", required = false) Integer page,
+            @RequestParam(value = "size", required = false) Integer size,
+            @RequestParam(value = "sort", defaultValue = "admissionDateTime") String sort,
+            @RequestParam(value = "direction", defaultValue = "asc") String direction,
+            @RequestParam(value = "name", required = false) String name,
+            @RequestParam(value = "admittedFrom", required = false) String admittedFrom,
+            @RequestParam(value = "admittedTo", required = false) String admittedTo)
+    {
+        int hospitalId = principal.hospitalId();
 
-        VisitListDTO response;
+        Page<VisitDTO> visits;
         try {
-            response = new VisitListDTO(visitService.getVisits(hospitalId));
+            visits = visitService.getVisits(hospitalId, page, size, sort, direction, name, admittedFrom, admittedTo);
         } catch (NoSuchElementException e) {
             return ResponseEntity.status(HttpStatus.NO_CONTENT).body(new VisitListDTO(new ArrayList<>()));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new VisitListDTO(new ArrayList<>()));
         }
 
-        return ResponseEntity.status(HttpStatus.OK).body(response);
+        return ResponseEntity.status(HttpStatus.OK)
+                .header("X-Total-Count", String.valueOf(visits.getTotalElements()))
+                .header("X-Total-Pages", String.valueOf(visits.getTotalPages()))
+                .header("X-Page", String.valueOf(visits.getNumber()))
+                .header("X-Page-Size", String.valueOf(visits.getSize()))
+                .body(new VisitListDTO(visits.getContent()));
     }
 
     /**
      * Get a list of doctors at users hospital.
-     * @param authorization JWT header.
+     * @param principal Authenticated staff member.
      * @return DoctorListDTO to model response.
      */
     @GetMapping("/doctors")
-    public ResponseEntity<DoctorListDTO> getDoctors(@RequestHeader(name="Authorization") String authorization) {
+    public ResponseEntity<DoctorListDTO> getDoctors(AuthenticatedStaff principal) {
 
-        int hospitalId = Integer.parseInt(jwtUtil.getHospitalID(authorization));
+        int hospitalId = principal.hospitalId();
 
         DoctorListDTO response;
         try {
@@ -282,13 +488,13 @@ public class VisitController {
 
     /**
      * Get a list of doctors at users hospital.
-     * @param authorization JWT header.
+     * @param principal Authenticated staff member.
      * @return DoctorListDTO to model response.
      */
     @GetMapping("/services")
-    public ResponseEntity<ServiceListDTO> getServices(@RequestHeader(name="Authorization") String authorization) {
+    public ResponseEntity<ServiceListDTO> getServices(AuthenticatedStaff principal) {
 
-        int hospitalId = Integer.parseInt(jwtUtil.getHospitalID(authorization));
+        int hospitalId = principal.hospitalId();
 
         ServiceListDTO response;
         try {
@@ -302,13 +508,13 @@ public class VisitController {
 
     /**
      * Get a list of drugs at users hospital.
-     * @param authorization JWT header.
+     * @param principal Authenticated staff member.
      * @return DrugFetchListDTO to model response.
      */
     @GetMapping("/drugs")
-    public ResponseEntity<DrugFetchListDTO> getDrugs(@RequestHeader(name="Authorization") String authorization) {
+    public ResponseEntity<DrugFetchListDTO> getDrugs(AuthenticatedStaff principal) {
 
-        int hospitalId = Integer.parseInt(jwtUtil.getHospitalID(authorization));
+        int hospitalId = principal.hospitalId();
 
         DrugFetchListDTO response;
         try {
@@ -322,13 +528,13 @@ public class VisitController {
 
     /**
      * Get list of available rooms.
-     * @param authorization JWT header.
+     * @param principal Authenticated staff member.
      * @return RoomListDTO to model room list.
      */
     @GetMapping("/rooms")
-    public ResponseEntity<RoomListDTO> getRooms(@RequestHeader(name="Authorization") String authorization) {
+    public ResponseEntity<RoomListDTO> getRooms(AuthenticatedStaff principal) {
 
-        int hospitalId = Integer.parseInt(jwtUtil.getHospitalID(authorization));
+        int hospitalId = principal.hospitalId();
 
         RoomListDTO response;
         try {
@@ -341,15 +547,44 @@ public class VisitController {
     }
 
     /**
-     * Attempt to modify visit note.
-     * @param authorization JWT header.
+     * Attempt to add a note entry to the current visit. Earlier entries are kept.
+     * @param principal Authenticated staff member, recorded as the author.
+     * @param noteDTO DTO to model incoming note request.
+     * @param bindingResult Result of parsing request.
+     * @return GenericMessageResponseDTO to indicate result of request.
+     */
+    @PostMapping("/note")
+    public ResponseEntity<GenericMessageResponseDTO> addNote(
+            AuthenticatedStaff principal,
+            @RequestBody NoteDTO noteDTO,
+            BindingResult bindingResult)
+    {
+        if (bindingResult.hasErrors()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new GenericMessageResponseDTO("Invalid request: " + ErrorConvertor.convertErrorsToString(bindingResult)));
+        }
+
+        try {
+            visitService.addNote(principal.hospitalId(), principal.username(), noteDTO);
+        } catch (EntityNotFoundException | IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new GenericMessageResponseDTO(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new GenericMessageResponseDTO("An unexpected error occurred."));
+        }
+
+        return ResponseEntity.status(HttpStatus.CREATED).body(new GenericMessageResponseDTO("Successfully added note."));
+    }
+
+    /**
+     * Attempt to modify visit note. Kept for older clients; the note is now added as a new entry
+     * rather than replacing the previous one.
+     * @param principal Authenticated staff member.
      * @param noteDTO DTO to model incoming note request.
      * @param bindingResult Result of parsing request.
      * @return GenericMessageResponseDTO to indicate result of request.
      */
     @PutMapping("/note")
     public ResponseEntity<GenericMessageResponseDTO> editNote(
-            @RequestHeader(name="Authorization") String authorization,
+            AuthenticatedStaff principal,
             @RequestBody NoteDTO noteDTO,
             BindingResult bindingResult)
     {
@@ -357,10 +592,10 @@ public class VisitController {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new GenericMessageResponseDTO("Invalid request: " + ErrorConvertor.convertErrorsToString(bindingResult)));
         }
 
-        int hospitalId = Integer.parseInt(jwtUtil.getHospitalID(authorization));
+        int hospitalId = principal.hospitalId();
 
         try {
-            visitService.editNote(hospitalId, noteDTO);
+            visitService.addNote(hospitalId, principal.username(), noteDTO);
         } catch (EntityNotFoundException | IllegalArgumentException | DateTimeParseException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new GenericMessageResponseDTO(e.getMessage()));
         } catch (Exception e) {
@@ -0,0 +1,37 @@
+package com.syncura360.dto.Billing;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Charges of one visit, broken down by service, drug and room. Rooms carry no rate, so room days
+ * are listed but not part of the total. Amounts use current service costs and drug prices.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BillDTO {
+
+    private int patientID;
+
+    private String admissionDateTime;
+
+    private List<ChargeLineDTO> services;
+
+    private List<ChargeLineDTO> drugs;
+
+    private List<RoomDaysDTO> rooms;
+
+    private BigDecimal servicesTotal;
+
+    private BigDecimal drugsTotal;
+
+    private BigDecimal total;
+
+    // Time the bill was computed; open room stays are counted up to it
+    private String asOf;
+}
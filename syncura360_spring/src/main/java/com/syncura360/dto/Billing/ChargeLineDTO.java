@@ -0,0 +1,23 @@
+package com.syncura360.dto.Billing;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * One line of a bill or charge roll-up: what was charged, how many times (units given, for drugs)
+ * and the summed amount.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ChargeLineDTO {
+
+    private String name;
+
+    private long count;
+
+    private BigDecimal amount;
+}
@@ -0,0 +1,27 @@
+package com.syncura360.dto.Billing;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Hospital charges in the window [from, to), per service category and per drug category.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ChargeRollupDTO {
+
+    private String from;
+
+    private String to;
+
+    private List<ChargeLineDTO> services;
+
+    private List<ChargeLineDTO> drugs;
+
+    private BigDecimal total;
+}
@@ -0,0 +1,18 @@
+package com.syncura360.dto.Billing;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Days a patient spent in one room during a visit.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RoomDaysDTO {
+
+    private String roomName;
+
+    private long days;
+}
@@ -0,0 +1,33 @@
+package com.syncura360.dto.Census;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One change pushed on the live census feed. Only the fields relevant to the type are set:
+ * admitted and discharged carry patientId, bed and room changes carry roomName (and status for
+ * bed status changes other than a claim or release), and inventory carries ndc with either the
+ * new quantity or the change in quantity.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CensusDeltaDTO {
+
+    private String type;
+
+    private Integer patientId;
+
+    private String roomName;
+
+    private String status;
+
+    private Long ndc;
+
+    private Integer quantity;
+
+    private Integer change;
+}
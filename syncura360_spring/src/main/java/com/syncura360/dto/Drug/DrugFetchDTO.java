@@ -6,7 +6,8 @@ import lombok.Getter;
 import java.math.BigDecimal;
 
 /**
- * DTO for fetching drug details, including NDC, name, category, description, strength, and pricing information.
+ * DTO for fetching drug details, including NDC, name, category, description, strength, and pricing information,
+ * along with the version a later update must send back.
  *
  * @author Darsh-KP
  */
@@ -21,4 +22,5 @@ public class DrugFetchDTO {
     private Integer ppq;
     private Integer quantity;
     private BigDecimal price;
+    private Long version;
 }
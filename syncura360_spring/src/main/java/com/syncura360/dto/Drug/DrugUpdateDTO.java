@@ -9,6 +9,7 @@ import java.math.BigDecimal;
 
 /**
  * DTO for updating an existing drug's details such as NDC, quantity, and price information.
+ * The version must be the one the drug was fetched with, so a stale edit is rejected instead of applied.
  *
  * @author Darsh-KP
  */
@@ -24,4 +25,7 @@ public class DrugUpdateDTO {
     @NotNull(message = "Price is required.")
     @Digits(integer = 10, fraction = 2, message = "Price must have up to 10 digits before the decimal and 2 after.")
     private BigDecimal price;
+
+    @NotNull(message = "Version is required.")
+    private Long version;
 }
@@ -0,0 +1,37 @@
+package com.syncura360.dto.Staff;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO describing the progress of a bulk staff onboarding job, including the outcome of each submitted row.
+ *
+ * @author Benjamin Leiby
+ */
+@Data
+@AllArgsConstructor
+public class StaffOnboardingStatus {
+    private String jobId;
+    private String status;
+    private int total;
+    private int succeeded;
+    private int failed;
+    private List<RowResult> rows;
+
+    public StaffOnboardingStatus() {
+        rows = new ArrayList<>();
+    }
+
+    /**
+     * Outcome of a single row of the onboarding request.
+     *
+     * @param index    Position of the row in the submitted list.
+     * @param username Username from the submitted row.
+     * @param status   One of Pending, Created or Failed.
+     * @param message  Reason for a failure, otherwise null.
+     */
+    public record RowResult(int index, String username, String status, String message) {}
+}
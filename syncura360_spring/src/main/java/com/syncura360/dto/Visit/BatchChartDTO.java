@@ -0,0 +1,26 @@
+package com.syncura360.dto.Visit;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Several events charted against one ongoing visit, applied together or not at all.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchChartDTO {
+
+    @NotNull(message = "Patient id required.")
+    private int patientID;
+
+    @NotEmpty(message = "At least one event is required.")
+    @Valid
+    private List<ChartEventDTO> events;
+}
@@ -0,0 +1,30 @@
+package com.syncura360.dto.Visit;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Outcome of a batch charting request. Either every event was charted,
+ * or none was and the failed events say why.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchChartResultDTO {
+    private int charted;
+    private int failed;
+    private List<EventResult> results;
+
+    /**
+     * Outcome of a single event of the batch.
+     *
+     * @param index   Position of the event in the submitted list.
+     * @param type    Type from the submitted event.
+     * @param status  One of Charted, Failed or Skipped (valid, but not charted because another event failed).
+     * @param message Reason for a failure, otherwise null.
+     */
+    public record EventResult(int index, String type, String status, String message) {}
+}
@@ -0,0 +1,30 @@
+package com.syncura360.dto.Visit;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One event in a batch charting request. Which fields are needed depends on the type:
+ * service needs staff and service, drug needs staff, drug and optionally quantity,
+ * room needs roomName, and removeRoom needs nothing else.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ChartEventDTO {
+
+    @NotNull(message = "Event type is required.")
+    private String type;
+
+    private String staff;
+
+    private String service;
+
+    private Long drug;
+
+    private int quantity;
+
+    private String roomName;
+}
@@ -0,0 +1,20 @@
+package com.syncura360.dto.Visit;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One note entry of a visit. author is null for notes written before entries were attributed.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class NoteEntryDTO {
+
+    private String createdAt;
+
+    private String author;
+
+    private String note;
+}
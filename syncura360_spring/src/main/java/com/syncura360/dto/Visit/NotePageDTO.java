@@ -0,0 +1,21 @@
+package com.syncura360.dto.Visit;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One keyset page of a visit's note entries, newest first.
+ * nextCursor is null on the last page.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class NotePageDTO {
+
+    private List<NoteEntryDTO> notes;
+
+    private String nextCursor;
+}
@@ -7,8 +7,8 @@ import lombok.EqualsAndHashCode;
 @Data
 public class RecordDTO extends VisitDTO {
 
-    public RecordDTO(int patientID, String admissionDateTime, String firstName, String lastName, String dateOfBirth, String note, String dischargeDateTime) {
-        super(patientID, admissionDateTime, firstName, lastName, dateOfBirth, note);
+    public RecordDTO(int patientID, String admissionDateTime, String firstName, String lastName, String dateOfBirth, String dischargeDateTime) {
+        super(patientID, admissionDateTime, firstName, lastName, dateOfBirth);
         this.dischargeDateTime = dischargeDateTime;
     }
 
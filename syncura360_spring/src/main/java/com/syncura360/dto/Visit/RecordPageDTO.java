@@ -0,0 +1,21 @@
+package com.syncura360.dto.Visit;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One keyset page of discharged visits, newest discharge first.
+ * nextCursor is null on the last page.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RecordPageDTO {
+
+    private List<RecordDTO> records;
+
+    private String nextCursor;
+}
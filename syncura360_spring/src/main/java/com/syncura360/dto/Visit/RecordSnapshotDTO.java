@@ -0,0 +1,19 @@
+package com.syncura360.dto.Visit;
+
+import com.syncura360.dto.Billing.BillDTO;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Everything served for a discharged visit, frozen at discharge: its timeline and latest note, and its bill.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RecordSnapshotDTO {
+
+    private VisitDetailsDTO details;
+
+    private BillDTO bill;
+}
@@ -0,0 +1,25 @@
+package com.syncura360.dto.Visit;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of a visit timeline, always in chronological order.
+ * Pass nextCursor as "after" to continue forward, or previousCursor as "before" to go back.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TimelinePageDTO {
+
+    private List<TimelineElementDTO> timeline;
+
+    private String nextCursor;
+
+    private String previousCursor;
+
+    private boolean hasMore;
+}
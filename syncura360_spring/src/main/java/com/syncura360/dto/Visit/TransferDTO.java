@@ -0,0 +1,19 @@
+package com.syncura360.dto.Visit;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TransferDTO {
+
+    @NotNull(message="Patient id cannot be null.")
+    private int patientID;
+
+    @NotNull(message="Room name is required.")
+    private String roomName;
+
+}
@@ -17,8 +17,6 @@ public class VisitDTO {
 
     private String dateOfBirth;
 
-    private String note;
-
     public VisitDTO() {}
 
 }
@@ -0,0 +1,85 @@
+package com.syncura360.logging;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+
+/**
+ * Filter that tags every request with a correlation id and writes a sampled access log line.
+ * <p>
+ * The correlation id is taken from the {@value #CORRELATION_HEADER} header when it is well formed,
+ * otherwise generated. It is echoed in the response and put in the MDC so that every log event
+ * written while handling the request carries it.
+ * <p>
+ * Only a configurable fraction of requests get an access log line; server errors and slow requests
+ * are always logged. Lines hold the method, path, status and duration only: never headers (which
+ * carry tokens), query strings or bodies.
+ *
+ * @author Benjamin Leiby
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RequestLoggingFilter extends OncePerRequestFilter {
+    public static final String CORRELATION_HEADER = "X-Correlation-Id";
+    public static final String CORRELATION_MDC_KEY = "correlationId";
+
+    private static final Logger log = LoggerFactory.getLogger(RequestLoggingFilter.class);
+
+    // Accept only ids that cannot forge log content
+    private static final Pattern VALID_CORRELATION_ID = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+
+    private final double sampleRate;
+    private final long slowRequestMillis;
+
+    public RequestLoggingFilter(@Value("${logging.request.sample-rate:0.01}") double sampleRate,
+                                @Value("${logging.request.slow-ms:1000}") long slowRequestMillis) {
+        this.sampleRate = sampleRate;
+        this.slowRequestMillis = slowRequestMillis;
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull FilterChain filterChain)
+            throws ServletException, IOException {
+
+        String correlationId = request.getHeader(CORRELATION_HEADER);
+        if (correlationId == null || !VALID_CORRELATION_ID.matcher(correlationId).matches()) {
+            correlationId = UUID.randomUUID().toString();
+        }
+
+        boolean sampled = ThreadLocalRandom.current().nextDouble() < sampleRate;
+        long start = System.nanoTime();
+
+        MDC.put(CORRELATION_MDC_KEY, correlationId);
+        response.setHeader(CORRELATION_HEADER, correlationId);
+
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+            int status = response.getStatus();
+
+            if (status >= 500 || elapsedMillis >= slowRequestMillis) {
+                log.warn("{} {} -> {} in {} ms", request.getMethod(), request.getRequestURI(), status, elapsedMillis);
+            } else if (sampled && log.isInfoEnabled()) {
+                log.info("{} {} -> {} in {} ms", request.getMethod(), request.getRequestURI(), status, elapsedMillis);
+            }
+
+            MDC.remove(CORRELATION_MDC_KEY);
+        }
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Includes classes related to request logging, such as correlation ids and access log sampling.
+ */
+package com.syncura360.logging;
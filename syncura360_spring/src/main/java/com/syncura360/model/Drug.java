@@ -52,6 +52,13 @@ public class Drug {
     @Column(name = "price", nullable = false, precision = 10, scale = 2)
     private BigDecimal price;
 
+    // Guards read-modify-write edits; administrations decrement through DrugRepository.decrementQuantity
+    @Version
+    @Setter(AccessLevel.NONE)
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     public Drug(DrugId id, String name, DrugCategory category, String description, String strength, Integer ppq, Integer quantity, BigDecimal price) {
         this.id = id;
         this.name = name == null ? null : name.trim();
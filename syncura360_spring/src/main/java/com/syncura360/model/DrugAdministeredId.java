@@ -32,9 +32,9 @@ public class DrugAdministeredId implements java.io.Serializable {
     @Column(name = "visit_admission_date_time", nullable = false)
     private final LocalDateTime visitAdmissionDateTime;
 
-    @ColumnDefault("current_timestamp()")
+    @ColumnDefault("current_timestamp(6)")
     @Column(name = "administered_at", nullable = false)
-    private final LocalDateTime administeredAt = LocalDateTime.now();
+    private LocalDateTime administeredAt = LocalDateTime.now();
 
     public DrugAdministeredId(Integer hospitalId, Integer patientId, LocalDateTime visitAdmissionDateTime) {
         this.hospitalId = hospitalId;
@@ -42,6 +42,11 @@ public class DrugAdministeredId implements java.io.Serializable {
         this.visitAdmissionDateTime = visitAdmissionDateTime;
     }
 
+    public DrugAdministeredId(Integer hospitalId, Integer patientId, LocalDateTime visitAdmissionDateTime, LocalDateTime administeredAt) {
+        this(hospitalId, patientId, visitAdmissionDateTime);
+        this.administeredAt = administeredAt;
+    }
+
     @SuppressWarnings("EqualsWhichDoesntCheckParameterClass")
     @Override
     public boolean equals(Object o) {
@@ -50,10 +50,18 @@ public class RoomAssignment {
     @Column(name = "room_name", nullable = false)
     private final String roomName;
 
+    @Column(name = "bed_no")
+    private Long bedNo;
+
     public RoomAssignment(RoomAssignmentId id, Boolean isRemoved, Room room) {
         this.id = id;
         this.isRemoved = isRemoved;
         this.room = room;
         this.roomName = room.getId().getRoomName();
     }
-}
\ No newline at end of file
+
+    public RoomAssignment(RoomAssignmentId id, Boolean isRemoved, Room room, Long bedNo) {
+        this(id, isRemoved, room);
+        this.bedNo = bedNo;
+    }
+}
@@ -33,7 +33,7 @@ public class RoomAssignmentId implements java.io.Serializable {
     @Column(name = "visit_admission_date_time", nullable = false)
     private final LocalDateTime visitAdmissionDateTime;
 
-    @ColumnDefault("current_timestamp()")
+    @ColumnDefault("current_timestamp(6)")
     @Column(name = "assigned_at", nullable = false)
     private LocalDateTime assignedAt = LocalDateTime.now();
 
@@ -43,6 +43,11 @@ public class RoomAssignmentId implements java.io.Serializable {
         this.visitAdmissionDateTime = visitAdmissionDateTime;
     }
 
+    public RoomAssignmentId(Integer hospitalId, Integer patientId, LocalDateTime visitAdmissionDateTime, LocalDateTime assignedAt) {
+        this(hospitalId, patientId, visitAdmissionDateTime);
+        this.assignedAt = assignedAt;
+    }
+
     @SuppressWarnings("EqualsWhichDoesntCheckParameterClass")
     @Override
     public boolean equals(Object o) {
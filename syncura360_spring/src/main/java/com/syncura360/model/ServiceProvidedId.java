@@ -34,9 +34,9 @@ public class ServiceProvidedId implements java.io.Serializable {
     @Column(name = "visit_admission_date_time", nullable = false)
     private final LocalDateTime visitAdmissionDateTime;
 
-    @ColumnDefault("current_timestamp()")
+    @ColumnDefault("current_timestamp(6)")
     @Column(name = "provided_at", nullable = false)
-    private final LocalDateTime providedAt = LocalDateTime.now();
+    private LocalDateTime providedAt = LocalDateTime.now();
 
     public ServiceProvidedId(Integer hospitalId, Integer patientId, LocalDateTime visitAdmissionDateTime) {
         this.hospitalId = hospitalId;
@@ -44,6 +44,11 @@ public class ServiceProvidedId implements java.io.Serializable {
         this.visitAdmissionDateTime = visitAdmissionDateTime;
     }
 
+    public ServiceProvidedId(Integer hospitalId, Integer patientId, LocalDateTime visitAdmissionDateTime, LocalDateTime providedAt) {
+        this(hospitalId, patientId, visitAdmissionDateTime);
+        this.providedAt = providedAt;
+    }
+
     @SuppressWarnings("EqualsWhichDoesntCheckParameterClass")
     @Override
     public boolean equals(Object o) {
@@ -0,0 +1,49 @@
+package com.syncura360.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Entity representing a revoked token, or a revocation of every token issued to a staff member
+ * up to a point in time. Rows are only needed until the tokens they cover would have expired anyway.
+ *
+ * @author Benjamin Leiby
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@EqualsAndHashCode(of = "id")
+@Entity
+@Table(name = "Token_Revocation", schema = "syncura360")
+public class TokenRevocation {
+    public enum Kind { Token, Staff }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "revocation_id", nullable = false)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "kind", nullable = false, length = 10)
+    private Kind kind;
+
+    // Token id (jti) for Token revocations, username for Staff revocations
+    @Column(name = "subject", nullable = false, length = 64)
+    private String subject;
+
+    @Column(name = "revoked_at", nullable = false)
+    private Instant revokedAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    public TokenRevocation(Kind kind, String subject, Instant revokedAt, Instant expiresAt) {
+        this.kind = kind;
+        this.subject = subject;
+        this.revokedAt = revokedAt;
+        this.expiresAt = expiresAt;
+    }
+}
@@ -2,6 +2,7 @@ package com.syncura360.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.LocalDateTime;
 
@@ -39,8 +40,21 @@ public class Visit {
     @Column(name = "visit_summary", length = 65535)
     private String visitSummary;
 
-    @Column(name = "visit_note", length = 65535)
-    private String visitNote;
+    // Bumped by VisitRepository.bumpCurrentVisitVersion whenever the visit or anything on its timeline changes
+    @Setter(AccessLevel.NONE)
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false, insertable = false, updatable = false)
+    private long version;
+
+    // Generated by the database: the patient id while the visit is open, null once discharged.
+    // Unique per hospital, so a patient can have only one open visit there.
+    @Setter(AccessLevel.NONE)
+    @Column(name = "active_patient_id", insertable = false, updatable = false)
+    private Integer activePatientId;
+
+    // Set when the visit was read from the archive tables; archived visits are read-only
+    @Transient
+    private boolean archived;
 
     public Visit(VisitId id, String reasonForVisit) {
         this.id = id;
@@ -1,37 +1,43 @@
-//package com.syncura360.model;
-//
-//import jakarta.persistence.*;
-//import lombok.EqualsAndHashCode;
-//import lombok.Getter;
-//import lombok.NoArgsConstructor;
-//
-///**
-// * Represents a note associated with a visit, including details about the visit and the note itself.
-// *
-// * @author Darsh-KP
-// */
-//@NoArgsConstructor(force = true)
-//@Getter
-//@EqualsAndHashCode(of = "id")
-//@Entity
-//@Table(name = "VisitNote", schema = "syncura360")
-//public class VisitNote {
-//    @EmbeddedId
-//    private final VisitNoteId id;
-//
-//    @ManyToOne(fetch = FetchType.LAZY, optional = false)
-//    @JoinColumns({
-//            @JoinColumn(name = "hospital_id", referencedColumnName = "hospital_id", nullable = false, insertable = false, updatable = false),
-//            @JoinColumn(name = "patient_id", referencedColumnName = "patient_id", nullable = false, insertable = false, updatable = false),
-//            @JoinColumn(name = "visit_admission_date_time", referencedColumnName = "admission_date_time", nullable = false, insertable = false, updatable = false),
-//    })
-//    private Visit visit;
-//
-//    @Column(name = "note", nullable = false)
-//    private final String note;
-//
-//    public VisitNote(VisitNoteId id, String note) {
-//        this.id = id;
-//        this.note = note.trim();
-//    }
-//}
\ No newline at end of file
+package com.syncura360.model;
+
+import jakarta.persistence.*;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Represents one note entry on a visit. Entries are only ever appended, each with its time and author,
+ * rather than one note being rewritten on the visit.
+ *
+ * @author Darsh-KP
+ */
+@NoArgsConstructor(force = true)
+@Getter
+@EqualsAndHashCode(of = "id")
+@Entity
+@Table(name = "VisitNote", schema = "syncura360")
+public class VisitNote {
+    @EmbeddedId
+    private final VisitNoteId id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumns({
+            @JoinColumn(name = "hospital_id", referencedColumnName = "hospital_id", nullable = false, insertable = false, updatable = false),
+            @JoinColumn(name = "patient_id", referencedColumnName = "patient_id", nullable = false, insertable = false, updatable = false),
+            @JoinColumn(name = "visit_admission_date_time", referencedColumnName = "admission_date_time", nullable = false, insertable = false, updatable = false),
+    })
+    private Visit visit;
+
+    // Username of the staff member who wrote the entry; null for notes carried over from the old single note
+    @Column(name = "author", length = 20)
+    private final String author;
+
+    @Column(name = "note", nullable = false, length = 65535)
+    private final String note;
+
+    public VisitNote(VisitNoteId id, String author, String note) {
+        this.id = id;
+        this.author = author;
+        this.note = note.trim();
+    }
+}
@@ -0,0 +1,46 @@
+package com.syncura360.model;
+
+import jakarta.persistence.*;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Represents the frozen record of a discharged visit. Once discharged a visit no longer changes, so its
+ * timeline, latest note and bill are serialized once and read back whole instead of being rebuilt.
+ *
+ * @author Darsh-KP
+ */
+@NoArgsConstructor(force = true)
+@Getter
+@EqualsAndHashCode(of = "id")
+@Entity
+@Table(name = "VisitSnapshot", schema = "syncura360")
+public class VisitSnapshot {
+    @EmbeddedId
+    private final VisitSnapshotId id;
+
+    // Version of the visit the snapshot was taken at, so its ETag matches the one of a rebuilt record
+    @Column(name = "visit_version", nullable = false)
+    private final long visitVersion;
+
+    // Encoding of the snapshot column, see VisitSnapshotCodec
+    @Column(name = "format", nullable = false)
+    private final int format;
+
+    @Column(name = "created_at", nullable = false)
+    private final LocalDateTime createdAt;
+
+    @Column(name = "snapshot", nullable = false, columnDefinition = "mediumblob")
+    private final byte[] snapshot;
+
+    public VisitSnapshot(VisitSnapshotId id, long visitVersion, int format, byte[] snapshot) {
+        this.id = id;
+        this.visitVersion = visitVersion;
+        this.format = format;
+        this.createdAt = LocalDateTime.now();
+        this.snapshot = snapshot;
+    }
+}
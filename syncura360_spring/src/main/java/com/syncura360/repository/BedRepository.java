@@ -9,6 +9,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Repository interface for performing CRUD operations on the Bed entity.
@@ -27,4 +28,21 @@ public interface BedRepository extends JpaRepository<Bed, Long> {
     void deleteXVacantBedsInRoom(@Param("hospitalId") Integer hospitalId,@Param("roomName") String roomName,@Param("x") int x);
 
     void deleteAllByRoom(Room room);
+
+    // Locks the first bed in the given status, skipping beds other transactions have locked instead of queueing behind them
+    @Query(value = "SELECT bed_no FROM Bed WHERE hospital_id = :hospitalId AND room_name = :roomName AND status = :status " +
+            "ORDER BY bed_no LIMIT 1 FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    Optional<Long> lockFirstBedWithStatus(
+            @Param("hospitalId") int hospitalId,
+            @Param("roomName") String roomName,
+            @Param("status") String status
+    );
+
+    @Modifying
+    @Query("UPDATE Bed b SET b.status = :to WHERE b.id = :bedNo AND b.status = :from")
+    int transitionStatus(
+            @Param("bedNo") long bedNo,
+            @Param("from") BedStatus from,
+            @Param("to") BedStatus to
+    );
 }
@@ -0,0 +1,13 @@
+package com.syncura360.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Aggregated charges of one bill line: a service, drug or category, how many times it was charged
+ * (or the quantity given, for drugs) and the summed amount.
+ */
+public interface ChargeTotal {
+    String getName();
+    Long getCount();
+    BigDecimal getAmount();
+}
@@ -2,15 +2,95 @@ package com.syncura360.repository;
 
 import com.syncura360.model.DrugAdministered;
 import com.syncura360.model.DrugAdministeredId;
-import com.syncura360.model.Visit;
+import com.syncura360.model.enums.DrugCategory;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface DrugAdministeredRepository extends JpaRepository<DrugAdministered, DrugAdministeredId> {
 
-    List<DrugAdministered> findAllByVisit(Visit visit);
+    /**
+     * Timeline view of a drug administration, with the drug and the administering staff joined in.
+     */
+    interface TimelineEntry {
+        LocalDateTime getAdministeredAt();
+        String getDrugName();
+        String getStrength();
+        BigDecimal getPrice();
+        int getQuantity();
+        String getAdministeredByFirstName();
+        String getAdministeredByLastName();
+    }
 
+    /**
+     * Hospital drug charges of one drug category.
+     */
+    interface CategoryChargeTotal {
+        DrugCategory getCategory();
+        Long getCount();
+        BigDecimal getAmount();
+    }
 
+    @Query("SELECT da.id.administeredAt AS administeredAt, d.name AS drugName, d.strength AS strength, " +
+            "d.price AS price, da.quantity AS quantity, " +
+            "st.firstName AS administeredByFirstName, st.lastName AS administeredByLastName " +
+            "FROM DrugAdministered da JOIN da.drug d JOIN da.administeredBy st " +
+            "WHERE da.id.hospitalId = :hospitalId " +
+            "AND da.id.patientId = :patientId " +
+            "AND da.id.visitAdmissionDateTime = :admissionDateTime")
+    List<TimelineEntry> findTimelineByVisit(
+            @Param("hospitalId") int hospitalId,
+            @Param("patientId") int patientId,
+            @Param("admissionDateTime") LocalDateTime admissionDateTime
+    );
 
+    // Bounds are inclusive; order and size come from the pageable
+    @Query("SELECT da.id.administeredAt AS administeredAt, d.name AS drugName, d.strength AS strength, " +
+            "d.price AS price, da.quantity AS quantity, " +
+            "st.firstName AS administeredByFirstName, st.lastName AS administeredByLastName " +
+            "FROM DrugAdministered da JOIN da.drug d JOIN da.administeredBy st " +
+            "WHERE da.id.hospitalId = :hospitalId " +
+            "AND da.id.patientId = :patientId " +
+            "AND da.id.visitAdmissionDateTime = :admissionDateTime " +
+            "AND da.id.administeredAt BETWEEN :from AND :to")
+    List<TimelineEntry> findTimelineWindow(
+            @Param("hospitalId") int hospitalId,
+            @Param("patientId") int patientId,
+            @Param("admissionDateTime") LocalDateTime admissionDateTime,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to,
+            Pageable pageable
+    );
+
+    // Bill lines of one visit, one per drug, summed in the database at the current drug price
+    @Query("SELECT TRIM(CONCAT(d.name, ' ', COALESCE(d.strength, ''))) AS name, SUM(da.quantity) AS count, " +
+            "SUM(d.price * da.quantity) AS amount " +
+            "FROM DrugAdministered da JOIN da.drug d " +
+            "WHERE da.id.hospitalId = :hospitalId " +
+            "AND da.id.patientId = :patientId " +
+            "AND da.id.visitAdmissionDateTime = :admissionDateTime " +
+            "GROUP BY da.drug_ndc, d.name, d.strength " +
+            "ORDER BY d.name")
+    List<ChargeTotal> sumChargesByVisit(
+            @Param("hospitalId") int hospitalId,
+            @Param("patientId") int patientId,
+            @Param("admissionDateTime") LocalDateTime admissionDateTime
+    );
+
+    // Hospital charges per drug category, for drugs administered in [from, to)
+    @Query("SELECT d.category AS category, SUM(da.quantity) AS count, SUM(d.price * da.quantity) AS amount " +
+            "FROM DrugAdministered da JOIN da.drug d " +
+            "WHERE da.id.hospitalId = :hospitalId " +
+            "AND da.id.administeredAt >= :from AND da.id.administeredAt < :to " +
+            "GROUP BY d.category")
+    List<CategoryChargeTotal> sumChargesByCategory(
+            @Param("hospitalId") int hospitalId,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to
+    );
 }
@@ -3,9 +3,11 @@ package com.syncura360.repository;
 import com.syncura360.model.Drug;
 import com.syncura360.model.DrugId;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -27,5 +29,25 @@ public interface DrugRepository extends JpaRepository<Drug, DrugId> {
     )
     List<Drug> findAllAvailableAtHospital(@Param("hospitalId") int hospitalId);
 
+    // One IN query; findAllById falls back to a lookup per id for composite keys
+    @Query("SELECT d FROM Drug d " +
+            "WHERE d.id.hospitalId = :hospitalId " +
+            "AND d.id.ndc IN :ndcs")
+    List<Drug> findAllByHospitalIdAndNdcs(
+            @Param("hospitalId") int hospitalId,
+            @Param("ndcs") Collection<Long> ndcs
+    );
+
+    // Check and decrement in one statement, so concurrent administrations can never oversell
+    @Modifying
+    @Query("UPDATE Drug d SET d.quantity = d.quantity - :amount, d.version = d.version + 1 " +
+            "WHERE d.id.hospitalId = :hospitalId " +
+            "AND d.id.ndc = :ndc " +
+            "AND d.quantity >= :amount")
+    int decrementQuantity(
+            @Param("hospitalId") int hospitalId,
+            @Param("ndc") long ndc,
+            @Param("amount") int amount
+    );
 
 }
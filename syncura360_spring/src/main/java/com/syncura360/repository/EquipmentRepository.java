@@ -14,5 +14,7 @@ import java.util.List;
 public interface EquipmentRepository extends JpaRepository<Equipment, EquipmentId> {
     List<Equipment> findById_HospitalIdAndId_RoomName(Integer hospitalId, String roomName);
 
+    List<Equipment> findById_HospitalId(Integer hospitalId);
+
     void deleteAllById_HospitalIdAndId_RoomName(Integer hospitalId, String roomName);
 }
@@ -2,11 +2,12 @@ package com.syncura360.repository;
 
 import com.syncura360.model.RoomAssignment;
 import com.syncura360.model.RoomAssignmentId;
-import com.syncura360.model.Visit;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,5 +22,85 @@ public interface RoomAssignmentRepository extends JpaRepository<RoomAssignment,
             @Param("hospitalId") int hospitalId
     );
 
-    List<RoomAssignment> findAllByVisit(Visit visit);
+    /**
+     * Timeline view of a room assignment, with the room's department joined in.
+     */
+    interface TimelineEntry {
+        LocalDateTime getAssignedAt();
+        String getRoomName();
+        String getDepartment();
+        Boolean getIsRemoved();
+        LocalDateTime getRemovedAt();
+    }
+
+    @Query("SELECT ra.id.assignedAt AS assignedAt, ra.roomName AS roomName, r.department AS department, " +
+            "ra.isRemoved AS isRemoved, ra.removedAt AS removedAt " +
+            "FROM RoomAssignment ra JOIN ra.room r " +
+            "WHERE ra.id.hospitalId = :hospitalId " +
+            "AND ra.id.patientId = :patientId " +
+            "AND ra.id.visitAdmissionDateTime = :admissionDateTime")
+    List<TimelineEntry> findTimelineByVisit(
+            @Param("hospitalId") int hospitalId,
+            @Param("patientId") int patientId,
+            @Param("admissionDateTime") LocalDateTime admissionDateTime
+    );
+
+    // Assignment events; bounds are inclusive, order and size come from the pageable
+    @Query("SELECT ra.id.assignedAt AS assignedAt, ra.roomName AS roomName, r.department AS department, " +
+            "ra.isRemoved AS isRemoved, ra.removedAt AS removedAt " +
+            "FROM RoomAssignment ra JOIN ra.room r " +
+            "WHERE ra.id.hospitalId = :hospitalId " +
+            "AND ra.id.patientId = :patientId " +
+            "AND ra.id.visitAdmissionDateTime = :admissionDateTime " +
+            "AND ra.id.assignedAt BETWEEN :from AND :to")
+    List<TimelineEntry> findAssignedWindow(
+            @Param("hospitalId") int hospitalId,
+            @Param("patientId") int patientId,
+            @Param("admissionDateTime") LocalDateTime admissionDateTime,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to,
+            Pageable pageable
+    );
+
+    // Removal events; bounds are inclusive, order and size come from the pageable
+    @Query("SELECT ra.id.assignedAt AS assignedAt, ra.roomName AS roomName, r.department AS department, " +
+            "ra.isRemoved AS isRemoved, ra.removedAt AS removedAt " +
+            "FROM RoomAssignment ra JOIN ra.room r " +
+            "WHERE ra.id.hospitalId = :hospitalId " +
+            "AND ra.id.patientId = :patientId " +
+            "AND ra.id.visitAdmissionDateTime = :admissionDateTime " +
+            "AND ra.isRemoved = TRUE " +
+            "AND ra.removedAt BETWEEN :from AND :to")
+    List<TimelineEntry> findRemovedWindow(
+            @Param("hospitalId") int hospitalId,
+            @Param("patientId") int patientId,
+            @Param("admissionDateTime") LocalDateTime admissionDateTime,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to,
+            Pageable pageable
+    );
+
+    /**
+     * Days spent in one room during a visit.
+     */
+    interface RoomDays {
+        String getRoomName();
+        Long getDays();
+    }
+
+    // Each stay counts the midnights spent in the room, at least one; a stay not yet ended runs to :asOf
+    @Query(value = "SELECT ra.room_name AS roomName, " +
+            "CAST(SUM(GREATEST(DATEDIFF(COALESCE(ra.removed_at, :asOf), ra.assigned_at), 1)) AS SIGNED) AS days " +
+            "FROM RoomAssignment ra " +
+            "WHERE ra.hospital_id = :hospitalId " +
+            "AND ra.patient_id = :patientId " +
+            "AND ra.visit_admission_date_time = :admissionDateTime " +
+            "GROUP BY ra.room_name " +
+            "ORDER BY MIN(ra.assigned_at)", nativeQuery = true)
+    List<RoomDays> sumDaysByVisit(
+            @Param("hospitalId") int hospitalId,
+            @Param("patientId") int patientId,
+            @Param("admissionDateTime") LocalDateTime admissionDateTime,
+            @Param("asOf") LocalDateTime asOf
+    );
 }
@@ -2,8 +2,12 @@ package com.syncura360.repository;
 
 import com.syncura360.model.Room;
 import com.syncura360.model.RoomId;
+import com.syncura360.model.enums.BedStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,9 +17,40 @@ import java.util.Optional;
  * @author Darsh-KP
  */
 public interface RoomRepository extends JpaRepository<Room, RoomId> {
+
+    /**
+     * Number of beds of one room in one status. A room without beds has a single row with a null status.
+     */
+    interface RoomBedCount {
+        Integer getHospitalId();
+        String getRoomName();
+        String getDepartment();
+        BedStatus getStatus();
+        Long getBeds();
+    }
+
     boolean existsById_HospitalIdAndId_RoomName(Integer hospitalId, String roomName);
 
     Optional<Room> findById_HospitalIdAndId_RoomName(Integer hospitalId, String roomName);
 
     List<Room> findById_HospitalId(Integer hospitalId);
+
+    List<Room> findById_HospitalIdAndId_RoomNameIn(Integer hospitalId, Collection<String> roomNames);
+
+    @Query("SELECT r.id.hospitalId AS hospitalId, r.id.roomName AS roomName, r.department AS department, " +
+            "b.status AS status, COUNT(b) AS beds " +
+            "FROM Room r LEFT JOIN Bed b ON b.room = r " +
+            "GROUP BY r.id.hospitalId, r.id.roomName, r.department, b.status")
+    List<RoomBedCount> countBedsByStatus();
+
+    @Query("SELECT r.id.hospitalId AS hospitalId, r.id.roomName AS roomName, r.department AS department, " +
+            "b.status AS status, COUNT(b) AS beds " +
+            "FROM Room r LEFT JOIN Bed b ON b.room = r " +
+            "WHERE r.id.hospitalId = :hospitalId " +
+            "AND r.id.roomName = :roomName " +
+            "GROUP BY r.id.hospitalId, r.id.roomName, r.department, b.status")
+    List<RoomBedCount> countBedsByStatus(
+            @Param("hospitalId") int hospitalId,
+            @Param("roomName") String roomName
+    );
 }
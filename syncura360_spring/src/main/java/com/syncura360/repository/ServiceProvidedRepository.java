@@ -2,12 +2,84 @@ package com.syncura360.repository;
 
 import com.syncura360.model.ServiceProvided;
 import com.syncura360.model.ServiceProvidedId;
-import com.syncura360.model.Visit;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface ServiceProvidedRepository extends JpaRepository<ServiceProvided, ServiceProvidedId> {
 
-    List<ServiceProvided> findAllByVisit(Visit visit);
+    /**
+     * Timeline view of a service provided, with the performing staff and the service joined in.
+     */
+    interface TimelineEntry {
+        LocalDateTime getProvidedAt();
+        String getServiceName();
+        String getPerformedByFirstName();
+        String getPerformedByLastName();
+        BigDecimal getCost();
+        String getCategory();
+    }
+
+    @Query("SELECT sp.id.providedAt AS providedAt, sp.serviceName AS serviceName, " +
+            "st.firstName AS performedByFirstName, st.lastName AS performedByLastName, " +
+            "s.cost AS cost, s.category AS category " +
+            "FROM ServiceProvided sp JOIN sp.performedBy st JOIN sp.service s " +
+            "WHERE sp.id.hospitalId = :hospitalId " +
+            "AND sp.id.patientId = :patientId " +
+            "AND sp.id.visitAdmissionDateTime = :admissionDateTime")
+    List<TimelineEntry> findTimelineByVisit(
+            @Param("hospitalId") int hospitalId,
+            @Param("patientId") int patientId,
+            @Param("admissionDateTime") LocalDateTime admissionDateTime
+    );
+
+    // Bounds are inclusive; order and size come from the pageable
+    @Query("SELECT sp.id.providedAt AS providedAt, sp.serviceName AS serviceName, " +
+            "st.firstName AS performedByFirstName, st.lastName AS performedByLastName, " +
+            "s.cost AS cost, s.category AS category " +
+            "FROM ServiceProvided sp JOIN sp.performedBy st JOIN sp.service s " +
+            "WHERE sp.id.hospitalId = :hospitalId " +
+            "AND sp.id.patientId = :patientId " +
+            "AND sp.id.visitAdmissionDateTime = :admissionDateTime " +
+            "AND sp.id.providedAt BETWEEN :from AND :to")
+    List<TimelineEntry> findTimelineWindow(
+            @Param("hospitalId") int hospitalId,
+            @Param("patientId") int patientId,
+            @Param("admissionDateTime") LocalDateTime admissionDateTime,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to,
+            Pageable pageable
+    );
+
+    // Bill lines of one visit, summed in the database at the current service cost
+    @Query("SELECT sp.serviceName AS name, COUNT(sp) AS count, SUM(s.cost) AS amount " +
+            "FROM ServiceProvided sp JOIN sp.service s " +
+            "WHERE sp.id.hospitalId = :hospitalId " +
+            "AND sp.id.patientId = :patientId " +
+            "AND sp.id.visitAdmissionDateTime = :admissionDateTime " +
+            "GROUP BY sp.serviceName " +
+            "ORDER BY sp.serviceName")
+    List<ChargeTotal> sumChargesByVisit(
+            @Param("hospitalId") int hospitalId,
+            @Param("patientId") int patientId,
+            @Param("admissionDateTime") LocalDateTime admissionDateTime
+    );
+
+    // Hospital charges per service category, for services provided in [from, to)
+    @Query("SELECT s.category AS name, COUNT(sp) AS count, SUM(s.cost) AS amount " +
+            "FROM ServiceProvided sp JOIN sp.service s " +
+            "WHERE sp.id.hospitalId = :hospitalId " +
+            "AND sp.id.providedAt >= :from AND sp.id.providedAt < :to " +
+            "GROUP BY s.category " +
+            "ORDER BY s.category")
+    List<ChargeTotal> sumChargesByCategory(
+            @Param("hospitalId") int hospitalId,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to
+    );
 }
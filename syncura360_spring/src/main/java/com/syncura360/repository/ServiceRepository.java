@@ -5,6 +5,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -27,4 +28,13 @@ public interface ServiceRepository extends JpaRepository<Service, ServiceId> {
 
     @Query("SELECT hs FROM Service hs " + "WHERE hs.hospital.id = :hospitalId")
     List<Service> findByHospitalId(@Param("hospitalId") int hospitalId);
+
+    // One IN query; findAllById falls back to a lookup per id for composite keys
+    @Query("SELECT hs FROM Service hs " +
+            "WHERE hs.id.hospitalId = :hospitalId " +
+            "AND hs.id.name IN :names")
+    List<Service> findAllByHospitalIdAndNames(
+            @Param("hospitalId") int hospitalId,
+            @Param("names") Collection<String> names
+    );
 }
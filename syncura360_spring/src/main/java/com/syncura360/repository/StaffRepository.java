@@ -44,6 +44,22 @@ public interface StaffRepository extends JpaRepository<Staff, String> {
         Integer getYearsExperience();
     }
 
+    /**
+     * Projection holding only what a login needs.
+     */
+    interface LoginProjection {
+        String getUsername();
+        String getPasswordHash();
+        Role getRole();
+        Integer getHospitalId();
+    }
+
+    // Reads the hospital id from the foreign key column, so the hospital is never loaded
+    @Query("SELECT s.username AS username, s.passwordHash AS passwordHash, s.role AS role, s.worksAt.id AS hospitalId " +
+            "FROM Staff s " +
+            "WHERE s.username = :username")
+    Optional<LoginProjection> findLoginByUsername(@Param("username") String username);
+
     Optional<Staff> findByUsername(String username);
 
     List<StaffProjection> findByWorksAt(Hospital worksAt);
@@ -0,0 +1,39 @@
+package com.syncura360.repository;
+
+import com.syncura360.model.TokenRevocation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Repository interface for performing CRUD operations on the TokenRevocation entity.
+ *
+ * @author Benjamin Leiby
+ */
+public interface TokenRevocationRepository extends JpaRepository<TokenRevocation, Long> {
+
+    List<TokenRevocation> findAllByExpiresAtAfter(Instant now);
+
+    List<TokenRevocation> findAllByRevokedAtAfterAndExpiresAtAfter(Instant since, Instant now);
+
+    // Conditional insert on uq_token_revocation_token: 1 if this call revoked the token, 0 if it already was
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO syncura360.Token_Revocation (kind, subject, revoked_at, expires_at) " +
+            "VALUES ('Token', :tokenId, :revokedAt, :expiresAt)", nativeQuery = true)
+    int insertTokenRevocationIfAbsent(
+            @Param("tokenId") String tokenId,
+            @Param("revokedAt") Instant revokedAt,
+            @Param("expiresAt") Instant expiresAt
+    );
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM TokenRevocation r WHERE r.expiresAt <= :now")
+    int deleteExpired(@Param("now") Instant now);
+}
@@ -0,0 +1,365 @@
+package com.syncura360.repository;
+
+import com.syncura360.model.Visit;
+import com.syncura360.model.VisitSnapshot;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.StringJoiner;
+
+/**
+ * Access to the archive tables, which hold discharged visits and their child rows once they are old
+ * enough to leave the live tables. The archive tables have no entity mappings of their own, so this
+ * works in native SQL and returns the same views the live repositories do.
+ *
+ * @author Benjamin Leiby
+ */
+@Repository
+public class VisitArchiveRepository {
+
+    private static final String VISIT_KEY = "(hospital_id, patient_id, admission_date_time)";
+    private static final String CHILD_KEY = "(hospital_id, patient_id, visit_admission_date_time)";
+    private static final String[] CHILD_TABLES = {"ServiceProvided", "DrugAdministered", "RoomAssignment", "VisitNote", "VisitSnapshot"};
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    /**
+     * Moves about batchSize visits discharged before the cutoff, oldest first, together with their
+     * services, drugs, room assignments, notes and snapshots. The batch always ends on a whole discharge
+     * time, taking every visit discharged at the same moment as its last one, so no discharge time is
+     * ever split between the live and archive tables. Must run inside a transaction.
+     *
+     * @return Number of visits moved.
+     */
+    public int archiveDischargedBefore(LocalDateTime cutoff, int batchSize) {
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> keys = entityManager.createNativeQuery(
+                "SELECT hospital_id, patient_id, admission_date_time FROM syncura360.Visit " +
+                "WHERE discharge_date_time <= (SELECT MAX(discharge_date_time) FROM (" +
+                    "SELECT discharge_date_time FROM syncura360.Visit WHERE discharge_date_time < :cutoff " +
+                    "ORDER BY discharge_date_time LIMIT :batchSize) oldest) " +
+                "ORDER BY discharge_date_time FOR UPDATE")
+                .setParameter("cutoff", cutoff)
+                .setParameter("batchSize", batchSize)
+                .getResultList();
+
+        if (keys.isEmpty()) {
+            return 0;
+        }
+
+        String visitKeys = VISIT_KEY + " IN (" + placeholders(keys.size()) + ")";
+        String childKeys = CHILD_KEY + " IN (" + placeholders(keys.size()) + ")";
+
+        // Children first on delete, so the live foreign keys are never violated
+        for (String table : CHILD_TABLES) {
+            execute("INSERT INTO syncura360." + table + "_Archive SELECT * FROM syncura360." + table + " WHERE " + childKeys, keys);
+        }
+        execute("INSERT INTO syncura360.Visit_Archive SELECT * FROM syncura360.Visit WHERE " + visitKeys, keys);
+
+        for (String table : CHILD_TABLES) {
+            execute("DELETE FROM syncura360." + table + " WHERE " + childKeys, keys);
+        }
+        return execute("DELETE FROM syncura360.Visit WHERE " + visitKeys, keys);
+    }
+
+    /**
+     * Find an archived visit. The returned entity is detached and flagged as archived.
+     */
+    public Optional<Visit> findRecordById(int patientId, int hospitalId, LocalDateTime admissionDateTime) {
+
+        // The archive has the same columns as Visit, so it can be read straight into the entity
+        @SuppressWarnings("unchecked")
+        List<Visit> visits = entityManager.createNativeQuery(
+                "SELECT * FROM syncura360.Visit_Archive " +
+                "WHERE hospital_id = :hospitalId AND patient_id = :patientId " +
+                "AND admission_date_time = :admissionDateTime", Visit.class)
+                .setParameter("hospitalId", hospitalId)
+                .setParameter("patientId", patientId)
+                .setParameter("admissionDateTime", admissionDateTime)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultList();
+
+        if (visits.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Visit visit = visits.getFirst();
+        entityManager.detach(visit);
+        visit.setArchived(true);
+        return Optional.of(visit);
+    }
+
+    /**
+     * Archived counterpart of {@link VisitSnapshotRepository#findByVisit}. The returned entity is detached.
+     */
+    public Optional<VisitSnapshot> findSnapshotByVisit(int hospitalId, int patientId, LocalDateTime admissionDateTime) {
+
+        @SuppressWarnings("unchecked")
+        List<VisitSnapshot> snapshots = entityManager.createNativeQuery(
+                "SELECT * FROM syncura360.VisitSnapshot_Archive " +
+                "WHERE hospital_id = :hospitalId AND patient_id = :patientId " +
+                "AND visit_admission_date_time = :admissionDateTime", VisitSnapshot.class)
+                .setParameter("hospitalId", hospitalId)
+                .setParameter("patientId", patientId)
+                .setParameter("admissionDateTime", admissionDateTime)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultList();
+
+        if (snapshots.isEmpty()) {
+            return Optional.empty();
+        }
+
+        VisitSnapshot snapshot = snapshots.getFirst();
+        entityManager.detach(snapshot);
+        return Optional.of(snapshot);
+    }
+
+    /**
+     * Archived counterpart of {@link VisitRepository#findRecordPage}, same filters and keyset order.
+     * @param patientId Patient to restrict to, or null for all.
+     */
+    public List<VisitRepository.RecordEntry> findRecordPage(int hospitalId, LocalDateTime dischargedFrom,
+                                                            LocalDateTime dischargedTo, LocalDateTime beforeDischarge,
+                                                            int beforePatientId, Integer patientId,
+                                                            String namePattern, int limit) {
+
+        // Patient ids start at 1, so 0 stands for "any patient"
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = entityManager.createNativeQuery(
+                "SELECT v.patient_id, v.admission_date_time, p.first_name, p.last_name, p.date_of_birth, " +
+                "v.discharge_date_time " +
+                "FROM syncura360.Visit_Archive v JOIN syncura360.PatientInfo p ON p.patient_id = v.patient_id " +
+                "WHERE v.hospital_id = :hospitalId " +
+                "AND v.discharge_date_time BETWEEN :dischargedFrom AND :dischargedTo " +
+                "AND (v.discharge_date_time < :beforeDischarge " +
+                "OR (v.discharge_date_time = :beforeDischarge AND v.patient_id < :beforePatientId)) " +
+                "AND (:patientId = 0 OR v.patient_id = :patientId) " +
+                "AND (LOWER(p.first_name) LIKE :namePattern OR LOWER(p.last_name) LIKE :namePattern) " +
+                "ORDER BY v.discharge_date_time DESC, v.patient_id DESC")
+                .setParameter("hospitalId", hospitalId)
+                .setParameter("dischargedFrom", dischargedFrom)
+                .setParameter("dischargedTo", dischargedTo)
+                .setParameter("beforeDischarge", beforeDischarge)
+                .setParameter("beforePatientId", beforePatientId)
+                .setParameter("patientId", patientId == null ? 0 : patientId)
+                .setParameter("namePattern", namePattern)
+                .setMaxResults(limit)
+                .getResultList();
+
+        List<VisitRepository.RecordEntry> entries = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            entries.add(new ArchivedRecord(
+                    ((Number) row[0]).intValue(), toLocalDateTime(row[1]), (String) row[2], (String) row[3],
+                    toLocalDate(row[4]), toLocalDateTime(row[5])));
+        }
+        return entries;
+    }
+
+    /**
+     * Archived counterpart of {@link VisitNoteRepository#findPageByVisit}, newest first.
+     */
+    public List<VisitNoteRepository.NoteEntry> findNotePageByVisit(int hospitalId, int patientId,
+                                                                  LocalDateTime admissionDateTime,
+                                                                  LocalDateTime before, int limit) {
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = entityManager.createNativeQuery(
+                "SELECT n.created_at, n.author, n.note " +
+                "FROM syncura360.VisitNote_Archive n " +
+                "WHERE n.hospital_id = :hospitalId AND n.patient_id = :patientId " +
+                "AND n.visit_admission_date_time = :admissionDateTime " +
+                "AND n.created_at < :before " +
+                "ORDER BY n.created_at DESC")
+                .setParameter("hospitalId", hospitalId)
+                .setParameter("patientId", patientId)
+                .setParameter("admissionDateTime", admissionDateTime)
+                .setParameter("before", before)
+                .setMaxResults(limit)
+                .getResultList();
+
+        List<VisitNoteRepository.NoteEntry> entries = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            entries.add(new ArchivedNote(toLocalDateTime(row[0]), (String) row[1], (String) row[2]));
+        }
+        return entries;
+    }
+
+    /**
+     * Archived counterpart of {@link ServiceProvidedRepository#findTimelineByVisit}, oldest first.
+     * The live staff and service rows may have been deleted since, so they are left joined: a gone staff
+     * member shows as their username and a gone service without cost.
+     */
+    public List<ServiceProvidedRepository.TimelineEntry> findServiceTimelineByVisit(int hospitalId, int patientId,
+                                                                                     LocalDateTime admissionDateTime) {
+        List<Object[]> rows = visitRows(
+                "SELECT sp.provided_at, sp.service_name, COALESCE(st.first_name, sp.performed_by), " +
+                "COALESCE(st.last_name, ''), s.cost, COALESCE(s.category, 'Unknown') " +
+                "FROM syncura360.ServiceProvided_Archive sp " +
+                "LEFT JOIN syncura360.Staff st ON st.username = sp.performed_by " +
+                "LEFT JOIN syncura360.Service s ON s.hospital_id = sp.hospital_id AND s.name = sp.service_name " +
+                "WHERE sp.hospital_id = :hospitalId AND sp.patient_id = :patientId " +
+                "AND sp.visit_admission_date_time = :admissionDateTime " +
+                "ORDER BY sp.provided_at", hospitalId, patientId, admissionDateTime);
+
+        List<ServiceProvidedRepository.TimelineEntry> entries = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            entries.add(new ArchivedService(toLocalDateTime(row[0]), (String) row[1], (String) row[2],
+                    (String) row[3], (BigDecimal) row[4], (String) row[5]));
+        }
+        return entries;
+    }
+
+    /**
+     * Archived counterpart of {@link DrugAdministeredRepository#findTimelineByVisit}, oldest first.
+     * Left joined like {@link #findServiceTimelineByVisit}: a drug since removed from the inventory shows
+     * as its NDC without price.
+     */
+    public List<DrugAdministeredRepository.TimelineEntry> findDrugTimelineByVisit(int hospitalId, int patientId,
+                                                                                   LocalDateTime admissionDateTime) {
+        List<Object[]> rows = visitRows(
+                "SELECT da.administered_at, COALESCE(d.name, CONCAT('NDC ', da.drug_ndc)), d.strength, d.price, " +
+                "da.quantity, COALESCE(st.first_name, da.administered_by), COALESCE(st.last_name, '') " +
+                "FROM syncura360.DrugAdministered_Archive da " +
+                "LEFT JOIN syncura360.Drug d ON d.hospital_id = da.hospital_id AND d.ndc = da.drug_ndc " +
+                "LEFT JOIN syncura360.Staff st ON st.username = da.administered_by " +
+                "WHERE da.hospital_id = :hospitalId AND da.patient_id = :patientId " +
+                "AND da.visit_admission_date_time = :admissionDateTime " +
+                "ORDER BY da.administered_at", hospitalId, patientId, admissionDateTime);
+
+        List<DrugAdministeredRepository.TimelineEntry> entries = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            entries.add(new ArchivedDrug(toLocalDateTime(row[0]), (String) row[1], (String) row[2],
+                    (BigDecimal) row[3], ((Number) row[4]).intValue(), (String) row[5], (String) row[6]));
+        }
+        return entries;
+    }
+
+    /**
+     * Archived counterpart of {@link RoomAssignmentRepository#findTimelineByVisit}, oldest assignment first.
+     * The room is left joined, as it may have been deleted since.
+     */
+    public List<RoomAssignmentRepository.TimelineEntry> findRoomTimelineByVisit(int hospitalId, int patientId,
+                                                                                 LocalDateTime admissionDateTime) {
+        List<Object[]> rows = visitRows(
+                "SELECT ra.assigned_at, ra.room_name, COALESCE(r.department, 'Unknown'), ra.is_removed, ra.removed_at " +
+                "FROM syncura360.RoomAssignment_Archive ra " +
+                "LEFT JOIN syncura360.Room r ON r.hospital_id = ra.hospital_id AND r.room_name = ra.room_name " +
+                "WHERE ra.hospital_id = :hospitalId AND ra.patient_id = :patientId " +
+                "AND ra.visit_admission_date_time = :admissionDateTime " +
+                "ORDER BY ra.assigned_at", hospitalId, patientId, admissionDateTime);
+
+        List<RoomAssignmentRepository.TimelineEntry> entries = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            entries.add(new ArchivedRoom(toLocalDateTime(row[0]), (String) row[1], (String) row[2],
+                    toBoolean(row[3]), toLocalDateTime(row[4])));
+        }
+        return entries;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object[]> visitRows(String sql, int hospitalId, int patientId, LocalDateTime admissionDateTime) {
+        return entityManager.createNativeQuery(sql)
+                .setParameter("hospitalId", hospitalId)
+                .setParameter("patientId", patientId)
+                .setParameter("admissionDateTime", admissionDateTime)
+                .getResultList();
+    }
+
+    private int execute(String sql, List<Object[]> keys) {
+        Query query = entityManager.createNativeQuery(sql);
+        int position = 1;
+        for (Object[] key : keys) {
+            for (Object column : key) {
+                query.setParameter(position++, column);
+            }
+        }
+        return query.executeUpdate();
+    }
+
+    // Numbered placeholders for count visit keys, matching the binding order in execute
+    private static String placeholders(int count) {
+        StringJoiner joiner = new StringJoiner(", ");
+        for (int i = 0; i < count; i++) {
+            int first = i * 3 + 1;
+            joiner.add("(?" + first + ", ?" + (first + 1) + ", ?" + (first + 2) + ")");
+        }
+        return joiner.toString();
+    }
+
+    // Native results come back as whatever the driver maps the column to
+    private static LocalDateTime toLocalDateTime(Object value) {
+        if (value == null) {
+            return null;
+        }
+        return value instanceof Timestamp timestamp ? timestamp.toLocalDateTime() : (LocalDateTime) value;
+    }
+
+    private static LocalDate toLocalDate(Object value) {
+        return value instanceof java.sql.Date date ? date.toLocalDate() : (LocalDate) value;
+    }
+
+    private static Boolean toBoolean(Object value) {
+        return value instanceof Number number ? number.intValue() != 0 : (Boolean) value;
+    }
+
+    private record ArchivedRecord(Integer patientId, LocalDateTime admissionDateTime, String firstName,
+                                  String lastName, LocalDate dateOfBirth,
+                                  LocalDateTime dischargeDateTime) implements VisitRepository.RecordEntry {
+        public Integer getPatientId() { return patientId; }
+        public LocalDateTime getAdmissionDateTime() { return admissionDateTime; }
+        public String getFirstName() { return firstName; }
+        public String getLastName() { return lastName; }
+        public LocalDate getDateOfBirth() { return dateOfBirth; }
+        public LocalDateTime getDischargeDateTime() { return dischargeDateTime; }
+    }
+
+    private record ArchivedService(LocalDateTime providedAt, String serviceName, String performedByFirstName,
+                                   String performedByLastName, BigDecimal cost, String category)
+            implements ServiceProvidedRepository.TimelineEntry {
+        public LocalDateTime getProvidedAt() { return providedAt; }
+        public String getServiceName() { return serviceName; }
+        public String getPerformedByFirstName() { return performedByFirstName; }
+        public String getPerformedByLastName() { return performedByLastName; }
+        public BigDecimal getCost() { return cost; }
+        public String getCategory() { return category; }
+    }
+
+    private record ArchivedDrug(LocalDateTime administeredAt, String drugName, String strength, BigDecimal price,
+                                int quantity, String administeredByFirstName, String administeredByLastName)
+            implements DrugAdministeredRepository.TimelineEntry {
+        public LocalDateTime getAdministeredAt() { return administeredAt; }
+        public String getDrugName() { return drugName; }
+        public String getStrength() { return strength; }
+        public BigDecimal getPrice() { return price; }
+        public int getQuantity() { return quantity; }
+        public String getAdministeredByFirstName() { return administeredByFirstName; }
+        public String getAdministeredByLastName() { return administeredByLastName; }
+    }
+
+    private record ArchivedNote(LocalDateTime createdAt, String author, String note)
+            implements VisitNoteRepository.NoteEntry {
+        public LocalDateTime getCreatedAt() { return createdAt; }
+        public String getAuthor() { return author; }
+        public String getNote() { return note; }
+    }
+
+    private record ArchivedRoom(LocalDateTime assignedAt, String roomName, String department, Boolean isRemoved,
+                                LocalDateTime removedAt) implements RoomAssignmentRepository.TimelineEntry {
+        public LocalDateTime getAssignedAt() { return assignedAt; }
+        public String getRoomName() { return roomName; }
+        public String getDepartment() { return department; }
+        public Boolean getIsRemoved() { return isRemoved; }
+        public LocalDateTime getRemovedAt() { return removedAt; }
+    }
+}
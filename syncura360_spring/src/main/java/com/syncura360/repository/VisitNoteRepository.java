@@ -0,0 +1,39 @@
+package com.syncura360.repository;
+
+import com.syncura360.model.VisitNote;
+import com.syncura360.model.VisitNoteId;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface VisitNoteRepository extends JpaRepository<VisitNote, VisitNoteId> {
+
+    /**
+     * One note entry of a visit.
+     */
+    interface NoteEntry {
+        LocalDateTime getCreatedAt();
+        String getAuthor();
+        String getNote();
+    }
+
+    // Keyset page, newest first: entries strictly before the given time. Served by the primary key.
+    @Query("SELECT n.id.createdAt AS createdAt, n.author AS author, n.note AS note " +
+            "FROM VisitNote n " +
+            "WHERE n.id.hospitalId = :hospitalId " +
+            "AND n.id.patientId = :patientId " +
+            "AND n.id.visitAdmissionDateTime = :admissionDateTime " +
+            "AND n.id.createdAt < :before " +
+            "ORDER BY n.id.createdAt DESC")
+    List<NoteEntry> findPageByVisit(
+            @Param("hospitalId") int hospitalId,
+            @Param("patientId") int patientId,
+            @Param("admissionDateTime") LocalDateTime admissionDateTime,
+            @Param("before") LocalDateTime before,
+            Pageable pageable
+    );
+}
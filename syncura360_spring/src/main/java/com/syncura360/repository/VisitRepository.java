@@ -2,32 +2,47 @@ package com.syncura360.repository;
 
 import com.syncura360.model.Visit;
 import com.syncura360.model.VisitId;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 public interface VisitRepository extends JpaRepository<Visit, VisitId> {
 
+    /**
+     * One row of the current census, already joined to the patient.
+     */
+    interface CensusEntry {
+        Integer getPatientId();
+        LocalDateTime getAdmissionDateTime();
+        String getFirstName();
+        String getLastName();
+        LocalDate getDateOfBirth();
+    }
+
+    /**
+     * One discharged visit, already joined to the patient.
+     */
+    interface RecordEntry extends CensusEntry {
+        LocalDateTime getDischargeDateTime();
+    }
+
+    // Point read on uq_visit_active
     @Query("SELECT vs FROM Visit vs " +
-            "WHERE vs.id.patientId = :patientId " +
-            "AND vs.id.hospitalId = :hospitalId " +
-            "AND vs.dischargeDateTime IS NULL")
+            "WHERE vs.activePatientId = :patientId " +
+            "AND vs.id.hospitalId = :hospitalId")
     Optional<Visit> findCurrentVisitById(
             @Param("patientId") int patientId,
             @Param("hospitalId") int hospitalId
     );
 
-    @Query("SELECT vs FROM Visit vs " +
-            "WHERE vs.id.hospitalId = :hospitalId " +
-            "AND vs.dischargeDateTime is NULL")
-    List<Visit> findCurrentVisitsByHospitalId(
-            @Param("hospitalId") int hospitalId
-    );
-
     @Query("SELECT vs FROM Visit vs " +
             "WHERE vs.id.patientId = :patientId " +
             "AND vs.id.admissionDateTime = :admissionDateTime " +
@@ -39,11 +54,68 @@ public interface VisitRepository extends JpaRepository<Visit, VisitId> {
             @Param("admissionDateTime") LocalDateTime admissionDateTime
     );
 
-    @Query("SELECT vs FROM Visit vs " +
+    // namePattern is a lower case LIKE pattern; served by the (hospital_id, discharge_date_time) index prefix
+    @Query(value = "SELECT vs.id.patientId AS patientId, vs.id.admissionDateTime AS admissionDateTime, " +
+            "p.firstName AS firstName, p.lastName AS lastName, p.dateOfBirth AS dateOfBirth " +
+            "FROM Visit vs JOIN vs.patient p " +
             "WHERE vs.id.hospitalId = :hospitalId " +
-            "AND vs.dischargeDateTime IS NOT NULL")
-    List<Visit> findRecordsByHospitalId(
+            "AND vs.dischargeDateTime IS NULL " +
+            "AND vs.id.admissionDateTime BETWEEN :admittedFrom AND :admittedTo " +
+            "AND (LOWER(p.firstName) LIKE :namePattern OR LOWER(p.lastName) LIKE :namePattern)",
+            countQuery = "SELECT COUNT(vs) FROM Visit vs JOIN vs.patient p " +
+            "WHERE vs.id.hospitalId = :hospitalId " +
+            "AND vs.dischargeDateTime IS NULL " +
+            "AND vs.id.admissionDateTime BETWEEN :admittedFrom AND :admittedTo " +
+            "AND (LOWER(p.firstName) LIKE :namePattern OR LOWER(p.lastName) LIKE :namePattern)")
+    Page<CensusEntry> findCensus(
+            @Param("hospitalId") int hospitalId,
+            @Param("namePattern") String namePattern,
+            @Param("admittedFrom") LocalDateTime admittedFrom,
+            @Param("admittedTo") LocalDateTime admittedTo,
+            Pageable pageable
+    );
+
+    // Keyset page, newest discharge first: rows strictly after (beforeDischarge, beforePatientId) in that order.
+    // Walks idx_visit_hospital_discharge_patient, so the cost does not depend on how deep the page is.
+    @Query("SELECT vs.id.patientId AS patientId, vs.id.admissionDateTime AS admissionDateTime, " +
+            "p.firstName AS firstName, p.lastName AS lastName, p.dateOfBirth AS dateOfBirth, " +
+            "vs.dischargeDateTime AS dischargeDateTime " +
+            "FROM Visit vs JOIN vs.patient p " +
+            "WHERE vs.id.hospitalId = :hospitalId " +
+            "AND vs.dischargeDateTime BETWEEN :dischargedFrom AND :dischargedTo " +
+            "AND (vs.dischargeDateTime < :beforeDischarge " +
+            "OR (vs.dischargeDateTime = :beforeDischarge AND vs.id.patientId < :beforePatientId)) " +
+            "AND (:patientId IS NULL OR vs.id.patientId = :patientId) " +
+            "AND (LOWER(p.firstName) LIKE :namePattern OR LOWER(p.lastName) LIKE :namePattern) " +
+            "ORDER BY vs.dischargeDateTime DESC, vs.id.patientId DESC")
+    List<RecordEntry> findRecordPage(
+            @Param("hospitalId") int hospitalId,
+            @Param("dischargedFrom") LocalDateTime dischargedFrom,
+            @Param("dischargedTo") LocalDateTime dischargedTo,
+            @Param("beforeDischarge") LocalDateTime beforeDischarge,
+            @Param("beforePatientId") int beforePatientId,
+            @Param("patientId") Integer patientId,
+            @Param("namePattern") String namePattern,
+            Pageable pageable
+    );
+
+    @Modifying
+    @Query("UPDATE Visit vs SET vs.version = vs.version + 1 " +
+            "WHERE vs.activePatientId = :patientId " +
+            "AND vs.id.hospitalId = :hospitalId")
+    int bumpCurrentVisitVersion(
+            @Param("patientId") int patientId,
             @Param("hospitalId") int hospitalId
     );
 
+    // Discharged visits still waiting for their snapshot, most recently discharged first
+    @Query("SELECT vs FROM Visit vs " +
+            "WHERE vs.dischargeDateTime IS NOT NULL " +
+            "AND NOT EXISTS (SELECT 1 FROM VisitSnapshot s " +
+            "WHERE s.id.hospitalId = vs.id.hospitalId " +
+            "AND s.id.patientId = vs.id.patientId " +
+            "AND s.id.visitAdmissionDateTime = vs.id.admissionDateTime) " +
+            "ORDER BY vs.dischargeDateTime DESC")
+    List<Visit> findRecordsWithoutSnapshot(Pageable pageable);
+
 }
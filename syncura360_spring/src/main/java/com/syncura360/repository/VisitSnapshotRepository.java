@@ -0,0 +1,23 @@
+package com.syncura360.repository;
+
+import com.syncura360.model.VisitSnapshot;
+import com.syncura360.model.VisitSnapshotId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface VisitSnapshotRepository extends JpaRepository<VisitSnapshot, VisitSnapshotId> {
+
+    @Query("SELECT s FROM VisitSnapshot s " +
+            "WHERE s.id.hospitalId = :hospitalId " +
+            "AND s.id.patientId = :patientId " +
+            "AND s.id.visitAdmissionDateTime = :admissionDateTime")
+    Optional<VisitSnapshot> findByVisit(
+            @Param("hospitalId") int hospitalId,
+            @Param("patientId") int patientId,
+            @Param("admissionDateTime") LocalDateTime admissionDateTime
+    );
+}
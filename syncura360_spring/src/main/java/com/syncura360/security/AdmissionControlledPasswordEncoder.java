@@ -0,0 +1,33 @@
+package com.syncura360.security;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * {@link PasswordEncoder} that runs every hash of its delegate through {@link PasswordHashingAdmission}.
+ *
+ * @author Darsh-KP
+ */
+public class AdmissionControlledPasswordEncoder implements PasswordEncoder {
+    private final PasswordEncoder delegate;
+    private final PasswordHashingAdmission admission;
+
+    public AdmissionControlledPasswordEncoder(PasswordEncoder delegate, PasswordHashingAdmission admission) {
+        this.delegate = delegate;
+        this.admission = admission;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return admission.run(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return admission.run(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+}
@@ -0,0 +1,32 @@
+package com.syncura360.security;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint ({@code /actuator/argon2}) for reading the current Argon2 parameters and
+ * re-running calibration on demand.
+ *
+ * @author Darsh-KP
+ */
+@Component
+@Endpoint(id = "argon2")
+public class Argon2CalibrationEndpoint {
+    private final Argon2Calibrator calibrator;
+
+    public Argon2CalibrationEndpoint(Argon2Calibrator calibrator) {
+        this.calibrator = calibrator;
+    }
+
+    @ReadOperation
+    public Argon2Parameters parameters() {
+        return passwordSecurity.getConfigurableEncoder().getParameters();
+    }
+
+    @WriteOperation
+    public Argon2Parameters calibrate() {
+        return calibrator.calibrate();
+    }
+}
@@ -0,0 +1,141 @@
+package com.syncura360.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+/**
+ * Benchmarks Argon2id on this host and picks memory and iteration costs that hash in about the
+ * configured target time, without going below the configured security floor.
+ * <p>
+ * Memory is reduced first (halving from the maximum) until a hash at the minimum iteration count
+ * fits the target; any remaining time budget is then spent on extra iterations. Memory never
+ * exceeds {@link passwordSecurity#DEFAULT_PARAMETERS} so that the permits sized by
+ * {@link PasswordHashingAdmission} stay valid. Benchmarks run through the admission controller,
+ * so calibrating on a live node does not overrun the hashing memory budget.
+ *
+ * @author Darsh-KP
+ */
+@Component
+public class Argon2Calibrator {
+    private static final String PROBE = "argon2-calibration-probe";
+
+    /**
+     * Measures how long one hash takes with the given costs.
+     */
+    @FunctionalInterface
+    interface Benchmark {
+        long millis(int memoryKib, int iterations);
+    }
+
+    private final PasswordHashingAdmission admission;
+    private final boolean calibrateOnStartup;
+    private final long targetMillis;
+    private final int minMemoryKib;
+    private final int maxMemoryKib;
+    private final int minIterations;
+    private final int maxIterations;
+    private final int samples;
+
+    /**
+     * Constructs the calibrator.
+     *
+     * @param admission          Admission controller every benchmark hash runs through.
+     * @param calibrateOnStartup Whether to calibrate once the application is ready.
+     * @param targetMillis       Target time for a single hash.
+     * @param minMemoryKib       Security floor for memory cost.
+     * @param maxMemoryKib       Upper bound for memory cost.
+     * @param minIterations      Security floor for iterations.
+     * @param maxIterations      Upper bound for iterations.
+     * @param samples            Number of hashes measured per candidate; the median is used.
+     */
+    public Argon2Calibrator(PasswordHashingAdmission admission,
+                            @Value("${security.argon2.calibrate-on-startup:true}") boolean calibrateOnStartup,
+                            @Value("${security.argon2.target-ms:500}") long targetMillis,
+                            @Value("${security.argon2.min-memory-kib:19456}") int minMemoryKib,
+                            @Value("${security.argon2.max-memory-kib:262144}") int maxMemoryKib,
+                            @Value("${security.argon2.min-iterations:2}") int minIterations,
+                            @Value("${security.argon2.max-iterations:10}") int maxIterations,
+                            @Value("${security.argon2.samples:3}") int samples) {
+        this.admission = admission;
+        this.calibrateOnStartup = calibrateOnStartup;
+        this.targetMillis = targetMillis;
+        this.maxMemoryKib = Math.min(maxMemoryKib, passwordSecurity.MEMORY_KIB);
+        this.minMemoryKib = Math.min(minMemoryKib, this.maxMemoryKib);
+        this.minIterations = minIterations;
+        this.maxIterations = Math.max(minIterations, maxIterations);
+        this.samples = Math.max(1, samples);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void calibrateOnStartup() {
+        if (calibrateOnStartup) {
+            calibrate();
+        }
+    }
+
+    /**
+     * Benchmarks the host and applies the chosen parameters to the shared encoder.
+     *
+     * @return The parameters now used for new hashes.
+     */
+    public Argon2Parameters calibrate() {
+        ConfigurableArgon2PasswordEncoder encoder = passwordSecurity.getConfigurableEncoder();
+        Argon2Parameters current = encoder.getParameters();
+
+        Argon2Parameters chosen = choose(current, this::measure);
+        encoder.setParameters(chosen);
+
+        return chosen;
+    }
+
+    /**
+     * Picks memory and iteration costs using the given benchmark.
+     *
+     * @param base      Parameters to take salt length, hash length and parallelism from.
+     * @param benchmark Measures the time of one hash.
+     * @return The chosen parameters.
+     */
+    Argon2Parameters choose(Argon2Parameters base, Benchmark benchmark) {
+        int memory = maxMemoryKib;
+        long elapsed = benchmark.millis(memory, minIterations);
+
+        while (elapsed > targetMillis && memory / 2 >= minMemoryKib) {
+            memory /= 2;
+            elapsed = benchmark.millis(memory, minIterations);
+        }
+
+        // Time scales roughly linearly with iterations, so spend what is left of the budget on passes
+        long perIteration = Math.max(1, elapsed / minIterations);
+        int iterations = (int) Math.min(maxIterations, Math.max(minIterations, targetMillis / perIteration));
+
+        return new Argon2Parameters(base.saltLength(), base.hashLength(), base.parallelism(), memory, iterations);
+    }
+
+    /**
+     * Measures the median time of hashing with the given costs on this host.
+     *
+     * @param memoryKib  Memory cost in KiB.
+     * @param iterations Number of iterations.
+     * @return Median hash time in milliseconds.
+     */
+    private long measure(int memoryKib, int iterations) {
+        Argon2Parameters base = passwordSecurity.DEFAULT_PARAMETERS;
+        var encoder = new Argon2Parameters(base.saltLength(), base.hashLength(), base.parallelism(), memoryKib, iterations).toEncoder();
+
+        long[] timings = new long[samples];
+        for (int i = 0; i < samples; i++) {
+            timings[i] = admission.run(() -> {
+                long start = System.nanoTime();
+                encoder.encode(PROBE);
+                return (System.nanoTime() - start) / 1_000_000;
+            });
+        }
+
+        Arrays.sort(timings);
+        return timings[samples / 2];
+    }
+}
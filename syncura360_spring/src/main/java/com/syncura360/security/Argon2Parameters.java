@@ -0,0 +1,88 @@
+package com.syncura360.security;
+
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+
+/**
+ * Cost parameters for Argon2id hashing.
+ *
+ * @param saltLength  Salt length in bytes.
+ * @param hashLength  Hash length in bytes.
+ * @param parallelism Number of lanes.
+ * @param memoryKib   Memory cost in KiB.
+ * @param iterations  Number of passes over memory.
+ *
+ * @author Darsh-KP
+ */
+public record Argon2Parameters(int saltLength, int hashLength, int parallelism, int memoryKib, int iterations) {
+
+    /**
+     * @return A new encoder that hashes with these parameters.
+     */
+    public Argon2PasswordEncoder toEncoder() {
+        return new Argon2PasswordEncoder(saltLength, hashLength, parallelism, memoryKib, iterations);
+    }
+
+    /**
+     * @return Bytes of memory a single hash with these parameters allocates.
+     */
+    public long memoryBytes() {
+        return memoryKib * 1024L;
+    }
+
+    /**
+     * Checks whether a hash made with these parameters costs less than one made with the other parameters.
+     * Parameters that trade one cost for another (more memory but fewer iterations) are not weaker either
+     * way, so hashes are never rewritten back and forth between two calibrations.
+     *
+     * @param other The parameters to compare against.
+     * @return True if memory, iterations and parallelism are all at most the other parameters', and at least
+     *         one of them is lower.
+     */
+    public boolean isWeakerThan(Argon2Parameters other) {
+        boolean noneHigher = memoryKib <= other.memoryKib && iterations <= other.iterations
+                && parallelism <= other.parallelism;
+        boolean someLower = memoryKib < other.memoryKib || iterations < other.iterations
+                || parallelism < other.parallelism;
+        return noneHigher && someLower;
+    }
+
+    /**
+     * Reads the cost parameters from an encoded hash in the PHC format
+     * ({@code $argon2id$v=19$m=65536,t=3,p=1$salt$hash}). Salt and hash lengths are not
+     * encoded, so they are reported as 0.
+     *
+     * @param encoded The encoded hash.
+     * @return The parameters the hash was made with.
+     * @throws IllegalArgumentException If the value is not an encoded Argon2 hash.
+     */
+    public static Argon2Parameters parse(String encoded) {
+        if (encoded == null || !encoded.startsWith("$argon2")) {
+            throw new IllegalArgumentException("Not an Argon2 hash.");
+        }
+
+        String[] parts = encoded.split("\\$");
+        // Version segment is optional in the PHC format
+        String costs = parts.length > 3 && parts[2].startsWith("v=") ? parts[3] : parts[2];
+
+        int memory = -1, iterations = -1, parallelism = -1;
+        for (String cost : costs.split(",")) {
+            String[] pair = cost.split("=", 2);
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Malformed Argon2 parameters.");
+            }
+            int value = Integer.parseInt(pair[1]);
+            switch (pair[0]) {
+                case "m" -> memory = value;
+                case "t" -> iterations = value;
+                case "p" -> parallelism = value;
+                default -> throw new IllegalArgumentException("Unknown Argon2 parameter: " + pair[0]);
+            }
+        }
+
+        if (memory < 0 || iterations < 0 || parallelism < 0) {
+            throw new IllegalArgumentException("Missing Argon2 parameters.");
+        }
+
+        return new Argon2Parameters(0, 0, parallelism, memory, iterations);
+    }
+}
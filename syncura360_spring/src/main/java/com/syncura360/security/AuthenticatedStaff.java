@@ -0,0 +1,27 @@
+package com.syncura360.security;
+
+import java.security.Principal;
+
+/**
+ * Immutable principal describing the staff member a verified JWT was issued to.
+ * <p>
+ * Built once per request by {@link JwtAuthenticationFilter} and handed to controller
+ * methods by {@link AuthenticatedStaffArgumentResolver}, so the token is never parsed twice.
+ *
+ * @param username   The username (JWT subject) of the staff member.
+ * @param role       The role value of the staff member.
+ * @param hospitalId The id of the hospital the staff member works at.
+ * @author Benjamin Leiby
+ */
+public record AuthenticatedStaff(String username, String role, int hospitalId) implements Principal {
+
+    /**
+     * Request attribute under which the filter stores the principal.
+     */
+    public static final String REQUEST_ATTRIBUTE = AuthenticatedStaff.class.getName();
+
+    @Override
+    public String getName() {
+        return username;
+    }
+}
@@ -0,0 +1,40 @@
+package com.syncura360.security;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.lang.NonNull;
+import org.springframework.security.authentication.InsufficientAuthenticationException;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+/**
+ * Resolves {@link AuthenticatedStaff} controller parameters from the principal
+ * stored on the request by {@link JwtAuthenticationFilter}.
+ *
+ * @author Benjamin Leiby
+ */
+@Component
+public class AuthenticatedStaffArgumentResolver implements HandlerMethodArgumentResolver {
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return AuthenticatedStaff.class.equals(parameter.getParameterType());
+    }
+
+    @Override
+    public Object resolveArgument(@NonNull MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  @NonNull NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+
+        Object principal = webRequest.getAttribute(AuthenticatedStaff.REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+
+        // Anything else under the attribute did not come from the filter and is not trusted
+        if (!(principal instanceof AuthenticatedStaff staff)) {
+            throw new InsufficientAuthenticationException("Request has no authenticated staff member.");
+        }
+
+        return staff;
+    }
+}
@@ -0,0 +1,56 @@
+package com.syncura360.security;
+
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Argon2id {@link PasswordEncoder} whose cost parameters can be replaced at runtime, for example
+ * after {@link Argon2Calibrator} benchmarks the host.
+ * <p>
+ * Verification reads the parameters from the stored hash, so hashes made with earlier parameters
+ * keep working. {@link #upgradeEncoding} reports hashes weaker than the current parameters so that
+ * they are re-hashed on the next successful login.
+ *
+ * @author Darsh-KP
+ */
+public class ConfigurableArgon2PasswordEncoder implements PasswordEncoder {
+    private volatile Argon2Parameters parameters;
+    private volatile Argon2PasswordEncoder encoder;
+
+    public ConfigurableArgon2PasswordEncoder(Argon2Parameters parameters) {
+        setParameters(parameters);
+    }
+
+    /**
+     * Replaces the parameters used for newly encoded passwords.
+     *
+     * @param parameters The new cost parameters.
+     */
+    public synchronized void setParameters(Argon2Parameters parameters) {
+        this.encoder = parameters.toEncoder();
+        this.parameters = parameters;
+    }
+
+    public Argon2Parameters getParameters() {
+        return parameters;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return encoder.encode(rawPassword);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return encoder.matches(rawPassword, encodedPassword);
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        try {
+            return Argon2Parameters.parse(encodedPassword).isWeakerThan(parameters);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.syncura360.security;
+
+/**
+ * Thrown when a password hash cannot be admitted because the hashing capacity
+ * (concurrency permits and wait queue) is exhausted.
+ *
+ * @author Darsh-KP
+ */
+public class HashingCapacityException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public HashingCapacityException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * @return How long the client should wait before retrying, for the Retry-After header.
+     */
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -1,15 +1,10 @@
 package com.syncura360.security;
 
-import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jws;
 import io.jsonwebtoken.JwtException;
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.security.Keys;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -17,25 +12,31 @@ import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
-import org.yaml.snakeyaml.external.biz.base64Coder.Base64Coder;
 
-import javax.crypto.SecretKey;
 import java.io.IOException;
 import java.util.List;
 
 /**
  * Filter for authenticating JWT tokens in HTTP requests.
+ * <p>
+ * The token is verified at most once per request, and not at all when it is found in the
+ * {@link VerifiedTokenCache}. It is then checked against the in-memory {@link TokenRevocationService}
+ * list. The resulting {@link AuthenticatedStaff} is stored as the authentication principal and as a
+ * request attribute for controllers.
  *
  * @author Benjamin Leiby
  */
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
-    private final SecretKey key;
+    private final JwtUtil jwtUtil;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final TokenRevocationService tokenRevocationService;
 
-    public JwtAuthenticationFilter(@Value("${JWT_SECRET_KEY}") String secret) {
-        byte [] decodedKey = Base64Coder.decode(secret);
-        key = Keys.hmacShaKeyFor(decodedKey);
+    public JwtAuthenticationFilter(JwtUtil jwtUtil, VerifiedTokenCache verifiedTokenCache, TokenRevocationService tokenRevocationService) {
+        this.jwtUtil = jwtUtil;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.tokenRevocationService = tokenRevocationService;
     }
 
     @Override
@@ -47,17 +48,21 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         if (authHeader != null && authHeader.startsWith(("Bearer "))) {
 
             String jwt = authHeader.substring(7);
-            System.out.println("JWT: " + jwt);
 
             try {
-                Jws<Claims> jwsClaims = Jwts.parser().verifyWith(key).build().parseSignedClaims(jwt);
-                Claims claims = jwsClaims.getPayload();
-                String username = claims.getSubject();
-                String role = claims.get("role", String.class);
-                List<SimpleGrantedAuthority> authorities = List.of(new SimpleGrantedAuthority(role));
+                VerifiedToken token = verifiedTokenCache.getOrVerify(jwt, jwtUtil::verify);
+                if (tokenRevocationService.isRevoked(token)) {
+                    response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+                    return;
+                }
+
+                AuthenticatedStaff principal = token.staff();
+                List<SimpleGrantedAuthority> authorities = List.of(new SimpleGrantedAuthority(principal.role()));
                 UsernamePasswordAuthenticationToken authentication =
-                        new UsernamePasswordAuthenticationToken(username, null, authorities);
+                        new UsernamePasswordAuthenticationToken(principal, null, authorities);
                 SecurityContextHolder.getContext().setAuthentication(authentication);
+                request.setAttribute(AuthenticatedStaff.REQUEST_ATTRIBUTE, principal);
+                request.setAttribute(VerifiedToken.REQUEST_ATTRIBUTE, token);
             } catch (JwtException e) {
                 response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
                 return;
@@ -66,4 +71,4 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
         filterChain.doFilter(request, response); // Continue the filter chain
     }
-}
\ No newline at end of file
+}
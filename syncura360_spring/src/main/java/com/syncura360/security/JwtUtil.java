@@ -1,68 +1,134 @@
 package com.syncura360.security;
 
 import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.yaml.snakeyaml.external.biz.base64Coder.Base64Coder;
 import javax.crypto.SecretKey;
+import java.time.Duration;
 import java.util.Date;
+import java.util.UUID;
 
 /**
  * Utility class for generating and parsing JWT tokens.
+ * <p>
+ * Two kinds of token are issued, told apart by the "typ" claim: short-lived access tokens that
+ * carry the role and hospital, and longer-lived refresh tokens that only identify the staff member.
+ * Every token has a unique "jti" so it can be revoked individually.
  *
  * @author Benjamin Leiby
  */
 @Component
 public class JwtUtil {
 
+    public static final String ACCESS = "access";
+    public static final String REFRESH = "refresh";
+
     private final SecretKey key;
+    private final JwtParser parser;
+    private final Duration accessTtl;
+    private final Duration refreshTtl;
 
-    public JwtUtil(@Value("${JWT_SECRET_KEY}") String secret) {
+    public JwtUtil(@Value("${JWT_SECRET_KEY}") String secret,
+                   @Value("${jwt.access-ttl-seconds:900}") long accessTtlSeconds,
+                   @Value("${jwt.refresh-ttl-seconds:43200}") long refreshTtlSeconds) {
         byte [] decodedKey = Base64Coder.decode(secret);
         key = Keys.hmacShaKeyFor(decodedKey);
+        parser = Jwts.parser().verifyWith(key).build();
+        accessTtl = Duration.ofSeconds(accessTtlSeconds);
+        refreshTtl = Duration.ofSeconds(refreshTtlSeconds);
+    }
+
+    /**
+     * Verifies an access token and extracts the staff member it was issued to.
+     *
+     * @param jwt The compact JWT, without the "Bearer " prefix.
+     * @return The {@link VerifiedToken} holding the staff member, token id and validity window.
+     * @throws JwtException If the token is invalid, expired, not an access token, or missing required claims.
+     */
+    public VerifiedToken verify(String jwt) {
+
+        Claims claims = parse(jwt, ACCESS);
+
+        String role = claims.get("role", String.class);
+        String hospitalID = claims.get("hospitalID", String.class);
+
+        if (role == null || hospitalID == null) {
+            throw new JwtException("Token is missing required claims.");
+        }
+
+        try {
+            AuthenticatedStaff staff = new AuthenticatedStaff(claims.getSubject(), role, Integer.parseInt(hospitalID));
+            return new VerifiedToken(staff, claims.getId(), claims.getIssuedAt().toInstant(), claims.getExpiration().toInstant());
+        } catch (NumberFormatException e) {
+            throw new JwtException("Token has a malformed hospital id.");
+        }
     }
 
-    public String getRole(String authHeader) {
+    /**
+     * Verifies a refresh token.
+     *
+     * @param jwt The compact refresh JWT.
+     * @return The {@link RefreshToken} holding the staff member, token id and validity window.
+     * @throws JwtException If the token is invalid, expired, not a refresh token, or missing required claims.
+     */
+    public RefreshToken verifyRefresh(String jwt) {
 
-        String jwt = authHeader.substring(7);
-        Jws<Claims> jwsClaims = Jwts.parser().verifyWith(key).build().parseSignedClaims(jwt);
-        Claims claims = jwsClaims.getPayload();
-        return claims.get("role", String.class);
+        Claims claims = parse(jwt, REFRESH);
 
+        return new RefreshToken(claims.getSubject(), claims.getId(), claims.getIssuedAt().toInstant(), claims.getExpiration().toInstant());
     }
 
-    public String getUsername(String authHeader) {
+    public String generateAccessToken(String username, String role, String hospitalID) {
+
+        return builder(username, ACCESS, accessTtl)
+                .claim("role", role)
+                .claim("hospitalID", hospitalID)
+                .compact();
+    }
 
-        String jwt = authHeader.substring(7);
-        Jws<Claims> jwsClaims = Jwts.parser().verifyWith(key).build().parseSignedClaims(jwt);
-        Claims claims = jwsClaims.getPayload();
-        return claims.get("sub", String.class);
+    public String generateRefreshToken(String username) {
 
+        return builder(username, REFRESH, refreshTtl).compact();
     }
 
-    public String getHospitalID(String authHeader) {
-        String jwt = authHeader.substring(7);
-        Jws<Claims> jwsClaims = Jwts.parser().verifyWith(key).build().parseSignedClaims(jwt);
-        Claims claims = jwsClaims.getPayload();
-        return claims.get("hospitalID", String.class);
+    public Duration getRefreshTtl() {
+        return refreshTtl;
     }
 
-    public String generateJwtToken(String username, String role, String hospitalID) {
+    private JwtBuilder builder(String username, String type, Duration ttl) {
 
         long currentMillis = System.currentTimeMillis();
         Date currentTime = new Date(currentMillis);
 
         return Jwts.builder()
                 .subject(username)
+                .id(UUID.randomUUID().toString())
                 .issuedAt(currentTime)
-                .expiration(new Date(currentMillis + 3600000))
-                .claim("role", role)
-                .claim("hospitalID", hospitalID)
-                .signWith(key)
-                .compact();
+                .expiration(new Date(currentMillis + ttl.toMillis()))
+                .claim("typ", type)
+                .signWith(key);
+    }
+
+    private Claims parse(String jwt, String expectedType) {
+
+        Claims claims = parser.parseSignedClaims(jwt).getPayload();
+
+        // Tokens issued before refresh tokens existed have no "typ" or "jti" and are rejected
+        if (!expectedType.equals(claims.get("typ", String.class))) {
+            throw new JwtException("Token is not a " + expectedType + " token.");
+        }
+        if (claims.getSubject() == null || claims.getId() == null
+                || claims.getIssuedAt() == null || claims.getExpiration() == null) {
+            throw new JwtException("Token is missing required claims.");
+        }
+
+        return claims;
     }
 
 }
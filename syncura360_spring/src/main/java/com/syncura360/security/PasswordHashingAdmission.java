@@ -0,0 +1,111 @@
+package com.syncura360.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Memory-aware admission control for Argon2 hashing.
+ * <p>
+ * Each Argon2 hash allocates {@link passwordSecurity#getMemoryPerHashBytes()} of memory,
+ * so an unbounded burst of logins can exhaust the heap. Hashes run only while holding
+ * one of a bounded number of permits, sized from both the configured limit and the share
+ * of the heap hashing may use. Callers that cannot get a permit wait in a bounded queue
+ * for up to a timeout, after which a {@link HashingCapacityException} is thrown.
+ *
+ * @author Darsh-KP
+ */
+@Component
+public class PasswordHashingAdmission {
+    private final Semaphore permits;
+    private final int concurrency;
+    private final int maxQueue;
+    private final long timeoutMillis;
+    private final long retryAfterSeconds;
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    private final Timer hashLatency;
+    private final Counter rejected;
+
+    /**
+     * Constructs the admission controller.
+     *
+     * @param maxConcurrent     Upper bound on hashes running at once.
+     * @param heapFraction      Share of the max heap that concurrent hashes may occupy.
+     * @param maxQueue          Maximum number of callers waiting for a permit.
+     * @param timeoutMillis     How long a caller waits for a permit before being rejected.
+     * @param retryAfterSeconds Value clients are told to wait in the Retry-After header.
+     * @param meterRegistry     Registry for queue depth and hash latency metrics.
+     */
+    public PasswordHashingAdmission(@Value("${security.hashing.max-concurrent:4}") int maxConcurrent,
+                                    @Value("${security.hashing.heap-fraction:0.5}") double heapFraction,
+                                    @Value("${security.hashing.max-queue:64}") int maxQueue,
+                                    @Value("${security.hashing.timeout-ms:10000}") long timeoutMillis,
+                                    @Value("${security.hashing.retry-after-seconds:5}") long retryAfterSeconds,
+                                    MeterRegistry meterRegistry) {
+        long memoryBound = (long) (Runtime.getRuntime().maxMemory() * heapFraction) / passwordSecurity.getMemoryPerHashBytes();
+
+        this.concurrency = (int) Math.max(1, Math.min(maxConcurrent, memoryBound));
+        this.permits = new Semaphore(concurrency, true);
+        this.maxQueue = maxQueue;
+        this.timeoutMillis = timeoutMillis;
+        this.retryAfterSeconds = retryAfterSeconds;
+
+        this.hashLatency = meterRegistry.timer("password.hashing.latency");
+        this.rejected = meterRegistry.counter("password.hashing.rejected");
+        meterRegistry.gauge("password.hashing.queue.depth", waiting);
+        meterRegistry.gauge("password.hashing.active", permits, p -> concurrency - p.availablePermits());
+    }
+
+    /**
+     * Runs a hashing operation once a permit is available.
+     *
+     * @param hash The hashing operation to run.
+     * @return The result of the operation.
+     * @throws HashingCapacityException If the queue is full or no permit frees up in time.
+     */
+    public <T> T run(Supplier<T> hash) {
+        boolean acquired;
+
+        if (waiting.incrementAndGet() > maxQueue) {
+            waiting.decrementAndGet();
+            rejected.increment();
+            throw new HashingCapacityException("Password hashing queue is full.", retryAfterSeconds);
+        }
+
+        try {
+            acquired = permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        } finally {
+            waiting.decrementAndGet();
+        }
+
+        if (!acquired) {
+            rejected.increment();
+            throw new HashingCapacityException("Timed out waiting for password hashing capacity.", retryAfterSeconds);
+        }
+
+        try {
+            return hashLatency.record(hash);
+        } finally {
+            permits.release();
+        }
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public int getQueueDepth() {
+        return waiting.get();
+    }
+}
@@ -5,8 +5,10 @@ import com.syncura360.repository.StaffRepository;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.util.Optional;
@@ -20,16 +22,23 @@ import java.util.Optional;
 public class PasswordService {
     AuthenticationManager authenticationManager;
     StaffRepository staffRepository;
+    PasswordEncoder passwordEncoder;
+    StaffCredentialCache staffCredentialCache;
 
     /**
      * Constructs a PasswordService with the required dependencies.
      *
      * @param authenticationManager Authentication manager for verifying credentials.
      * @param staffRepository       Repository for accessing staff data.
+     * @param passwordEncoder       Admission-controlled encoder for hashing the new password.
+     * @param staffCredentialCache  Login credential cache to invalidate once the password changes.
      */
-    public PasswordService(AuthenticationManager authenticationManager, StaffRepository staffRepository) {
+    public PasswordService(AuthenticationManager authenticationManager, StaffRepository staffRepository,
+                           PasswordEncoder passwordEncoder, StaffCredentialCache staffCredentialCache) {
         this.authenticationManager = authenticationManager;
         this.staffRepository = staffRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.staffCredentialCache = staffCredentialCache;
     }
 
     /**
@@ -40,11 +49,18 @@ public class PasswordService {
      * @param newPassword The new password to set.
      * @throws BadCredentialsException   If the current password is incorrect.
      * @throws EntityNotFoundException   If the staff member is not found.
+     * @throws HashingCapacityException  If there is no capacity to hash the password right now.
      */
     public void changeStaffPassword(String username, String oldPassword, String newPassword) {
         // Verify the old password
         try {
             authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(username, oldPassword));
+        } catch (InternalAuthenticationServiceException e) {
+            // Capacity rejections raised while loading the user arrive wrapped
+            if (e.getCause() instanceof HashingCapacityException capacityException) {
+                throw capacityException;
+            }
+            throw new BadCredentialsException("Current password is incorrect.");
         } catch (AuthenticationException e) {
             throw new BadCredentialsException("Current password is incorrect.");
         }
@@ -59,9 +75,12 @@ public class PasswordService {
         Staff staff = optionalStaff.get();
 
         // Set the new password
-        staff.setPasswordHash(passwordSecurity.getPasswordEncoder().encode(newPassword));
+        staff.setPasswordHash(passwordEncoder.encode(newPassword));
 
         // Save the new password
         staffRepository.save(staff);
+
+        // The old password must not keep working from the login cache
+        staffCredentialCache.evict(username);
     }
 }
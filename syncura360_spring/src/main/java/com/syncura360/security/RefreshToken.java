@@ -0,0 +1,14 @@
+package com.syncura360.security;
+
+import java.time.Instant;
+
+/**
+ * A refresh token whose signature and claims have already been verified.
+ *
+ * @param username  The staff member the token was issued to.
+ * @param tokenId   The token's unique id (its "jti" claim), used for rotation and revocation.
+ * @param issuedAt  The instant the token was issued (its "iat" claim).
+ * @param expiresAt The instant the token stops being valid (its "exp" claim).
+ * @author Benjamin Leiby
+ */
+public record RefreshToken(String username, String tokenId, Instant issuedAt, Instant expiresAt) {}
@@ -1,5 +1,6 @@
 package com.syncura360.security;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -32,8 +33,14 @@ public class SecurityConfig {
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
                 .authorizeHttpRequests((requests) -> requests
+                        // Streamed responses (census feed) complete on an async dispatch; the request was authorized already
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
+                        // Operations
+                        .requestMatchers("/actuator/argon2").hasAuthority("Super Admin")
+
                         // User Auth
-                        .requestMatchers("/", "/register/**", "/login").permitAll()
+                        .requestMatchers("/", "/register/**", "/login", "/login/refresh").permitAll()
 
                         .requestMatchers("/record/**").hasAnyAuthority("Admin", "Super Admin", "Doctor", "Nurse")
 
@@ -46,6 +53,12 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.GET, "/room").hasAnyAuthority("Doctor", "Nurse", "Admin", "Super Admin")
                         .requestMatchers("/room").hasAnyAuthority("Admin", "Super Admin")
 
+                        // Billing
+                        .requestMatchers("/billing/**").hasAnyAuthority("Admin", "Super Admin")
+
+                        // Live census feed
+                        .requestMatchers("/census/**").hasAnyAuthority("Doctor", "Nurse", "Admin", "Super Admin")
+
                         // Patient
                         .requestMatchers("/patient", "/patient/{patient-id}").hasAnyAuthority("Doctor", "Nurse")
 
@@ -57,6 +70,8 @@ public class SecurityConfig {
                 )
                 .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
                 .csrf(AbstractHttpConfigurer::disable)
+                // Logout revokes tokens in LoginController instead of the default session logout filter
+                .logout(AbstractHttpConfigurer::disable)
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()));
 
         return http.build();
@@ -65,17 +80,21 @@ public class SecurityConfig {
     @Bean
     public AuthenticationManager authenticationManager(
             StaffDetailsService staffDetailsService,
+            StaffCredentialCache staffCredentialCache,
             PasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider authenticationProvider = new DaoAuthenticationProvider();
         authenticationProvider.setUserDetailsService(staffDetailsService);
         authenticationProvider.setPasswordEncoder(passwordEncoder);
+        // Re-hash passwords stored with outdated Argon2 parameters on successful login
+        authenticationProvider.setUserDetailsPasswordService(staffDetailsService);
+        authenticationProvider.setUserCache(staffCredentialCache);
 
         return new ProviderManager(authenticationProvider);
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return passwordSecurity.getPasswordEncoder();
+    public PasswordEncoder passwordEncoder(PasswordHashingAdmission passwordHashingAdmission) {
+        return new AdmissionControlledPasswordEncoder(passwordSecurity.getPasswordEncoder(), passwordHashingAdmission);
     }
 
     @Bean
@@ -0,0 +1,110 @@
+package com.syncura360.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Small, size-bounded LRU cache of login credentials used by {@code DaoAuthenticationProvider}.
+ * <p>
+ * A hit saves the login lookup entirely. When a cached hash does not match, the provider reloads
+ * the staff member from the database before rejecting, so a stale entry cannot lock anyone out.
+ * A stale entry could however still accept an old password, so password changes and staff updates
+ * must call {@link #evict}; the time-to-live bounds staleness across nodes.
+ *
+ * @author Benjamin Leiby
+ */
+@Component
+public class StaffCredentialCache implements UserCache {
+
+    private record Entry(UserDetails user, Instant expiresAt) {}
+
+    private final boolean enabled;
+    private final Duration ttl;
+    private final Map<String, Entry> entries;
+    private final Counter hits;
+    private final Counter misses;
+
+    public StaffCredentialCache(@Value("${security.credential-cache.enabled:true}") boolean enabled,
+                                @Value("${security.credential-cache.max-size:1000}") int maxSize,
+                                @Value("${security.credential-cache.ttl-seconds:300}") long ttlSeconds,
+                                MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxSize;
+            }
+        };
+
+        this.hits = meterRegistry.counter("login.credential.cache.requests", "result", "hit");
+        this.misses = meterRegistry.counter("login.credential.cache.requests", "result", "miss");
+        meterRegistry.gauge("login.credential.cache.size", this, StaffCredentialCache::size);
+    }
+
+    @Override
+    public UserDetails getUserFromCache(String username) {
+        if (!enabled) {
+            return null;
+        }
+
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(username);
+            if (entry != null && entry.expiresAt().isBefore(Instant.now())) {
+                entries.remove(username);
+                entry = null;
+            }
+        }
+
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+
+        hits.increment();
+        return entry.user();
+    }
+
+    @Override
+    public void putUserInCache(UserDetails user) {
+        if (!enabled) {
+            return;
+        }
+
+        synchronized (entries) {
+            entries.put(user.getUsername(), new Entry(user, Instant.now().plus(ttl)));
+        }
+    }
+
+    @Override
+    public void removeUserFromCache(String username) {
+        synchronized (entries) {
+            entries.remove(username);
+        }
+    }
+
+    /**
+     * Drops the cached credentials of a staff member whose password, role or hospital changed.
+     *
+     * @param username The staff member's username.
+     */
+    public void evict(String username) {
+        removeUserFromCache(username);
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+}
@@ -3,48 +3,63 @@ package com.syncura360.security;
 import com.syncura360.model.Staff;
 import com.syncura360.repository.StaffRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Optional;
 
 /**
  * Service class that implements UserDetailsService to load staff user details from the database.
- * Used for authentication and authorization in Spring Security.
+ * Used for authentication and authorization in Spring Security. Also stores re-hashed passwords
+ * when the password encoder reports that a stored hash needs upgrading.
+ * <p>
+ * Staff are loaded through a single projection query returning the hash, role and hospital id,
+ * so logging in needs no further lookups.
  *
  * @author Benjamin Leiby
  */
 @Service
-public class StaffDetailsService implements UserDetailsService {
+public class StaffDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     @Autowired
     private StaffRepository staffRepository;
 
+    @Autowired
+    private StaffCredentialCache staffCredentialCache;
+
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
 
+        StaffRepository.LoginProjection login = staffRepository.findLoginByUsername(username)
+                .orElseThrow(() -> new UsernameNotFoundException("Staff member not found with username: " + username));
 
-        Optional<Staff> staffOptional = staffRepository.findByUsername(username);
-        Staff staff = staffOptional.orElseThrow(() -> new UsernameNotFoundException("Staff member not found with username: " + username));
-
-        return new org.springframework.security.core.userdetails.User(
-                staff.getUsername(),
-                staff.getPasswordHash(),
-                getAuthorities(staff.getRole().getValue())
+        return new StaffUserDetails(
+                login.getUsername(),
+                login.getPasswordHash(),
+                login.getRole().getValue(),
+                login.getHospitalId()
         );
 
     }
 
-    private Collection<? extends GrantedAuthority> getAuthorities(String role) {
-        Collection<GrantedAuthority> authorities = new ArrayList<>();
-        authorities.add(new SimpleGrantedAuthority(role));
-        return authorities;
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+
+        Optional<Staff> staffOptional = staffRepository.findByUsername(user.getUsername());
+        if (staffOptional.isEmpty()) { return user; }
+
+        Staff staff = staffOptional.get();
+        staff.setPasswordHash(newPassword);
+        staffRepository.save(staff);
+
+        // The provider cached the old hash before upgrading it
+        staffCredentialCache.evict(user.getUsername());
+
+        return user instanceof StaffUserDetails details ? details.withPasswordHash(newPassword) : user;
+
     }
 
 }
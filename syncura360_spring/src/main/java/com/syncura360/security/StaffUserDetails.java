@@ -0,0 +1,53 @@
+package com.syncura360.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Login view of a staff member: credentials, role and the hospital they work at.
+ * <p>
+ * Deliberately not a {@code CredentialsContainer}: instances are held by {@link StaffCredentialCache},
+ * and erasing the hash after authentication would empty the cached copy.
+ *
+ * @param username     The staff member's username.
+ * @param passwordHash The stored Argon2 hash.
+ * @param role         The staff member's role.
+ * @param hospitalId   The id of the hospital the staff member works at.
+ *
+ * @author Benjamin Leiby
+ */
+public record StaffUserDetails(String username, String passwordHash, String role, int hospitalId) implements UserDetails {
+
+    /**
+     * @param newPasswordHash The replacement hash.
+     * @return A copy of these details with a different password hash.
+     */
+    public StaffUserDetails withPasswordHash(String newPasswordHash) {
+        return new StaffUserDetails(username, newPasswordHash, role, hospitalId);
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return List.of(new SimpleGrantedAuthority(role));
+    }
+
+    @Override
+    public String getPassword() {
+        return passwordHash;
+    }
+
+    @Override
+    public String getUsername() {
+        return username;
+    }
+
+    @Override
+    public String toString() {
+        // Never print the hash
+        return "StaffUserDetails[username=" + username + ", role=" + role + ", hospitalId=" + hospitalId + "]";
+    }
+}
@@ -0,0 +1,212 @@
+package com.syncura360.security;
+
+import com.syncura360.model.TokenRevocation;
+import com.syncura360.repository.TokenRevocationRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Revocation list for access and refresh tokens.
+ * <p>
+ * Revocations are stored in the database and mirrored in memory, where every request is checked
+ * against a {@link BloomFilter} first; only a possible match consults the exact maps, so the common
+ * path is constant time and never touches the database. The mirror is rebuilt from the database on
+ * startup, and revocations made on other nodes are pulled in on a fixed delay.
+ * <p>
+ * Two kinds of revocation exist: a single token by its id (logout, refresh token rotation), and
+ * every token issued to a staff member up to the moment of revocation (access withdrawn by an admin).
+ *
+ * @author Benjamin Leiby
+ */
+@Service
+public class TokenRevocationService {
+    private static final String TOKEN_PREFIX = "jti:";
+    private static final String STAFF_PREFIX = "staff:";
+
+    // Tolerance when pulling rows written by other nodes, whose clocks may be slightly behind
+    private static final Duration SYNC_OVERLAP = Duration.ofSeconds(5);
+
+    private final TokenRevocationRepository tokenRevocationRepository;
+    private final Duration staffRevocationTtl;
+    private final int expectedEntries;
+    private final double falsePositiveRate;
+
+    private final Map<String, Instant> revokedTokens = new ConcurrentHashMap<>(); // jti -> expires at
+    private final Map<String, Instant> revokedStaff = new ConcurrentHashMap<>();  // username -> revoked at
+    private final Map<String, Instant> staffExpiry = new ConcurrentHashMap<>();   // username -> expires at
+    private volatile BloomFilter filter;
+    private volatile Instant lastSync = Instant.EPOCH;
+
+    /**
+     * Constructs the revocation list.
+     *
+     * @param tokenRevocationRepository Repository for persisted revocations.
+     * @param jwtUtil                   Used to size how long staff revocations must be kept.
+     * @param expectedEntries           Number of live revocations the Bloom filter is sized for.
+     * @param falsePositiveRate         Target false-positive rate of the Bloom filter.
+     * @param meterRegistry             Registry for the revocation list size.
+     */
+    public TokenRevocationService(TokenRevocationRepository tokenRevocationRepository,
+                                  JwtUtil jwtUtil,
+                                  @Value("${jwt.revocation.expected-entries:10000}") int expectedEntries,
+                                  @Value("${jwt.revocation.false-positive-rate:0.01}") double falsePositiveRate,
+                                  MeterRegistry meterRegistry) {
+        this.tokenRevocationRepository = tokenRevocationRepository;
+        // Every token issued before a staff revocation has expired once a refresh lifetime has passed
+        this.staffRevocationTtl = jwtUtil.getRefreshTtl();
+        this.expectedEntries = expectedEntries;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = new BloomFilter(expectedEntries, falsePositiveRate);
+
+        meterRegistry.gauge("jwt.revocation.size", this, service -> service.revokedTokens.size() + service.revokedStaff.size());
+    }
+
+    /**
+     * Loads every live revocation from the database and rebuilds the in-memory list.
+     */
+    @PostConstruct
+    public synchronized void rebuild() {
+        Instant now = Instant.now();
+
+        revokedTokens.clear();
+        revokedStaff.clear();
+        staffExpiry.clear();
+        tokenRevocationRepository.findAllByExpiresAtAfter(now).forEach(this::remember);
+
+        rebuildFilter();
+        lastSync = now;
+    }
+
+    /**
+     * Pulls in revocations written by other nodes and drops expired entries.
+     */
+    @Scheduled(fixedDelayString = "${jwt.revocation.sync-ms:30000}", initialDelayString = "${jwt.revocation.sync-ms:30000}")
+    public synchronized void sync() {
+        Instant now = Instant.now();
+
+        List<TokenRevocation> recent = tokenRevocationRepository.findAllByRevokedAtAfterAndExpiresAtAfter(lastSync.minus(SYNC_OVERLAP), now);
+        recent.forEach(this::remember);
+        lastSync = now;
+
+        // Bits cannot be cleared, so expired entries are dropped by rebuilding the filter
+        boolean purged = revokedTokens.values().removeIf(expiresAt -> !expiresAt.isAfter(now));
+        purged |= staffExpiry.entrySet().removeIf(entry -> {
+            boolean expired = !entry.getValue().isAfter(now);
+            if (expired) {
+                revokedStaff.remove(entry.getKey());
+            }
+            return expired;
+        });
+        if (purged) {
+            rebuildFilter();
+            tokenRevocationRepository.deleteExpired(now);
+        }
+    }
+
+    /**
+     * Checks whether an access token has been revoked.
+     *
+     * @param token The verified access token.
+     * @return True if the token, or every token of its staff member, has been revoked.
+     */
+    public boolean isRevoked(VerifiedToken token) {
+        return isRevoked(token.staff().username(), token.tokenId(), token.issuedAt());
+    }
+
+    /**
+     * Checks whether a refresh token has been revoked.
+     *
+     * @param token The verified refresh token.
+     * @return True if the token, or every token of its staff member, has been revoked.
+     */
+    public boolean isRevoked(RefreshToken token) {
+        return isRevoked(token.username(), token.tokenId(), token.issuedAt());
+    }
+
+    /**
+     * Revokes a single token until it would have expired. Revoking a token that already is, such as a
+     * refresh token used up by rotation, is not an error.
+     *
+     * @param tokenId   The token's id.
+     * @param expiresAt The token's expiry.
+     */
+    public void revokeToken(String tokenId, Instant expiresAt) {
+        revokeTokenOnce(tokenId, expiresAt);
+    }
+
+    /**
+     * Revokes a single token unless it already is, as one conditional insert. Used to rotate refresh
+     * tokens, so that of two refreshes presenting the same token only one succeeds.
+     *
+     * @param tokenId   The token's id.
+     * @param expiresAt The token's expiry.
+     * @return True if this call revoked the token, false if it had been revoked before.
+     */
+    public boolean revokeTokenOnce(String tokenId, Instant expiresAt) {
+        Instant now = Instant.now();
+        boolean revoked = tokenRevocationRepository.insertTokenRevocationIfAbsent(tokenId, now, expiresAt) == 1;
+        // Revoked either way; a revocation made on another node is known here before the next sync
+        remember(new TokenRevocation(TokenRevocation.Kind.Token, tokenId, now, expiresAt));
+        return revoked;
+    }
+
+    /**
+     * Revokes every token issued to a staff member so far.
+     *
+     * @param username The staff member's username.
+     */
+    public void revokeStaff(String username) {
+        Instant now = Instant.now();
+        TokenRevocation revocation = new TokenRevocation(TokenRevocation.Kind.Staff, username, now, now.plus(staffRevocationTtl));
+        tokenRevocationRepository.save(revocation);
+        remember(revocation);
+    }
+
+    private boolean isRevoked(String username, String tokenId, Instant issuedAt) {
+        BloomFilter current = filter;
+
+        if (current.mightContain(TOKEN_PREFIX + tokenId) && revokedTokens.containsKey(tokenId)) {
+            return true;
+        }
+
+        if (current.mightContain(STAFF_PREFIX + username)) {
+            Instant revokedAt = revokedStaff.get(username);
+            // "iat" has second precision, so a token issued in the revocation's second is revoked too
+            return revokedAt != null && !issuedAt.isAfter(revokedAt.truncatedTo(ChronoUnit.SECONDS));
+        }
+
+        return false;
+    }
+
+    private synchronized void remember(TokenRevocation revocation) {
+        switch (revocation.getKind()) {
+            case Token -> {
+                revokedTokens.put(revocation.getSubject(), revocation.getExpiresAt());
+                filter.put(TOKEN_PREFIX + revocation.getSubject());
+            }
+            case Staff -> {
+                revokedStaff.merge(revocation.getSubject(), revocation.getRevokedAt(), (a, b) -> a.isAfter(b) ? a : b);
+                staffExpiry.merge(revocation.getSubject(), revocation.getExpiresAt(), (a, b) -> a.isAfter(b) ? a : b);
+                filter.put(STAFF_PREFIX + revocation.getSubject());
+            }
+        }
+    }
+
+    private void rebuildFilter() {
+        int entries = revokedTokens.size() + revokedStaff.size();
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedEntries, entries * 2), falsePositiveRate);
+        revokedTokens.keySet().forEach(tokenId -> rebuilt.put(TOKEN_PREFIX + tokenId));
+        revokedStaff.keySet().forEach(username -> rebuilt.put(STAFF_PREFIX + username));
+        filter = rebuilt;
+    }
+}
@@ -0,0 +1,21 @@
+package com.syncura360.security;
+
+import java.time.Instant;
+
+/**
+ * A JWT whose signature and claims have already been verified.
+ *
+ * @param staff     The staff member the token was issued to.
+ * @param tokenId   The token's unique id (its "jti" claim), used for revocation.
+ * @param issuedAt  The instant the token was issued (its "iat" claim).
+ * @param expiresAt The instant the token stops being valid (its "exp" claim).
+ * @author Benjamin Leiby
+ */
+public record VerifiedToken(AuthenticatedStaff staff, String tokenId, Instant issuedAt, Instant expiresAt) {
+
+    public static final String REQUEST_ATTRIBUTE = "com.syncura360.security.VerifiedToken";
+
+    public boolean isExpired(Instant now) {
+        return !now.isBefore(expiresAt);
+    }
+}
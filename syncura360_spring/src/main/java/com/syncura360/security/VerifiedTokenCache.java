@@ -0,0 +1,126 @@
+package com.syncura360.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Size-bounded cache of already verified JWTs.
+ * <p>
+ * Clients poll with the same bearer token every few seconds, so a hit lets
+ * {@link JwtAuthenticationFilter} skip the HMAC check and claim decoding entirely.
+ * Entries are keyed by a SHA-256 digest of the token (the raw token is never held)
+ * and are dropped once the token's "exp" claim has passed.
+ * <p>
+ * Every authenticated request looks up here, so a hit is a plain concurrent map read and takes no lock.
+ * The bound is kept approximately: once over it, a single thread at a time evicts, each time taking the
+ * entry that expires first out of a small sample. Tokens near their end are the least worth keeping.
+ *
+ * @author Benjamin Leiby
+ */
+@Component
+public class VerifiedTokenCache {
+
+    // Entries looked at per eviction; enough to usually find an expired or nearly expired token
+    static final int EVICTION_SAMPLE = 8;
+
+    private final boolean enabled;
+    private final int maxSize;
+    private final Map<String, VerifiedToken> entries = new ConcurrentHashMap<>();
+    private final ReentrantLock evicting = new ReentrantLock();
+    private final Counter hits;
+    private final Counter misses;
+
+    public VerifiedTokenCache(@Value("${jwt.cache.enabled:true}") boolean enabled,
+                              @Value("${jwt.cache.max-size:10000}") int maxSize,
+                              MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.maxSize = Math.max(1, maxSize);
+
+        this.hits = meterRegistry.counter("jwt.cache.requests", "result", "hit");
+        this.misses = meterRegistry.counter("jwt.cache.requests", "result", "miss");
+        meterRegistry.gauge("jwt.cache.size", this, VerifiedTokenCache::size);
+    }
+
+    /**
+     * Returns the cached verification of a token, verifying and caching it on a miss.
+     *
+     * @param jwt      The compact JWT, without the "Bearer " prefix.
+     * @param verifier Performs the full verification when the token is not cached.
+     * @return The verified token.
+     */
+    public VerifiedToken getOrVerify(String jwt, Function<String, VerifiedToken> verifier) {
+        if (!enabled) {
+            return verifier.apply(jwt);
+        }
+
+        String key = digest(jwt);
+        VerifiedToken cached = entries.get(key);
+        if (cached != null) {
+            if (!cached.isExpired(Instant.now())) {
+                hits.increment();
+                return cached;
+            }
+            entries.remove(key, cached);
+        }
+
+        // Throws if the token is invalid, so nothing bad is cached. Two threads missing on the same
+        // token both verify it; that is cheaper than making every lookup wait on a lock.
+        misses.increment();
+        VerifiedToken verified = verifier.apply(jwt);
+        entries.put(key, verified);
+        evictIfOverBound();
+
+        return verified;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void evictIfOverBound() {
+        // Re-checked after unlocking, for entries added while another thread held the lock
+        while (entries.size() > maxSize && evicting.tryLock()) {
+            try {
+                while (entries.size() > maxSize) {
+                    Map.Entry<String, VerifiedToken> victim = null;
+                    int sampled = 0;
+                    for (Map.Entry<String, VerifiedToken> entry : entries.entrySet()) {
+                        if (victim == null || entry.getValue().expiresAt().isBefore(victim.getValue().expiresAt())) {
+                            victim = entry;
+                        }
+                        if (++sampled == EVICTION_SAMPLE) {
+                            break;
+                        }
+                    }
+                    if (victim == null) {
+                        break;
+                    }
+                    entries.remove(victim.getKey(), victim.getValue());
+                }
+            } finally {
+                evicting.unlock();
+            }
+        }
+    }
+
+    private static String digest(String jwt) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(jwt.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available.", e);
+        }
+    }
+}
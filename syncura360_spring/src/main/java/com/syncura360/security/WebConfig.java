@@ -0,0 +1,26 @@
+package com.syncura360.security;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Registers web MVC extensions, such as injecting the authenticated staff member into controllers.
+ *
+ * @author Benjamin Leiby
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+    AuthenticatedStaffArgumentResolver authenticatedStaffArgumentResolver;
+
+    public WebConfig(AuthenticatedStaffArgumentResolver authenticatedStaffArgumentResolver) {
+        this.authenticatedStaffArgumentResolver = authenticatedStaffArgumentResolver;
+    }
+
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        resolvers.add(authenticatedStaffArgumentResolver);
+    }
+}
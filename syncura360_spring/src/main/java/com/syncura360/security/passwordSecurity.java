@@ -1,6 +1,5 @@
 package com.syncura360.security;
 
-import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 /**
@@ -11,8 +10,31 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 public class passwordSecurity {
     private passwordSecurity() {}
 
+    // Default Argon2id cost parameters, used until calibration runs; memory is in KiB (256 MiB per hash)
+    public static final int SALT_LENGTH = 16;
+    public static final int HASH_LENGTH = 16;
+    public static final int PARALLELISM = 1;
+    public static final int MEMORY_KIB = 262144;
+    public static final int ITERATIONS = 3;
+
+    public static final Argon2Parameters DEFAULT_PARAMETERS =
+            new Argon2Parameters(SALT_LENGTH, HASH_LENGTH, PARALLELISM, MEMORY_KIB, ITERATIONS);
+
+    // The encoder is thread-safe, so a single instance is shared
+    private static final ConfigurableArgon2PasswordEncoder ENCODER = new ConfigurableArgon2PasswordEncoder(DEFAULT_PARAMETERS);
+
     // Argon2id password encoder
     public static PasswordEncoder getPasswordEncoder() {
-        return new Argon2PasswordEncoder(16, 16, 1, 262144, 3);
+        return ENCODER;
+    }
+
+    // Argon2id password encoder, for replacing its parameters
+    public static ConfigurableArgon2PasswordEncoder getConfigurableEncoder() {
+        return ENCODER;
+    }
+
+    // Upper bound of bytes of memory a single hash allocates; calibration never exceeds the defaults
+    public static long getMemoryPerHashBytes() {
+        return DEFAULT_PARAMETERS.memoryBytes();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,25 @@
+package com.syncura360.service;
+
+import com.syncura360.dto.Visit.BatchChartResultDTO;
+
+/**
+ * Thrown when a batch charting request fails after it started writing, so the transaction
+ * rolls back. Carries the per-event results to report to the client.
+ *
+ * @author Benjamin Leiby
+ */
+public class BatchChartRejectedException extends RuntimeException {
+    private final BatchChartResultDTO result;
+
+    public BatchChartRejectedException(BatchChartResultDTO result) {
+        super("Batch rejected.");
+        this.result = result;
+    }
+
+    /**
+     * @return Per-event results, with the events that caused the rejection marked as failed.
+     */
+    public BatchChartResultDTO getResult() {
+        return result;
+    }
+}
@@ -0,0 +1,100 @@
+package com.syncura360.service;
+
+import com.syncura360.model.enums.BedStatus;
+import com.syncura360.repository.BedRepository;
+import jakarta.transaction.Transactional;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+
+/**
+ * Claims and releases single beds without races between concurrent admissions.
+ * <p>
+ * A bed is picked with {@code SELECT ... FOR UPDATE SKIP LOCKED}, so concurrent callers each lock a different
+ * bed instead of queueing on the same one, and is then flipped with a conditional update that only applies if
+ * the bed is still in the expected status. Only one row is read per call, rather than every vacant bed of the room.
+ * Both methods must run inside the caller's transaction, so the claim commits or rolls back with the assignment.
+ *
+ * @author Benjamin Leiby
+ */
+@Service
+public class BedAllocator {
+    private static final int MAX_ATTEMPTS = 3;
+
+    BedRepository bedRepository;
+    ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Constructor for initializing {@link BedAllocator} with required dependencies.
+     *
+     * @param bedRepository The repository used for bed operations.
+     * @param eventPublisher Publisher for bed status changes, applied to the {@link BedOccupancyIndex} on commit.
+     */
+    public BedAllocator(BedRepository bedRepository, ApplicationEventPublisher eventPublisher) {
+        this.bedRepository = bedRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Mark one vacant bed of the room as occupied.
+     *
+     * @param hospitalId Hospital the room belongs to.
+     * @param roomName   Name of the room.
+     * @return Number of the claimed bed, or empty if the room has no vacant bed left.
+     */
+    @Transactional(Transactional.TxType.MANDATORY)
+    public Optional<Long> claim(int hospitalId, String roomName) {
+        return transition(hospitalId, roomName, BedStatus.Vacant, BedStatus.Occupied);
+    }
+
+    /**
+     * Mark one occupied bed of the room as vacant.
+     *
+     * @param hospitalId Hospital the room belongs to.
+     * @param roomName   Name of the room.
+     * @return Number of the released bed, or empty if no bed of the room is occupied.
+     */
+    @Transactional(Transactional.TxType.MANDATORY)
+    public Optional<Long> release(int hospitalId, String roomName) {
+        return transition(hospitalId, roomName, BedStatus.Occupied, BedStatus.Vacant);
+    }
+
+    /**
+     * Mark the given bed as vacant with a single keyed update.
+     *
+     * @param hospitalId Hospital the room belongs to.
+     * @param roomName   Name of the room the bed is in.
+     * @param bedNo      Bed to release, as recorded on the room assignment. If null (assignments made before beds
+     *                   were recorded), any occupied bed of the room is released instead.
+     * @return True if the bed was released, false if it was not occupied.
+     */
+    @Transactional(Transactional.TxType.MANDATORY)
+    public boolean releaseBed(int hospitalId, String roomName, Long bedNo) {
+        if (bedNo == null) {
+            return release(hospitalId, roomName).isPresent();
+        }
+        if (bedRepository.transitionStatus(bedNo, BedStatus.Occupied, BedStatus.Vacant) != 1) {
+            return false;
+        }
+        eventPublisher.publishEvent(new BedOccupancyIndex.BedStatusChanged(hospitalId, roomName, BedStatus.Occupied, BedStatus.Vacant));
+        return true;
+    }
+
+    private Optional<Long> transition(int hospitalId, String roomName, BedStatus from, BedStatus to) {
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            Optional<Long> candidate = bedRepository.lockFirstBedWithStatus(hospitalId, roomName, from.getValue());
+            if (candidate.isEmpty()) {
+                return Optional.empty();
+            }
+
+            // The lock makes this succeed; the status condition still guards against a changed row, e.g. under
+            // an isolation level or database where the locking read does not see the latest committed status
+            if (bedRepository.transitionStatus(candidate.get(), from, to) == 1) {
+                eventPublisher.publishEvent(new BedOccupancyIndex.BedStatusChanged(hospitalId, roomName, from, to));
+                return candidate;
+            }
+        }
+        return Optional.empty();
+    }
+}
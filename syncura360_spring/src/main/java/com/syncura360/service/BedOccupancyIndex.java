@@ -0,0 +1,205 @@
+package com.syncura360.service;
+
+import com.syncura360.model.enums.BedStatus;
+import com.syncura360.repository.RoomRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory count of vacant, occupied and maintenance beds for every room, per hospital.
+ * <p>
+ * The index is built from one aggregate query at startup. After that it is kept current by events published
+ * when beds change status ({@link BedStatusChanged}) or when rooms and their beds are added, edited or removed
+ * ({@link RoomChanged}). Events are applied only after their transaction commits, so rolled back changes never
+ * show. A periodic rebuild corrects any drift, for example from changes made by another instance. Rooms changed
+ * while a rebuild is loading are reloaded on their own once it is swapped in, since the bulk query may have read
+ * them before the change committed. A room reload that overlaps a bed status change of the same room reads the
+ * room again rather than overwrite the change with counts read before it.
+ *
+ * @author Benjamin Leiby
+ */
+@Service
+public class BedOccupancyIndex {
+    private static final Logger log = LoggerFactory.getLogger(BedOccupancyIndex.class);
+
+    RoomRepository roomRepository;
+
+    private volatile Map<Integer, Map<String, RoomOccupancy>> hospitals = new ConcurrentHashMap<>();
+
+    // Rooms changed since the running rebuild started, or null when no rebuild is running
+    private final Object rebuildLock = new Object();
+    private Set<RoomKey> changedDuringRebuild; // guarded by rebuildLock
+
+    // Bed status changes applied per room, only ever updated while holding that room's entry in the index
+    private final Map<RoomKey, Long> changesApplied = new ConcurrentHashMap<>();
+
+    // Reads of one room before its counts are stored even though changes keep landing; the rebuild corrects the rest
+    static final int RELOAD_ATTEMPTS = 3;
+
+    private record RoomKey(int hospitalId, String roomName) {}
+
+    /**
+     * Constructor for initializing {@link BedOccupancyIndex} with required dependencies.
+     *
+     * @param roomRepository The repository used to load bed counts per room.
+     */
+    public BedOccupancyIndex(RoomRepository roomRepository) {
+        this.roomRepository = roomRepository;
+    }
+
+    /**
+     * Bed counts of one room.
+     */
+    public record RoomOccupancy(String roomName, String department, int vacant, int occupied, int maintenance) {
+
+        public int total() {
+            return vacant + occupied + maintenance;
+        }
+
+        RoomOccupancy plus(BedStatus status, int beds) {
+            return switch (status) {
+                case Vacant -> new RoomOccupancy(roomName, department, vacant + beds, occupied, maintenance);
+                case Occupied -> new RoomOccupancy(roomName, department, vacant, occupied + beds, maintenance);
+                case Under_Maintenance -> new RoomOccupancy(roomName, department, vacant, occupied, maintenance + beds);
+            };
+        }
+    }
+
+    /**
+     * A bed of the room moved from one status to another.
+     */
+    public record BedStatusChanged(int hospitalId, String roomName, BedStatus from, BedStatus to) {}
+
+    /**
+     * A room was created, edited or deleted, or beds were added to or removed from it.
+     */
+    public record RoomChanged(int hospitalId, String roomName) {}
+
+    /**
+     * @return Every room of the hospital, ordered by name.
+     */
+    public List<RoomOccupancy> getRooms(int hospitalId) {
+        Map<String, RoomOccupancy> rooms = hospitals.get(hospitalId);
+        if (rooms == null) {
+            return List.of();
+        }
+        return rooms.values().stream()
+            .sorted(Comparator.comparing(RoomOccupancy::roomName))
+            .toList();
+    }
+
+    /**
+     * @return The room, or empty if the hospital has no room of that name.
+     */
+    public Optional<RoomOccupancy> getRoom(int hospitalId, String roomName) {
+        Map<String, RoomOccupancy> rooms = hospitals.get(hospitalId);
+        return rooms == null ? Optional.empty() : Optional.ofNullable(rooms.get(roomName.trim()));
+    }
+
+    /**
+     * Replace the whole index with counts loaded from the database.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${bed.occupancy.rebuild-cron:0 */15 * * * *}")
+    public synchronized void rebuild() {
+        synchronized (rebuildLock) {
+            changedDuringRebuild = new HashSet<>();
+        }
+
+        Map<Integer, Map<String, RoomOccupancy>> rebuilt = new ConcurrentHashMap<>();
+        for (RoomRepository.RoomBedCount row : roomRepository.countBedsByStatus()) {
+            rebuilt.computeIfAbsent(row.getHospitalId(), k -> new ConcurrentHashMap<>())
+                .merge(row.getRoomName().trim(), occupancyOf(row), BedOccupancyIndex::combine);
+        }
+
+        Set<RoomKey> changed;
+        synchronized (rebuildLock) {
+            hospitals = rebuilt;
+            changed = changedDuringRebuild;
+            changedDuringRebuild = null;
+        }
+
+        // Changes applied to the old index while loading are gone with it, so read those rooms again
+        for (RoomKey room : changed) {
+            reload(room.hospitalId(), room.roomName());
+        }
+        log.debug("Bed occupancy index rebuilt for {} hospitals, {} rooms reloaded", rebuilt.size(), changed.size());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBedStatusChanged(BedStatusChanged event) {
+        markChanged(event.hospitalId(), event.roomName());
+        Map<String, RoomOccupancy> rooms = hospitals.get(event.hospitalId());
+        if (rooms != null) {
+            RoomKey key = new RoomKey(event.hospitalId(), event.roomName().trim());
+            rooms.computeIfPresent(key.roomName(), (name, room) -> {
+                changesApplied.merge(key, 1L, Long::sum);
+                return room.plus(event.from(), -1).plus(event.to(), 1);
+            });
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onRoomChanged(RoomChanged event) {
+        markChanged(event.hospitalId(), event.roomName());
+        reload(event.hospitalId(), event.roomName().trim());
+    }
+
+    private void markChanged(int hospitalId, String roomName) {
+        synchronized (rebuildLock) {
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.add(new RoomKey(hospitalId, roomName.trim()));
+            }
+        }
+    }
+
+    private void reload(int hospitalId, String roomName) {
+        Map<String, RoomOccupancy> rooms = hospitals.computeIfAbsent(hospitalId, k -> new ConcurrentHashMap<>());
+        RoomKey key = new RoomKey(hospitalId, roomName);
+
+        for (int attempt = 1; ; attempt++) {
+            long seen = changesApplied.getOrDefault(key, 0L);
+
+            RoomOccupancy read = null;
+            for (RoomRepository.RoomBedCount row : roomRepository.countBedsByStatus(hospitalId, roomName)) {
+                read = read == null ? occupancyOf(row) : combine(read, occupancyOf(row));
+            }
+            RoomOccupancy reloaded = read;
+
+            // A change applied while reading may be missing from what was read, so keep it and read again
+            boolean last = attempt == RELOAD_ATTEMPTS;
+            boolean[] stored = {false};
+            rooms.compute(roomName, (name, current) -> {
+                if (!last && changesApplied.getOrDefault(key, 0L) != seen) {
+                    return current;
+                }
+                stored[0] = true;
+                return reloaded;
+            });
+
+            if (stored[0]) {
+                return;
+            }
+        }
+    }
+
+    private static RoomOccupancy occupancyOf(RoomRepository.RoomBedCount row) {
+        RoomOccupancy empty = new RoomOccupancy(row.getRoomName().trim(), row.getDepartment(), 0, 0, 0);
+        // A room without beds comes back with a null status from the left join
+        return row.getStatus() == null ? empty : empty.plus(row.getStatus(), row.getBeds().intValue());
+    }
+
+    private static RoomOccupancy combine(RoomOccupancy a, RoomOccupancy b) {
+        return new RoomOccupancy(a.roomName(), a.department(),
+            a.vacant() + b.vacant(), a.occupied() + b.occupied(), a.maintenance() + b.maintenance());
+    }
+}
@@ -4,6 +4,7 @@ import com.syncura360.model.Bed;
 import com.syncura360.model.Room;
 import com.syncura360.model.enums.BedStatus;
 import com.syncura360.repository.BedRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 /**
@@ -14,15 +15,18 @@ import org.springframework.stereotype.Service;
 @Service
 public class BedService {
     BedRepository bedRepository;
+    ApplicationEventPublisher eventPublisher;
 
     /**
      * Constructor for initializing {@link BedService} with required dependencies.
      * Uses constructor injection for necessary components.
      *
      * @param bedRepository The repository used for bed operations.
+     * @param eventPublisher Publisher for room changes, applied to the {@link BedOccupancyIndex} on commit.
      */
-    public BedService(BedRepository bedRepository) {
+    public BedService(BedRepository bedRepository, ApplicationEventPublisher eventPublisher) {
         this.bedRepository = bedRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -48,6 +52,7 @@ public class BedService {
                 // Save the new bed in the database
                 bedRepository.save(bed);
             }
+            eventPublisher.publishEvent(new BedOccupancyIndex.RoomChanged(room.getId().getHospitalId(), room.getId().getRoomName()));
             return;
         }
 
@@ -76,5 +81,6 @@ public class BedService {
 
         // Delete the beds
         bedRepository.deleteXVacantBedsInRoom(room.getId().getHospitalId(), room.getId().getRoomName(), bedsToDelete);
+        eventPublisher.publishEvent(new BedOccupancyIndex.RoomChanged(room.getId().getHospitalId(), room.getId().getRoomName()));
     }
 }
@@ -0,0 +1,186 @@
+package com.syncura360.service;
+
+import com.syncura360.dto.Billing.BillDTO;
+import com.syncura360.dto.Billing.ChargeLineDTO;
+import com.syncura360.dto.Billing.ChargeRollupDTO;
+import com.syncura360.dto.Billing.RoomDaysDTO;
+import com.syncura360.model.Visit;
+import com.syncura360.repository.ChargeTotal;
+import com.syncura360.repository.DrugAdministeredRepository;
+import com.syncura360.repository.RoomAssignmentRepository;
+import com.syncura360.repository.ServiceProvidedRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Computes visit bills and hospital charge roll-ups.
+ * <p>
+ * Charges are summed by aggregate queries, so no service, drug or room assignment entity is loaded.
+ * Bills are cached per visit together with the visit version they were computed at; every charting
+ * change bumps that version, so a changed visit misses the cache and is summed again. Bills of visits
+ * still open are also recomputed after midnight, when their room days grow, and a hospital's bills are
+ * dropped when its service costs or drug prices change.
+ *
+ * @author Benjamin Leiby
+ */
+@Service
+public class BillingService {
+
+    public static final int DEFAULT_ROLLUP_DAYS = 30;
+
+    ServiceProvidedRepository serviceProvidedRepository;
+    DrugAdministeredRepository drugAdministeredRepository;
+    RoomAssignmentRepository roomAssignmentRepository;
+
+    private final Map<VisitKey, CachedBill> bills;
+
+    /**
+     * Constructor for initializing {@link BillingService} with required dependencies.
+     *
+     * @param serviceProvidedRepository  Repository used to sum service charges.
+     * @param drugAdministeredRepository Repository used to sum drug charges.
+     * @param roomAssignmentRepository   Repository used to sum room days.
+     * @param maxSize                    Number of visit bills kept in the cache.
+     */
+    public BillingService(ServiceProvidedRepository serviceProvidedRepository,
+                          DrugAdministeredRepository drugAdministeredRepository,
+                          RoomAssignmentRepository roomAssignmentRepository,
+                          @Value("${billing.cache.max-size:5000}") int maxSize) {
+        this.serviceProvidedRepository = serviceProvidedRepository;
+        this.drugAdministeredRepository = drugAdministeredRepository;
+        this.roomAssignmentRepository = roomAssignmentRepository;
+        this.bills = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<VisitKey, CachedBill> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Service costs or drug prices of the hospital changed, so its cached bills are stale.
+     */
+    public record PricesChanged(int hospitalId) {}
+
+    /**
+     * Get the bill of an already resolved visit, from the cache when the visit has not changed since.
+     *
+     * @param hospitalId Hospital of the visit.
+     * @param visit      Visit as just read, so its version is current.
+     * @return BillDTO with the charges of the visit.
+     */
+    public BillDTO getBill(int hospitalId, Visit visit) {
+        VisitKey key = new VisitKey(hospitalId, visit.getId().getPatientId(), visit.getId().getAdmissionDateTime());
+        LocalDateTime now = LocalDateTime.now();
+
+        synchronized (bills) {
+            CachedBill cached = bills.get(key);
+            if (cached != null && cached.version() == visit.getVersion() && now.isBefore(cached.validUntil())) {
+                return cached.bill();
+            }
+        }
+
+        BillDTO bill = computeBill(hospitalId, visit, now);
+
+        // Room days of an open visit grow at midnight
+        LocalDateTime validUntil = visit.getDischargeDateTime() == null
+                ? now.toLocalDate().plusDays(1).atStartOfDay()
+                : LocalDateTime.MAX;
+
+        synchronized (bills) {
+            bills.put(key, new CachedBill(visit.getVersion(), validUntil, bill));
+        }
+
+        return bill;
+    }
+
+    /**
+     * Sum the hospital's charges per service and drug category, without loading any entities. Only visits
+     * still in the live tables are counted, which covers every charge made within the archive age.
+     *
+     * @param from Start of the window, inclusive; defaults to {@value DEFAULT_ROLLUP_DAYS} days before the end.
+     * @param to   End of the window, exclusive; defaults to now.
+     * @return ChargeRollupDTO with the totals of the window.
+     * @throws DateTimeParseException If a bound is malformed.
+     * @throws IllegalArgumentException If the window ends before it starts.
+     */
+    public ChargeRollupDTO getChargeRollup(int hospitalId, String from, String to) throws DateTimeParseException {
+        LocalDateTime end = (to == null || to.isBlank()) ? LocalDateTime.now() : LocalDateTime.parse(to);
+        LocalDateTime start = (from == null || from.isBlank()) ? end.minusDays(DEFAULT_ROLLUP_DAYS) : LocalDateTime.parse(from);
+        if (!start.isBefore(end)) {
+            throw new IllegalArgumentException("Window start must be before its end.");
+        }
+
+        List<ChargeLineDTO> services = toLines(serviceProvidedRepository.sumChargesByCategory(hospitalId, start, end));
+
+        List<ChargeLineDTO> drugs = new ArrayList<>();
+        for (DrugAdministeredRepository.CategoryChargeTotal row : drugAdministeredRepository.sumChargesByCategory(hospitalId, start, end)) {
+            String category = row.getCategory() == null ? "Uncategorized" : row.getCategory().getValue();
+            drugs.add(new ChargeLineDTO(category, row.getCount(), row.getAmount()));
+        }
+
+        return new ChargeRollupDTO(start.toString(), end.toString(), services, drugs, sum(services).add(sum(drugs)));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onPricesChanged(PricesChanged event) {
+        synchronized (bills) {
+            bills.keySet().removeIf(key -> key.hospitalId() == event.hospitalId());
+        }
+    }
+
+    /**
+     * Sum the bill of a visit without going through the cache, e.g. to freeze it at discharge.
+     *
+     * @param asOf Time open room stays are counted up to.
+     * @return BillDTO with the charges of the visit.
+     */
+    public BillDTO computeBill(int hospitalId, Visit visit, LocalDateTime asOf) {
+        VisitKey key = new VisitKey(hospitalId, visit.getId().getPatientId(), visit.getId().getAdmissionDateTime());
+        List<ChargeLineDTO> services = toLines(
+            serviceProvidedRepository.sumChargesByVisit(key.hospitalId(), key.patientId(), key.admissionDateTime()));
+        List<ChargeLineDTO> drugs = toLines(
+            drugAdministeredRepository.sumChargesByVisit(key.hospitalId(), key.patientId(), key.admissionDateTime()));
+
+        List<RoomDaysDTO> rooms = new ArrayList<>();
+        for (RoomAssignmentRepository.RoomDays row :
+                roomAssignmentRepository.sumDaysByVisit(key.hospitalId(), key.patientId(), key.admissionDateTime(), asOf)) {
+            rooms.add(new RoomDaysDTO(row.getRoomName().trim(), row.getDays()));
+        }
+
+        BigDecimal servicesTotal = sum(services);
+        BigDecimal drugsTotal = sum(drugs);
+        return new BillDTO(key.patientId(), key.admissionDateTime().toString(), services, drugs, rooms,
+            servicesTotal, drugsTotal, servicesTotal.add(drugsTotal), asOf.toString());
+    }
+
+    private static List<ChargeLineDTO> toLines(List<ChargeTotal> rows) {
+        List<ChargeLineDTO> lines = new ArrayList<>(rows.size());
+        for (ChargeTotal row : rows) {
+            lines.add(new ChargeLineDTO(row.getName(), row.getCount(), row.getAmount()));
+        }
+        return lines;
+    }
+
+    private static BigDecimal sum(List<ChargeLineDTO> lines) {
+        BigDecimal total = BigDecimal.ZERO.setScale(2);
+        for (ChargeLineDTO line : lines) {
+            total = total.add(line.getAmount());
+        }
+        return total;
+    }
+
+    private record VisitKey(int hospitalId, int patientId, LocalDateTime admissionDateTime) {}
+
+    private record CachedBill(long version, LocalDateTime validUntil, BillDTO bill) {}
+}
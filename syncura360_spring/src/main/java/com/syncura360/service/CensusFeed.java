@@ -0,0 +1,389 @@
+package com.syncura360.service;
+
+import com.syncura360.dto.Census.CensusDeltaDTO;
+import com.syncura360.model.enums.BedStatus;
+import com.syncura360.security.TokenRevocationService;
+import com.syncura360.security.VerifiedToken;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Live census feed, pushed to dashboards over server-sent events instead of having them poll.
+ * <p>
+ * Admissions, discharges, bed status changes, room changes and inventory changes are turned into small
+ * deltas once their transaction commits, numbered per hospital and sent to every subscriber of that hospital.
+ * The last deltas of each hospital are kept, so a client reconnecting with the id of the last event it saw
+ * (the SSE Last-Event-ID header) gets only what it missed. If that is no longer possible, e.g. after a restart
+ * or a long disconnect, the client is sent a reset event and should reload in full.
+ * <p>
+ * All feed state is owned by a single dispatcher thread, which keeps deltas in order and means a slow client
+ * never holds up the request that committed the change. The dispatcher never writes to a connection itself: each
+ * subscriber has a bounded queue drained by its own writer task, so a stalled client only stalls itself. A client
+ * whose queue fills up is disconnected and resumes from its Last-Event-ID when it reconnects.
+ * <p>
+ * A stream ends when the access token it was opened with expires, and is closed early if that token is revoked.
+ *
+ * @author Benjamin Leiby
+ */
+@Service
+public class CensusFeed {
+    private static final Logger log = LoggerFactory.getLogger(CensusFeed.class);
+
+    public static final String ADMITTED = "admitted";
+    public static final String DISCHARGED = "discharged";
+    public static final String BED_CLAIMED = "bedClaimed";
+    public static final String BED_RELEASED = "bedReleased";
+    public static final String BED_STATUS = "bedStatus";
+    public static final String ROOM_CHANGED = "roomChanged";
+    public static final String INVENTORY = "inventory";
+
+    // Control events: ready for a fresh subscription, reset when missed deltas can no longer be replayed
+    public static final String READY = "ready";
+    public static final String RESET = "reset";
+
+    private final int bufferSize;
+    private final int subscriberBufferSize;
+    private final long timeoutMs;
+    private final Executor dispatcher;
+    private final Executor writer;
+    private final TokenRevocationService tokenRevocationService;
+
+    // Distinguishes ids from an earlier run, whose sequence numbers mean nothing now
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    // Only touched on the dispatcher thread
+    private final Map<Integer, HospitalFeed> hospitals = new HashMap<>();
+
+    /**
+     * Constructs the feed.
+     *
+     * @param bufferSize             Number of recent deltas kept per hospital for reconnecting clients.
+     * @param subscriberBufferSize   Number of events a client may fall behind by before it is disconnected.
+     * @param timeoutMs              Longest a subscription stays open before the client has to reconnect;
+     *                               shorter when the client's access token expires sooner.
+     * @param tokenRevocationService Used to close streams whose access token has been revoked.
+     */
+    @Autowired
+    public CensusFeed(@Value("${census.feed.buffer-size:1000}") int bufferSize,
+                      @Value("${census.feed.subscriber-buffer-size:100}") int subscriberBufferSize,
+                      @Value("${census.feed.timeout-ms:1800000}") long timeoutMs,
+                      TokenRevocationService tokenRevocationService) {
+        this(bufferSize, subscriberBufferSize, timeoutMs,
+            Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "census-feed");
+                thread.setDaemon(true);
+                return thread;
+            }),
+            // Writes block on the client's connection, so each gets a cheap thread of its own while sending
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("census-feed-writer-", 0).factory()),
+            tokenRevocationService);
+    }
+
+    CensusFeed(int bufferSize, int subscriberBufferSize, long timeoutMs, Executor dispatcher, Executor writer,
+               TokenRevocationService tokenRevocationService) {
+        this.bufferSize = Math.max(1, bufferSize);
+        this.subscriberBufferSize = Math.max(1, subscriberBufferSize);
+        this.timeoutMs = timeoutMs;
+        this.dispatcher = dispatcher;
+        this.writer = writer;
+        this.tokenRevocationService = tokenRevocationService;
+    }
+
+    /**
+     * A visit was started.
+     */
+    public record VisitAdmitted(int hospitalId, int patientId) {}
+
+    /**
+     * A visit was ended.
+     */
+    public record VisitDischarged(int hospitalId, int patientId) {}
+
+    /**
+     * Stock of a drug changed. Quantity is the new stock when known, change the amount taken or added otherwise.
+     * Both are null when the drug was removed.
+     */
+    public record InventoryChanged(int hospitalId, long ndc, Integer quantity, Integer change) {}
+
+    /**
+     * Open a subscription to the feed of the token holder's hospital.
+     *
+     * @param token       Access token the stream was requested with; the stream ends when it does.
+     * @param lastEventId Id of the last event the client received, or null on a first connection.
+     * @return The emitter the deltas are sent through.
+     */
+    public SseEmitter subscribe(VerifiedToken token, String lastEventId) {
+        long untilExpiry = Duration.between(Instant.now(), token.expiresAt()).toMillis();
+        SseEmitter emitter = new SseEmitter(Math.max(1, Math.min(timeoutMs, untilExpiry)));
+        subscribe(token, lastEventId, emitter);
+        return emitter;
+    }
+
+    void subscribe(VerifiedToken token, String lastEventId, SseEmitter emitter) {
+        int hospitalId = token.staff().hospitalId();
+        Subscriber subscriber = new Subscriber(emitter, token);
+        emitter.onTimeout(emitter::complete);
+        emitter.onCompletion(() -> {
+            subscriber.close();
+            dispatch(() -> feed(hospitalId).subscribers.remove(subscriber));
+        });
+        dispatch(() -> attach(hospitalId, subscriber, lastEventId));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onVisitAdmitted(VisitAdmitted event) {
+        publish(event.hospitalId(), new CensusDeltaDTO(ADMITTED, event.patientId(), null, null, null, null, null));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onVisitDischarged(VisitDischarged event) {
+        publish(event.hospitalId(), new CensusDeltaDTO(DISCHARGED, event.patientId(), null, null, null, null, null));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBedStatusChanged(BedOccupancyIndex.BedStatusChanged event) {
+        String roomName = event.roomName().trim();
+        CensusDeltaDTO delta;
+        if (event.from() == BedStatus.Vacant && event.to() == BedStatus.Occupied) {
+            delta = new CensusDeltaDTO(BED_CLAIMED, null, roomName, null, null, null, null);
+        } else if (event.from() == BedStatus.Occupied && event.to() == BedStatus.Vacant) {
+            delta = new CensusDeltaDTO(BED_RELEASED, null, roomName, null, null, null, null);
+        } else {
+            delta = new CensusDeltaDTO(BED_STATUS, null, roomName, event.to().getValue(), null, null, null);
+        }
+        publish(event.hospitalId(), delta);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onRoomChanged(BedOccupancyIndex.RoomChanged event) {
+        publish(event.hospitalId(), new CensusDeltaDTO(ROOM_CHANGED, null, event.roomName().trim(), null, null, null, null));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onInventoryChanged(InventoryChanged event) {
+        publish(event.hospitalId(),
+            new CensusDeltaDTO(INVENTORY, null, null, null, event.ndc(), event.quantity(), event.change()));
+    }
+
+    /**
+     * Keeps idle connections open through proxies, and drops subscribers whose connection is gone or whose
+     * access token has expired or been revoked.
+     */
+    @Scheduled(fixedDelayString = "${census.feed.heartbeat-ms:20000}")
+    public void heartbeat() {
+        dispatch(() -> {
+            Instant now = Instant.now();
+            for (HospitalFeed feed : hospitals.values()) {
+                feed.subscribers.removeIf(subscriber -> {
+                    if (subscriber.token.isExpired(now) || tokenRevocationService.isRevoked(subscriber.token)) {
+                        subscriber.emitter.complete();
+                        subscriber.close();
+                        return true;
+                    }
+                    return !subscriber.offer(SseEmitter.event().comment("keepalive"));
+                });
+            }
+        });
+    }
+
+    void publish(int hospitalId, CensusDeltaDTO delta) {
+        dispatch(() -> {
+            HospitalFeed feed = feed(hospitalId);
+            long sequence = ++feed.sequence;
+            feed.recent.addLast(new Entry(sequence, delta));
+            if (feed.recent.size() > bufferSize) {
+                feed.recent.removeFirst();
+            }
+            feed.subscribers.removeIf(subscriber -> !subscriber.offer(toEvent(sequence, delta)));
+        });
+    }
+
+    private void attach(int hospitalId, Subscriber subscriber, String lastEventId) {
+        HospitalFeed feed = feed(hospitalId);
+        String current = token(feed.sequence);
+
+        if (lastEventId == null || lastEventId.isBlank()) {
+            if (!subscriber.offer(SseEmitter.event().id(current).name(READY).data(current))) {
+                return;
+            }
+        } else {
+            OptionalLong after = sequenceOf(lastEventId);
+            // Replaying more than the client may queue would only disconnect it again, so it reloads instead
+            if (after.isPresent() && feed.canResumeAfter(after.getAsLong())
+                    && feed.sequence - after.getAsLong() <= subscriberBufferSize) {
+                for (Entry entry : feed.recent) {
+                    if (entry.sequence > after.getAsLong() && !subscriber.offer(toEvent(entry.sequence, entry.delta))) {
+                        return;
+                    }
+                }
+            } else if (!subscriber.offer(SseEmitter.event().id(current).name(RESET).data(current))) {
+                return;
+            }
+        }
+
+        feed.subscribers.add(subscriber);
+    }
+
+    private SseEmitter.SseEventBuilder toEvent(long sequence, CensusDeltaDTO delta) {
+        return SseEmitter.event().id(token(sequence)).name(delta.getType()).data(delta);
+    }
+
+    private static boolean send(SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            // Client went away, or the emitter already completed
+            emitter.completeWithError(e);
+            return false;
+        }
+    }
+
+    private String token(long sequence) {
+        return epoch + "." + sequence;
+    }
+
+    private OptionalLong sequenceOf(String token) {
+        int dot = token.lastIndexOf('.');
+        if (dot < 0 || !token.substring(0, dot).equals(epoch)) {
+            return OptionalLong.empty();
+        }
+        try {
+            return OptionalLong.of(Long.parseLong(token.substring(dot + 1)));
+        } catch (NumberFormatException e) {
+            return OptionalLong.empty();
+        }
+    }
+
+    private HospitalFeed feed(int hospitalId) {
+        return hospitals.computeIfAbsent(hospitalId, k -> new HospitalFeed());
+    }
+
+    private void dispatch(Runnable task) {
+        try {
+            dispatcher.execute(task);
+        } catch (RejectedExecutionException e) {
+            log.debug("Census feed is shut down, dropping update");
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (dispatcher instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+        if (writer instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+    }
+
+    private record Entry(long sequence, CensusDeltaDTO delta) {}
+
+    /**
+     * One open stream: its pending events and whether a writer task is currently draining them.
+     */
+    private class Subscriber {
+        final SseEmitter emitter;
+        final VerifiedToken token;
+        private final ArrayDeque<SseEmitter.SseEventBuilder> pending = new ArrayDeque<>();
+        private boolean draining;
+        private boolean closed;
+
+        Subscriber(SseEmitter emitter, VerifiedToken token) {
+            this.emitter = emitter;
+            this.token = token;
+        }
+
+        /**
+         * Queue an event without blocking; false if the subscriber is gone or too far behind and was dropped.
+         */
+        boolean offer(SseEmitter.SseEventBuilder event) {
+            boolean fellBehind;
+            synchronized (this) {
+                if (closed) {
+                    return false;
+                }
+                fellBehind = pending.size() >= subscriberBufferSize;
+                if (fellBehind) {
+                    closed = true;
+                    pending.clear();
+                } else {
+                    pending.addLast(event);
+                    if (draining) {
+                        return true;
+                    }
+                    draining = true;
+                }
+            }
+
+            if (fellBehind) {
+                log.debug("Census feed subscriber fell {} events behind, disconnecting", subscriberBufferSize);
+                emitter.complete();
+                return false;
+            }
+            try {
+                writer.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                close();
+                return false;
+            }
+            return true;
+        }
+
+        void close() {
+            synchronized (this) {
+                closed = true;
+                pending.clear();
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                SseEmitter.SseEventBuilder event;
+                synchronized (this) {
+                    event = pending.pollFirst();
+                    if (event == null || closed) {
+                        draining = false;
+                        return;
+                    }
+                }
+                if (!send(emitter, event)) {
+                    close();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Subscribers and recent deltas of one hospital.
+     */
+    private static class HospitalFeed {
+        final List<Subscriber> subscribers = new ArrayList<>();
+        final ArrayDeque<Entry> recent = new ArrayDeque<>();
+        long sequence;
+
+        // Everything after the given sequence is still buffered
+        boolean canResumeAfter(long after) {
+            long oldestKept = sequence - recent.size() + 1;
+            return after <= sequence && after >= oldestKept - 1;
+        }
+    }
+}
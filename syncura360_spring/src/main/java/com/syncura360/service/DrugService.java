@@ -7,6 +7,8 @@ import com.syncura360.model.enums.DrugCategory;
 import com.syncura360.repository.DrugRepository;
 import jakarta.persistence.EntityExistsException;
 import jakarta.persistence.EntityNotFoundException;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
@@ -20,15 +22,18 @@ import java.util.Optional;
 @Service
 public class DrugService {
     DrugRepository drugRepository;
+    ApplicationEventPublisher eventPublisher;
 
     /**
      * Constructor for initializing {@link DrugService} with required dependencies.
      * Uses constructor injection for necessary components.
      *
      * @param drugRepository The repository used for drug operations.
+     * @param eventPublisher Publisher for inventory changes, pushed on the {@link CensusFeed}.
      */
-    public DrugService(DrugRepository drugRepository) {
+    public DrugService(DrugRepository drugRepository, ApplicationEventPublisher eventPublisher) {
         this.drugRepository = drugRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -66,6 +71,7 @@ public class DrugService {
 
         // Save the new drug to database
         drugRepository.save(newDrug);
+        eventPublisher.publishEvent(new CensusFeed.InventoryChanged(hospitalId, drugFormDTO.getNdc(), drugFormDTO.getQuantity(), null));
     }
 
     /**
@@ -75,6 +81,7 @@ public class DrugService {
      * @param drugUpdateDTO The data transfer object containing updated drug details.
      * @throws EntityNotFoundException If the drug with the given NDC does not exist.
      * @throws IllegalArgumentException If any input constraints are violated (e.g., negative quantity or invalid price).
+     * @throws ObjectOptimisticLockingFailureException If the drug's version no longer matches the one sent.
      */
     public void updateDrug(int hospitalId, DrugUpdateDTO drugUpdateDTO) {
         // Find the drug if it already exists
@@ -95,13 +102,23 @@ public class DrugService {
             throw new IllegalArgumentException("Price must have a precision of 10 and a scale of 2.");
         }
 
-        // Update the existing drug's info
+        // Reject the edit if the drug changed since the client loaded it
         Drug drug = drugResult.get();
+        if (!drugUpdateDTO.getVersion().equals(drug.getVersion())) {
+            throw new ObjectOptimisticLockingFailureException(Drug.class, drug.getId());
+        }
+
+        // Update the existing drug's info
+        boolean priceChanged = drug.getPrice() == null || drug.getPrice().compareTo(price) != 0;
         drug.setQuantity(quantity);
         drug.setPrice(price);
 
         // Save the drug to database
         drugRepository.save(drug);
+        eventPublisher.publishEvent(new CensusFeed.InventoryChanged(hospitalId, drugUpdateDTO.getNdc(), quantity, null));
+        if (priceChanged) {
+            eventPublisher.publishEvent(new BillingService.PricesChanged(hospitalId));
+        }
     }
 
     /**
@@ -122,6 +139,7 @@ public class DrugService {
         // Delete the drug
         Drug drug = drugResult.get();
         drugRepository.deleteById(new DrugId(hospitalId, drug.getId().getNdc()));
+        eventPublisher.publishEvent(new CensusFeed.InventoryChanged(hospitalId, drug.getId().getNdc(), null, null));
     }
 
     /**
@@ -134,6 +152,6 @@ public class DrugService {
         // Return a list of all the drugs for the hospital
         return new DrugFetchListDTO(drugRepository.findAllById_HospitalId(hospitalId).stream().map(drug ->
                 new DrugFetchDTO(drug.getId().getNdc(), drug.getName(), drug.getCategory().getValue(), drug.getDescription(),
-                        drug.getStrength(), drug.getPpq(), drug.getQuantity(), drug.getPrice())).toList());
+                        drug.getStrength(), drug.getPpq(), drug.getQuantity(), drug.getPrice(), drug.getVersion())).toList());
     }
 }
@@ -8,11 +8,14 @@ import com.syncura360.repository.EquipmentRepository;
 import com.syncura360.repository.RoomRepository;
 import jakarta.persistence.EntityExistsException;
 import jakarta.persistence.EntityNotFoundException;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 /**
  * Service class responsible for managing room-related operations in the hospital.
@@ -27,6 +30,8 @@ public class RoomService {
     EquipmentRepository equipmentRepository;
     BedService bedService;
     EquipmentService equipmentService;
+    BedOccupancyIndex bedOccupancyIndex;
+    ApplicationEventPublisher eventPublisher;
 
     /**
      * Constructor for initializing {@link RoomService} with required dependencies.
@@ -37,13 +42,18 @@ public class RoomService {
      * @param equipmentRepository The repository used for equipment operations.
      * @param bedService The service for bed operations.
      * @param equipmentService The service for equipment operations.
+     * @param bedOccupancyIndex In-memory bed counts per room, used to answer room fetches.
+     * @param eventPublisher Publisher for room changes, applied to the {@link BedOccupancyIndex} on commit.
      */
-    public RoomService(RoomRepository roomRepository, BedRepository bedRepository, EquipmentRepository equipmentRepository, BedService bedService, EquipmentService equipmentService) {
+    public RoomService(RoomRepository roomRepository, BedRepository bedRepository, EquipmentRepository equipmentRepository, BedService bedService, EquipmentService equipmentService,
+                       BedOccupancyIndex bedOccupancyIndex, ApplicationEventPublisher eventPublisher) {
         this.roomRepository = roomRepository;
         this.bedRepository = bedRepository;
         this.equipmentRepository = equipmentRepository;
         this.bedService = bedService;
         this.equipmentService = equipmentService;
+        this.bedOccupancyIndex = bedOccupancyIndex;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -87,6 +97,8 @@ public class RoomService {
                 equipmentRepository.save(newEquipment);
             }
         }
+
+        eventPublisher.publishEvent(new BedOccupancyIndex.RoomChanged(hospitalId, room.getId().getRoomName()));
     }
 
     /**
@@ -119,6 +131,7 @@ public class RoomService {
 
         // Save the room
         roomRepository.save(room);
+        eventPublisher.publishEvent(new BedOccupancyIndex.RoomChanged(hospitalId, room.getId().getRoomName()));
     }
 
     /**
@@ -156,6 +169,7 @@ public class RoomService {
 
         // Delete the room
         roomRepository.delete(room);
+        eventPublisher.publishEvent(new BedOccupancyIndex.RoomChanged(hospitalId, roomDeletionDTO.getRoomName().trim()));
     }
 
     /**
@@ -165,9 +179,14 @@ public class RoomService {
      * @return A list of {@link RoomFetchDTO} containing room details.
      */
     public List<RoomFetchDTO> fetchRooms(int hospitalId) {
-        // Get a list of rooms
-        return roomRepository.findById_HospitalId(hospitalId).stream().map(
-                room -> fetchRoom(hospitalId, new RoomFetchRequestDTO(room.getId().getRoomName().trim()))).toList();
+        // Get all the equipments of the hospital at once, grouped by room
+        Map<String, List<EquipmentFetchDTO>> equipmentsByRoom = equipmentRepository.findById_HospitalId(hospitalId).stream()
+                .collect(Collectors.groupingBy(equipment -> equipment.getId().getRoomName().trim(),
+                        Collectors.mapping(RoomService::toEquipmentFetchDTO, Collectors.toList())));
+
+        // Rooms and bed counts come from the occupancy index
+        return bedOccupancyIndex.getRooms(hospitalId).stream().map(room ->
+                toRoomFetchDTO(room, equipmentsByRoom.getOrDefault(room.roomName(), List.of()))).toList();
     }
 
     /**
@@ -179,34 +198,36 @@ public class RoomService {
      * @throws EntityNotFoundException If the room with the given name does not exist.
      */
     public RoomFetchDTO fetchRoom(int hospitalId, RoomFetchRequestDTO roomFetchRequestDTO) {
-        // Find the room if it already exists
-        Optional<Room> optionalRoom = roomRepository.findById_HospitalIdAndId_RoomName(hospitalId, roomFetchRequestDTO.getRoomName().trim());
+        // Find the room and its bed counts in the occupancy index
+        Optional<BedOccupancyIndex.RoomOccupancy> optionalRoom = bedOccupancyIndex.getRoom(hospitalId, roomFetchRequestDTO.getRoomName().trim());
         if (optionalRoom.isEmpty()) {
             // Room not found
             throw new EntityNotFoundException("Room with given name does not exist.");
         }
 
         // Extract the room
-        Room room = optionalRoom.get();
-
-        // Get the numbers of beds in the room
-        int totalBeds = bedRepository.countByRoom(room);
-        int bedsVacant = bedRepository.countByRoomAndStatus(room, BedStatus.Vacant);
-        int bedsOccupied = bedRepository.countByRoomAndStatus(room, BedStatus.Occupied);
-        int bedsMaintenance = bedRepository.countByRoomAndStatus(room, BedStatus.Under_Maintenance);
+        BedOccupancyIndex.RoomOccupancy room = optionalRoom.get();
 
         // Get all the equipments
-        List<EquipmentFetchDTO> fetchedEquipments = equipmentRepository.findById_HospitalIdAndId_RoomName(hospitalId, room.getId().getRoomName().trim()).stream().map(equipment ->
-                new EquipmentFetchDTO(equipment.getId().getSerialNo().trim(), equipment.getName().trim(), equipment.getUnderMaintenance())).toList();
+        List<EquipmentFetchDTO> fetchedEquipments = equipmentRepository.findById_HospitalIdAndId_RoomName(hospitalId, room.roomName()).stream()
+                .map(RoomService::toEquipmentFetchDTO).toList();
 
+        return toRoomFetchDTO(room, fetchedEquipments);
+    }
+
+    private static RoomFetchDTO toRoomFetchDTO(BedOccupancyIndex.RoomOccupancy room, List<EquipmentFetchDTO> equipments) {
         return new RoomFetchDTO(
-                room.getId().getRoomName().trim(),
-                room.getDepartment().trim(),
-                totalBeds,
-                bedsVacant,
-                bedsOccupied,
-                bedsMaintenance,
-                fetchedEquipments
+                room.roomName(),
+                room.department().trim(),
+                room.total(),
+                room.vacant(),
+                room.occupied(),
+                room.maintenance(),
+                equipments
         );
     }
+
+    private static EquipmentFetchDTO toEquipmentFetchDTO(Equipment equipment) {
+        return new EquipmentFetchDTO(equipment.getId().getSerialNo().trim(), equipment.getName().trim(), equipment.getUnderMaintenance());
+    }
 }
@@ -0,0 +1,397 @@
+package com.syncura360.service;
+
+import com.syncura360.dto.Staff.StaffCreationDto;
+import com.syncura360.dto.Staff.StaffOnboardingStatus;
+import com.syncura360.model.Hospital;
+import com.syncura360.model.Staff;
+import com.syncura360.model.enums.Role;
+import com.syncura360.repository.StaffRepository;
+import com.syncura360.security.HashingCapacityException;
+import com.syncura360.security.PasswordHashingAdmission;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Service for onboarding large groups of staff members asynchronously.
+ * <p>
+ * A submitted job is validated, then its passwords are hashed in parallel on a dedicated pool and
+ * the new staff rows are inserted in JDBC batches. The caller gets a job id immediately and polls
+ * it for per-row results.
+ * <p>
+ * The hashing pool is deliberately smaller than the {@link PasswordHashingAdmission} permit count
+ * so that an onboarding job never starves logins of hashing capacity, and every hash still goes
+ * through the admission-controlled {@link PasswordEncoder}.
+ *
+ * @author Benjamin Leiby
+ */
+@Service
+public class StaffOnboardingService {
+    static final String PENDING = "Pending";
+    static final String RUNNING = "Running";
+    static final String COMPLETED = "Completed";
+    static final String CREATED = "Created";
+    static final String FAILED = "Failed";
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    StaffRepository staffRepository;
+    PasswordEncoder passwordEncoder;
+    TransactionTemplate transactionTemplate;
+
+    private final ExecutorService jobExecutor;
+    private final ExecutorService hashExecutor;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final int batchSize;
+    private final Duration retention;
+
+    /**
+     * Constructs a StaffOnboardingService with the required dependencies.
+     *
+     * @param staffRepository          Repository for accessing staff data.
+     * @param passwordEncoder          Admission-controlled encoder used to hash passwords.
+     * @param transactionManager       Transaction manager used to commit each insert batch separately.
+     * @param passwordHashingAdmission Admission controller, used to size the hashing pool.
+     * @param batchSize                Number of staff rows inserted per batch.
+     * @param maxQueuedJobs            Number of jobs that may wait behind the running one.
+     * @param retentionMinutes         How long finished jobs can still be polled.
+     */
+    public StaffOnboardingService(StaffRepository staffRepository,
+                                  PasswordEncoder passwordEncoder,
+                                  PlatformTransactionManager transactionManager,
+                                  PasswordHashingAdmission passwordHashingAdmission,
+                                  @Value("${staff.onboarding.batch-size:50}") int batchSize,
+                                  @Value("${staff.onboarding.max-queued-jobs:10}") int maxQueuedJobs,
+                                  @Value("${staff.onboarding.retention-minutes:60}") long retentionMinutes) {
+        this.staffRepository = staffRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = Math.max(1, batchSize);
+        this.retention = Duration.ofMinutes(retentionMinutes);
+
+        int hashThreads = Math.max(1, passwordHashingAdmission.getConcurrency() / 2);
+        this.hashExecutor = Executors.newFixedThreadPool(hashThreads, namedThreads("staff-onboarding-hash-"));
+        this.jobExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, maxQueuedJobs)), namedThreads("staff-onboarding-job-"));
+    }
+
+    /**
+     * Queues a bulk onboarding job for the given hospital.
+     *
+     * @param hospitalId The hospital the new staff will work at.
+     * @param staff      The staff members to create.
+     * @return The id used to poll the job.
+     * @throws HashingCapacityException If too many onboarding jobs are already queued.
+     */
+    public String submit(int hospitalId, List<StaffCreationDto> staff) {
+        purgeExpiredJobs();
+
+        Job job = new Job(UUID.randomUUID().toString(), hospitalId, staff);
+        jobs.put(job.id, job);
+
+        try {
+            jobExecutor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            throw new HashingCapacityException("Too many onboarding jobs are queued.", 30);
+        }
+
+        return job.id;
+    }
+
+    /**
+     * Retrieves the progress of an onboarding job.
+     *
+     * @param hospitalId The hospital of the staff member polling the job.
+     * @param jobId      The id returned when the job was submitted.
+     * @return A {@link StaffOnboardingStatus} snapshot of the job.
+     * @throws EntityNotFoundException If no job with the given id exists for the hospital.
+     */
+    public StaffOnboardingStatus getStatus(int hospitalId, String jobId) {
+        Job job = jobs.get(jobId);
+        if (job == null || job.hospitalId != hospitalId) {
+            throw new EntityNotFoundException("Onboarding job with given id not found.");
+        }
+
+        return job.snapshot();
+    }
+
+    /**
+     * Runs an onboarding job: validation, parallel hashing, then batched inserts.
+     *
+     * @param job The job to run.
+     */
+    void run(Job job) {
+        job.status = RUNNING;
+
+        try {
+            List<Integer> valid = validate(job);
+            Map<Integer, Staff> hashed = hash(job, valid);
+            insert(job, hashed);
+        } catch (RuntimeException e) {
+            // Anything not yet resolved failed along with the job
+            for (int i = 0; i < job.results.length; i++) {
+                if (PENDING.equals(job.results[i].status())) {
+                    job.fail(i, "Unexpected error while onboarding.");
+                }
+            }
+        } finally {
+            job.rows = null;
+            job.status = COMPLETED;
+            job.finishedAt = Instant.now();
+        }
+    }
+
+    /**
+     * Fails rows that are incomplete, duplicated within the request, or whose username is already taken.
+     *
+     * @param job The job to validate.
+     * @return Indexes of the rows that passed validation.
+     */
+    private List<Integer> validate(Job job) {
+        Set<String> seen = new HashSet<>();
+        List<Integer> candidates = new ArrayList<>();
+
+        for (int i = 0; i < job.rows.size(); i++) {
+            StaffCreationDto dto = job.rows.get(i);
+            if (dto == null || dto.getUsername() == null || dto.getPasswordHash() == null) {
+                job.fail(i, "Username and password are required.");
+            } else if (!seen.add(dto.getUsername())) {
+                job.fail(i, "Duplicate username in request.");
+            } else {
+                candidates.add(i);
+            }
+        }
+
+        // One lookup for every username instead of one per row
+        Set<String> taken = new HashSet<>();
+        staffRepository.findAllById(seen).forEach(staff -> taken.add(staff.getUsername()));
+
+        List<Integer> valid = new ArrayList<>();
+        for (int i : candidates) {
+            if (taken.contains(job.rows.get(i).getUsername())) {
+                job.fail(i, "Staff username is taken.");
+            } else {
+                valid.add(i);
+            }
+        }
+
+        return valid;
+    }
+
+    /**
+     * Hashes the passwords of the given rows in parallel and builds their entities.
+     *
+     * @param job   The job being run.
+     * @param valid Indexes of the rows to hash.
+     * @return Entities ready to insert, keyed by row index.
+     */
+    private Map<Integer, Staff> hash(Job job, List<Integer> valid) {
+        Map<Integer, Future<Staff>> pending = new LinkedHashMap<>();
+        for (int i : valid) {
+            StaffCreationDto dto = job.rows.get(i);
+            pending.put(i, hashExecutor.submit(() -> toStaff(dto)));
+        }
+
+        Map<Integer, Staff> hashed = new LinkedHashMap<>();
+        for (Map.Entry<Integer, Future<Staff>> entry : pending.entrySet()) {
+            try {
+                hashed.put(entry.getKey(), entry.getValue().get());
+            } catch (ExecutionException e) {
+                job.fail(entry.getKey(), switch (e.getCause()) {
+                    case IllegalArgumentException invalid -> invalid.getMessage();
+                    case HashingCapacityException busy -> "Server was busy hashing, please resubmit this row.";
+                    default -> "Unable to hash password.";
+                });
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while hashing passwords.", e);
+            }
+        }
+
+        // Plaintext passwords are not kept around while the job waits to be polled
+        job.rows = null;
+
+        return hashed;
+    }
+
+    /**
+     * Inserts the hashed staff in batches. A batch that fails is retried row by row so that a single
+     * bad row only fails itself.
+     *
+     * @param job    The job being run.
+     * @param hashed Entities to insert, keyed by row index.
+     */
+    private void insert(Job job, Map<Integer, Staff> hashed) {
+        List<Map.Entry<Integer, Staff>> entries = new ArrayList<>(hashed.entrySet());
+
+        for (int start = 0; start < entries.size(); start += batchSize) {
+            List<Map.Entry<Integer, Staff>> batch = entries.subList(start, Math.min(start + batchSize, entries.size()));
+
+            try {
+                persist(job.hospitalId, batch);
+                batch.forEach(entry -> job.succeed(entry.getKey()));
+            } catch (RuntimeException batchFailure) {
+                for (Map.Entry<Integer, Staff> entry : batch) {
+                    try {
+                        persist(job.hospitalId, List.of(entry));
+                        job.succeed(entry.getKey());
+                    } catch (RuntimeException e) {
+                        job.fail(entry.getKey(), "Error saving staff to database.");
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Persists the given staff in one transaction. Staff ids are assigned usernames, so
+     * {@code saveAll} would merge (select then insert) each row; persisting directly lets
+     * Hibernate group the inserts into a single JDBC batch.
+     *
+     * @param hospitalId The hospital the staff members work at.
+     * @param batch      Entities to insert, keyed by row index.
+     */
+    private void persist(int hospitalId, List<Map.Entry<Integer, Staff>> batch) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Hospital hospital = entityManager.getReference(Hospital.class, hospitalId);
+            for (Map.Entry<Integer, Staff> entry : batch) {
+                Staff staff = copyOf(entry.getValue());
+                staff.setWorksAt(hospital);
+                entityManager.persist(staff);
+            }
+            entityManager.flush();
+            entityManager.clear();
+        });
+    }
+
+    /**
+     * Converts a {@link StaffCreationDto} into a {@link Staff} entity, hashing its password.
+     * The hospital is attached when the entity is persisted.
+     *
+     * @param dto The submitted staff details.
+     * @return A {@link Staff} entity populated with the provided details.
+     */
+    private Staff toStaff(StaffCreationDto dto) {
+        Staff staff = new Staff();
+        staff.setUsername(dto.getUsername());
+        staff.setRole(Role.fromValue(dto.getRole()));
+        staff.setFirstName(dto.getFirstName());
+        staff.setLastName(dto.getLastName());
+        staff.setEmail(dto.getEmail());
+        staff.setPhone(dto.getPhone());
+        staff.setAddressLine1(dto.getAddressLine1());
+        staff.setAddressLine2(dto.getAddressLine2());
+        staff.setCity(dto.getCity());
+        staff.setState(dto.getState());
+        staff.setPostal(dto.getPostal());
+        staff.setCountry(dto.getCountry());
+        staff.setDateOfBirth(dto.getDateOfBirth());
+        staff.setPasswordHash(passwordEncoder.encode(dto.getPasswordHash()));
+        return staff;
+    }
+
+    /**
+     * Copies an entity so that a rolled-back batch can be retried with fresh, unmanaged instances.
+     *
+     * @param source The entity to copy.
+     * @return A detached copy of the entity.
+     */
+    private static Staff copyOf(Staff source) {
+        Staff staff = new Staff();
+        staff.setUsername(source.getUsername());
+        staff.setPasswordHash(source.getPasswordHash());
+        staff.setRole(source.getRole());
+        staff.setFirstName(source.getFirstName());
+        staff.setLastName(source.getLastName());
+        staff.setEmail(source.getEmail());
+        staff.setPhone(source.getPhone());
+        staff.setAddressLine1(source.getAddressLine1());
+        staff.setAddressLine2(source.getAddressLine2());
+        staff.setCity(source.getCity());
+        staff.setState(source.getState());
+        staff.setPostal(source.getPostal());
+        staff.setCountry(source.getCountry());
+        staff.setDateOfBirth(source.getDateOfBirth());
+        return staff;
+    }
+
+    /**
+     * Drops finished jobs that are past the retention window.
+     */
+    private void purgeExpiredJobs() {
+        Instant cutoff = Instant.now().minus(retention);
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(cutoff));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        jobExecutor.shutdownNow();
+        hashExecutor.shutdownNow();
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * In-memory state of a single onboarding job.
+     */
+    static class Job {
+        final String id;
+        final int hospitalId;
+        final String[] usernames;
+        final StaffOnboardingStatus.RowResult[] results;
+        volatile List<StaffCreationDto> rows;
+        final AtomicInteger succeeded = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+        volatile String status = PENDING;
+        volatile Instant finishedAt;
+
+        Job(String id, int hospitalId, List<StaffCreationDto> rows) {
+            this.id = id;
+            this.hospitalId = hospitalId;
+            this.rows = new ArrayList<>(rows);
+            this.usernames = new String[rows.size()];
+            this.results = new StaffOnboardingStatus.RowResult[rows.size()];
+            for (int i = 0; i < rows.size(); i++) {
+                StaffCreationDto dto = rows.get(i);
+                usernames[i] = dto == null ? null : dto.getUsername();
+                results[i] = new StaffOnboardingStatus.RowResult(i, usernames[i], PENDING, null);
+            }
+        }
+
+        synchronized void succeed(int index) {
+            results[index] = new StaffOnboardingStatus.RowResult(index, usernames[index], CREATED, null);
+            succeeded.incrementAndGet();
+        }
+
+        synchronized void fail(int index, String message) {
+            results[index] = new StaffOnboardingStatus.RowResult(index, usernames[index], FAILED, message);
+            failed.incrementAndGet();
+        }
+
+        synchronized StaffOnboardingStatus snapshot() {
+            return new StaffOnboardingStatus(id, status, results.length, succeeded.get(), failed.get(),
+                    new ArrayList<>(Arrays.asList(results)));
+        }
+    }
+}
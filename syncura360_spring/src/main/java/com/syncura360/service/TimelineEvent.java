@@ -0,0 +1,101 @@
+package com.syncura360.service;
+
+import com.syncura360.dto.Visit.TimelineElementDTO;
+import com.syncura360.model.Visit;
+import com.syncura360.repository.DrugAdministeredRepository;
+import com.syncura360.repository.RoomAssignmentRepository;
+import com.syncura360.repository.ServiceProvidedRepository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+
+/**
+ * A visit timeline event that keeps its typed timestamp alongside the rendered element,
+ * so ordering never has to parse the display string back.
+ * @param at When the event happened.
+ * @param source Which event source produced it, used to break ties at the same instant.
+ * @param element Rendered element returned to the client.
+ * @author Benjamin Leiby
+ */
+record TimelineEvent(LocalDateTime at, Source source, TimelineElementDTO element) {
+
+    /**
+     * Event sources, declared in the order events sharing a timestamp are listed.
+     */
+    enum Source {
+        ADMISSION, SERVICE, DRUG, ROOM_ASSIGNED, ROOM_REMOVED, DISCHARGE
+    }
+
+    /** Chronological order; (timestamp, source) is unique within a visit. */
+    static final Comparator<TimelineEvent> CHRONOLOGICAL =
+            Comparator.comparing(TimelineEvent::at).thenComparing(TimelineEvent::source);
+
+    static TimelineEvent admission(Visit visit) {
+        LocalDateTime at = visit.getId().getAdmissionDateTime();
+        return new TimelineEvent(at, Source.ADMISSION, new TimelineElementDTO(
+            at.toString(),
+            "Patient Admittance",
+            "Reason: " + visit.getReasonForVisit()
+        ));
+    }
+
+    static TimelineEvent discharge(Visit visit) {
+        LocalDateTime at = visit.getDischargeDateTime();
+        return new TimelineEvent(at, Source.DISCHARGE, new TimelineElementDTO(
+            at.toString(),
+            "Patient discharged.",
+            "Visit Summary: " + visit.getVisitSummary()
+        ));
+    }
+
+    static TimelineEvent service(ServiceProvidedRepository.TimelineEntry serviceProvided) {
+        LocalDateTime at = serviceProvided.getProvidedAt();
+        return new TimelineEvent(at, Source.SERVICE, new TimelineElementDTO(
+            at.toString(),
+            serviceProvided.getServiceName() + " Performed",
+            "Performed by: " + serviceProvided.getPerformedByFirstName()
+            + " " + serviceProvided.getPerformedByLastName()
+            + ". Price: " + amount(serviceProvided.getCost())
+            + ". Category: " + serviceProvided.getCategory() + ". "
+        ));
+    }
+
+    static TimelineEvent drug(DrugAdministeredRepository.TimelineEntry drugAdministered) {
+        LocalDateTime at = drugAdministered.getAdministeredAt();
+        return new TimelineEvent(at, Source.DRUG, new TimelineElementDTO(
+            at.toString(),
+            drugAdministered.getDrugName() + " Administered",
+            "Administered by: " + drugAdministered.getAdministeredByFirstName()
+            + " " + drugAdministered.getAdministeredByLastName()
+            + ". Name: " + drugAdministered.getDrugName()
+            + ". Strength: " + drugAdministered.getStrength()
+            + ". Quantity: " + drugAdministered.getQuantity()
+            + ". Cost: " + amount(drugAdministered.getPrice() == null ? null
+                    : drugAdministered.getPrice().multiply(BigDecimal.valueOf(drugAdministered.getQuantity())))
+        ));
+    }
+
+    static TimelineEvent roomAssigned(RoomAssignmentRepository.TimelineEntry roomAssignment) {
+        LocalDateTime at = roomAssignment.getAssignedAt();
+        return new TimelineEvent(at, Source.ROOM_ASSIGNED, new TimelineElementDTO(
+            at.toString(),
+            "Assigned to " + roomAssignment.getRoomName(),
+            "Department: " + roomAssignment.getDepartment()
+        ));
+    }
+
+    static TimelineEvent roomRemoved(RoomAssignmentRepository.TimelineEntry roomAssignment) {
+        LocalDateTime at = roomAssignment.getRemovedAt();
+        return new TimelineEvent(at, Source.ROOM_REMOVED, new TimelineElementDTO(
+            at.toString(),
+            "Removed from " + roomAssignment.getRoomName(),
+            "Department: " + roomAssignment.getDepartment()
+        ));
+    }
+
+    // Archived visits can outlive the service or drug they were charged for, leaving no price to show
+    private static String amount(BigDecimal amount) {
+        return amount == null ? "unknown" : "$" + amount;
+    }
+}
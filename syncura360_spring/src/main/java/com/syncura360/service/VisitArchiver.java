@@ -0,0 +1,103 @@
+package com.syncura360.service;
+
+import com.syncura360.repository.VisitArchiveRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Background job that moves old discharged visits out of the live tables.
+ * <p>
+ * Visits discharged longer ago than the configured age are moved, with their services, drugs and room
+ * assignments, into the compressed archive tables in small batches, one transaction per batch, so the
+ * live tables only hold current visits and recent history. Archived records are still served by the
+ * record endpoints, which fall back to the archive.
+ *
+ * @author Benjamin Leiby
+ */
+@Service
+public class VisitArchiver {
+    private static final Logger log = LoggerFactory.getLogger(VisitArchiver.class);
+
+    private final VisitArchiveRepository visitArchiveRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final Duration minAge;
+    private final int batchSize;
+    private final int maxBatches;
+
+    /**
+     * Constructs the archiver.
+     *
+     * @param visitArchiveRepository Repository that moves rows into the archive tables.
+     * @param transactionManager     Transaction manager used to commit each batch separately.
+     * @param enabled                Whether the scheduled run does anything.
+     * @param minAgeDays             How long after discharge a visit is archived.
+     * @param batchSize              Number of visits moved per transaction.
+     * @param maxBatches             Upper bound on batches per run, so one run cannot hold the tables for long.
+     */
+    public VisitArchiver(VisitArchiveRepository visitArchiveRepository,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${visit.archive.enabled:true}") boolean enabled,
+                         @Value("${visit.archive.min-age-days:365}") long minAgeDays,
+                         @Value("${visit.archive.batch-size:200}") int batchSize,
+                         @Value("${visit.archive.max-batches:50}") int maxBatches) {
+        this.visitArchiveRepository = visitArchiveRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.minAge = Duration.ofDays(minAgeDays);
+        this.batchSize = Math.max(1, batchSize);
+        this.maxBatches = Math.max(1, maxBatches);
+    }
+
+    /**
+     * Scheduled entry point; runs off-peak by default.
+     */
+    @Scheduled(cron = "${visit.archive.cron:0 30 3 * * *}")
+    public void scheduledRun() {
+        if (enabled) {
+            archive();
+        }
+    }
+
+    /**
+     * Archive every visit discharged before now minus the configured age, batch by batch.
+     *
+     * @return Number of visits archived.
+     */
+    public int archive() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(minAge);
+        int archived = 0;
+
+        for (int batch = 0; batch < maxBatches; batch++) {
+            Integer moved;
+            try {
+                moved = transactionTemplate.execute(status -> visitArchiveRepository.archiveDischargedBefore(cutoff, batchSize));
+            } catch (RuntimeException e) {
+                // The batch rolled back as a whole; the next run picks the same visits up again
+                log.error("Visit archiving stopped after {} visits", archived, e);
+                break;
+            }
+
+            if (moved == null || moved == 0) {
+                break;
+            }
+            archived += moved;
+            if (moved < batchSize) {
+                break;
+            }
+        }
+
+        if (archived > 0) {
+            log.info("Archived {} visits discharged before {}", archived, cutoff);
+        }
+        return archived;
+    }
+}
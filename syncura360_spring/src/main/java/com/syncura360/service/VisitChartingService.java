@@ -0,0 +1,304 @@
+package com.syncura360.service;
+
+import com.syncura360.dto.Visit.BatchChartDTO;
+import com.syncura360.dto.Visit.BatchChartResultDTO;
+import com.syncura360.dto.Visit.ChartEventDTO;
+import com.syncura360.model.*;
+import com.syncura360.repository.*;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.PersistenceContext;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Charts several events against one ongoing visit in a single transaction.
+ * <p>
+ * The visit is resolved once, and every staff member, service, drug and room referenced by the batch is
+ * loaded with one IN query per kind. Events are validated against that in-memory state first. Drug stock
+ * and room assignment are simulated in order, so later events see the effects of earlier ones. Only if
+ * every event is valid is stock taken and are beds claimed, and the rows then go out together through
+ * JDBC batching.
+ *
+ * @author Benjamin Leiby
+ */
+@Service
+public class VisitChartingService {
+
+    @Autowired
+    VisitRepository visitRepository;
+    @Autowired
+    StaffRepository staffRepository;
+    @Autowired
+    ServiceRepository serviceRepository;
+    @Autowired
+    DrugRepository drugRepository;
+    @Autowired
+    RoomRepository roomRepository;
+    @Autowired
+    RoomAssignmentRepository roomAssignmentRepository;
+    @Autowired
+    BedAllocator bedAllocator;
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+    @PersistenceContext
+    EntityManager entityManager;
+
+    public static final int MAX_BATCH_EVENTS = 100;
+
+    public static final String SERVICE = "service";
+    public static final String DRUG = "drug";
+    public static final String ROOM = "room";
+    public static final String REMOVE_ROOM = "removeRoom";
+
+    /**
+     * Chart every event of the batch, or none of them.
+     * @param hospitalId Hospital the patient is visiting.
+     * @param batchChartDTO Patient and the events to chart, in order.
+     * @return Per-event results; failed is non-zero if nothing was charted.
+     * @throws EntityNotFoundException If the patient has no ongoing visit.
+     * @throws IllegalArgumentException If the batch is empty or too large.
+     * @throws BatchChartRejectedException If stock or beds ran out concurrently after validation; the transaction is rolled back.
+     */
+    @Transactional
+    public BatchChartResultDTO chart(int hospitalId, BatchChartDTO batchChartDTO)
+            throws EntityNotFoundException, IllegalArgumentException, BatchChartRejectedException {
+
+        List<ChartEventDTO> events = batchChartDTO.getEvents();
+        if (events == null || events.isEmpty()) {
+            throw new IllegalArgumentException("At least one event is required.");
+        }
+        if (events.size() > MAX_BATCH_EVENTS) {
+            throw new IllegalArgumentException("A batch may contain at most " + MAX_BATCH_EVENTS + " events.");
+        }
+
+        int patientId = batchChartDTO.getPatientID();
+        Visit visit = visitRepository.findCurrentVisitById(patientId, hospitalId)
+            .orElseThrow(() -> new EntityNotFoundException("Visit not found."));
+
+        Map<String, Staff> staff = loadStaff(hospitalId, events);
+        Map<String, com.syncura360.model.Service> services = loadServices(hospitalId, events);
+        Map<Long, Drug> drugs = loadDrugs(hospitalId, events);
+
+        boolean movesRooms = events.stream().anyMatch(e -> ROOM.equals(e.getType()) || REMOVE_ROOM.equals(e.getType()));
+        RoomAssignment currentAssignment = movesRooms
+            ? roomAssignmentRepository.findCurrentAssignmentById(patientId, hospitalId).orElse(null)
+            : null;
+        Map<String, Room> rooms = loadRooms(hospitalId, events);
+
+        // Validation pass over simulated stock and room assignment; nothing is written yet
+        String[] errors = new String[events.size()];
+        // Sorted so concurrent batches lock drug rows in the same order
+        Map<Long, Integer> drugDemand = new TreeMap<>();
+        String assignedRoom = currentAssignment == null ? null : currentAssignment.getRoomName();
+
+        for (int i = 0; i < events.size(); i++) {
+            ChartEventDTO event = events.get(i);
+            if (event.getType() == null) {
+                errors[i] = "Event type is required.";
+                continue;
+            }
+
+            switch (event.getType()) {
+                case SERVICE -> {
+                    if (!staff.containsKey(event.getStaff())) {
+                        errors[i] = "Providing staff not found.";
+                    } else if (!services.containsKey(event.getService())) {
+                        errors[i] = "Service not found.";
+                    }
+                }
+                case DRUG -> {
+                    Drug drug = drugs.get(event.getDrug());
+                    if (!staff.containsKey(event.getStaff())) {
+                        errors[i] = "Providing staff not found.";
+                    } else if (drug == null) {
+                        errors[i] = "Drug not found.";
+                    } else {
+                        int demand = drugDemand.getOrDefault(event.getDrug(), 0) + quantityOf(event);
+                        if (demand > drug.getQuantity()) {
+                            errors[i] = "Not enough in inventory to administer this amount.";
+                        } else {
+                            drugDemand.put(event.getDrug(), demand);
+                        }
+                    }
+                }
+                case ROOM -> {
+                    if (!rooms.containsKey(event.getRoomName())) {
+                        errors[i] = "Room not found.";
+                    } else if (assignedRoom != null) {
+                        errors[i] = "Patient is already assigned to a room.";
+                    } else {
+                        assignedRoom = event.getRoomName();
+                    }
+                }
+                case REMOVE_ROOM -> {
+                    if (assignedRoom == null) {
+                        errors[i] = "Patient is not assigned to a room.";
+                    } else {
+                        assignedRoom = null;
+                    }
+                }
+                default -> errors[i] = "Unknown event type.";
+            }
+        }
+
+        if (Arrays.stream(errors).anyMatch(Objects::nonNull)) {
+            return rejected(events, errors);
+        }
+
+        // Stock read above may be stale; the conditional decrement is what guarantees no oversell
+        for (Map.Entry<Long, Integer> demand : drugDemand.entrySet()) {
+            if (drugRepository.decrementQuantity(hospitalId, demand.getKey(), demand.getValue()) == 0) {
+                for (int i = 0; i < events.size(); i++) {
+                    if (DRUG.equals(events.get(i).getType()) && demand.getKey().equals(events.get(i).getDrug())) {
+                        errors[i] = "Not enough in inventory to administer this amount.";
+                    }
+                }
+                // Roll back the decrements already made for other drugs of this batch
+                throw new BatchChartRejectedException(rejected(events, errors));
+            }
+            eventPublisher.publishEvent(new CensusFeed.InventoryChanged(hospitalId, demand.getKey(), null, -demand.getValue()));
+        }
+
+        // Beds are claimed and released in event order, before any insert, so the inserts stay batched
+        String movingFrom = currentAssignment == null ? null : currentAssignment.getRoomName();
+        Long movingFromBed = currentAssignment == null ? null : currentAssignment.getBedNo();
+        Long[] claimedBeds = new Long[events.size()];
+        for (int i = 0; i < events.size(); i++) {
+            ChartEventDTO event = events.get(i);
+            if (ROOM.equals(event.getType())) {
+                Optional<Long> bedNo = bedAllocator.claim(hospitalId, event.getRoomName());
+                if (bedNo.isEmpty()) {
+                    errors[i] = "No beds available";
+                    throw new BatchChartRejectedException(rejected(events, errors));
+                }
+                claimedBeds[i] = bedNo.get();
+                movingFrom = event.getRoomName();
+                movingFromBed = bedNo.get();
+            } else if (REMOVE_ROOM.equals(event.getType())) {
+                if (!bedAllocator.releaseBed(hospitalId, movingFrom, movingFromBed)) {
+                    errors[i] = "No beds occupied.";
+                    throw new BatchChartRejectedException(rejected(events, errors));
+                }
+                movingFrom = null;
+                movingFromBed = null;
+            }
+        }
+
+        // Each event gets its own timestamp so rows of the same kind never share a key and keep the batch order
+        LocalDateTime chartedAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        LocalDateTime admission = visit.getId().getAdmissionDateTime();
+        RoomAssignment activeAssignment = currentAssignment;
+        List<BatchChartResultDTO.EventResult> results = new ArrayList<>(events.size());
+
+        for (int i = 0; i < events.size(); i++) {
+            ChartEventDTO event = events.get(i);
+            LocalDateTime at = chartedAt.plus(i, ChronoUnit.MICROS);
+
+            switch (event.getType()) {
+                case SERVICE -> entityManager.persist(new ServiceProvided(
+                    new ServiceProvidedId(hospitalId, patientId, admission, at),
+                    staff.get(event.getStaff()), services.get(event.getService())
+                ));
+                case DRUG -> entityManager.persist(new DrugAdministered(
+                    new DrugAdministeredId(hospitalId, patientId, admission, at),
+                    drugs.get(event.getDrug()), staff.get(event.getStaff()), quantityOf(event)
+                ));
+                case ROOM -> {
+                    activeAssignment = new RoomAssignment(
+                        new RoomAssignmentId(hospitalId, patientId, admission, at),
+                        false, rooms.get(event.getRoomName()), claimedBeds[i]
+                    );
+                    entityManager.persist(activeAssignment);
+                }
+                case REMOVE_ROOM -> {
+                    activeAssignment.setIsRemoved(true);
+                    activeAssignment.setRemovedAt(at);
+                    activeAssignment = null;
+                }
+            }
+            results.add(new BatchChartResultDTO.EventResult(i, event.getType(), "Charted", null));
+        }
+
+        // The removed assignment is flushed by dirty checking with the inserts
+        visitRepository.bumpCurrentVisitVersion(patientId, hospitalId);
+
+        return new BatchChartResultDTO(events.size(), 0, results);
+    }
+
+    private Map<String, Staff> loadStaff(int hospitalId, List<ChartEventDTO> events) {
+        Set<String> usernames = referenced(events, ChartEventDTO::getStaff, SERVICE, DRUG);
+        if (usernames.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return staffRepository.findAllById(usernames).stream()
+            .filter(s -> s.getWorksAt() != null && s.getWorksAt().getId() == hospitalId)
+            .collect(Collectors.toMap(Staff::getUsername, Function.identity()));
+    }
+
+    private Map<String, com.syncura360.model.Service> loadServices(int hospitalId, List<ChartEventDTO> events) {
+        Set<String> names = referenced(events, ChartEventDTO::getService, SERVICE);
+        if (names.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return serviceRepository.findAllByHospitalIdAndNames(hospitalId, names).stream()
+            .collect(Collectors.toMap(s -> s.getId().getName(), Function.identity()));
+    }
+
+    private Map<Long, Drug> loadDrugs(int hospitalId, List<ChartEventDTO> events) {
+        Set<Long> ndcs = referenced(events, ChartEventDTO::getDrug, DRUG);
+        if (ndcs.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return drugRepository.findAllByHospitalIdAndNdcs(hospitalId, ndcs).stream()
+            .collect(Collectors.toMap(d -> d.getId().getNdc(), Function.identity()));
+    }
+
+    private Map<String, Room> loadRooms(int hospitalId, List<ChartEventDTO> events) {
+        Set<String> names = referenced(events, ChartEventDTO::getRoomName, ROOM);
+        if (names.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return roomRepository.findById_HospitalIdAndId_RoomNameIn(hospitalId, names).stream()
+            .collect(Collectors.toMap(r -> r.getId().getRoomName(), Function.identity()));
+    }
+
+    private static <T> Set<T> referenced(List<ChartEventDTO> events, Function<ChartEventDTO, T> key, String... types) {
+        Set<String> wanted = Set.of(types);
+        Set<T> keys = new HashSet<>();
+        for (ChartEventDTO event : events) {
+            T value = key.apply(event);
+            if (value != null && wanted.contains(event.getType())) {
+                keys.add(value);
+            }
+        }
+        return keys;
+    }
+
+    // Missing or invalid quantity defaults to one, as for a single drug administration
+    private static int quantityOf(ChartEventDTO event) {
+        return event.getQuantity() <= 0 ? 1 : event.getQuantity();
+    }
+
+    private static BatchChartResultDTO rejected(List<ChartEventDTO> events, String[] errors) {
+        List<BatchChartResultDTO.EventResult> results = new ArrayList<>(events.size());
+        int failed = 0;
+        for (int i = 0; i < events.size(); i++) {
+            if (errors[i] != null) {
+                failed++;
+                results.add(new BatchChartResultDTO.EventResult(i, events.get(i).getType(), "Failed", errors[i]));
+            } else {
+                results.add(new BatchChartResultDTO.EventResult(i, events.get(i).getType(), "Skipped", null));
+            }
+        }
+        return new BatchChartResultDTO(0, failed, results);
+    }
+}
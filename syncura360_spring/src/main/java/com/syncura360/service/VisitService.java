@@ -4,17 +4,26 @@ import com.syncura360.dto.Visit.*;
 import com.syncura360.dto.Drug.DrugFetchDTO;
 import com.syncura360.dto.Service.ServiceDTO;
 import com.syncura360.model.*;
-import com.syncura360.model.enums.BedStatus;
 import com.syncura360.model.enums.Role;
 import com.syncura360.repository.*;
 import jakarta.persistence.EntityExistsException;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.PersistenceContext;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.JpaSort;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
 
 @Service
@@ -39,18 +48,66 @@ public class VisitService {
     @Autowired
     RoomAssignmentRepository roomAssignmentRepository;
     @Autowired
-    BedRepository bedRepository;
+    VisitArchiveRepository visitArchiveRepository;
+    @Autowired
+    BedAllocator bedAllocator;
+    @Autowired
+    BedOccupancyIndex bedOccupancyIndex;
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+    @Autowired
+    VisitNoteRepository visitNoteRepository;
+    @Autowired
+    VisitSnapshotRepository visitSnapshotRepository;
+    @PersistenceContext
+    EntityManager entityManager;
+    @Autowired
+    VisitSnapshotCodec visitSnapshotCodec;
+    @Autowired
+    BillingService billingService;
+
+    public static final int DEFAULT_CENSUS_PAGE_SIZE = 100;
+    public static final int MAX_CENSUS_PAGE_SIZE = 500;
+    public static final int DEFAULT_RECORD_PAGE_SIZE = 50;
+    public static final int MAX_RECORD_PAGE_SIZE = 200;
+    public static final int DEFAULT_NOTE_PAGE_SIZE = 20;
+    public static final int MAX_NOTE_PAGE_SIZE = 100;
+
+    // Sort keys accepted from clients, mapped onto the census query's aliases
+    private static final Map<String, String> CENSUS_SORT = Map.of(
+        "admissionDateTime", "vs.id.admissionDateTime",
+        "firstName", "p.firstName",
+        "lastName", "p.lastName",
+        "patientId", "vs.id.patientId"
+    );
+
+    // Open ends of the admission and discharge windows when the caller gives no bound
+    private static final LocalDateTime CENSUS_EARLIEST = LocalDateTime.of(1000, 1, 1, 0, 0);
+    private static final LocalDateTime CENSUS_LATEST = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    // Keyset order of the record pages, newest discharge first
+    private static final Comparator<VisitRepository.RecordEntry> RECORD_ORDER = Comparator
+        .comparing(VisitRepository.RecordEntry::getDischargeDateTime)
+        .thenComparingInt(VisitRepository.RecordEntry::getPatientId)
+        .reversed();
 
     /**
-     * Retrieve note associated with given visit.
-     * @return String visitNote.
+     * Resolve a visit once for everything that is built from it.
+     * Records that have been moved to the archive are found there.
+     * @param record Whether to look up a discharged visit by admission date time, or the current visit.
+     * @return Visit entity.
+     * @throws EntityNotFoundException If no matching visit exists.
      */
-    public String getNote(int hospitalId, int patientId, String admissionDateTime, boolean record) {
+    public Visit findVisit(int hospitalId, int patientId, String admissionDateTime, boolean record) {
 
         Optional<Visit> optionalVisit;
 
         if (record) {
-            optionalVisit = visitRepository.findRecordById(patientId, hospitalId, LocalDateTime.parse(admissionDateTime));
+            LocalDateTime admission = LocalDateTime.parse(admissionDateTime);
+            optionalVisit = visitRepository.findRecordById(patientId, hospitalId, admission);
+            if (optionalVisit.isEmpty()) {
+                optionalVisit = visitArchiveRepository.findRecordById(patientId, hospitalId, admission);
+            }
         } else {
             optionalVisit = visitRepository.findCurrentVisitById(patientId, hospitalId);
         }
@@ -59,88 +116,185 @@ public class VisitService {
             throw new EntityNotFoundException("Patient visit not found.");
         }
 
-        return optionalVisit.get().getVisitNote();
+        return optionalVisit.get();
     }
 
     /**
-     * Retrieve all visit events summarized in timeline.
-     * @return TimelineElementDTO
+     * Weak ETag for a visit's details. Changes when a new visit starts or the visit's version is bumped.
+     * @return String ETag, quoted.
      */
-    public List<TimelineElementDTO> getTimeline(int hospitalId, int patientId, String admissionDateTime, boolean record) {
+    public static String eTagOf(Visit visit) {
+        return eTagOf(visit.getId().getPatientId(), visit.getId().getAdmissionDateTime(), visit.getVersion());
+    }
 
-        Optional<Visit> optionalVisit;
+    private static String eTagOf(int patientId, LocalDateTime admissionDateTime, long version) {
+        return "W/\"" + patientId + "-" + admissionDateTime + "-" + version + "\"";
+    }
 
-        if (record) {
-            optionalVisit = visitRepository.findRecordById(patientId, hospitalId, LocalDateTime.parse(admissionDateTime));
-        } else {
-            optionalVisit = visitRepository.findCurrentVisitById(patientId, hospitalId);
+    /**
+     * Frozen record of a discharged visit, with the ETag its rebuilt record would have.
+     */
+    public record RecordSnapshot(String eTag, RecordSnapshotDTO record) {}
+
+    /**
+     * Read the snapshot taken of a record at discharge, one primary key lookup in place of a rebuild.
+     * Records moved to the archive are found there.
+     * @return The snapshot, or empty if none was taken yet or it is in a format no longer read.
+     */
+    public Optional<RecordSnapshot> findRecordSnapshot(int hospitalId, int patientId, String admissionDateTime)
+            throws DateTimeParseException {
+
+        LocalDateTime admission = LocalDateTime.parse(admissionDateTime);
+
+        Optional<VisitSnapshot> snapshot = visitSnapshotRepository.findByVisit(hospitalId, patientId, admission);
+        if (snapshot.isEmpty()) {
+            snapshot = visitArchiveRepository.findSnapshotByVisit(hospitalId, patientId, admission);
         }
 
-        if (optionalVisit.isEmpty()) {
-            throw new EntityNotFoundException("Patient visit not found.");
+        if (snapshot.isEmpty() || !visitSnapshotCodec.canDecode(snapshot.get().getFormat())) {
+            return Optional.empty();
         }
 
-        Visit visit = optionalVisit.get();
-        List<TimelineElementDTO> timeline = new ArrayList<>();
+        VisitSnapshot found = snapshot.get();
+        String eTag = eTagOf(patientId, found.getId().getVisitAdmissionDateTime(), found.getVisitVersion());
+        return Optional.of(new RecordSnapshot(eTag, visitSnapshotCodec.decode(found.getSnapshot())));
+    }
+
+    /**
+     * Freeze the record of a discharged visit: its timeline, latest note and bill.
+     * @param version Version of the visit once discharged.
+     */
+    @Transactional
+    public void snapshotRecord(int hospitalId, Visit visit, long version) {
+        RecordSnapshotDTO record = new RecordSnapshotDTO(
+            getVisitDetails(hospitalId, visit, true),
+            billingService.computeBill(hospitalId, visit, visit.getDischargeDateTime())
+        );
+
+        VisitSnapshotId id = new VisitSnapshotId(hospitalId, visit.getId().getPatientId(), visit.getId().getAdmissionDateTime());
+        visitSnapshotRepository.save(new VisitSnapshot(id, version, VisitSnapshotCodec.GZIP_JSON, visitSnapshotCodec.encode(record)));
+    }
+
+    /**
+     * Build latest note and timeline of an already resolved visit.
+     * @return VisitDetailsDTO
+     */
+    public VisitDetailsDTO getVisitDetails(int hospitalId, Visit visit, boolean record) {
+        return new VisitDetailsDTO(buildTimeline(hospitalId, visit, record), latestNote(hospitalId, visit));
+    }
+
+    /**
+     * Retrieve the latest note entry of given visit.
+     * @return String note, or null if the visit has no notes.
+     */
+    public String getNote(int hospitalId, int patientId, String admissionDateTime, boolean record) {
+        return latestNote(hospitalId, findVisit(hospitalId, patientId, admissionDateTime, record));
+    }
+
+    /**
+     * Get one keyset page of a visit's note entries, newest first.
+     * @param limit Page size, defaults to {@value DEFAULT_NOTE_PAGE_SIZE} and is capped at {@value MAX_NOTE_PAGE_SIZE}.
+     * @param before Cursor from a previous page, the creation time of its last entry.
+     * @return NotePageDTO holding the entries and the cursor of the next page.
+     * @throws EntityNotFoundException If no matching visit exists.
+     * @throws IllegalArgumentException If the cursor is malformed.
+     */
+    public NotePageDTO getNotes(int hospitalId, int patientId, String admissionDateTime, boolean record,
+                                Integer limit, String before) throws DateTimeParseException {
+
+        int pageSize = (limit == null || limit <= 0) ? DEFAULT_NOTE_PAGE_SIZE : Math.min(limit, MAX_NOTE_PAGE_SIZE);
+
+        LocalDateTime cursor = CENSUS_LATEST;
+        if (before != null) {
+            try {
+                cursor = LocalDateTime.parse(before);
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid note cursor.");
+            }
+        }
+
+        Visit visit = findVisit(hospitalId, patientId, admissionDateTime, record);
+
+        // One extra row tells whether another page exists
+        List<VisitNoteRepository.NoteEntry> entries = noteEntries(hospitalId, visit, cursor, pageSize + 1);
+
+        List<NoteEntryDTO> notes = new ArrayList<>(Math.min(entries.size(), pageSize));
+        for (VisitNoteRepository.NoteEntry entry : entries.subList(0, Math.min(entries.size(), pageSize))) {
+            notes.add(new NoteEntryDTO(entry.getCreatedAt().toString(), entry.getAuthor(), entry.getNote()));
+        }
+
+        String nextCursor = entries.size() > pageSize ? entries.get(pageSize - 1).getCreatedAt().toString() : null;
+        return new NotePageDTO(notes, nextCursor);
+    }
+
+    // Only the newest entry; the rest of the history is paged through getNotes
+    private String latestNote(int hospitalId, Visit visit) {
+        List<VisitNoteRepository.NoteEntry> latest = noteEntries(hospitalId, visit, CENSUS_LATEST, 1);
+        return latest.isEmpty() ? null : latest.getFirst().getNote();
+    }
+
+    private List<VisitNoteRepository.NoteEntry> noteEntries(int hospitalId, Visit visit, LocalDateTime before, int limit) {
+        int patientId = visit.getId().getPatientId();
+        LocalDateTime admission = visit.getId().getAdmissionDateTime();
+        if (visit.isArchived()) {
+            return visitArchiveRepository.findNotePageByVisit(hospitalId, patientId, admission, before, limit);
+        }
+        return visitNoteRepository.findPageByVisit(hospitalId, patientId, admission, before, PageRequest.of(0, limit));
+    }
+
+    /**
+     * Retrieve all visit events summarized in timeline.
+     * @return TimelineElementDTO
+     */
+    public List<TimelineElementDTO> getTimeline(int hospitalId, int patientId, String admissionDateTime, boolean record) {
+        return buildTimeline(hospitalId, findVisit(hospitalId, patientId, admissionDateTime, record), record);
+    }
+
+    private List<TimelineElementDTO> buildTimeline(int hospitalId, Visit visit, boolean record) {
+
+        List<TimelineEvent> events = new ArrayList<>();
 
         // create admitted event
 
-        timeline.add(new TimelineElementDTO(
-            visit.getId().getAdmissionDateTime().toString(),
-            "Patient Admittance",
-            "Reason: " + visit.getReasonForVisit()
-        ));
+        events.add(TimelineEvent.admission(visit));
+
+        // Each event list is one query joining in everything the timeline prints,
+        // so the number of queries does not grow with the length of the visit.
+        int visitPatientId = visit.getId().getPatientId();
+        LocalDateTime visitAdmission = visit.getId().getAdmissionDateTime();
 
         // get services associated with visit
 
-        List<ServiceProvided> servicesProvided = serviceProvidedRepository.findAllByVisit(visit);
+        List<ServiceProvidedRepository.TimelineEntry> servicesProvided = visit.isArchived()
+                ? visitArchiveRepository.findServiceTimelineByVisit(hospitalId, visitPatientId, visitAdmission)
+                : serviceProvidedRepository.findTimelineByVisit(hospitalId, visitPatientId, visitAdmission);
 
-        for (ServiceProvided serviceProvided : servicesProvided) {
-            timeline.add(new TimelineElementDTO(
-                serviceProvided.getId().getProvidedAt().toString(),
-                serviceProvided.getServiceName() + " Performed",
-                "Performed by: " + serviceProvided.getPerformedBy().getFirstName()
-                + " " + serviceProvided.getPerformedBy().getLastName()
-                + ". Price: $" + serviceProvided.getService().getCost()
-                + ". Category: " + serviceProvided.getService().getCategory() + ". "
-            ));
+        for (ServiceProvidedRepository.TimelineEntry serviceProvided : servicesProvided) {
+            events.add(TimelineEvent.service(serviceProvided));
         }
 
         // get drugs associated with visit
 
-        List<DrugAdministered> drugsAdministered = drugAdministeredRepository.findAllByVisit(visit);
-
-        for (DrugAdministered drugAdministered : drugsAdministered) {
-            timeline.add(new TimelineElementDTO(
-                drugAdministered.getId().getAdministeredAt().toString(),
-                drugAdministered.getDrug().getName() + " Administered",
-                "Administered by: " + drugAdministered.getAdministeredBy().getFirstName()
-                + " " + drugAdministered.getAdministeredBy().getLastName()
-                + ". Name: " + drugAdministered.getDrug().getName()
-                + ". Strength: " + drugAdministered.getDrug().getStrength()
-                + ". Quantity: " + drugAdministered.getQuantity()
-                + ". Cost: $" + drugAdministered.getDrug().getPrice().longValue() * drugAdministered.getQuantity()
-            ));
+        List<DrugAdministeredRepository.TimelineEntry> drugsAdministered = visit.isArchived()
+                ? visitArchiveRepository.findDrugTimelineByVisit(hospitalId, visitPatientId, visitAdmission)
+                : drugAdministeredRepository.findTimelineByVisit(hospitalId, visitPatientId, visitAdmission);
+
+        for (DrugAdministeredRepository.TimelineEntry drugAdministered : drugsAdministered) {
+            events.add(TimelineEvent.drug(drugAdministered));
         }
 
         // get rooms associated with visit
 
-        List<RoomAssignment> roomAssignments = roomAssignmentRepository.findAllByVisit(visit);
+        List<RoomAssignmentRepository.TimelineEntry> roomAssignments = visit.isArchived()
+                ? visitArchiveRepository.findRoomTimelineByVisit(hospitalId, visitPatientId, visitAdmission)
+                : roomAssignmentRepository.findTimelineByVisit(hospitalId, visitPatientId, visitAdmission);
 
-        for (RoomAssignment roomAssignment : roomAssignments) {
-            timeline.add(new TimelineElementDTO(
-                roomAssignment.getId().getAssignedAt().toString(),
-                "Assigned to " + roomAssignment.getRoomName(),
-                "Department: " + roomAssignment.getRoom().getDepartment()
-            ));
+        for (RoomAssignmentRepository.TimelineEntry roomAssignment : roomAssignments) {
+            events.add(TimelineEvent.roomAssigned(roomAssignment));
 
             // If removed, create timeline element for this event.
             if (roomAssignment.getIsRemoved()) {
-                timeline.add(new TimelineElementDTO(
-                        roomAssignment.getRemovedAt().toString(),
-                        "Removed from " + roomAssignment.getRoomName(),
-                        "Department: " + roomAssignment.getRoom().getDepartment()
-                ));
+                events.add(TimelineEvent.roomRemoved(roomAssignment));
             }
 
         }
@@ -148,14 +302,16 @@ public class VisitService {
         // if record get discharge date
 
         if (record) {
-            timeline.add(new TimelineElementDTO(
-                visit.getDischargeDateTime().toString(),
-                "Patient discharged.",
-                "Visit Summary: " + visit.getVisitSummary()
-            ));
+            events.add(TimelineEvent.discharge(visit));
         }
 
-        timeline.sort(Comparator.comparing(dto -> LocalDateTime.parse(dto.getDateTime())));
+        // Sort on the typed timestamps rather than re-parsing the formatted strings
+        events.sort(TimelineEvent.CHRONOLOGICAL);
+
+        List<TimelineElementDTO> timeline = new ArrayList<>(events.size());
+        for (TimelineEvent event : events) {
+            timeline.add(event.element());
+        }
         return timeline;
     }
 
@@ -180,7 +336,14 @@ public class VisitService {
 
         VisitId id = new VisitId(hospitalId, patientId);
         Visit visit = new Visit(id, visitCreationDTO.getReasonForVisit());
-        visitRepository.save(visit);
+        try {
+            // Flushed here so a concurrent admission of the same patient, which passed the check above as well,
+            // is rejected by uq_visit_active now rather than at commit
+            visitRepository.saveAndFlush(visit);
+        } catch (DataIntegrityViolationException e) {
+            throw new EntityExistsException("Patient visit is ongoing.");
+        }
+        eventPublisher.publishEvent(new CensusFeed.VisitAdmitted(hospitalId, patientId));
     }
 
     /**
@@ -199,16 +362,27 @@ public class VisitService {
                 dischargeDTO.getPatientID(), hospitalId
         );
 
+        // Truncated to the column precision so the snapshot matches what the database stores
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+
+        // Visit and assignment are already loaded, so release the bed directly rather than through removeRoom
         if (currentAssignment.isPresent()) {
-            removeRoom(hospitalId, new DeleteRoomDTO(dischargeDTO.getPatientID(), dischargeDTO.getVisitAdmissionDateTime()));
+            releaseAssignment(hospitalId, currentAssignment.get(), now);
         }
         // else patient has already been removed from room, so do nothing
 
         Visit visit = optionalVisit.get();
 
+        // Bump while the visit still counts as current
+        visitRepository.bumpCurrentVisitVersion(dischargeDTO.getPatientID(), hospitalId);
+
         visit.setVisitSummary(dischargeDTO.getVisitSummary());
-        visit.setDischargeDateTime(LocalDateTime.now());
+        visit.setDischargeDateTime(now);
         visitRepository.save(visit);
+
+        // The record no longer changes, so it is frozen now; the bump above is not reflected on the entity
+        snapshotRecord(hospitalId, visit, visit.getVersion() + 1);
+        eventPublisher.publishEvent(new CensusFeed.VisitDischarged(hospitalId, dischargeDTO.getPatientID()));
     }
 
     /**
@@ -243,6 +417,7 @@ public class VisitService {
 
         ServiceProvided serviceProvided = new ServiceProvided(serviceProvidedId, staff.get(), service.get());
         serviceProvidedRepository.save(serviceProvided);
+        visitRepository.bumpCurrentVisitVersion(addServiceDTO.getPatientID(), hospitalId);
     }
 
     /**
@@ -280,21 +455,19 @@ public class VisitService {
         // set value to default if null int type or invalid quantity
         if (addDrugDTO.getQuantity() <= 0) { addDrugDTO.setQuantity(1); }
 
-        // check if enough drug in inventory
-        if (addDrugDTO.getQuantity() > drug.get().getQuantity()) {
+        // Decrement only if enough is in inventory at the moment of the update, not when it was read
+        int decremented = drugRepository.decrementQuantity(hospitalId, addDrugDTO.getDrug(), addDrugDTO.getQuantity());
+        if (decremented == 0) {
             throw new EntityNotFoundException("Not enough in inventory to administer this amount.");
         }
+        eventPublisher.publishEvent(new CensusFeed.InventoryChanged(hospitalId, addDrugDTO.getDrug(), null, -addDrugDTO.getQuantity()));
 
         DrugAdministered drugAdministered = new DrugAdministered(
             drugAdministeredId, drug.get(), staff.get(), addDrugDTO.getQuantity()
         );
 
         drugAdministeredRepository.save(drugAdministered);
-
-        // Once drug has been administered, decrement inventory count by the administered quantity.
-        Drug drugEntity = drug.get();
-        drugEntity.setQuantity(drugEntity.getQuantity() - addDrugDTO.getQuantity());
-        drugRepository.save(drugEntity);
+        visitRepository.bumpCurrentVisitVersion(addDrugDTO.getPatientID(), hospitalId);
     }
 
     /**
@@ -316,25 +489,21 @@ public class VisitService {
             throw new EntityNotFoundException("Patient is not assigned to a room.");
         }
 
-        Optional<Room> room = roomRepository.findById(currentAssignment.get().getRoom().getId());
-
-        if (room.isEmpty()) {
-            throw new EntityNotFoundException("Room not found.");
-        }
+        releaseAssignment(hospitalId, currentAssignment.get(), LocalDateTime.now());
+        visitRepository.bumpCurrentVisitVersion(deleteRoomDTO.getPatientID(), hospitalId);
+    }
 
-        List<Bed> occupiedBeds = bedRepository.findAllByRoomAndStatus(room.get(), BedStatus.Occupied);
-        if (occupiedBeds.isEmpty()) {
+    /**
+     * Free the bed held by an assignment, by its bed number, and mark the assignment removed.
+     */
+    private void releaseAssignment(int hospitalId, RoomAssignment assignment, LocalDateTime removedAt) {
+        if (!bedAllocator.releaseBed(hospitalId, assignment.getRoomName(), assignment.getBedNo())) {
             throw new EntityNotFoundException("No beds occupied.");
         }
 
-        RoomAssignment entity = currentAssignment.get();
-        entity.setIsRemoved(true);
-        entity.setRemovedAt(LocalDateTime.now());
-        roomAssignmentRepository.save(entity);
-
-        Bed occupied = occupiedBeds.getFirst();
-        occupied.setStatus(BedStatus.Vacant);
-        bedRepository.save(occupied);
+        assignment.setIsRemoved(true);
+        assignment.setRemovedAt(removedAt);
+        roomAssignmentRepository.save(assignment);
     }
 
     /**
@@ -363,106 +532,256 @@ public class VisitService {
             throw new EntityExistsException("Patient is already assigned to a room.");
         }
 
-        List<Bed> availableBeds = bedRepository.findAllByRoomAndStatus(room.get(), BedStatus.Vacant);
+        RoomAssignmentId roomAssignmentId = new RoomAssignmentId(
+            hospitalId, addRoomDTO.getPatientID(),
+            LocalDateTime.parse(addRoomDTO.getVisitAdmissionDateTime())
+        );
 
-        if (availableBeds.isEmpty()) {
+        // Claims exactly one bed, even when several admissions target the same room at once
+        Optional<Long> bedNo = bedAllocator.claim(hospitalId, roomId.getRoomName());
+        if (bedNo.isEmpty()) {
             throw new EntityNotFoundException("No beds available");
         }
 
-        Bed nextAvailable = availableBeds.getFirst();
+        RoomAssignment roomAssignment = new RoomAssignment(roomAssignmentId, false, room.get(), bedNo.get());
+        roomAssignmentRepository.save(roomAssignment);
+        visitRepository.bumpCurrentVisitVersion(addRoomDTO.getPatientID(), hospitalId);
+    }
 
-        RoomAssignmentId roomAssignmentId = new RoomAssignmentId(
-            hospitalId, addRoomDTO.getPatientID(),
-            LocalDateTime.parse(addRoomDTO.getVisitAdmissionDateTime())
+    /**
+     * Move a patient from their current room to another room of the hospital in a single transaction.
+     * The target bed is claimed before the old one is released, so a full target room leaves the patient
+     * where they are, and the old bed is never open to another admission while the move is under way.
+     */
+    @Transactional
+    public void transferRoom(int hospitalId, TransferDTO transferDTO) {
+
+        if (transferDTO.getRoomName() == null || transferDTO.getRoomName().isBlank()) {
+            throw new IllegalArgumentException("Room name is required.");
+        }
+
+        Optional<Visit> visit = visitRepository.findCurrentVisitById(transferDTO.getPatientID(), hospitalId);
+        if (visit.isEmpty()) {
+            throw new EntityNotFoundException("Visit not found.");
+        }
+
+        Optional<RoomAssignment> currentAssignment = roomAssignmentRepository.findCurrentAssignmentById(
+            transferDTO.getPatientID(), hospitalId
         );
 
-        RoomAssignment roomAssignment = new RoomAssignment(roomAssignmentId, false, room.get());
-        roomAssignmentRepository.save(roomAssignment);
+        if (currentAssignment.isEmpty()) {
+            throw new EntityNotFoundException("Patient is not assigned to a room.");
+        }
+
+        if (currentAssignment.get().getRoomName().trim().equals(transferDTO.getRoomName().trim())) {
+            throw new IllegalArgumentException("Patient is already in this room.");
+        }
 
-        nextAvailable.setStatus(BedStatus.Occupied);
-        bedRepository.save(nextAvailable);
+        RoomId roomId = new RoomId(hospitalId, transferDTO.getRoomName());
+
+        Optional<Room> room = roomRepository.findById(roomId);
+        if (room.isEmpty()) {
+            throw new EntityNotFoundException("Room not found.");
+        }
+
+        Optional<Long> bedNo = bedAllocator.claim(hospitalId, roomId.getRoomName());
+        if (bedNo.isEmpty()) {
+            throw new EntityNotFoundException("No beds available");
+        }
+
+        // The new assignment starts just after the old one ends, so the timeline keeps the removal first
+        LocalDateTime movedAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        releaseAssignment(hospitalId, currentAssignment.get(), movedAt);
+
+        RoomAssignmentId roomAssignmentId = new RoomAssignmentId(
+            hospitalId, transferDTO.getPatientID(), visit.get().getId().getAdmissionDateTime(),
+            movedAt.plus(1, ChronoUnit.MICROS)
+        );
+        roomAssignmentRepository.save(new RoomAssignment(roomAssignmentId, false, room.get(), bedNo.get()));
+        visitRepository.bumpCurrentVisitVersion(transferDTO.getPatientID(), hospitalId);
     }
 
     /**
-     * Edit the visitNote field.
+     * Append a note entry to the current visit. Earlier entries are kept.
+     * @param author Username of the staff member writing the note.
      */
     @Transactional
-    public void editNote(int hospitalId, NoteDTO noteDTO) {
+    public void addNote(int hospitalId, String author, NoteDTO noteDTO) {
+
+        if (noteDTO.getNote() == null || noteDTO.getNote().isBlank()) {
+            throw new IllegalArgumentException("Note cannot be empty.");
+        }
 
         Optional<Visit> visit = visitRepository.findCurrentVisitById(noteDTO.getPatientID(), hospitalId);
         if (visit.isEmpty()) {
             throw new EntityNotFoundException("Visit not found.");
         }
 
-        visit.get().setVisitNote(noteDTO.getNote());
-        visitRepository.save(visit.get());
+        VisitNoteId visitNoteId = new VisitNoteId(
+            hospitalId, noteDTO.getPatientID(), visit.get().getId().getAdmissionDateTime(),
+            LocalDateTime.now().truncatedTo(ChronoUnit.MICROS)
+        );
+
+        // The id is assigned here, so save() would merge and select the row first; an entry is always new
+        entityManager.persist(new VisitNote(visitNoteId, author, noteDTO.getNote()));
+        visitRepository.bumpCurrentVisitVersion(noteDTO.getPatientID(), hospitalId);
     }
 
     /**
-     * Get a list of all visit records. Can be further queried individually.
+     * Get the current census: open visits joined to their patients in a single query.
+     * Without a page and size every open visit is returned, as clients that do not page expect.
+     * @param page Zero based page number, or null.
+     * @param size Page size, capped at {@value MAX_CENSUS_PAGE_SIZE}, or null.
+     * @param sort One of admissionDateTime, firstName, lastName or patientId.
+     * @param direction asc or desc.
+     * @param name Optional case-insensitive fragment of the first or last name.
+     * @param admittedFrom Optional earliest admission date time, inclusive.
+     * @param admittedTo Optional latest admission date time, inclusive.
+     * @return Page of VisitDTO.
+     * @throws NoSuchElementException If no open visit matches.
+     * @throws IllegalArgumentException If the paging or sorting parameters are invalid.
      */
-    public List<VisitDTO> getVisits(int hospitalId) throws NoSuchElementException {
+    public Page<VisitDTO> getVisits(int hospitalId, Integer page, Integer size, String sort, String direction,
+                                    String name, String admittedFrom, String admittedTo)
+            throws NoSuchElementException, DateTimeParseException {
 
-        List<Visit> entities = visitRepository.findCurrentVisitsByHospitalId(hospitalId);
+        boolean paged = page != null || size != null;
+        int pageNumber = page == null ? 0 : page;
+        int pageSize = size == null ? DEFAULT_CENSUS_PAGE_SIZE : size;
+        if (pageNumber < 0 || pageSize <= 0) {
+            throw new IllegalArgumentException("Page must be zero or more and size must be positive.");
+        }
 
-        if (entities.isEmpty()) {
-            throw new NoSuchElementException("No visits found.");
+        String sortExpression = CENSUS_SORT.get(sort);
+        if (sortExpression == null) {
+            throw new IllegalArgumentException("Cannot sort visits by " + sort + ".");
         }
 
-        List<VisitDTO> result = new ArrayList<>();
+        // Patient id breaks ties so rows do not move between pages
+        Sort order = JpaSort.unsafe(Sort.Direction.fromString(direction), sortExpression)
+                .and(JpaSort.unsafe(Sort.Direction.ASC, "vs.id.patientId"));
+        Pageable pageable = paged
+                ? PageRequest.of(pageNumber, Math.min(pageSize, MAX_CENSUS_PAGE_SIZE), order)
+                : Pageable.unpaged(order);
 
-        for (Visit entity : entities) {
+        String namePattern = name == null || name.isBlank() ? "%" : "%" + name.trim().toLowerCase() + "%";
 
-            Optional<PatientInfo> patientInfo = patientInfoRepository.findById(entity.getId().getPatientId());
-            if (patientInfo.isEmpty()) {
-                throw new NoSuchElementException("Patient not found.");
-            }
+        Page<VisitRepository.CensusEntry> entries = visitRepository.findCensus(
+            hospitalId,
+            namePattern,
+            admittedFrom == null ? CENSUS_EARLIEST : LocalDateTime.parse(admittedFrom),
+            admittedTo == null ? CENSUS_LATEST : LocalDateTime.parse(admittedTo),
+            pageable
+        );
 
-            result.add(new VisitDTO(
-                entity.getId().getPatientId(),
-                entity.getId().getAdmissionDateTime().toString(),
-                patientInfo.get().getFirstName(),
-                patientInfo.get().getLastName(),
-                patientInfo.get().getDateOfBirth().toString(),
-                entity.getVisitNote()
-            ));
+        if (entries.getTotalElements() == 0) {
+            throw new NoSuchElementException("No visits found.");
         }
 
-        return result;
+        return entries.map(entry -> new VisitDTO(
+            entry.getPatientId(),
+            entry.getAdmissionDateTime().toString(),
+            entry.getFirstName(),
+            entry.getLastName(),
+            entry.getDateOfBirth().toString()
+        ));
     }
 
     /**
-     * Get a list of all visit records. Can be further queried individually.
+     * Get discharged visits, newest discharge first, one keyset page at a time. Without a limit or cursor
+     * every matching record is returned, as clients that do not follow the cursor expect; it is still read
+     * in pages of {@value MAX_RECORD_PAGE_SIZE}.
+     * @param limit Page size, defaults to {@value DEFAULT_RECORD_PAGE_SIZE} and is capped at {@value MAX_RECORD_PAGE_SIZE}.
+     * @param after Cursor from a previous page, "dischargeDateTime_patientId".
+     * @param dischargedFrom Optional earliest discharge date time, inclusive.
+     * @param dischargedTo Optional latest discharge date time, inclusive.
+     * @param patientId Optional patient to restrict to.
+     * @param name Optional case-insensitive fragment of the first or last name.
+     * @return RecordPageDTO holding the records and the cursor of the next page.
+     * @throws NoSuchElementException If the first page is empty.
+     * @throws IllegalArgumentException If the cursor is malformed.
      */
-    public List<RecordDTO> getRecords(int hospitalId) throws NoSuchElementException {
+    public RecordPageDTO getRecords(int hospitalId, Integer limit, String after, String dischargedFrom,
+                                    String dischargedTo, Integer patientId, String name)
+            throws NoSuchElementException, DateTimeParseException {
 
-        List<Visit> entities = visitRepository.findRecordsByHospitalId(hospitalId);
+        if (limit != null || after != null) {
+            int pageSize = (limit == null || limit <= 0) ? DEFAULT_RECORD_PAGE_SIZE : Math.min(limit, MAX_RECORD_PAGE_SIZE);
+            return getRecordPage(hospitalId, pageSize, after, dischargedFrom, dischargedTo, patientId, name);
+        }
 
-        if (entities.isEmpty()) {
-            throw new NoSuchElementException("No visits found.");
+        RecordPageDTO page = getRecordPage(hospitalId, MAX_RECORD_PAGE_SIZE, null, dischargedFrom, dischargedTo, patientId, name);
+        List<RecordDTO> records = new ArrayList<>(page.getRecords());
+        while (page.getNextCursor() != null) {
+            page = getRecordPage(hospitalId, MAX_RECORD_PAGE_SIZE, page.getNextCursor(), dischargedFrom, dischargedTo, patientId, name);
+            records.addAll(page.getRecords());
         }
+        return new RecordPageDTO(records, null);
+    }
+
+    private RecordPageDTO getRecordPage(int hospitalId, int pageSize, String after, String dischargedFrom,
+                                        String dischargedTo, Integer patientId, String name) {
+
+        // The first page starts past the newest possible key
+        LocalDateTime beforeDischarge = CENSUS_LATEST;
+        int beforePatientId = Integer.MAX_VALUE;
+        if (after != null) {
+            int split = after.lastIndexOf('_');
+            try {
+                beforeDischarge = LocalDateTime.parse(after.substring(0, split));
+                beforePatientId = Integer.parseInt(after.substring(split + 1));
+            } catch (DateTimeParseException | IndexOutOfBoundsException | NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid record cursor.");
+            }
+        }
+
+        String namePattern = name == null || name.isBlank() ? "%" : "%" + name.trim().toLowerCase() + "%";
 
-        List<RecordDTO> result = new ArrayList<>();
+        LocalDateTime from = dischargedFrom == null ? CENSUS_EARLIEST : LocalDateTime.parse(dischargedFrom);
+        LocalDateTime to = dischargedTo == null ? CENSUS_LATEST : LocalDateTime.parse(dischargedTo);
 
-        for (Visit entity : entities) {
+        // One extra row tells whether another page exists
+        List<VisitRepository.RecordEntry> entries = new ArrayList<>(visitRepository.findRecordPage(
+            hospitalId, from, to, beforeDischarge, beforePatientId, patientId, namePattern,
+            PageRequest.of(0, pageSize + 1)
+        ));
 
-            Optional<PatientInfo> patientInfo = patientInfoRepository.findById(entity.getId().getPatientId());
-            if (patientInfo.isEmpty()) {
-                throw new NoSuchElementException("Patient not found.");
+        // Archived visits were discharged before anything still live, but batches archived before the archiver
+        // kept discharge times whole may have left one time in both tables, so merge the two on the full key
+        if (entries.size() <= pageSize) {
+            entries.addAll(visitArchiveRepository.findRecordPage(
+                hospitalId, from, to, beforeDischarge, beforePatientId, patientId, namePattern, pageSize + 1
+            ));
+            entries.sort(RECORD_ORDER);
+            if (entries.size() > pageSize + 1) {
+                entries.subList(pageSize + 1, entries.size()).clear();
             }
+        }
+
+        if (entries.isEmpty() && after == null) {
+            throw new NoSuchElementException("No visits found.");
+        }
+
+        List<RecordDTO> result = new ArrayList<>(Math.min(entries.size(), pageSize));
 
+        for (VisitRepository.RecordEntry entry : entries.subList(0, Math.min(entries.size(), pageSize))) {
             result.add(new RecordDTO(
-                    entity.getId().getPatientId(),
-                    entity.getId().getAdmissionDateTime().toString(),
-                    patientInfo.get().getFirstName(),
-                    patientInfo.get().getLastName(),
-                    patientInfo.get().getDateOfBirth().toString(),
-                    entity.getVisitNote(),
-                    entity.getDischargeDateTime().toString()
+                    entry.getPatientId(),
+                    entry.getAdmissionDateTime().toString(),
+                    entry.getFirstName(),
+                    entry.getLastName(),
+                    entry.getDateOfBirth().toString(),
+                    entry.getDischargeDateTime().toString()
             ));
         }
 
-        return result;
+        String nextCursor = null;
+        if (entries.size() > pageSize) {
+            VisitRepository.RecordEntry last = entries.get(pageSize - 1);
+            nextCursor = last.getDischargeDateTime() + "_" + last.getPatientId();
+        }
+
+        return new RecordPageDTO(result, nextCursor);
     }
 
     /**
@@ -537,7 +856,8 @@ public class VisitService {
                 entity.getStrength(),
                 entity.getPpq(),
                 entity.getQuantity(),
-                entity.getPrice()
+                entity.getPrice(),
+                entity.getVersion()
             ));
         }
 
@@ -545,19 +865,17 @@ public class VisitService {
     }
 
     /**
-     * Get list of available rooms at hospital.
+     * Get list of available rooms at hospital, answered from the in-memory occupancy index.
      */
     public List<RoomDTO> getRooms(int hospitalID) throws NoSuchElementException {
 
-        List<Room> entities = roomRepository.findById_HospitalId(hospitalID);
         List<RoomDTO> result = new ArrayList<>();
 
-        for (Room entity : entities) {
-            List<Bed> availableBeds = bedRepository.findAllByRoomAndStatus(entity, BedStatus.Vacant);
-            if (!availableBeds.isEmpty()) {
+        for (BedOccupancyIndex.RoomOccupancy room : bedOccupancyIndex.getRooms(hospitalID)) {
+            if (room.vacant() > 0) {
                 result.add(new RoomDTO(
-                    entity.getId().getRoomName(),
-                    entity.getDepartment()
+                    room.roomName(),
+                    room.department()
                 ));
             }
         }
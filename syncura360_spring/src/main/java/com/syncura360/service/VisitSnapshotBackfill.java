@@ -0,0 +1,123 @@
+package com.syncura360.service;
+
+import com.syncura360.model.Visit;
+import com.syncura360.model.VisitId;
+import com.syncura360.repository.VisitRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Background job that takes snapshots of records discharged before snapshots were taken at discharge.
+ * <p>
+ * Records still in the live tables are frozen in small batches, most recently discharged first since those
+ * are read the most, one transaction per record. A record that cannot be frozen is logged and skipped for the
+ * rest of the run, so it does not hold back the ones after it. Once every record has its snapshot a run costs
+ * a single query. Records already in the archive are not backfilled and keep being rebuilt when read.
+ *
+ * @author Benjamin Leiby
+ */
+@Service
+public class VisitSnapshotBackfill {
+    private static final Logger log = LoggerFactory.getLogger(VisitSnapshotBackfill.class);
+
+    private final VisitRepository visitRepository;
+    private final VisitService visitService;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int maxBatches;
+
+    /**
+     * Constructs the backfill job.
+     *
+     * @param visitRepository    Repository used to find records without a snapshot.
+     * @param visitService       Service that builds and stores the snapshots.
+     * @param transactionManager Transaction manager used to commit each record separately.
+     * @param enabled            Whether the scheduled run does anything.
+     * @param batchSize          Number of records loaded per query.
+     * @param maxBatches         Upper bound on batches per run, so one run cannot keep the database busy for long.
+     */
+    public VisitSnapshotBackfill(VisitRepository visitRepository,
+                                 VisitService visitService,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${visit.snapshot.backfill.enabled:true}") boolean enabled,
+                                 @Value("${visit.snapshot.backfill.batch-size:100}") int batchSize,
+                                 @Value("${visit.snapshot.backfill.max-batches:50}") int maxBatches) {
+        this.visitRepository = visitRepository;
+        this.visitService = visitService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxBatches = Math.max(1, maxBatches);
+    }
+
+    /**
+     * Scheduled entry point; runs off-peak by default.
+     */
+    @Scheduled(cron = "${visit.snapshot.backfill.cron:0 0 4 * * *}")
+    public void scheduledRun() {
+        if (enabled) {
+            backfill();
+        }
+    }
+
+    /**
+     * Take snapshots of live records that have none, batch by batch.
+     *
+     * @return Number of records frozen.
+     */
+    public int backfill() {
+        int frozen = 0;
+        Set<VisitId> failed = new HashSet<>();
+
+        for (int batch = 0; batch < maxBatches; batch++) {
+            // Records that failed earlier in this run still have no snapshot, so read past them
+            int requested = batchSize + failed.size();
+            List<Visit> records = visitRepository.findRecordsWithoutSnapshot(PageRequest.of(0, requested));
+
+            int done = 0, attempted = 0;
+            for (Visit record : records) {
+                if (failed.contains(record.getId())) {
+                    continue;
+                }
+                attempted++;
+                try {
+                    // Discharged visits are no longer bumped, so the version read is final
+                    transactionTemplate.executeWithoutResult(status ->
+                        visitService.snapshotRecord(record.getId().getHospitalId(), record, record.getVersion()));
+                    done++;
+                } catch (RuntimeException e) {
+                    // Only this record rolled back; the next run tries it again
+                    failed.add(record.getId());
+                    log.warn("Skipped snapshot of the record of patient {} admitted {}",
+                        record.getId().getPatientId(), record.getId().getAdmissionDateTime(), e);
+                }
+            }
+
+            frozen += done;
+            if (attempted > 0 && done == 0) {
+                // Not one record of the batch went through, which points at the database rather than the records
+                log.error("Visit snapshot backfill stopped after {} records", frozen);
+                break;
+            }
+            if (attempted == 0 || records.size() < requested) {
+                break;
+            }
+        }
+
+        if (frozen > 0) {
+            log.info("Took snapshots of {} discharged records", frozen);
+        }
+        return frozen;
+    }
+}
@@ -0,0 +1,63 @@
+package com.syncura360.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.syncura360.dto.Visit.RecordSnapshotDTO;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encodes record snapshots for the VisitSnapshot table as gzip compressed JSON. Timelines are repetitive
+ * text, so they shrink to a fraction of their size, and JSON keeps them readable with standard tools.
+ * Snapshots in a format this codec does not know are skipped by readers and rebuilt instead.
+ *
+ * @author Benjamin Leiby
+ */
+@Component
+public class VisitSnapshotCodec {
+
+    public static final int GZIP_JSON = 1;
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Constructor for initializing {@link VisitSnapshotCodec} with required dependencies.
+     *
+     * @param objectMapper The application's JSON mapper, so snapshots serialize like responses do.
+     */
+    public VisitSnapshotCodec(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @return Whether snapshots in the given format can be decoded.
+     */
+    public boolean canDecode(int format) {
+        return format == GZIP_JSON;
+    }
+
+    public byte[] encode(RecordSnapshotDTO snapshot) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            objectMapper.writeValue(out, snapshot);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not encode visit snapshot.", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public RecordSnapshotDTO decode(byte[] snapshot) {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(snapshot))) {
+            return objectMapper.readValue(in, RecordSnapshotDTO.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not decode visit snapshot.", e);
+        }
+    }
+}
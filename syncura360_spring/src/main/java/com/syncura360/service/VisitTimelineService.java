@@ -0,0 +1,306 @@
+package com.syncura360.service;
+
+import com.syncura360.dto.Visit.TimelineElementDTO;
+import com.syncura360.dto.Visit.TimelinePageDTO;
+import com.syncura360.model.Visit;
+import com.syncura360.repository.DrugAdministeredRepository;
+import com.syncura360.repository.RoomAssignmentRepository;
+import com.syncura360.repository.ServiceProvidedRepository;
+import com.syncura360.repository.VisitArchiveRepository;
+import com.syncura360.repository.VisitRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Serves a visit timeline a page at a time.
+ * Every event source is read from the database already ordered and capped at the page size,
+ * then the sources are merged on their typed timestamps, so a page costs the same on a long stay as on a short one.
+ * @author Benjamin Leiby
+ */
+@Service
+public class VisitTimelineService {
+
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 200;
+
+    // Open ends of the window when the caller gives no bound
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(1000, 1, 1, 0, 0);
+    private static final LocalDateTime LATEST = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    @Autowired
+    VisitRepository visitRepository;
+    @Autowired
+    ServiceProvidedRepository serviceProvidedRepository;
+    @Autowired
+    DrugAdministeredRepository drugAdministeredRepository;
+    @Autowired
+    RoomAssignmentRepository roomAssignmentRepository;
+    @Autowired
+    VisitArchiveRepository visitArchiveRepository;
+
+    /**
+     * Get one page of a visit's timeline.
+     * @param hospitalId Hospital the patient is visiting.
+     * @param patientId Patient of the visit.
+     * @param admissionDateTime Admission date time of the visit, used to look up records.
+     * @param record Whether the visit has been discharged.
+     * @param limit Maximum number of events, defaults to {@value DEFAULT_LIMIT} and is capped at {@value MAX_LIMIT}.
+     * @param after Cursor; only events after it are returned.
+     * @param before Cursor; only events before it are returned, the closest ones first.
+     * @param since Only events at or after this date time are returned.
+     * @return TimelinePageDTO holding the page and the cursors around it.
+     * @throws EntityNotFoundException If the visit does not exist.
+     * @throws IllegalArgumentException If a cursor or date time is malformed, or both cursors are given.
+     */
+    public TimelinePageDTO getTimelinePage(int hospitalId, int patientId, String admissionDateTime, boolean record,
+                                           Integer limit, String after, String before, String since) {
+
+        if (after != null && before != null) {
+            throw new IllegalArgumentException("Only one of after and before may be given.");
+        }
+
+        int pageSize = (limit == null || limit <= 0) ? DEFAULT_LIMIT : Math.min(limit, MAX_LIMIT);
+        Cursor afterCursor = after == null ? null : Cursor.parse(after);
+        Cursor beforeCursor = before == null ? null : Cursor.parse(before);
+        LocalDateTime sinceDateTime;
+        try {
+            sinceDateTime = since == null ? null : LocalDateTime.parse(since);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid since date time.");
+        }
+
+        Optional<Visit> optionalVisit;
+        if (record) {
+            LocalDateTime admission = LocalDateTime.parse(admissionDateTime);
+            optionalVisit = visitRepository.findRecordById(patientId, hospitalId, admission);
+            if (optionalVisit.isEmpty()) {
+                optionalVisit = visitArchiveRepository.findRecordById(patientId, hospitalId, admission);
+            }
+        } else {
+            optionalVisit = visitRepository.findCurrentVisitById(patientId, hospitalId);
+        }
+
+        if (optionalVisit.isEmpty()) {
+            throw new EntityNotFoundException("Patient visit not found.");
+        }
+
+        Visit visit = optionalVisit.get();
+        Window window = new Window(afterCursor, beforeCursor, sinceDateTime);
+        boolean descending = beforeCursor != null;
+
+        // Each source contributes at most pageSize + 1 events, which is enough to fill the page
+        // and tell whether anything lies beyond it.
+        int fetch = pageSize + 1;
+        Sort.Direction direction = descending ? Sort.Direction.DESC : Sort.Direction.ASC;
+
+        List<Iterator<TimelineEvent>> sources = new ArrayList<>();
+
+        TimelineEvent admission = TimelineEvent.admission(visit);
+        if (window.contains(admission)) {
+            sources.add(List.of(admission).iterator());
+        }
+
+        Comparator<TimelineEvent> order = descending
+                ? TimelineEvent.CHRONOLOGICAL.reversed()
+                : TimelineEvent.CHRONOLOGICAL;
+
+        if (visit.isArchived()) {
+            // Archived visits are small and never change, so their events are windowed in memory
+            sources.add(archivedEvents(hospitalId, visit, window, order));
+        } else {
+            addLiveSources(sources, hospitalId, visit, window, direction, fetch);
+        }
+
+        if (record && visit.getDischargeDateTime() != null) {
+            TimelineEvent discharge = TimelineEvent.discharge(visit);
+            if (window.contains(discharge)) {
+                sources.add(List.of(discharge).iterator());
+            }
+        }
+
+        List<TimelineEvent> merged = merge(sources, order, fetch);
+
+        boolean hasMore = merged.size() > pageSize;
+        List<TimelineEvent> page = new ArrayList<>(merged.subList(0, Math.min(pageSize, merged.size())));
+        if (descending) {
+            Collections.reverse(page);
+        }
+
+        List<TimelineElementDTO> timeline = new ArrayList<>(page.size());
+        for (TimelineEvent event : page) {
+            timeline.add(event.element());
+        }
+
+        String previousCursor = page.isEmpty() ? null : Cursor.of(page.getFirst()).toString();
+        String nextCursor = page.isEmpty() ? null : Cursor.of(page.getLast()).toString();
+        return new TimelinePageDTO(timeline, nextCursor, previousCursor, hasMore);
+    }
+
+    /**
+     * Add one ordered, windowed query per live event source.
+     */
+    private void addLiveSources(List<Iterator<TimelineEvent>> sources, int hospitalId, Visit visit, Window window,
+                                Sort.Direction direction, int fetch) {
+
+        int visitPatientId = visit.getId().getPatientId();
+        LocalDateTime visitAdmission = visit.getId().getAdmissionDateTime();
+
+        sources.add(fetchSource(window, TimelineEvent.Source.SERVICE,
+                (from, to) -> serviceProvidedRepository.findTimelineWindow(hospitalId, visitPatientId, visitAdmission,
+                        from, to, PageRequest.of(0, fetch, Sort.by(direction, "id.providedAt"))),
+                TimelineEvent::service));
+
+        sources.add(fetchSource(window, TimelineEvent.Source.DRUG,
+                (from, to) -> drugAdministeredRepository.findTimelineWindow(hospitalId, visitPatientId, visitAdmission,
+                        from, to, PageRequest.of(0, fetch, Sort.by(direction, "id.administeredAt"))),
+                TimelineEvent::drug));
+
+        sources.add(fetchSource(window, TimelineEvent.Source.ROOM_ASSIGNED,
+                (from, to) -> roomAssignmentRepository.findAssignedWindow(hospitalId, visitPatientId, visitAdmission,
+                        from, to, PageRequest.of(0, fetch, Sort.by(direction, "id.assignedAt"))),
+                TimelineEvent::roomAssigned));
+
+        sources.add(fetchSource(window, TimelineEvent.Source.ROOM_REMOVED,
+                (from, to) -> roomAssignmentRepository.findRemovedWindow(hospitalId, visitPatientId, visitAdmission,
+                        from, to, PageRequest.of(0, fetch, Sort.by(direction, "removedAt"))),
+                TimelineEvent::roomRemoved));
+    }
+
+    /**
+     * All events of an archived visit inside the window, in page order.
+     */
+    private Iterator<TimelineEvent> archivedEvents(int hospitalId, Visit visit, Window window,
+                                                   Comparator<TimelineEvent> order) {
+
+        int visitPatientId = visit.getId().getPatientId();
+        LocalDateTime visitAdmission = visit.getId().getAdmissionDateTime();
+        List<TimelineEvent> events = new ArrayList<>();
+
+        for (ServiceProvidedRepository.TimelineEntry entry
+                : visitArchiveRepository.findServiceTimelineByVisit(hospitalId, visitPatientId, visitAdmission)) {
+            events.add(TimelineEvent.service(entry));
+        }
+        for (DrugAdministeredRepository.TimelineEntry entry
+                : visitArchiveRepository.findDrugTimelineByVisit(hospitalId, visitPatientId, visitAdmission)) {
+            events.add(TimelineEvent.drug(entry));
+        }
+        for (RoomAssignmentRepository.TimelineEntry entry
+                : visitArchiveRepository.findRoomTimelineByVisit(hospitalId, visitPatientId, visitAdmission)) {
+            events.add(TimelineEvent.roomAssigned(entry));
+            if (entry.getIsRemoved()) {
+                events.add(TimelineEvent.roomRemoved(entry));
+            }
+        }
+
+        events.removeIf(event -> !window.contains(event));
+        events.sort(order);
+        return events.iterator();
+    }
+
+    /**
+     * K-way merge of already ordered sources, stopping once max events have been taken.
+     */
+    static List<TimelineEvent> merge(List<Iterator<TimelineEvent>> sources, Comparator<TimelineEvent> order, int max) {
+
+        record Head(TimelineEvent event, Iterator<TimelineEvent> rest) {}
+
+        PriorityQueue<Head> heads = new PriorityQueue<>(Math.max(1, sources.size()),
+                (a, b) -> order.compare(a.event(), b.event()));
+        for (Iterator<TimelineEvent> source : sources) {
+            if (source.hasNext()) {
+                heads.add(new Head(source.next(), source));
+            }
+        }
+
+        List<TimelineEvent> merged = new ArrayList<>(max);
+        while (!heads.isEmpty() && merged.size() < max) {
+            Head head = heads.poll();
+            merged.add(head.event());
+            if (head.rest().hasNext()) {
+                heads.add(new Head(head.rest().next(), head.rest()));
+            }
+        }
+
+        return merged;
+    }
+
+    private interface WindowQuery<T> {
+        List<T> fetch(LocalDateTime from, LocalDateTime to);
+    }
+
+    private static <T> Iterator<TimelineEvent> fetchSource(Window window, TimelineEvent.Source source,
+                                                           WindowQuery<T> query, Function<T, TimelineEvent> toEvent) {
+        LocalDateTime from = window.from(source);
+        LocalDateTime to = window.to(source);
+        if (from.isAfter(to)) {
+            return Collections.emptyIterator();
+        }
+        return query.fetch(from, to).stream().map(toEvent).iterator();
+    }
+
+    /**
+     * Position in the timeline: an event's timestamp and source, serialized as "timestamp_SOURCE".
+     */
+    record Cursor(LocalDateTime at, TimelineEvent.Source source) {
+
+        static Cursor of(TimelineEvent event) {
+            return new Cursor(event.at(), event.source());
+        }
+
+        static Cursor parse(String value) {
+            int split = value.lastIndexOf('_');
+            if (split <= 0) {
+                throw new IllegalArgumentException("Invalid timeline cursor.");
+            }
+            try {
+                return new Cursor(LocalDateTime.parse(value.substring(0, split)),
+                        TimelineEvent.Source.valueOf(value.substring(split + 1)));
+            } catch (DateTimeParseException | IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid timeline cursor.");
+            }
+        }
+
+        @Override
+        public String toString() {
+            return at + "_" + source.name();
+        }
+    }
+
+    /**
+     * Inclusive timestamp bounds per source that exclude the cursor event itself.
+     * Sources ordered after the cursor's may share its timestamp; the others must move strictly past it.
+     */
+    private record Window(Cursor after, Cursor before, LocalDateTime since) {
+
+        LocalDateTime from(TimelineEvent.Source source) {
+            LocalDateTime from = since == null ? EARLIEST : since;
+            if (after != null) {
+                LocalDateTime bound = source.compareTo(after.source()) > 0 ? after.at() : after.at().plusNanos(1);
+                if (bound.isAfter(from)) {
+                    from = bound;
+                }
+            }
+            return from;
+        }
+
+        LocalDateTime to(TimelineEvent.Source source) {
+            if (before == null) {
+                return LATEST;
+            }
+            return source.compareTo(before.source()) < 0 ? before.at() : before.at().minusNanos(1);
+        }
+
+        boolean contains(TimelineEvent event) {
+            return !event.at().isBefore(from(event.source())) && !event.at().isAfter(to(event.source()));
+        }
+    }
+}
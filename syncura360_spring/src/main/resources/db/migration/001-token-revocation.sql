@@ -0,0 +1,12 @@
+-- Revoked tokens (kind = 'Token', subject = jti) and staff-wide revocations
+-- (kind = 'Staff', subject = username). Rows can be deleted once expires_at has passed.
+CREATE TABLE IF NOT EXISTS syncura360.Token_Revocation (
+    revocation_id BIGINT      NOT NULL AUTO_INCREMENT,
+    kind          VARCHAR(10) NOT NULL,
+    subject       VARCHAR(64) NOT NULL,
+    revoked_at    DATETIME(6) NOT NULL,
+    expires_at    DATETIME(6) NOT NULL,
+    PRIMARY KEY (revocation_id),
+    INDEX idx_token_revocation_expires (expires_at),
+    INDEX idx_token_revocation_revoked (revoked_at)
+);
@@ -0,0 +1,3 @@
+-- Change counter for a visit and its timeline, served as the visit details ETag.
+ALTER TABLE syncura360.Visit
+    ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,5 @@
+-- Keeps the open-visits predicate (hospital_id = ? AND discharge_date_time IS NULL) an index range scan.
+-- Open visits share a NULL discharge_date_time, so the trailing patient_id also returns them in patient id
+-- order, the census tiebreaker.
+CREATE INDEX IF NOT EXISTS idx_visit_hospital_discharge_patient
+    ON syncura360.Visit (hospital_id, discharge_date_time, patient_id);
@@ -0,0 +1,15 @@
+-- Cold tier for discharged visits, filled by VisitArchiver. Each archive table is a column-for-column
+-- copy of its live table (CREATE TABLE ... LIKE keeps indexes but not foreign keys), stored compressed.
+-- The archiver copies rows with INSERT ... SELECT *, so any later ALTER of a live table must be
+-- repeated on its archive table.
+CREATE TABLE IF NOT EXISTS syncura360.Visit_Archive LIKE syncura360.Visit;
+ALTER TABLE syncura360.Visit_Archive ROW_FORMAT=COMPRESSED KEY_BLOCK_SIZE=8;
+
+CREATE TABLE IF NOT EXISTS syncura360.ServiceProvided_Archive LIKE syncura360.ServiceProvided;
+ALTER TABLE syncura360.ServiceProvided_Archive ROW_FORMAT=COMPRESSED KEY_BLOCK_SIZE=8;
+
+CREATE TABLE IF NOT EXISTS syncura360.DrugAdministered_Archive LIKE syncura360.DrugAdministered;
+ALTER TABLE syncura360.DrugAdministered_Archive ROW_FORMAT=COMPRESSED KEY_BLOCK_SIZE=8;
+
+CREATE TABLE IF NOT EXISTS syncura360.RoomAssignment_Archive LIKE syncura360.RoomAssignment;
+ALTER TABLE syncura360.RoomAssignment_Archive ROW_FORMAT=COMPRESSED KEY_BLOCK_SIZE=8;
@@ -0,0 +1,3 @@
+-- Optimistic lock for drug edits; administrations decrement quantity with a conditional update.
+ALTER TABLE syncura360.Drug
+    ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
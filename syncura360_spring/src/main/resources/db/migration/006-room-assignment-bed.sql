@@ -0,0 +1,8 @@
+-- Bed held by a room assignment, so it is released by key rather than by picking any occupied bed of the room.
+-- Null on assignments made before this column; those are released by room as before.
+ALTER TABLE syncura360.RoomAssignment
+    ADD COLUMN IF NOT EXISTS bed_no BIGINT NULL;
+
+-- The archiver copies with INSERT ... SELECT *, so the archive table needs the same column
+ALTER TABLE syncura360.RoomAssignment_Archive
+    ADD COLUMN IF NOT EXISTS bed_no BIGINT NULL;
@@ -0,0 +1,29 @@
+-- Visit notes as append-only, author-attributed entries instead of the single Visit.visit_note column,
+-- which was rewritten in full on every edit and loaded with every visit read.
+CREATE TABLE IF NOT EXISTS syncura360.VisitNote (
+    hospital_id               INT         NOT NULL,
+    patient_id                INT         NOT NULL,
+    visit_admission_date_time DATETIME(6) NOT NULL,
+    created_at                DATETIME(6) NOT NULL,
+    author                    VARCHAR(20) NULL,
+    note                      TEXT        NOT NULL,
+    PRIMARY KEY (hospital_id, patient_id, visit_admission_date_time, created_at)
+);
+
+-- Archived alongside the other child tables of a visit, see 004
+CREATE TABLE IF NOT EXISTS syncura360.VisitNote_Archive LIKE syncura360.VisitNote;
+ALTER TABLE syncura360.VisitNote_Archive ROW_FORMAT=COMPRESSED KEY_BLOCK_SIZE=8;
+
+-- Carry existing notes over as one entry each, dated at admission since the edit time was never kept.
+-- The visit_note column is no longer read or written; it stays until the copy has been checked.
+INSERT IGNORE INTO syncura360.VisitNote
+    (hospital_id, patient_id, visit_admission_date_time, created_at, author, note)
+SELECT hospital_id, patient_id, admission_date_time, admission_date_time, NULL, TRIM(visit_note)
+FROM syncura360.Visit
+WHERE visit_note IS NOT NULL AND TRIM(visit_note) <> '';
+
+INSERT IGNORE INTO syncura360.VisitNote_Archive
+    (hospital_id, patient_id, visit_admission_date_time, created_at, author, note)
+SELECT hospital_id, patient_id, admission_date_time, admission_date_time, NULL, TRIM(visit_note)
+FROM syncura360.Visit_Archive
+WHERE visit_note IS NOT NULL AND TRIM(visit_note) <> '';
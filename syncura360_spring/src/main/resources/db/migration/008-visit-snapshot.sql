@@ -0,0 +1,17 @@
+-- Frozen record of a discharged visit: the final timeline, latest note and bill, serialized once at discharge
+-- (gzip compressed JSON, see VisitSnapshotCodec), so reading a record is one primary key lookup instead of a
+-- rebuild from the child tables. Records discharged before this change are filled in by VisitSnapshotBackfill.
+CREATE TABLE IF NOT EXISTS syncura360.VisitSnapshot (
+    hospital_id               INT         NOT NULL,
+    patient_id                INT         NOT NULL,
+    visit_admission_date_time DATETIME(6) NOT NULL,
+    visit_version             BIGINT      NOT NULL,
+    format                    INT         NOT NULL,
+    created_at                DATETIME(6) NOT NULL,
+    snapshot                  MEDIUMBLOB  NOT NULL,
+    PRIMARY KEY (hospital_id, patient_id, visit_admission_date_time)
+);
+
+-- Archived alongside the other child tables of a visit, see 004. The payload is compressed already,
+-- so the archive copy is not.
+CREATE TABLE IF NOT EXISTS syncura360.VisitSnapshot_Archive LIKE syncura360.VisitSnapshot;
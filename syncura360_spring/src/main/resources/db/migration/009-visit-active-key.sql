@@ -0,0 +1,16 @@
+-- At most one open visit per patient and hospital, enforced by the database. active_patient_id is the
+-- patient id while the visit is open and NULL once it is discharged; NULLs never collide in a unique
+-- index, so discharged visits are unaffected. The same index makes the current-visit lookup a point read.
+-- Creating the index fails if a patient already has two open visits; find them with
+--   SELECT hospital_id, patient_id FROM syncura360.Visit WHERE discharge_date_time IS NULL
+--   GROUP BY hospital_id, patient_id HAVING COUNT(*) > 1;
+ALTER TABLE syncura360.Visit
+    ADD COLUMN IF NOT EXISTS active_patient_id INT AS (IF(discharge_date_time IS NULL, patient_id, NULL)) PERSISTENT;
+
+CREATE UNIQUE INDEX IF NOT EXISTS uq_visit_active
+    ON syncura360.Visit (hospital_id, active_patient_id);
+
+-- The archiver copies visits with INSERT ... SELECT *, see 004. Archived visits are discharged, so the
+-- value is always NULL there and a plain column is enough.
+ALTER TABLE syncura360.Visit_Archive
+    ADD COLUMN IF NOT EXISTS active_patient_id INT NULL;
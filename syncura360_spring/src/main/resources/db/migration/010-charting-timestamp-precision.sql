@@ -0,0 +1,19 @@
+-- Microsecond precision for the timestamps that key charted events. Batch charting and transfers keep
+-- events of one request apart, and in order, by a microsecond each; at whole seconds two services or drugs
+-- charted in one batch would share a primary key, and a transfer's removal and new assignment a timestamp.
+ALTER TABLE syncura360.ServiceProvided
+    MODIFY provided_at DATETIME(6) NOT NULL DEFAULT current_timestamp(6);
+ALTER TABLE syncura360.DrugAdministered
+    MODIFY administered_at DATETIME(6) NOT NULL DEFAULT current_timestamp(6);
+ALTER TABLE syncura360.RoomAssignment
+    MODIFY assigned_at DATETIME(6) NOT NULL DEFAULT current_timestamp(6),
+    MODIFY removed_at DATETIME(6) NULL;
+
+-- The archiver copies with INSERT ... SELECT *, so the archive tables get the same types, see 004
+ALTER TABLE syncura360.ServiceProvided_Archive
+    MODIFY provided_at DATETIME(6) NOT NULL DEFAULT current_timestamp(6);
+ALTER TABLE syncura360.DrugAdministered_Archive
+    MODIFY administered_at DATETIME(6) NOT NULL DEFAULT current_timestamp(6);
+ALTER TABLE syncura360.RoomAssignment_Archive
+    MODIFY assigned_at DATETIME(6) NOT NULL DEFAULT current_timestamp(6),
+    MODIFY removed_at DATETIME(6) NULL;
@@ -0,0 +1,8 @@
+-- At most one revocation row per token id, so a refresh token can be revoked, and so rotated, only once:
+-- of two concurrent refreshes with the same token, only the one whose insert lands gets new tokens.
+-- Staff-wide revocations of the same username may repeat, so the key only covers single-token rows.
+ALTER TABLE syncura360.Token_Revocation
+    ADD COLUMN IF NOT EXISTS token_subject VARCHAR(64) AS (IF(kind = 'Token', subject, NULL)) PERSISTENT;
+
+CREATE UNIQUE INDEX IF NOT EXISTS uq_token_revocation_token
+    ON syncura360.Token_Revocation (token_subject);
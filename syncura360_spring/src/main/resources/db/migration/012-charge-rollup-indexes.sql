@@ -0,0 +1,7 @@
+-- The hospital charge roll-ups filter on hospital_id and a charting time range only. The primary keys
+-- lead with hospital_id, patient_id and the visit, so without these indexes every roll-up reads all
+-- charges the hospital ever made.
+CREATE INDEX IF NOT EXISTS idx_service_provided_hospital_provided_at
+    ON syncura360.ServiceProvided (hospital_id, provided_at);
+CREATE INDEX IF NOT EXISTS idx_drug_administered_hospital_administered_at
+    ON syncura360.DrugAdministered (hospital_id, administered_at);
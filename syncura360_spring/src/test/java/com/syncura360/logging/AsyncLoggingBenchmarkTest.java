@@ -0,0 +1,129 @@
+package com.syncura360.logging;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.OutputStreamAppender;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.slf4j.LoggerFactory;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares request-thread logging throughput of a synchronous console-like appender against the
+ * asynchronous appender used by the production logging profile.
+ * <p>
+ * Run with {@code RUN_BENCHMARKS=true ./gradlew test --tests '*AsyncLoggingBenchmarkTest'}.
+ */
+@EnabledIfEnvironmentVariable(named = "RUN_BENCHMARKS", matches = "true")
+class AsyncLoggingBenchmarkTest {
+    private static final int THREADS = 16;
+    private static final int EVENTS_PER_THREAD = 2_000;
+
+    // Stands in for a console: every flushed event costs about 20 microseconds of I/O
+    private static OutputStream slowSink() {
+        return new OutputStream() {
+            @Override
+            public void write(int b) {}
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                LockSupport.parkNanos(20_000);
+            }
+        };
+    }
+
+    private static OutputStreamAppender<ILoggingEvent> sinkAppender(LoggerContext context, String name) {
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d %level [%X{correlationId}] %logger - %msg%n");
+        encoder.start();
+
+        OutputStreamAppender<ILoggingEvent> appender = new OutputStreamAppender<>();
+        appender.setContext(context);
+        appender.setName(name);
+        appender.setEncoder(encoder);
+        appender.setOutputStream(slowSink());
+        appender.start();
+        return appender;
+    }
+
+    private static double eventsPerSecond(Logger logger) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            long start = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < EVENTS_PER_THREAD; i++) {
+                        logger.info("GET /visit -> 200 in {} ms", i);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            return THREADS * EVENTS_PER_THREAD / ((System.nanoTime() - start) / 1e9);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // Never blocks and skips caller data like the ASYNC appender of logback-spring.xml, but unlike its 8192-event
+    // queue that drops INFO at 80% full, the queue holds a whole measured run and discards nothing, so both
+    // appenders deliver every event
+    private static AsyncAppender asyncAppender(LoggerContext context) {
+        AsyncAppender async = new AsyncAppender();
+        async.setContext(context);
+        async.setName("ASYNC");
+        async.setQueueSize(THREADS * EVENTS_PER_THREAD);
+        async.setDiscardingThreshold(0);
+        async.setNeverBlock(true);
+        async.addAppender(sinkAppender(context, "ASYNC_SINK"));
+        async.start();
+        return async;
+    }
+
+    @Test
+    void asyncAppender_RaisesRequestThreadThroughput() throws Exception {
+        LoggerContext context = new LoggerContext();
+
+        Logger syncLogger = context.getLogger("sync");
+        syncLogger.setAdditive(false);
+        syncLogger.addAppender(sinkAppender(context, "SYNC"));
+
+        Logger asyncLogger = context.getLogger("async");
+        asyncLogger.setAdditive(false);
+        AsyncAppender warmUp = asyncAppender(context);
+        asyncLogger.addAppender(warmUp);
+
+        // Warm up both paths before measuring
+        eventsPerSecond(syncLogger);
+        eventsPerSecond(asyncLogger);
+
+        // The warm-up left its queue full; measuring on it would drop events instead of queueing them
+        asyncLogger.detachAppender(warmUp);
+        warmUp.stop();
+        asyncLogger.addAppender(asyncAppender(context));
+
+        double syncRate = eventsPerSecond(syncLogger);
+        double asyncRate = eventsPerSecond(asyncLogger);
+        context.stop();
+
+        LoggerFactory.getLogger(AsyncLoggingBenchmarkTest.class)
+                .info("Synchronous: {} events/s, asynchronous: {} events/s", Math.round(syncRate), Math.round(asyncRate));
+        assertTrue(asyncRate > syncRate * 2,
+                "Expected asynchronous logging to at least double throughput: sync=" + syncRate + ", async=" + asyncRate);
+    }
+}
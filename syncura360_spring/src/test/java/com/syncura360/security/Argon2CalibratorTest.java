@@ -0,0 +1,82 @@
+package com.syncura360.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class Argon2CalibratorTest {
+
+    private static final Argon2Parameters BASE = new Argon2Parameters(16, 16, 1, 262144, 3);
+
+    private static Argon2Calibrator calibrator(long targetMillis) {
+        return new Argon2Calibrator(mock(PasswordHashingAdmission.class), false, targetMillis,
+                19456, 262144, 2, 10, 1);
+    }
+
+    // Cost model: 1 ms per MiB per iteration
+    private static long cost(int memoryKib, int iterations) {
+        return (long) memoryKib / 1024 * iterations;
+    }
+
+    @Test
+    void choose_SlowHost_ReducesMemoryBeforeIterations() {
+        Argon2Parameters chosen = calibrator(300).choose(BASE, Argon2CalibratorTest::cost);
+
+        assertEquals(131072, chosen.memoryKib());
+        assertEquals(2, chosen.iterations());
+        assertEquals(16, chosen.saltLength());
+        assertEquals(1, chosen.parallelism());
+    }
+
+    @Test
+    void choose_FastHost_SpendsBudgetOnIterations() {
+        Argon2Parameters chosen = calibrator(2000).choose(BASE, Argon2CalibratorTest::cost);
+
+        assertEquals(262144, chosen.memoryKib());
+        assertEquals(7, chosen.iterations());
+    }
+
+    @Test
+    void choose_VerySlowHost_StopsAtSecurityFloor() {
+        Argon2Parameters chosen = calibrator(1).choose(BASE, Argon2CalibratorTest::cost);
+
+        assertTrue(chosen.memoryKib() >= 19456);
+        assertEquals(2, chosen.iterations());
+    }
+
+    @Test
+    void upgradeEncoding_OnlyWeakerHashesAreUpgraded() {
+        ConfigurableArgon2PasswordEncoder encoder = new ConfigurableArgon2PasswordEncoder(new Argon2Parameters(16, 16, 1, 1024, 2));
+        String weak = encoder.encode("password");
+
+        encoder.setParameters(new Argon2Parameters(16, 16, 1, 2048, 2));
+        String current = encoder.encode("password");
+
+        assertTrue(encoder.upgradeEncoding(weak));
+        assertFalse(encoder.upgradeEncoding(current));
+        assertTrue(encoder.matches("password", weak));
+        assertFalse(encoder.upgradeEncoding("not-a-hash"));
+    }
+
+    @Test
+    void isWeakerThan_OnlyWhenNoParameterIsHigher() {
+        Argon2Parameters current = new Argon2Parameters(16, 16, 1, 131072, 3);
+
+        assertTrue(new Argon2Parameters(0, 0, 1, 65536, 3).isWeakerThan(current));
+        assertTrue(new Argon2Parameters(0, 0, 1, 131072, 2).isWeakerThan(current));
+        assertFalse(new Argon2Parameters(0, 0, 1, 131072, 3).isWeakerThan(current));
+        // More memory for fewer iterations is a trade, not a weaker hash
+        assertFalse(new Argon2Parameters(0, 0, 1, 262144, 2).isWeakerThan(current));
+        assertFalse(new Argon2Parameters(0, 0, 2, 65536, 3).isWeakerThan(current));
+    }
+
+    @Test
+    void parse_ReadsCostParameters() {
+        Argon2Parameters parsed = Argon2Parameters.parse("$argon2id$v=19$m=65536,t=3,p=1$c2FsdA$aGFzaA");
+
+        assertEquals(65536, parsed.memoryKib());
+        assertEquals(3, parsed.iterations());
+        assertEquals(1, parsed.parallelism());
+    }
+}
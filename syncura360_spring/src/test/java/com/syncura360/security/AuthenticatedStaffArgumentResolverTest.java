@@ -0,0 +1,44 @@
+package com.syncura360.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.MethodParameter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.InsufficientAuthenticationException;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class AuthenticatedStaffArgumentResolverTest {
+
+    private final AuthenticatedStaffArgumentResolver resolver = new AuthenticatedStaffArgumentResolver();
+    private final MethodParameter parameter = mock(MethodParameter.class);
+
+    private static NativeWebRequest request(Object principal) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        if (principal != null) {
+            request.setAttribute(AuthenticatedStaff.REQUEST_ATTRIBUTE, principal);
+        }
+        return new ServletWebRequest(request);
+    }
+
+    @Test
+    void resolveArgument_ReturnsPrincipalSetByFilter() {
+        AuthenticatedStaff staff = new AuthenticatedStaff("jdoe", "Nurse", 1);
+
+        assertSame(staff, resolver.resolveArgument(parameter, null, request(staff), null));
+    }
+
+    @Test
+    void resolveArgument_MissingPrincipalIsRejected() {
+        assertThrows(InsufficientAuthenticationException.class,
+                () -> resolver.resolveArgument(parameter, null, request(null), null));
+    }
+
+    @Test
+    void resolveArgument_PrincipalOfWrongTypeIsRejected() {
+        assertThrows(InsufficientAuthenticationException.class,
+                () -> resolver.resolveArgument(parameter, null, request("jdoe"), null));
+    }
+}
@@ -0,0 +1,103 @@
+package com.syncura360.security;
+
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JwtAuthenticationFilterTest {
+
+    @Mock
+    JwtUtil jwtUtil;
+
+    @Mock
+    TokenRevocationService tokenRevocationService;
+
+    JwtAuthenticationFilter filter;
+
+    private static final VerifiedToken TOKEN = new VerifiedToken(
+            new AuthenticatedStaff("jdoe", "Nurse", 1), "token-id", Instant.EPOCH, Instant.now().plusSeconds(900));
+
+    @BeforeEach
+    void setUp() {
+        filter = new JwtAuthenticationFilter(jwtUtil, new VerifiedTokenCache(true, 10, new SimpleMeterRegistry()),
+                tokenRevocationService);
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private static MockHttpServletRequest request(String jwt) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/visit");
+        request.addHeader("Authorization", "Bearer " + jwt);
+        return request;
+    }
+
+    @Test
+    void doFilter_VerifiesOnceAndStoresPrincipal() throws Exception {
+        when(jwtUtil.verify("jwt")).thenReturn(TOKEN);
+        MockHttpServletRequest request = request("jwt");
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        verify(jwtUtil, times(1)).verify("jwt");
+        assertSame(TOKEN.staff(), request.getAttribute(AuthenticatedStaff.REQUEST_ATTRIBUTE));
+        assertSame(TOKEN, request.getAttribute(VerifiedToken.REQUEST_ATTRIBUTE));
+        assertSame(TOKEN.staff(), SecurityContextHolder.getContext().getAuthentication().getPrincipal());
+        assertNotNull(chain.getRequest());
+    }
+
+    @Test
+    void doFilter_RepeatedTokenIsNotVerifiedAgain() throws Exception {
+        when(jwtUtil.verify("jwt")).thenReturn(TOKEN);
+
+        for (int i = 0; i < 3; i++) {
+            filter.doFilter(request("jwt"), new MockHttpServletResponse(), new MockFilterChain());
+        }
+
+        verify(jwtUtil, times(1)).verify(any());
+    }
+
+    @Test
+    void doFilter_RevokedTokenIsRejected() throws Exception {
+        when(jwtUtil.verify("jwt")).thenReturn(TOKEN);
+        when(tokenRevocationService.isRevoked(TOKEN)).thenReturn(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request("jwt"), response, chain);
+
+        assertEquals(401, response.getStatus());
+        assertNull(chain.getRequest());
+    }
+
+    @Test
+    void doFilter_InvalidTokenIsRejected() throws Exception {
+        when(jwtUtil.verify("bad")).thenThrow(new JwtException("invalid"));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request("bad"), response, chain);
+
+        assertEquals(401, response.getStatus());
+        assertNull(chain.getRequest());
+    }
+}
@@ -0,0 +1,98 @@
+package com.syncura360.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.MethodParameter;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Counts JWT verifications per authenticated request through the filter and the controller argument
+ * resolver, and compares request throughput with the verified-token cache on and off.
+ * <p>
+ * Run with {@code RUN_BENCHMARKS=true ./gradlew test --tests '*JwtVerificationBenchmarkTest'}.
+ */
+@EnabledIfEnvironmentVariable(named = "RUN_BENCHMARKS", matches = "true")
+class JwtVerificationBenchmarkTest {
+    private static final Logger log = LoggerFactory.getLogger(JwtVerificationBenchmarkTest.class);
+
+    private static final int WARMUP_REQUESTS = 20_000;
+    private static final int REQUESTS = 100_000;
+
+    private final AtomicLong verifications = new AtomicLong();
+    private final JwtUtil jwtUtil = new JwtUtil(randomSecret(), 900, 43200) {
+        @Override
+        public VerifiedToken verify(String jwt) {
+            verifications.incrementAndGet();
+            return super.verify(jwt);
+        }
+    };
+    private final AuthenticatedStaffArgumentResolver resolver = new AuthenticatedStaffArgumentResolver();
+    private final MethodParameter parameter = mock(MethodParameter.class);
+
+    private static String randomSecret() {
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        return Base64.getEncoder().encodeToString(secret);
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    // One request as the application sees it: the filter authenticates, then the controller resolves its principal
+    private void request(JwtAuthenticationFilter filter, String jwt) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/visit");
+        request.addHeader("Authorization", "Bearer " + jwt);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        resolver.resolveArgument(parameter, null, new ServletWebRequest(request), null);
+        SecurityContextHolder.clearContext();
+    }
+
+    private double run(boolean cacheEnabled, String jwt) throws Exception {
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter(jwtUtil,
+                new VerifiedTokenCache(cacheEnabled, 10_000, new SimpleMeterRegistry()),
+                mock(TokenRevocationService.class));
+
+        for (int i = 0; i < WARMUP_REQUESTS; i++) {
+            request(filter, jwt);
+        }
+
+        verifications.set(0);
+        long start = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            request(filter, jwt);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        double perRequest = (double) verifications.get() / REQUESTS;
+        double requestsPerSecond = REQUESTS / (elapsed / 1e9);
+        log.info("cache={}: {} verifications/request, {} requests/s",
+                cacheEnabled, String.format("%.4f", perRequest), String.format("%.0f", requestsPerSecond));
+        return perRequest;
+    }
+
+    @Test
+    void verificationsPerRequest() throws Exception {
+        String jwt = jwtUtil.generateAccessToken("jdoe", "Nurse", "1");
+
+        assertEquals(1.0, run(false, jwt));
+        // The token was cached during warm-up, so the measured requests never parse it
+        assertEquals(0.0, run(true, jwt));
+    }
+}
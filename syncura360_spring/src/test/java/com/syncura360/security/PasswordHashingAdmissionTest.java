@@ -0,0 +1,57 @@
+package com.syncura360.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHashingAdmissionTest {
+
+    @Test
+    void run_RecordsLatencyAndReleasesPermit() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        PasswordHashingAdmission admission = new PasswordHashingAdmission(1, 1.0, 4, 100, 5, registry);
+
+        assertEquals("hash", admission.run(() -> "hash"));
+        assertEquals("hash", admission.run(() -> "hash"));
+
+        assertEquals(2, registry.timer("password.hashing.latency").count());
+        assertEquals(0, admission.getQueueDepth());
+    }
+
+    @Test
+    void run_TimesOutWhenNoPermitFreesUp() throws InterruptedException {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        PasswordHashingAdmission admission = new PasswordHashingAdmission(1, 1.0, 4, 50, 7, registry);
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Thread holder = new Thread(() -> admission.run(() -> {
+            holding.countDown();
+            try { release.await(); } catch (InterruptedException ignored) {}
+            return null;
+        }));
+        holder.start();
+        assertTrue(holding.await(5, TimeUnit.SECONDS));
+
+        HashingCapacityException e = assertThrows(HashingCapacityException.class, () -> admission.run(() -> "hash"));
+        assertEquals(7, e.getRetryAfterSeconds());
+        assertEquals(1.0, registry.counter("password.hashing.rejected").count());
+
+        release.countDown();
+        holder.join();
+        assertEquals("hash", admission.run(() -> "hash"));
+    }
+
+    @Test
+    void run_RejectsImmediatelyWhenQueueIsFull() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        PasswordHashingAdmission admission = new PasswordHashingAdmission(1, 1.0, 0, 1000, 5, registry);
+
+        assertThrows(HashingCapacityException.class, () -> admission.run(() -> "hash"));
+        assertEquals(1.0, registry.counter("password.hashing.rejected").count());
+    }
+}
@@ -0,0 +1,52 @@
+package com.syncura360.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StaffCredentialCacheTest {
+
+    private static final StaffUserDetails STAFF = new StaffUserDetails("jdoe", "$argon2id$hash", "Nurse", 1);
+
+    @Test
+    void getUserFromCache_ReturnsCachedUntilEvicted() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        StaffCredentialCache cache = new StaffCredentialCache(true, 10, 60, registry);
+
+        assertNull(cache.getUserFromCache("jdoe"));
+        cache.putUserInCache(STAFF);
+        assertSame(STAFF, cache.getUserFromCache("jdoe"));
+
+        cache.evict("jdoe");
+        assertNull(cache.getUserFromCache("jdoe"));
+        assertEquals(1.0, registry.counter("login.credential.cache.requests", "result", "hit").count());
+        assertEquals(2.0, registry.counter("login.credential.cache.requests", "result", "miss").count());
+    }
+
+    @Test
+    void getUserFromCache_ExpiredEntryIsDropped() {
+        StaffCredentialCache cache = new StaffCredentialCache(true, 10, -1, new SimpleMeterRegistry());
+
+        cache.putUserInCache(STAFF);
+
+        assertNull(cache.getUserFromCache("jdoe"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void putUserInCache_EvictsLeastRecentlyUsed() {
+        StaffCredentialCache cache = new StaffCredentialCache(true, 1, 60, new SimpleMeterRegistry());
+
+        cache.putUserInCache(STAFF);
+        cache.putUserInCache(new StaffUserDetails("asmith", "$argon2id$other", "Doctor", 1));
+
+        assertNull(cache.getUserFromCache("jdoe"));
+        assertNotNull(cache.getUserFromCache("asmith"));
+    }
+
+    @Test
+    void toString_OmitsPasswordHash() {
+        assertFalse(STAFF.toString().contains("argon2"));
+    }
+}
@@ -0,0 +1,143 @@
+package com.syncura360.security;
+
+import com.syncura360.model.TokenRevocation;
+import com.syncura360.repository.TokenRevocationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TokenRevocationServiceTest {
+
+    @Mock
+    TokenRevocationRepository tokenRevocationRepository;
+
+    @Mock
+    JwtUtil jwtUtil;
+
+    TokenRevocationService tokenRevocationService;
+
+    private static VerifiedToken token(String username, String tokenId, Instant issuedAt) {
+        return new VerifiedToken(new AuthenticatedStaff(username, "Nurse", 1), tokenId, issuedAt, issuedAt.plusSeconds(900));
+    }
+
+    @BeforeEach
+    void setUp() {
+        when(jwtUtil.getRefreshTtl()).thenReturn(Duration.ofHours(12));
+        tokenRevocationService = new TokenRevocationService(tokenRevocationRepository, jwtUtil, 100, 0.01, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void isRevoked_RevokedTokenOnly() {
+        Instant now = Instant.now();
+
+        tokenRevocationService.revokeToken("revoked", now.plusSeconds(900));
+
+        assertTrue(tokenRevocationService.isRevoked(token("jdoe", "revoked", now)));
+        assertFalse(tokenRevocationService.isRevoked(token("jdoe", "other", now)));
+        verify(tokenRevocationRepository).insertTokenRevocationIfAbsent(eq("revoked"), any(), eq(now.plusSeconds(900)));
+    }
+
+    @Test
+    void revokeToken_AlreadyRotatedRefreshTokenIsNoError() {
+        // Logout presenting a refresh token that a refresh has already revoked
+        Instant expiresAt = Instant.now().plusSeconds(3600);
+        when(tokenRevocationRepository.insertTokenRevocationIfAbsent(eq("rotated"), any(), eq(expiresAt)))
+                .thenReturn(1, 0);
+        assertTrue(tokenRevocationService.revokeTokenOnce("rotated", expiresAt));
+
+        assertDoesNotThrow(() -> tokenRevocationService.revokeToken("rotated", expiresAt));
+
+        assertTrue(tokenRevocationService.isRevoked(token("jdoe", "rotated", Instant.now())));
+        verify(tokenRevocationRepository, never()).save(any(TokenRevocation.class));
+    }
+
+    @Test
+    void revokeTokenOnce_OnlyFirstRevocationSucceeds() {
+        Instant expiresAt = Instant.now().plusSeconds(3600);
+        when(tokenRevocationRepository.insertTokenRevocationIfAbsent(eq("refresh"), any(), eq(expiresAt)))
+                .thenReturn(1, 0);
+
+        assertTrue(tokenRevocationService.revokeTokenOnce("refresh", expiresAt));
+        assertFalse(tokenRevocationService.revokeTokenOnce("refresh", expiresAt));
+
+        assertTrue(tokenRevocationService.isRevoked(token("jdoe", "refresh", Instant.now())));
+        verify(tokenRevocationRepository, never()).save(any(TokenRevocation.class));
+    }
+
+    @Test
+    void revokeTokenOnce_RemembersRevocationMadeElsewhere() {
+        Instant expiresAt = Instant.now().plusSeconds(3600);
+        when(tokenRevocationRepository.insertTokenRevocationIfAbsent(eq("other-node"), any(), eq(expiresAt))).thenReturn(0);
+
+        assertFalse(tokenRevocationService.revokeTokenOnce("other-node", expiresAt));
+        assertTrue(tokenRevocationService.isRevoked(token("jdoe", "other-node", Instant.now())));
+    }
+
+    @Test
+    void isRevoked_StaffRevocationCoversEarlierTokensOnly() {
+        Instant before = Instant.now().truncatedTo(ChronoUnit.SECONDS).minusSeconds(60);
+
+        tokenRevocationService.revokeStaff("jdoe");
+
+        assertTrue(tokenRevocationService.isRevoked(token("jdoe", "a", before)));
+        assertFalse(tokenRevocationService.isRevoked(token("jdoe", "b", Instant.now().plusSeconds(5))));
+        assertFalse(tokenRevocationService.isRevoked(token("asmith", "c", before)));
+    }
+
+    @Test
+    void rebuild_LoadsLiveRevocationsFromDatabase() {
+        Instant now = Instant.now();
+        when(tokenRevocationRepository.findAllByExpiresAtAfter(any())).thenReturn(List.of(
+                new TokenRevocation(TokenRevocation.Kind.Token, "persisted", now, now.plusSeconds(900))));
+
+        tokenRevocationService.rebuild();
+
+        assertTrue(tokenRevocationService.isRevoked(token("jdoe", "persisted", now)));
+    }
+
+    @Test
+    void sync_DropsExpiredRevocations() {
+        Instant now = Instant.now();
+        tokenRevocationService.revokeToken("expired", now.minusSeconds(1));
+        when(tokenRevocationRepository.findAllByRevokedAtAfterAndExpiresAtAfter(any(), any())).thenReturn(List.of());
+
+        tokenRevocationService.sync();
+
+        assertFalse(tokenRevocationService.isRevoked(token("jdoe", "expired", now)));
+        verify(tokenRevocationRepository).deleteExpired(any());
+    }
+
+    @Test
+    void bloomFilter_HasNoFalseNegatives() {
+        BloomFilter filter = new BloomFilter(1000, 0.01);
+        for (int i = 0; i < 1000; i++) {
+            filter.put("jti:" + i);
+        }
+
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(filter.mightContain("jti:" + i));
+        }
+
+        int falsePositives = 0;
+        for (int i = 1000; i < 11000; i++) {
+            if (filter.mightContain("jti:" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+    }
+}
@@ -0,0 +1,130 @@
+package com.syncura360.security;
+
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VerifiedTokenCacheTest {
+
+    private static final AuthenticatedStaff STAFF = new AuthenticatedStaff("jdoe", "Nurse", 1);
+
+    private static Function<String, VerifiedToken> countingVerifier(AtomicInteger calls, Instant expiresAt) {
+        return jwt -> {
+            calls.incrementAndGet();
+            return new VerifiedToken(STAFF, "token-id", Instant.EPOCH, expiresAt);
+        };
+    }
+
+    @Test
+    void getOrVerify_HitSkipsVerification() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        VerifiedTokenCache cache = new VerifiedTokenCache(true, 10, registry);
+        AtomicInteger calls = new AtomicInteger();
+        Function<String, VerifiedToken> verifier = countingVerifier(calls, Instant.now().plusSeconds(60));
+
+        VerifiedToken first = cache.getOrVerify("token", verifier);
+        VerifiedToken second = cache.getOrVerify("token", verifier);
+
+        assertEquals(1, calls.get());
+        assertSame(first, second);
+        assertEquals(1.0, registry.counter("jwt.cache.requests", "result", "hit").count());
+        assertEquals(1.0, registry.counter("jwt.cache.requests", "result", "miss").count());
+    }
+
+    @Test
+    void getOrVerify_ExpiredEntryIsVerifiedAgain() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(true, 10, new SimpleMeterRegistry());
+        AtomicInteger calls = new AtomicInteger();
+        Function<String, VerifiedToken> verifier = countingVerifier(calls, Instant.now().minusSeconds(1));
+
+        cache.getOrVerify("token", verifier);
+        cache.getOrVerify("token", verifier);
+
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void getOrVerify_EvictsEntryExpiringFirst() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(true, 2, new SimpleMeterRegistry());
+        AtomicInteger calls = new AtomicInteger();
+        Instant now = Instant.now();
+
+        cache.getOrVerify("late", countingVerifier(calls, now.plusSeconds(600)));
+        cache.getOrVerify("soon", countingVerifier(calls, now.plusSeconds(30)));
+        cache.getOrVerify("new", countingVerifier(calls, now.plusSeconds(900)));
+        assertEquals(2, cache.size());
+
+        // "soon" was evicted, the other two are still hits
+        cache.getOrVerify("late", countingVerifier(calls, now.plusSeconds(600)));
+        cache.getOrVerify("new", countingVerifier(calls, now.plusSeconds(900)));
+        assertEquals(3, calls.get());
+        cache.getOrVerify("soon", countingVerifier(calls, now.plusSeconds(30)));
+        assertEquals(4, calls.get());
+    }
+
+    @Test
+    void getOrVerify_ConcurrentRequestsStayBoundedAndCorrect() throws Exception {
+        int threads = 16;
+        int tokens = 200;
+        int maxSize = 50;
+        VerifiedTokenCache cache = new VerifiedTokenCache(true, maxSize, new SimpleMeterRegistry());
+        Instant expiresAt = Instant.now().plusSeconds(600);
+        Function<String, VerifiedToken> verifier = jwt -> new VerifiedToken(STAFF, jwt, Instant.EPOCH, expiresAt);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int offset = t;
+                workers.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 5_000; i++) {
+                        String jwt = "token-" + ((i + offset) % tokens);
+                        // Every lookup hands back the verification of the token asked for
+                        assertEquals(jwt, cache.getOrVerify(jwt, verifier).tokenId());
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> worker : workers) {
+                worker.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertTrue(cache.size() <= maxSize, "Cache grew past its bound: " + cache.size());
+    }
+
+    @Test
+    void getOrVerify_InvalidTokenIsNotCached() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(true, 10, new SimpleMeterRegistry());
+
+        assertThrows(JwtException.class, () -> cache.getOrVerify("bad", jwt -> { throw new JwtException("invalid"); }));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void getOrVerify_DisabledAlwaysVerifies() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(false, 10, new SimpleMeterRegistry());
+        AtomicInteger calls = new AtomicInteger();
+        Function<String, VerifiedToken> verifier = countingVerifier(calls, Instant.now().plusSeconds(60));
+
+        cache.getOrVerify("token", verifier);
+        cache.getOrVerify("token", verifier);
+
+        assertEquals(2, calls.get());
+        assertEquals(0, cache.size());
+    }
+}
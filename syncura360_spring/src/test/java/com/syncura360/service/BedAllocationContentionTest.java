@@ -0,0 +1,90 @@
+package com.syncura360.service;
+
+import com.syncura360.model.Room;
+import com.syncura360.model.enums.BedStatus;
+import com.syncura360.repository.BedRepository;
+import com.syncura360.repository.RoomRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Sends many simultaneous admissions at one ward against a real database and checks no bed is handed out twice.
+ * See {@link ContentionBenchmark} for how to run it.
+ */
+@ContentionBenchmark
+class BedAllocationContentionTest {
+    private static final Logger log = LoggerFactory.getLogger(BedAllocationContentionTest.class);
+
+    private static final String WARD = "Contention Test Ward";
+    private static final int BEDS = 50;
+    private static final int ADMISSIONS = 100;
+    private static final int THREADS = 32;
+
+    @Autowired
+    BedAllocator bedAllocator;
+
+    @Autowired
+    BedRepository bedRepository;
+
+    @Autowired
+    RoomRepository roomRepository;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    void claim_NoDoubleAllocationUnderContention() throws Exception {
+        int hospitalId = ContentionFixtures.hospitalId(entityManagerFactory);
+        ContentionFixtures.assumeNoRooms(roomRepository, hospitalId, WARD);
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        Room ward = ContentionFixtures.createWard(roomRepository, bedRepository, hospitalId, WARD, BEDS);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+
+        try {
+            List<Future<Optional<Long>>> admissions = new ArrayList<>();
+            for (int i = 0; i < ADMISSIONS; i++) {
+                admissions.add(executor.submit(() -> {
+                    start.await();
+                    return transactionTemplate.execute(status -> bedAllocator.claim(hospitalId, WARD));
+                }));
+            }
+
+            long began = System.nanoTime();
+            start.countDown();
+            List<Long> claimed = new ArrayList<>();
+            for (Future<Optional<Long>> admission : admissions) {
+                admission.get(2, TimeUnit.MINUTES).ifPresent(claimed::add);
+            }
+            double seconds = (System.nanoTime() - began) / 1e9;
+
+            // Every bed handed out exactly once, the rest of the admissions refused
+            assertEquals(BEDS, claimed.size());
+            assertEquals(BEDS, new HashSet<>(claimed).size());
+            assertEquals(BEDS, bedRepository.countByRoomAndStatus(ward, BedStatus.Occupied));
+            assertEquals(0, bedRepository.countByRoomAndStatus(ward, BedStatus.Vacant));
+
+            log.info("{} admissions on {} beds across {} threads in {} s ({} allocations/s), {} refused",
+                    ADMISSIONS, BEDS, THREADS, String.format("%.2f", seconds),
+                    String.format("%.0f", ADMISSIONS / seconds), ADMISSIONS - claimed.size());
+        } finally {
+            executor.shutdownNow();
+            ContentionFixtures.deleteWards(transactionTemplate, roomRepository, bedRepository, ward);
+        }
+    }
+}
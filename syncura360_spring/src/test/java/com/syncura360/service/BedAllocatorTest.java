@@ -0,0 +1,140 @@
+package com.syncura360.service;
+
+import com.syncura360.model.enums.BedStatus;
+import com.syncura360.repository.BedRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BedAllocatorTest {
+
+    @Mock
+    private BedRepository bedRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @InjectMocks
+    private BedAllocator bedAllocator;
+
+    private static final int HOSPITAL_ID = 1;
+    private static final String ROOM_NAME = "Room A";
+
+    @Test
+    void claim_LocksOneVacantBedAndOccupiesIt() {
+        // Arrange
+        when(bedRepository.lockFirstBedWithStatus(HOSPITAL_ID, ROOM_NAME, "Vacant")).thenReturn(Optional.of(7L));
+        when(bedRepository.transitionStatus(7L, BedStatus.Vacant, BedStatus.Occupied)).thenReturn(1);
+
+        // Act
+        Optional<Long> claimed = bedAllocator.claim(HOSPITAL_ID, ROOM_NAME);
+
+        // Verify
+        assertEquals(Optional.of(7L), claimed);
+        verify(eventPublisher).publishEvent(
+            new BedOccupancyIndex.BedStatusChanged(HOSPITAL_ID, ROOM_NAME, BedStatus.Vacant, BedStatus.Occupied));
+        verify(bedRepository, never()).findAllByRoomAndStatus(any(), any());
+        verify(bedRepository, never()).save(any());
+    }
+
+    @Test
+    void claim_NoVacantBed() {
+        // Arrange
+        when(bedRepository.lockFirstBedWithStatus(HOSPITAL_ID, ROOM_NAME, "Vacant")).thenReturn(Optional.empty());
+
+        // Act
+        Optional<Long> claimed = bedAllocator.claim(HOSPITAL_ID, ROOM_NAME);
+
+        // Verify
+        assertTrue(claimed.isEmpty());
+        verify(bedRepository, never()).transitionStatus(anyLong(), any(), any());
+    }
+
+    @Test
+    void claim_BedTakenBetweenLockAndUpdate_Retries() {
+        // Arrange
+        when(bedRepository.lockFirstBedWithStatus(HOSPITAL_ID, ROOM_NAME, "Vacant"))
+            .thenReturn(Optional.of(7L), Optional.of(8L));
+        when(bedRepository.transitionStatus(7L, BedStatus.Vacant, BedStatus.Occupied)).thenReturn(0);
+        when(bedRepository.transitionStatus(8L, BedStatus.Vacant, BedStatus.Occupied)).thenReturn(1);
+
+        // Act
+        Optional<Long> claimed = bedAllocator.claim(HOSPITAL_ID, ROOM_NAME);
+
+        // Verify
+        assertEquals(Optional.of(8L), claimed);
+    }
+
+    @Test
+    void claim_GivesUpAfterRepeatedConflicts() {
+        // Arrange
+        when(bedRepository.lockFirstBedWithStatus(HOSPITAL_ID, ROOM_NAME, "Vacant")).thenReturn(Optional.of(7L));
+        when(bedRepository.transitionStatus(7L, BedStatus.Vacant, BedStatus.Occupied)).thenReturn(0);
+
+        // Act
+        Optional<Long> claimed = bedAllocator.claim(HOSPITAL_ID, ROOM_NAME);
+
+        // Verify
+        assertTrue(claimed.isEmpty());
+        verify(bedRepository, times(3)).transitionStatus(7L, BedStatus.Vacant, BedStatus.Occupied);
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void release_VacatesOneOccupiedBed() {
+        // Arrange
+        when(bedRepository.lockFirstBedWithStatus(HOSPITAL_ID, ROOM_NAME, "Occupied")).thenReturn(Optional.of(3L));
+        when(bedRepository.transitionStatus(3L, BedStatus.Occupied, BedStatus.Vacant)).thenReturn(1);
+
+        // Act
+        Optional<Long> released = bedAllocator.release(HOSPITAL_ID, ROOM_NAME);
+
+        // Verify
+        assertEquals(Optional.of(3L), released);
+    }
+
+    @Test
+    void releaseBed_VacatesRecordedBedByKey() {
+        // Arrange
+        when(bedRepository.transitionStatus(5L, BedStatus.Occupied, BedStatus.Vacant)).thenReturn(1);
+
+        // Act
+        boolean released = bedAllocator.releaseBed(HOSPITAL_ID, ROOM_NAME, 5L);
+
+        // Verify
+        assertTrue(released);
+        verify(bedRepository, never()).lockFirstBedWithStatus(anyInt(), any(), any());
+        verify(eventPublisher).publishEvent(
+                new BedOccupancyIndex.BedStatusChanged(HOSPITAL_ID, ROOM_NAME, BedStatus.Occupied, BedStatus.Vacant));
+    }
+
+    @Test
+    void releaseBed_NotOccupied() {
+        // Arrange
+        when(bedRepository.transitionStatus(5L, BedStatus.Occupied, BedStatus.Vacant)).thenReturn(0);
+
+        // Act
+        boolean released = bedAllocator.releaseBed(HOSPITAL_ID, ROOM_NAME, 5L);
+
+        // Verify
+        assertFalse(released);
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void releaseBed_NoRecordedBedFallsBackToRoom() {
+        // Arrange
+        when(bedRepository.lockFirstBedWithStatus(HOSPITAL_ID, ROOM_NAME, "Occupied")).thenReturn(Optional.of(3L));
+        when(bedRepository.transitionStatus(3L, BedStatus.Occupied, BedStatus.Vacant)).thenReturn(1);
+
+        // Act and Verify
+        assertTrue(bedAllocator.releaseBed(HOSPITAL_ID, ROOM_NAME, null));
+    }
+}
@@ -0,0 +1,135 @@
+package com.syncura360.service;
+
+import com.syncura360.model.enums.BedStatus;
+import com.syncura360.repository.RoomRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BedOccupancyIndexTest {
+
+    @Mock
+    RoomRepository roomRepository;
+
+    @InjectMocks
+    BedOccupancyIndex bedOccupancyIndex;
+
+    private static RoomRepository.RoomBedCount row(int hospitalId, String roomName, BedStatus status, long beds) {
+        RoomRepository.RoomBedCount row = mock(RoomRepository.RoomBedCount.class);
+        lenient().when(row.getHospitalId()).thenReturn(hospitalId);
+        lenient().when(row.getRoomName()).thenReturn(roomName);
+        lenient().when(row.getDepartment()).thenReturn("Cardiology");
+        lenient().when(row.getStatus()).thenReturn(status);
+        lenient().when(row.getBeds()).thenReturn(beds);
+        return row;
+    }
+
+    @Test
+    void rebuild_GroupsCountsByRoom() {
+        // Two statuses in Room1, and an empty Room2 coming back from the left join
+        List<RoomRepository.RoomBedCount> rows = List.of(
+                row(1, "Room1", BedStatus.Vacant, 4),
+                row(1, "Room1", BedStatus.Occupied, 2),
+                row(1, "Room2", null, 0)
+        );
+        when(roomRepository.countBedsByStatus()).thenReturn(rows);
+
+        bedOccupancyIndex.rebuild();
+
+        List<BedOccupancyIndex.RoomOccupancy> rooms = bedOccupancyIndex.getRooms(1);
+        assertEquals(2, rooms.size());
+        assertEquals(new BedOccupancyIndex.RoomOccupancy("Room1", "Cardiology", 4, 2, 0), rooms.get(0));
+        assertEquals(0, rooms.get(1).total());
+        assertTrue(bedOccupancyIndex.getRooms(2).isEmpty());
+    }
+
+    @Test
+    void onBedStatusChanged_MovesOneBed() {
+        List<RoomRepository.RoomBedCount> rows = List.of(row(1, "Room1", BedStatus.Vacant, 3));
+        when(roomRepository.countBedsByStatus()).thenReturn(rows);
+        bedOccupancyIndex.rebuild();
+
+        bedOccupancyIndex.onBedStatusChanged(
+                new BedOccupancyIndex.BedStatusChanged(1, "Room1", BedStatus.Vacant, BedStatus.Occupied));
+
+        BedOccupancyIndex.RoomOccupancy room = bedOccupancyIndex.getRoom(1, "Room1").orElseThrow();
+        assertEquals(2, room.vacant());
+        assertEquals(1, room.occupied());
+        assertEquals(3, room.total());
+    }
+
+    @Test
+    void rebuild_ReloadsRoomsChangedWhileLoading() {
+        // The bulk query reads Room1 before a bed of it is taken; the event arrives while the rebuild is loading
+        List<RoomRepository.RoomBedCount> stale = List.of(row(1, "Room1", BedStatus.Vacant, 3));
+        when(roomRepository.countBedsByStatus()).thenAnswer(invocation -> {
+            bedOccupancyIndex.onBedStatusChanged(
+                    new BedOccupancyIndex.BedStatusChanged(1, "Room1", BedStatus.Vacant, BedStatus.Occupied));
+            return stale;
+        });
+        List<RoomRepository.RoomBedCount> current = List.of(
+                row(1, "Room1", BedStatus.Vacant, 2),
+                row(1, "Room1", BedStatus.Occupied, 1));
+        when(roomRepository.countBedsByStatus(1, "Room1")).thenReturn(current);
+
+        bedOccupancyIndex.rebuild();
+
+        BedOccupancyIndex.RoomOccupancy room = bedOccupancyIndex.getRoom(1, "Room1").orElseThrow();
+        assertEquals(2, room.vacant());
+        assertEquals(1, room.occupied());
+
+        // Later changes apply directly, without another reload
+        bedOccupancyIndex.onBedStatusChanged(
+                new BedOccupancyIndex.BedStatusChanged(1, "Room1", BedStatus.Vacant, BedStatus.Occupied));
+        assertEquals(2, bedOccupancyIndex.getRoom(1, "Room1").orElseThrow().occupied());
+        verify(roomRepository, times(1)).countBedsByStatus(1, "Room1");
+    }
+
+    @Test
+    void onRoomChanged_ReadsAgainWhenBedChangesWhileReloading() {
+        List<RoomRepository.RoomBedCount> rows = List.of(row(1, "Room1", BedStatus.Vacant, 3));
+        when(roomRepository.countBedsByStatus()).thenReturn(rows);
+        bedOccupancyIndex.rebuild();
+
+        // The first read misses a bed that is taken and applied to the index before the read is stored
+        List<RoomRepository.RoomBedCount> current = List.of(
+                row(1, "Room1", BedStatus.Vacant, 2),
+                row(1, "Room1", BedStatus.Occupied, 1));
+        when(roomRepository.countBedsByStatus(1, "Room1"))
+                .thenAnswer(invocation -> {
+                    bedOccupancyIndex.onBedStatusChanged(
+                            new BedOccupancyIndex.BedStatusChanged(1, "Room1", BedStatus.Vacant, BedStatus.Occupied));
+                    return rows;
+                })
+                .thenReturn(current);
+
+        bedOccupancyIndex.onRoomChanged(new BedOccupancyIndex.RoomChanged(1, "Room1"));
+
+        BedOccupancyIndex.RoomOccupancy room = bedOccupancyIndex.getRoom(1, "Room1").orElseThrow();
+        assertEquals(2, room.vacant());
+        assertEquals(1, room.occupied());
+        verify(roomRepository, times(2)).countBedsByStatus(1, "Room1");
+    }
+
+    @Test
+    void onRoomChanged_ReloadsOrRemovesRoom() {
+        // Room created with two beds
+        List<RoomRepository.RoomBedCount> rows = List.of(row(1, "Room1", BedStatus.Vacant, 2));
+        when(roomRepository.countBedsByStatus(1, "Room1")).thenReturn(rows);
+        bedOccupancyIndex.onRoomChanged(new BedOccupancyIndex.RoomChanged(1, "Room1"));
+        assertEquals(2, bedOccupancyIndex.getRoom(1, "Room1").orElseThrow().vacant());
+
+        // Room deleted
+        when(roomRepository.countBedsByStatus(1, "Room1")).thenReturn(List.of());
+        bedOccupancyIndex.onRoomChanged(new BedOccupancyIndex.RoomChanged(1, "Room1"));
+        assertTrue(bedOccupancyIndex.getRoom(1, "Room1").isEmpty());
+    }
+}
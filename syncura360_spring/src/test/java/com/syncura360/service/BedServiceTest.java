@@ -10,6 +10,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
@@ -20,6 +21,9 @@ public class BedServiceTest {
     @Mock
     BedRepository bedRepository;
 
+    @Mock
+    ApplicationEventPublisher eventPublisher;
+
     // Inject fake bedRepository into bedService
     @InjectMocks
     BedService bedService;
@@ -31,12 +35,16 @@ public class BedServiceTest {
 
         // Simulate that room has 2 beds
         when(bedRepository.countByRoom(room)).thenReturn(2);
+        when(room.getId()).thenReturn(new RoomId(1, "Room1"));
 
         // Call the method to increase to 4 beds
         bedService.updateBedsForRoom(room, 4);
 
         // Verify that bedRepository.save() was called 2 times to add new beds
         verify(bedRepository, times(2)).save(any(Bed.class));
+
+        // Verify the occupancy index is told to reload the room
+        verify(eventPublisher).publishEvent(new BedOccupancyIndex.RoomChanged(1, "Room1"));
     }
 
     @Test
@@ -75,6 +83,7 @@ public class BedServiceTest {
         // Verify that no repository methods were called
         verify(bedRepository, never()).save(any());
         verify(bedRepository, never()).deleteXVacantBedsInRoom(anyInt(), anyString(), anyInt());
+        verifyNoInteractions(eventPublisher);
     }
 
     @Test
@@ -109,5 +118,6 @@ public class BedServiceTest {
 
         // Verify that the correct deletion call was made
         verify(bedRepository).deleteXVacantBedsInRoom(1, "Room1", 2);
+        verify(eventPublisher).publishEvent(new BedOccupancyIndex.RoomChanged(1, "Room1"));
     }
 }
@@ -0,0 +1,155 @@
+package com.syncura360.service;
+
+import com.syncura360.dto.Billing.BillDTO;
+import com.syncura360.dto.Billing.ChargeRollupDTO;
+import com.syncura360.model.Visit;
+import com.syncura360.model.VisitId;
+import com.syncura360.model.enums.DrugCategory;
+import com.syncura360.repository.ChargeTotal;
+import com.syncura360.repository.DrugAdministeredRepository;
+import com.syncura360.repository.RoomAssignmentRepository;
+import com.syncura360.repository.ServiceProvidedRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BillingServiceTest {
+
+    @Mock
+    private ServiceProvidedRepository serviceProvidedRepository;
+    @Mock
+    private DrugAdministeredRepository drugAdministeredRepository;
+    @Mock
+    private RoomAssignmentRepository roomAssignmentRepository;
+
+    private BillingService billingService;
+
+    private static final int HOSPITAL_ID = 1;
+    private static final int PATIENT_ID = 100;
+
+    @BeforeEach
+    void setUp() {
+        billingService = new BillingService(serviceProvidedRepository, drugAdministeredRepository, roomAssignmentRepository, 100);
+    }
+
+    private static ChargeTotal charge(String name, long count, String amount) {
+        ChargeTotal row = mock(ChargeTotal.class);
+        when(row.getName()).thenReturn(name);
+        when(row.getCount()).thenReturn(count);
+        when(row.getAmount()).thenReturn(new BigDecimal(amount));
+        return row;
+    }
+
+    private static Visit visit(VisitId id, long version) {
+        Visit visit = mock(Visit.class);
+        when(visit.getId()).thenReturn(id);
+        when(visit.getVersion()).thenReturn(version);
+        lenient().when(visit.getDischargeDateTime()).thenReturn(LocalDateTime.now());
+        return visit;
+    }
+
+    private void stubVisitCharges(LocalDateTime admission) {
+        List<ChargeTotal> services = List.of(charge("X-Ray", 2, "150.50"));
+        List<ChargeTotal> drugs = List.of(charge("Aspirin 81mg", 3, "1.35"));
+        RoomAssignmentRepository.RoomDays room = mock(RoomAssignmentRepository.RoomDays.class);
+        when(room.getRoomName()).thenReturn("Room A ");
+        when(room.getDays()).thenReturn(2L);
+
+        when(serviceProvidedRepository.sumChargesByVisit(HOSPITAL_ID, PATIENT_ID, admission)).thenReturn(services);
+        when(drugAdministeredRepository.sumChargesByVisit(HOSPITAL_ID, PATIENT_ID, admission)).thenReturn(drugs);
+        when(roomAssignmentRepository.sumDaysByVisit(eq(HOSPITAL_ID), eq(PATIENT_ID), eq(admission), any())).thenReturn(List.of(room));
+    }
+
+    @Test
+    void getBill_SumsChargesWithoutTruncatingCents() {
+        // Arrange
+        VisitId id = new VisitId(HOSPITAL_ID, PATIENT_ID);
+        stubVisitCharges(id.getAdmissionDateTime());
+
+        // Act
+        BillDTO bill = billingService.getBill(HOSPITAL_ID, visit(id, 0));
+
+        // Assert
+        assertEquals(new BigDecimal("150.50"), bill.getServicesTotal());
+        assertEquals(new BigDecimal("1.35"), bill.getDrugsTotal());
+        assertEquals(new BigDecimal("151.85"), bill.getTotal());
+        assertEquals("Room A", bill.getRooms().getFirst().getRoomName());
+        assertEquals(2, bill.getRooms().getFirst().getDays());
+    }
+
+    @Test
+    void getBill_CachedUntilVisitVersionChanges() {
+        // Arrange
+        VisitId id = new VisitId(HOSPITAL_ID, PATIENT_ID);
+        stubVisitCharges(id.getAdmissionDateTime());
+
+        // Act: the same version twice, then a charted change
+        BillDTO first = billingService.getBill(HOSPITAL_ID, visit(id, 3));
+        BillDTO second = billingService.getBill(HOSPITAL_ID, visit(id, 3));
+        billingService.getBill(HOSPITAL_ID, visit(id, 4));
+
+        // Verify
+        assertSame(first, second);
+        verify(serviceProvidedRepository, times(2)).sumChargesByVisit(HOSPITAL_ID, PATIENT_ID, id.getAdmissionDateTime());
+        verify(drugAdministeredRepository, times(2)).sumChargesByVisit(HOSPITAL_ID, PATIENT_ID, id.getAdmissionDateTime());
+    }
+
+    @Test
+    void onPricesChanged_DropsHospitalBills() {
+        // Arrange
+        VisitId id = new VisitId(HOSPITAL_ID, PATIENT_ID);
+        stubVisitCharges(id.getAdmissionDateTime());
+        billingService.getBill(HOSPITAL_ID, visit(id, 0));
+
+        // Act: another hospital's change keeps the entry, this hospital's change drops it
+        billingService.onPricesChanged(new BillingService.PricesChanged(2));
+        billingService.getBill(HOSPITAL_ID, visit(id, 0));
+        billingService.onPricesChanged(new BillingService.PricesChanged(HOSPITAL_ID));
+        billingService.getBill(HOSPITAL_ID, visit(id, 0));
+
+        // Verify
+        verify(serviceProvidedRepository, times(2)).sumChargesByVisit(HOSPITAL_ID, PATIENT_ID, id.getAdmissionDateTime());
+    }
+
+    @Test
+    void getChargeRollup_SumsCategoriesInWindow() {
+        // Arrange
+        LocalDateTime from = LocalDateTime.of(2025, 3, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2025, 4, 1, 0, 0);
+        List<ChargeTotal> services = List.of(charge("Imaging", 4, "600.00"), charge("Lab", 10, "250.25"));
+
+        DrugAdministeredRepository.CategoryChargeTotal drugs = mock(DrugAdministeredRepository.CategoryChargeTotal.class);
+        when(drugs.getCategory()).thenReturn(DrugCategory.Medical_Supply);
+        when(drugs.getCount()).thenReturn(20L);
+        when(drugs.getAmount()).thenReturn(new BigDecimal("40.10"));
+
+        when(serviceProvidedRepository.sumChargesByCategory(HOSPITAL_ID, from, to)).thenReturn(services);
+        when(drugAdministeredRepository.sumChargesByCategory(HOSPITAL_ID, from, to)).thenReturn(List.of(drugs));
+
+        // Act
+        ChargeRollupDTO rollup = billingService.getChargeRollup(HOSPITAL_ID, from.toString(), to.toString());
+
+        // Assert
+        assertEquals(2, rollup.getServices().size());
+        assertEquals("Medical Supply", rollup.getDrugs().getFirst().getName());
+        assertEquals(new BigDecimal("890.35"), rollup.getTotal());
+        verifyNoInteractions(roomAssignmentRepository);
+    }
+
+    @Test
+    void getChargeRollup_RejectsInvertedWindow() {
+        assertThrows(IllegalArgumentException.class, () ->
+                billingService.getChargeRollup(HOSPITAL_ID, "2025-04-01T00:00", "2025-03-01T00:00"));
+        verifyNoInteractions(serviceProvidedRepository, drugAdministeredRepository);
+    }
+}
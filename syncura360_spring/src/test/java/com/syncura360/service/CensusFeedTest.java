@@ -0,0 +1,159 @@
+package com.syncura360.service;
+
+import com.syncura360.model.enums.BedStatus;
+import com.syncura360.security.AuthenticatedStaff;
+import com.syncura360.security.TokenRevocationService;
+import com.syncura360.security.VerifiedToken;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CensusFeedTest {
+
+    private static final int HOSPITAL_ID = 1;
+
+    private final TokenRevocationService tokenRevocationService = mock(TokenRevocationService.class);
+
+    // Runs dispatcher and writer tasks inline so every call has taken effect when it returns
+    private final CensusFeed censusFeed = new CensusFeed(3, 10, 0, Runnable::run, Runnable::run, tokenRevocationService);
+
+    private static VerifiedToken token(int hospitalId) {
+        Instant now = Instant.now();
+        return new VerifiedToken(new AuthenticatedStaff("jdoe", "Nurse", hospitalId), "jti", now, now.plusSeconds(900));
+    }
+
+    private static String render(SseEmitter.SseEventBuilder event) {
+        StringBuilder text = new StringBuilder();
+        for (ResponseBodyEmitter.DataWithMediaType part : event.build()) {
+            if (part.getData() instanceof String s) {
+                text.append(s);
+            }
+        }
+        return text.toString();
+    }
+
+    private static List<String> sent(SseEmitter emitter) throws IOException {
+        ArgumentCaptor<SseEmitter.SseEventBuilder> captor = ArgumentCaptor.forClass(SseEmitter.SseEventBuilder.class);
+        verify(emitter, atLeast(0)).send(captor.capture());
+        return captor.getAllValues().stream().map(CensusFeedTest::render).toList();
+    }
+
+    private static String idOf(String event) {
+        return event.lines().filter(line -> line.startsWith("id:")).findFirst().orElseThrow().substring(3);
+    }
+
+    @Test
+    void subscribe_FreshClientGetsReadyThenLiveDeltas() throws IOException {
+        SseEmitter emitter = mock(SseEmitter.class);
+        censusFeed.subscribe(token(HOSPITAL_ID), null, emitter);
+
+        censusFeed.onVisitAdmitted(new CensusFeed.VisitAdmitted(HOSPITAL_ID, 42));
+        censusFeed.onBedStatusChanged(new BedOccupancyIndex.BedStatusChanged(HOSPITAL_ID, "Room A", BedStatus.Vacant, BedStatus.Occupied));
+        // Another hospital's changes are not sent
+        censusFeed.onVisitAdmitted(new CensusFeed.VisitAdmitted(2, 7));
+
+        List<String> events = sent(emitter);
+        assertEquals(3, events.size());
+        assertTrue(events.get(0).contains("event:" + CensusFeed.READY));
+        assertTrue(events.get(1).contains("event:" + CensusFeed.ADMITTED));
+        assertTrue(events.get(2).contains("event:" + CensusFeed.BED_CLAIMED));
+    }
+
+    @Test
+    void subscribe_ReconnectReplaysOnlyMissedDeltas() throws IOException {
+        SseEmitter first = mock(SseEmitter.class);
+        censusFeed.subscribe(token(HOSPITAL_ID), null, first);
+        censusFeed.onVisitAdmitted(new CensusFeed.VisitAdmitted(HOSPITAL_ID, 1));
+        String lastSeen = idOf(sent(first).get(1));
+
+        // Changes made while the client was away
+        censusFeed.onVisitDischarged(new CensusFeed.VisitDischarged(HOSPITAL_ID, 1));
+        censusFeed.onInventoryChanged(new CensusFeed.InventoryChanged(HOSPITAL_ID, 12345678901L, null, -2));
+
+        SseEmitter second = mock(SseEmitter.class);
+        censusFeed.subscribe(token(HOSPITAL_ID), lastSeen, second);
+
+        List<String> events = sent(second);
+        assertEquals(2, events.size());
+        assertTrue(events.get(0).contains("event:" + CensusFeed.DISCHARGED));
+        assertTrue(events.get(1).contains("event:" + CensusFeed.INVENTORY));
+    }
+
+    @Test
+    void subscribe_ResetWhenMissedDeltasNoLongerKept() throws IOException {
+        SseEmitter first = mock(SseEmitter.class);
+        censusFeed.subscribe(token(HOSPITAL_ID), null, first);
+        String lastSeen = idOf(sent(first).getFirst());
+
+        // More changes than the buffer of three holds
+        for (int patientId = 1; patientId <= 5; patientId++) {
+            censusFeed.onVisitAdmitted(new CensusFeed.VisitAdmitted(HOSPITAL_ID, patientId));
+        }
+
+        SseEmitter second = mock(SseEmitter.class);
+        censusFeed.subscribe(token(HOSPITAL_ID), lastSeen, second);
+        SseEmitter third = mock(SseEmitter.class);
+        censusFeed.subscribe(token(HOSPITAL_ID), "from-an-earlier-run.3", third);
+
+        assertEquals(1, sent(second).size());
+        assertTrue(sent(second).getFirst().contains("event:" + CensusFeed.RESET));
+        assertTrue(sent(third).getFirst().contains("event:" + CensusFeed.RESET));
+    }
+
+    @Test
+    void publish_DropsSubscriberWhoseConnectionIsGone() throws IOException {
+        SseEmitter emitter = mock(SseEmitter.class);
+        censusFeed.subscribe(token(HOSPITAL_ID), null, emitter);
+        doThrow(new IOException("Broken pipe")).when(emitter).send(any(SseEmitter.SseEventBuilder.class));
+
+        censusFeed.onVisitAdmitted(new CensusFeed.VisitAdmitted(HOSPITAL_ID, 1));
+        censusFeed.onVisitAdmitted(new CensusFeed.VisitAdmitted(HOSPITAL_ID, 2));
+
+        // Ready, then the failed delta; the second delta is not attempted
+        verify(emitter, times(2)).send(any(SseEmitter.SseEventBuilder.class));
+        verify(emitter, times(1)).completeWithError(any());
+    }
+
+    @Test
+    void publish_DisconnectsSubscriberThatFallsBehind() throws IOException {
+        // Writer tasks are queued but never run, as if the client had stopped reading
+        List<Runnable> stalledWrites = new ArrayList<>();
+        CensusFeed feed = new CensusFeed(3, 2, 0, Runnable::run, stalledWrites::add, tokenRevocationService);
+        SseEmitter stalled = mock(SseEmitter.class);
+        feed.subscribe(token(HOSPITAL_ID), null, stalled);
+
+        // Ready and one delta fill its queue, the next delta overflows it
+        feed.onVisitAdmitted(new CensusFeed.VisitAdmitted(HOSPITAL_ID, 1));
+        feed.onVisitAdmitted(new CensusFeed.VisitAdmitted(HOSPITAL_ID, 2));
+        feed.onVisitAdmitted(new CensusFeed.VisitAdmitted(HOSPITAL_ID, 3));
+
+        // One writer task was started for the queue, and the dispatcher never wrote to the connection itself
+        assertEquals(1, stalledWrites.size());
+        verify(stalled, never()).send(any(SseEmitter.SseEventBuilder.class));
+        verify(stalled, times(1)).complete();
+    }
+
+    @Test
+    void heartbeat_ClosesStreamOfRevokedToken() throws IOException {
+        SseEmitter emitter = mock(SseEmitter.class);
+        VerifiedToken revoked = token(HOSPITAL_ID);
+        censusFeed.subscribe(revoked, null, emitter);
+        when(tokenRevocationService.isRevoked(revoked)).thenReturn(true);
+
+        censusFeed.heartbeat();
+        censusFeed.onVisitAdmitted(new CensusFeed.VisitAdmitted(HOSPITAL_ID, 1));
+
+        // Only the ready event was sent
+        verify(emitter, times(1)).send(any(SseEmitter.SseEventBuilder.class));
+        verify(emitter, times(1)).complete();
+    }
+}
@@ -0,0 +1,33 @@
+package com.syncura360.service;
+
+import org.junit.jupiter.api.condition.DisabledIf;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a test that writes concurrently to a real database to measure contention.
+ * <p>
+ * Such tests only run when asked for and never against the application's own database: the entities name
+ * the {@code syncura360} schema explicitly, so {@code BENCHMARK_DATABASE_URL} has to point at a separate,
+ * disposable server loaded with that schema and the migrations. Run with
+ * {@code RUN_BENCHMARKS=true BENCHMARK_DATABASE_URL=jdbc:mariadb://localhost:3307/syncura360 ./gradlew test --tests '*ContentionTest'}.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@SpringBootTest(properties = {
+        "spring.datasource.url=${BENCHMARK_DATABASE_URL}",
+        "spring.datasource.username=${BENCHMARK_DATABASE_USERNAME:${DATABASE_USERNAME}}",
+        "spring.datasource.password=${BENCHMARK_DATABASE_PASSWORD:${DATABASE_PASSWORD}}",
+        "security.argon2.calibrate-on-startup=false"
+})
+@EnabledIfEnvironmentVariable(named = "RUN_BENCHMARKS", matches = "true")
+@EnabledIfEnvironmentVariable(named = "BENCHMARK_DATABASE_URL", matches = ".+")
+@DisabledIf(value = "com.syncura360.service.ContentionFixtures#benchmarkDatabaseIsShared",
+        disabledReason = "BENCHMARK_DATABASE_URL is the application's own database.")
+@interface ContentionBenchmark {
+}
@@ -0,0 +1,95 @@
+package com.syncura360.service;
+
+import com.syncura360.model.Bed;
+import com.syncura360.model.Hospital;
+import com.syncura360.model.Room;
+import com.syncura360.model.RoomId;
+import com.syncura360.repository.BedRepository;
+import com.syncura360.repository.RoomRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Assumptions;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Fixture setup and teardown shared by the {@link ContentionBenchmark} tests.
+ */
+final class ContentionFixtures {
+
+    private ContentionFixtures() {
+    }
+
+    /**
+     * Guards the benchmarks against being pointed at the application's database by mistake.
+     *
+     * @return Whether the benchmark database URL is the same as the application's.
+     */
+    static boolean benchmarkDatabaseIsShared() {
+        return Objects.equals(System.getenv("BENCHMARK_DATABASE_URL"), System.getenv("DATABASE_URL"));
+    }
+
+    /**
+     * Finds a hospital to run the benchmark in, skipping the test if the database has none.
+     *
+     * @param entityManagerFactory Factory for a short-lived entity manager, closed before returning.
+     * @return The ID of the hospital.
+     */
+    static int hospitalId(EntityManagerFactory entityManagerFactory) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            List<Hospital> hospitals = entityManager
+                    .createQuery("SELECT h FROM Hospital h", Hospital.class)
+                    .setMaxResults(1)
+                    .getResultList();
+            Assumptions.assumeFalse(hospitals.isEmpty(), "No hospital to run the benchmark in.");
+            return hospitals.getFirst().getId();
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    /**
+     * Skips the test if any of the given rooms is already present, so real data is never touched.
+     */
+    static void assumeNoRooms(RoomRepository roomRepository, int hospitalId, String... roomNames) {
+        for (String roomName : roomNames) {
+            Assumptions.assumeFalse(roomRepository.existsById_HospitalIdAndId_RoomName(hospitalId, roomName),
+                    "Test room " + roomName + " already exists.");
+        }
+    }
+
+    /**
+     * Creates a room with the given number of vacant beds.
+     *
+     * @return The saved room.
+     */
+    static Room createWard(RoomRepository roomRepository, BedRepository bedRepository, int hospitalId,
+                           String roomName, int beds) {
+        Room ward = roomRepository.saveAndFlush(new Room(new RoomId(hospitalId, roomName), "Test"));
+        List<Bed> vacantBeds = new ArrayList<>();
+        for (int i = 0; i < beds; i++) {
+            vacantBeds.add(new Bed(ward));
+        }
+        bedRepository.saveAllAndFlush(vacantBeds);
+        return ward;
+    }
+
+    /**
+     * Removes rooms made by {@link #createWard} together with their beds.
+     */
+    static void deleteWards(TransactionTemplate transactionTemplate, RoomRepository roomRepository,
+                            BedRepository bedRepository, Room... wards) {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (Room ward : wards) {
+                bedRepository.deleteAllByRoom(ward);
+            }
+        });
+        for (Room ward : wards) {
+            roomRepository.delete(ward);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.syncura360.service;
+
+import com.syncura360.model.Drug;
+import com.syncura360.model.DrugId;
+import com.syncura360.model.enums.DrugCategory;
+import com.syncura360.repository.DrugRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Hammers one drug's inventory from many threads against a real database and checks nothing is oversold.
+ * See {@link ContentionBenchmark} for how to run it.
+ */
+@ContentionBenchmark
+class DrugInventoryContentionTest {
+    private static final Logger log = LoggerFactory.getLogger(DrugInventoryContentionTest.class);
+
+    private static final long TEST_NDC = 99999999999L;
+    private static final int STOCK = 500;
+    private static final int THREADS = 16;
+    private static final int ATTEMPTS_PER_THREAD = 50;
+
+    @Autowired
+    DrugRepository drugRepository;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    void decrementQuantity_NoOversellUnderContention() throws Exception {
+        int hospitalId = ContentionFixtures.hospitalId(entityManagerFactory);
+        DrugId drugId = new DrugId(hospitalId, TEST_NDC);
+        Assumptions.assumeFalse(drugRepository.existsById(drugId), "Test NDC is already in use.");
+
+        drugRepository.saveAndFlush(new Drug(drugId, "Contention Test", DrugCategory.Drug, null, null,
+                1, STOCK, BigDecimal.ONE));
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        AtomicInteger administered = new AtomicInteger();
+        AtomicInteger refused = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                workers.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                        Integer updated = transactionTemplate.execute(status ->
+                                drugRepository.decrementQuantity(hospitalId, TEST_NDC, 1));
+                        if (updated != null && updated == 1) {
+                            administered.incrementAndGet();
+                        } else {
+                            refused.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            long began = System.nanoTime();
+            start.countDown();
+            for (Future<?> worker : workers) {
+                worker.get(2, TimeUnit.MINUTES);
+            }
+            double seconds = (System.nanoTime() - began) / 1e9;
+
+            // More attempts than stock: exactly the stock is handed out and the rest refused
+            int remaining = drugRepository.findById(drugId).orElseThrow().getQuantity();
+            assertEquals(STOCK, administered.get());
+            assertEquals(THREADS * ATTEMPTS_PER_THREAD - STOCK, refused.get());
+            assertEquals(0, remaining);
+
+            log.info("{} administrations, {} refused across {} threads in {} s ({} administrations/s)",
+                    administered.get(), refused.get(), THREADS, String.format("%.2f", seconds),
+                    String.format("%.0f", administered.get() / seconds));
+        } finally {
+            executor.shutdownNow();
+            drugRepository.deleteById(drugId);
+        }
+    }
+}
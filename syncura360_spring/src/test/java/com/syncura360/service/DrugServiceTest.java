@@ -12,6 +12,8 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -27,6 +29,9 @@ public class DrugServiceTest {
     @Mock
     DrugRepository drugRepository;
 
+    @Mock
+    ApplicationEventPublisher eventPublisher;
+
     // Inject fake drugRepository into drugService
     @InjectMocks
     DrugService drugService;
@@ -52,8 +57,9 @@ public class DrugServiceTest {
         // Call service
         drugService.createDrug(hospitalId, dto);
 
-        // Verify save was called
+        // Verify save was called, and the new stock pushed to the census feed
         verify(drugRepository).save(any(Drug.class));
+        verify(eventPublisher).publishEvent(new CensusFeed.InventoryChanged(hospitalId, 12345678901L, 100, null));
     }
 
     @Test
@@ -82,8 +88,11 @@ public class DrugServiceTest {
         when(dto.getNdc()).thenReturn(12345678901L);
         when(dto.getQuantity()).thenReturn(200);
         when(dto.getPrice()).thenReturn(new BigDecimal("24.99"));
+        when(dto.getVersion()).thenReturn(3L);
 
         Drug existingDrug = mock(Drug.class);
+        when(existingDrug.getPrice()).thenReturn(new BigDecimal("19.99"));
+        when(existingDrug.getVersion()).thenReturn(3L);
         when(drugRepository.findById_HospitalIdAndId_Ndc(hospitalId, 12345678901L))
                 .thenReturn(Optional.of(existingDrug));
 
@@ -94,6 +103,33 @@ public class DrugServiceTest {
         verify(existingDrug).setQuantity(200);
         verify(existingDrug).setPrice(new BigDecimal("24.99"));
         verify(drugRepository).save(existingDrug);
+        verify(eventPublisher).publishEvent(new CensusFeed.InventoryChanged(hospitalId, 12345678901L, 200, null));
+        // New price, so cached bills of the hospital are dropped
+        verify(eventPublisher).publishEvent(new BillingService.PricesChanged(hospitalId));
+    }
+
+    @Test
+    void testUpdateDrug_StaleVersion_ThrowsException() {
+        int hospitalId = 1;
+
+        DrugUpdateDTO dto = mock(DrugUpdateDTO.class);
+        when(dto.getNdc()).thenReturn(12345678901L);
+        when(dto.getQuantity()).thenReturn(200);
+        when(dto.getPrice()).thenReturn(new BigDecimal("24.99"));
+        when(dto.getVersion()).thenReturn(3L);
+
+        // Someone else saved the drug after this client loaded it
+        Drug existingDrug = mock(Drug.class);
+        when(existingDrug.getVersion()).thenReturn(4L);
+        when(drugRepository.findById_HospitalIdAndId_Ndc(hospitalId, 12345678901L))
+                .thenReturn(Optional.of(existingDrug));
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> drugService.updateDrug(hospitalId, dto));
+
+        // The stale edit is not applied
+        verify(existingDrug, never()).setQuantity(anyInt());
+        verify(drugRepository, never()).save(any());
+        verifyNoInteractions(eventPublisher);
     }
 
     @Test
@@ -156,6 +192,7 @@ public class DrugServiceTest {
 
         // Verify delete
         verify(drugRepository).deleteById(new DrugId(hospitalId, 12345678901L));
+        verify(eventPublisher).publishEvent(new CensusFeed.InventoryChanged(hospitalId, 12345678901L, null, null));
     }
 
     @Test
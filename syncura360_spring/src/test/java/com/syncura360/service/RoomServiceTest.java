@@ -13,6 +13,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.util.List;
 import java.util.Optional;
@@ -38,6 +39,12 @@ class RoomServiceTest {
     @Mock
     EquipmentService equipmentService;
 
+    @Mock
+    BedOccupancyIndex bedOccupancyIndex;
+
+    @Mock
+    ApplicationEventPublisher eventPublisher;
+
     // Inject RoomService with fake repositories and services
     @InjectMocks
     RoomService roomService;
@@ -76,6 +83,7 @@ class RoomServiceTest {
         verify(roomRepository).save(any(Room.class));
         verify(bedRepository, times(5)).save(any(Bed.class));
         verify(equipmentRepository, never()).save(any(Equipment.class));
+        verify(eventPublisher).publishEvent(new BedOccupancyIndex.RoomChanged(hospitalId, "Room1"));
     }
 
     @Test
@@ -113,6 +121,7 @@ class RoomServiceTest {
         verify(roomRepository).save(room);
         verify(bedService).updateBedsForRoom(eq(room), eq(5));
         verify(equipmentService).setEquipmentsForRoom(eq(hospitalId), eq("Room1"), any());
+        verify(eventPublisher).publishEvent(new BedOccupancyIndex.RoomChanged(hospitalId, "Room1"));
     }
 
     @Test
@@ -168,6 +177,7 @@ class RoomServiceTest {
         verify(bedRepository).deleteAllByRoom(room);
         verify(equipmentService).deleteEquipmentsForRoom(hospitalId, "Room1");
         verify(roomRepository).delete(room);
+        verify(eventPublisher).publishEvent(new BedOccupancyIndex.RoomChanged(hospitalId, "Room1"));
     }
 
     @Test
@@ -175,32 +185,31 @@ class RoomServiceTest {
         // Hospital ID for the test
         int hospitalId = 1;
 
-        // Create and mock a Room object
-        Room room = mock(Room.class);
-        RoomId roomId = mock(RoomId.class);
+        // Simulate the occupancy index knowing one room
+        when(bedOccupancyIndex.getRooms(hospitalId)).thenReturn(List.of(
+                new BedOccupancyIndex.RoomOccupancy("Room1", "Department1", 2, 1, 0)));
 
-        // Mock the behavior of Room and RoomId to return a valid room name and department
-        when(room.getId()).thenReturn(roomId);
-        when(roomId.getRoomName()).thenReturn("Room1");
-        when(room.getDepartment()).thenReturn("Department1");
-
-        // Mock the repository to return a list with the mocked room
-        when(roomRepository.findById_HospitalId(hospitalId)).thenReturn(List.of(room));
-
-        // Mock the repository to simulate finding a room by name in fetchRoom
-        when(roomRepository.findById_HospitalIdAndId_RoomName(hospitalId, "Room1")).thenReturn(Optional.of(room));
+        // Simulate one equipment of the hospital, in that room
+        Equipment equipment = mock(Equipment.class);
+        when(equipment.getId()).thenReturn(new EquipmentId(hospitalId, "Room1", "E12345"));
+        when(equipment.getName()).thenReturn("ECG Machine");
+        when(equipment.getUnderMaintenance()).thenReturn(false);
+        when(equipmentRepository.findById_HospitalId(hospitalId)).thenReturn(List.of(equipment));
 
         // Call the method to fetch rooms
         List<RoomFetchDTO> rooms = roomService.fetchRooms(hospitalId);
 
-        // Verify that the room fetching methods were called
-        verify(roomRepository).findById_HospitalId(hospitalId);
-        verify(roomRepository).findById_HospitalIdAndId_RoomName(hospitalId, "Room1");
+        // Verify that rooms and bed counts were not loaded from the database, and equipment only once
+        verifyNoInteractions(roomRepository, bedRepository);
+        verify(equipmentRepository, never()).findById_HospitalIdAndId_RoomName(anyInt(), anyString());
 
         // Assert that the result list is correct
         assertEquals(1, rooms.size());
         assertEquals("Room1", rooms.getFirst().getRoomName());
         assertEquals("Department1", rooms.getFirst().getDepartment());
+        assertEquals(3, rooms.getFirst().getBeds());
+        assertEquals(2, rooms.getFirst().getBedsVacant());
+        assertEquals(1, rooms.getFirst().getEquipments().size());
     }
 
     @Test
@@ -211,7 +220,7 @@ class RoomServiceTest {
         when(roomFetchRequestDTO.getRoomName()).thenReturn("Room1");
 
         // Simulate that the room does not exist
-        when(roomRepository.findById_HospitalIdAndId_RoomName(hospitalId, "Room1")).thenReturn(Optional.empty());
+        when(bedOccupancyIndex.getRoom(hospitalId, "Room1")).thenReturn(Optional.empty());
 
         // Try to fetch a non-existent room, should throw an exception
         assertThrows(EntityNotFoundException.class, () -> roomService.fetchRoom(hospitalId, roomFetchRequestDTO));
@@ -224,23 +233,9 @@ class RoomServiceTest {
         RoomFetchRequestDTO roomFetchRequestDTO = mock(RoomFetchRequestDTO.class);
         when(roomFetchRequestDTO.getRoomName()).thenReturn("Room1");
 
-        // Mock the RoomId
-        RoomId roomId = mock(RoomId.class);
-        when(roomId.getRoomName()).thenReturn("Room1");
-
-        // Create and mock the Room object
-        Room room = mock(Room.class);
-        when(room.getId()).thenReturn(roomId);
-        when(room.getDepartment()).thenReturn("Cardiology");
-
-        // Mock the RoomRepository to return the Room object
-        when(roomRepository.findById_HospitalIdAndId_RoomName(hospitalId, "Room1")).thenReturn(Optional.of(room));
-
-        // Mock the BedRepository methods
-        when(bedRepository.countByRoom(room)).thenReturn(10);  // Assume 10 total beds
-        when(bedRepository.countByRoomAndStatus(room, BedStatus.Vacant)).thenReturn(5);  // 5 vacant beds
-        when(bedRepository.countByRoomAndStatus(room, BedStatus.Occupied)).thenReturn(3);  // 3 occupied beds
-        when(bedRepository.countByRoomAndStatus(room, BedStatus.Under_Maintenance)).thenReturn(2);  // 2 under maintenance
+        // Simulate the occupancy index: 5 vacant, 3 occupied, 2 under maintenance
+        when(bedOccupancyIndex.getRoom(hospitalId, "Room1")).thenReturn(Optional.of(
+                new BedOccupancyIndex.RoomOccupancy("Room1", "Cardiology", 5, 3, 2)));
 
         // Mock the EquipmentRepository to return some equipment
         Equipment equipment = mock(Equipment.class);
@@ -256,8 +251,8 @@ class RoomServiceTest {
         // Call the fetchRoom method
         RoomFetchDTO roomFetchDTO = roomService.fetchRoom(hospitalId, roomFetchRequestDTO);
 
-        // Verify that the room was fetched from the repository
-        verify(roomRepository).findById_HospitalIdAndId_RoomName(hospitalId, "Room1");
+        // Verify that bed counts were not queried
+        verifyNoInteractions(roomRepository, bedRepository);
 
         // Verify the expected counts for beds
         assertEquals(10, roomFetchDTO.getBeds());
@@ -276,4 +271,4 @@ class RoomServiceTest {
         assertEquals("Room1", roomFetchDTO.getRoomName());
         assertEquals("Cardiology", roomFetchDTO.getDepartment());
     }
-}
\ No newline at end of file
+}
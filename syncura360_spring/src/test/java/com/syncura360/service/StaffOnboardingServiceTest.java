@@ -0,0 +1,130 @@
+package com.syncura360.service;
+
+import com.syncura360.dto.Staff.StaffCreationDto;
+import com.syncura360.dto.Staff.StaffOnboardingStatus;
+import com.syncura360.model.Hospital;
+import com.syncura360.model.Staff;
+import com.syncura360.repository.StaffRepository;
+import com.syncura360.security.PasswordHashingAdmission;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.PersistenceException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class StaffOnboardingServiceTest {
+    @Mock
+    StaffRepository staffRepository;
+
+    @Mock
+    PasswordEncoder passwordEncoder;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    @Mock
+    PasswordHashingAdmission passwordHashingAdmission;
+
+    @Mock
+    EntityManager entityManager;
+
+    StaffOnboardingService staffOnboardingService;
+
+    @BeforeEach
+    void setUp() {
+        when(passwordHashingAdmission.getConcurrency()).thenReturn(2);
+        staffOnboardingService = new StaffOnboardingService(staffRepository, passwordEncoder,
+                transactionManager, passwordHashingAdmission, 2, 1, 60);
+        staffOnboardingService.entityManager = entityManager;
+    }
+
+    @AfterEach
+    void tearDown() {
+        staffOnboardingService.shutdown();
+    }
+
+    private static StaffCreationDto dto(String username) {
+        StaffCreationDto dto = new StaffCreationDto();
+        dto.setUsername(username);
+        dto.setPasswordHash("secret");
+        dto.setRole("Nurse");
+        return dto;
+    }
+
+    @Test
+    void testRun_ValidatesHashesAndInsertsInBatches() {
+        StaffCreationDto unknownRole = dto("badrole");
+        unknownRole.setRole("Janitor");
+        List<StaffCreationDto> rows = List.of(dto("anew"), dto("bnew"), dto("anew"), dto("taken"), unknownRole, dto("cnew"));
+
+        Staff existing = new Staff();
+        existing.setUsername("taken");
+        when(staffRepository.findAllById(anyIterable())).thenReturn(List.of(existing));
+        when(passwordEncoder.encode("secret")).thenReturn("hashed");
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(entityManager.getReference(Hospital.class, 1)).thenReturn(new Hospital());
+
+        StaffOnboardingService.Job job = new StaffOnboardingService.Job("job", 1, rows);
+        staffOnboardingService.run(job);
+        StaffOnboardingStatus status = job.snapshot();
+
+        assertEquals("Completed", status.getStatus());
+        assertEquals(3, status.getSucceeded());
+        assertEquals(3, status.getFailed());
+        assertEquals("Created", status.getRows().get(0).status());
+        assertEquals("Duplicate username in request.", status.getRows().get(2).message());
+        assertEquals("Staff username is taken.", status.getRows().get(3).message());
+        assertEquals("Unknown role: Janitor", status.getRows().get(4).message());
+        assertNull(job.rows);
+
+        // Unknown roles fail before hashing; three inserts over two batches
+        verify(passwordEncoder, times(3)).encode("secret");
+        verify(entityManager, times(3)).persist(any(Staff.class));
+        verify(entityManager, times(2)).flush();
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    void testRun_FailedBatchRetriesRowByRow() {
+        when(staffRepository.findAllById(anyIterable())).thenReturn(List.of());
+        when(passwordEncoder.encode("secret")).thenReturn("hashed");
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(entityManager.getReference(Hospital.class, 1)).thenReturn(new Hospital());
+        doAnswer(invocation -> {
+            if ("bad".equals(((Staff) invocation.getArgument(0)).getUsername())) {
+                throw new PersistenceException("constraint violation");
+            }
+            return null;
+        }).when(entityManager).persist(any(Staff.class));
+
+        StaffOnboardingService.Job job = new StaffOnboardingService.Job("job", 1, List.of(dto("good"), dto("bad")));
+        staffOnboardingService.run(job);
+        StaffOnboardingStatus status = job.snapshot();
+
+        assertEquals(1, status.getSucceeded());
+        assertEquals(1, status.getFailed());
+        assertEquals("Created", status.getRows().get(0).status());
+        assertEquals("Error saving staff to database.", status.getRows().get(1).message());
+    }
+
+    @Test
+    void testGetStatus_OtherHospital_ThrowsException() {
+        String jobId = staffOnboardingService.submit(1, List.of());
+
+        assertThrows(EntityNotFoundException.class, () -> staffOnboardingService.getStatus(2, jobId));
+    }
+}
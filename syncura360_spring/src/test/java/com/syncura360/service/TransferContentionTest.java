@@ -0,0 +1,151 @@
+package com.syncura360.service;
+
+import com.syncura360.dto.Visit.AddRoomDTO;
+import com.syncura360.dto.Visit.TransferDTO;
+import com.syncura360.dto.Visit.VisitCreationDTO;
+import com.syncura360.model.*;
+import com.syncura360.model.enums.BedStatus;
+import com.syncura360.model.enums.Gender;
+import com.syncura360.repository.*;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Moves many patients at once into a ward with too few beds, against a real database, and checks every
+ * patient ends up holding exactly one bed: either the new one or, if the ward was full, the one they had.
+ * See {@link ContentionBenchmark} for how to run it.
+ */
+@ContentionBenchmark
+class TransferContentionTest {
+    private static final Logger log = LoggerFactory.getLogger(TransferContentionTest.class);
+
+    private static final String FROM_WARD = "Transfer Test Ward A";
+    private static final String TO_WARD = "Transfer Test Ward B";
+    private static final int PATIENTS = 60;
+    private static final int TARGET_BEDS = 30;
+    private static final int THREADS = 32;
+
+    @Autowired
+    VisitService visitService;
+
+    @Autowired
+    BedRepository bedRepository;
+
+    @Autowired
+    RoomRepository roomRepository;
+
+    @Autowired
+    PatientInfoRepository patientInfoRepository;
+
+    @Autowired
+    RoomAssignmentRepository roomAssignmentRepository;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    void transferRoom_EveryPatientKeepsExactlyOneBedUnderContention() throws Exception {
+        int hospitalId = ContentionFixtures.hospitalId(entityManagerFactory);
+        ContentionFixtures.assumeNoRooms(roomRepository, hospitalId, FROM_WARD, TO_WARD);
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        Room fromWard = ContentionFixtures.createWard(roomRepository, bedRepository, hospitalId, FROM_WARD, PATIENTS);
+        Room toWard = ContentionFixtures.createWard(roomRepository, bedRepository, hospitalId, TO_WARD, TARGET_BEDS);
+
+        List<Integer> patientIds = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+
+        try {
+            // Admit every patient into the first ward
+            for (int i = 0; i < PATIENTS; i++) {
+                PatientInfo patient = patientInfoRepository.save(new PatientInfo(
+                        "Transfer", "Test " + i, LocalDate.of(1980, 1, 1), Gender.Female, null, null, null,
+                        "5550000000", "1 Test Street", null, "Test City", "Test State", "00000", "Test Country",
+                        null, null));
+                patientIds.add(patient.getId());
+
+                VisitCreationDTO visitCreationDTO = new VisitCreationDTO();
+                visitCreationDTO.setPatientID(patient.getId());
+                visitCreationDTO.setReasonForVisit("Transfer test");
+                visitService.createVisit(hospitalId, visitCreationDTO);
+
+                AddRoomDTO addRoomDTO = new AddRoomDTO();
+                addRoomDTO.setPatientID(patient.getId());
+                addRoomDTO.setRoomName(FROM_WARD);
+                addRoomDTO.setVisitAdmissionDateTime(visitService.findVisit(hospitalId, patient.getId(), null, false)
+                        .getId().getAdmissionDateTime().toString());
+                visitService.addRoom(hospitalId, addRoomDTO);
+            }
+
+            List<Future<Boolean>> transfers = new ArrayList<>();
+            for (int patientId : patientIds) {
+                transfers.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        visitService.transferRoom(hospitalId, new TransferDTO(patientId, TO_WARD));
+                        return true;
+                    } catch (EntityNotFoundException e) {
+                        // Target ward full; the patient stays where they were
+                        return false;
+                    }
+                }));
+            }
+
+            long began = System.nanoTime();
+            start.countDown();
+            int moved = 0;
+            for (Future<Boolean> transfer : transfers) {
+                if (transfer.get(2, TimeUnit.MINUTES)) {
+                    moved++;
+                }
+            }
+            double seconds = (System.nanoTime() - began) / 1e9;
+
+            // The target ward is filled exactly, and no bed of the first ward is lost or double-held
+            assertEquals(TARGET_BEDS, moved);
+            assertEquals(TARGET_BEDS, bedRepository.countByRoomAndStatus(toWard, BedStatus.Occupied));
+            assertEquals(PATIENTS - moved, bedRepository.countByRoomAndStatus(fromWard, BedStatus.Occupied));
+            for (int patientId : patientIds) {
+                assertTrue(roomAssignmentRepository.findCurrentAssignmentById(patientId, hospitalId).isPresent());
+            }
+
+            log.info("{} transfers into {} beds across {} threads in {} s ({} transfers/s), {} refused",
+                    PATIENTS, TARGET_BEDS, THREADS, String.format("%.2f", seconds),
+                    String.format("%.0f", PATIENTS / seconds), PATIENTS - moved);
+        } finally {
+            executor.shutdownNow();
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!patientIds.isEmpty()) {
+                    entityManager.createQuery("DELETE FROM RoomAssignment ra WHERE ra.id.patientId IN :ids")
+                            .setParameter("ids", patientIds).executeUpdate();
+                    entityManager.createQuery("DELETE FROM Visit vs WHERE vs.id.patientId IN :ids")
+                            .setParameter("ids", patientIds).executeUpdate();
+                    entityManager.createQuery("DELETE FROM PatientInfo p WHERE p.id IN :ids")
+                            .setParameter("ids", patientIds).executeUpdate();
+                }
+            });
+            ContentionFixtures.deleteWards(transactionTemplate, roomRepository, bedRepository, fromWard, toWard);
+        }
+    }
+}
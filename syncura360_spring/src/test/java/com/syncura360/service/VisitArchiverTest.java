@@ -0,0 +1,74 @@
+package com.syncura360.service;
+
+import com.syncura360.repository.VisitArchiveRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class VisitArchiverTest {
+
+    @Mock
+    private VisitArchiveRepository visitArchiveRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void archivesInBatchesUntilShortBatch() {
+        // Arrange
+        VisitArchiver archiver = new VisitArchiver(visitArchiveRepository, transactionManager, true, 365, 10, 50);
+        when(visitArchiveRepository.archiveDischargedBefore(any(), eq(10))).thenReturn(10, 10, 3);
+
+        // Act
+        int archived = archiver.archive();
+
+        // Assert
+        assertEquals(23, archived);
+        ArgumentCaptor<LocalDateTime> cutoff = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(visitArchiveRepository, times(3)).archiveDischargedBefore(cutoff.capture(), eq(10));
+        assertTrue(cutoff.getValue().isBefore(LocalDateTime.now().minusDays(364)));
+        verify(transactionManager, times(3)).commit(any());
+    }
+
+    @Test
+    void stopsAtMaxBatches() {
+        // Arrange
+        VisitArchiver archiver = new VisitArchiver(visitArchiveRepository, transactionManager, true, 365, 10, 2);
+        when(visitArchiveRepository.archiveDischargedBefore(any(), eq(10))).thenReturn(10);
+
+        // Act and Assert
+        assertEquals(20, archiver.archive());
+        verify(visitArchiveRepository, times(2)).archiveDischargedBefore(any(), eq(10));
+    }
+
+    @Test
+    void failedBatchRollsBackAndStops() {
+        // Arrange
+        VisitArchiver archiver = new VisitArchiver(visitArchiveRepository, transactionManager, true, 365, 10, 50);
+        when(visitArchiveRepository.archiveDischargedBefore(any(), eq(10)))
+                .thenReturn(10)
+                .thenThrow(new IllegalStateException("lock wait timeout"));
+
+        // Act and Assert
+        assertEquals(10, archiver.archive());
+        verify(transactionManager, times(1)).commit(any());
+        verify(transactionManager, times(1)).rollback(any());
+    }
+
+    @Test
+    void disabledScheduleDoesNothing() {
+        VisitArchiver archiver = new VisitArchiver(visitArchiveRepository, transactionManager, false, 365, 10, 50);
+
+        archiver.scheduledRun();
+
+        verifyNoInteractions(visitArchiveRepository);
+    }
+}
@@ -0,0 +1,345 @@
+package com.syncura360.service;
+
+import com.syncura360.dto.Visit.BatchChartDTO;
+import com.syncura360.dto.Visit.BatchChartResultDTO;
+import com.syncura360.dto.Visit.ChartEventDTO;
+import com.syncura360.model.*;
+import com.syncura360.repository.*;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class VisitChartingServiceTest {
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private VisitRepository visitRepository;
+    @Mock
+    private StaffRepository staffRepository;
+    @Mock
+    private ServiceRepository serviceRepository;
+    @Mock
+    private DrugRepository drugRepository;
+    @Mock
+    private RoomRepository roomRepository;
+    @Mock
+    private RoomAssignmentRepository roomAssignmentRepository;
+    @Mock
+    private BedAllocator bedAllocator;
+    @Mock
+    private EntityManager entityManager;
+    @InjectMocks
+    private VisitChartingService visitChartingService;
+
+    private static final int HOSPITAL_ID = 1;
+    private static final int PATIENT_ID = 100;
+    private static final long TEST_DRUG_NDC = 12345678901L;
+
+    private Visit currentVisit() {
+        return new Visit(new VisitId(HOSPITAL_ID, PATIENT_ID), "Checkup");
+    }
+
+    private Staff staff(String username) {
+        Hospital hospital = new Hospital();
+        hospital.setId(HOSPITAL_ID);
+        Staff staff = new Staff();
+        staff.setUsername(username);
+        staff.setWorksAt(hospital);
+        return staff;
+    }
+
+    private Drug drug(int quantity) {
+        Drug drug = new Drug();
+        drug.setId(new DrugId(HOSPITAL_ID, TEST_DRUG_NDC));
+        drug.setQuantity(quantity);
+        return drug;
+    }
+
+    private static ChartEventDTO service(String staff, String service) {
+        return new ChartEventDTO(VisitChartingService.SERVICE, staff, service, null, 0, null);
+    }
+
+    private static ChartEventDTO drug(String staff, long ndc, int quantity) {
+        return new ChartEventDTO(VisitChartingService.DRUG, staff, null, ndc, quantity, null);
+    }
+
+    private static ChartEventDTO room(String roomName) {
+        return new ChartEventDTO(VisitChartingService.ROOM, null, null, null, 0, roomName);
+    }
+
+    private static ChartEventDTO removeRoom() {
+        return new ChartEventDTO(VisitChartingService.REMOVE_ROOM, null, null, null, 0, null);
+    }
+
+    @Test
+    void chart_MixedBatch_ResolvesReferencesOnceAndPersistsEveryEvent() {
+        // Arrange
+        BatchChartDTO batch = new BatchChartDTO(PATIENT_ID, List.of(
+            service("nurse1", "X-Ray"),
+            service("nurse1", "Blood Panel"),
+            drug("nurse1", TEST_DRUG_NDC, 2),
+            drug("nurse1", TEST_DRUG_NDC, 0),
+            room("Room A")
+        ));
+
+        Room roomA = new Room(new RoomId(HOSPITAL_ID, "Room A"), "General");
+        Drug drug = drug(10);
+        List<com.syncura360.model.Service> services = List.of(
+            new com.syncura360.model.Service(new ServiceId(HOSPITAL_ID, "X-Ray"), "Imaging", "", BigDecimal.TEN),
+            new com.syncura360.model.Service(new ServiceId(HOSPITAL_ID, "Blood Panel"), "Lab", "", BigDecimal.ONE)
+        );
+
+        when(visitRepository.findCurrentVisitById(PATIENT_ID, HOSPITAL_ID)).thenReturn(Optional.of(currentVisit()));
+        when(staffRepository.findAllById(any())).thenReturn(List.of(staff("nurse1")));
+        when(serviceRepository.findAllByHospitalIdAndNames(eq(HOSPITAL_ID), any())).thenReturn(services);
+        when(drugRepository.findAllByHospitalIdAndNdcs(eq(HOSPITAL_ID), any())).thenReturn(List.of(drug));
+        when(roomAssignmentRepository.findCurrentAssignmentById(PATIENT_ID, HOSPITAL_ID)).thenReturn(Optional.empty());
+        when(roomRepository.findById_HospitalIdAndId_RoomNameIn(eq(HOSPITAL_ID), any())).thenReturn(List.of(roomA));
+        when(bedAllocator.claim(HOSPITAL_ID, "Room A")).thenReturn(Optional.of(1L));
+        when(drugRepository.decrementQuantity(HOSPITAL_ID, TEST_DRUG_NDC, 3)).thenReturn(1);
+
+        ArgumentCaptor<Object> persisted = ArgumentCaptor.forClass(Object.class);
+
+        // Act
+        BatchChartResultDTO result = visitChartingService.chart(HOSPITAL_ID, batch);
+
+        // Verify
+        assertEquals(5, result.getCharted());
+        assertEquals(0, result.getFailed());
+        assertTrue(result.getResults().stream().allMatch(r -> r.status().equals("Charted")));
+
+        verify(staffRepository, times(1)).findAllById(any());
+        verify(staffRepository, never()).findByUsername(anyString());
+        verify(serviceRepository, never()).findById(any());
+        verify(drugRepository, never()).findById(any());
+        verify(entityManager, times(5)).persist(persisted.capture());
+        verify(visitRepository, times(1)).bumpCurrentVisitVersion(PATIENT_ID, HOSPITAL_ID);
+
+        List<LocalDateTime> serviceTimes = new ArrayList<>();
+        for (Object entity : persisted.getAllValues()) {
+            if (entity instanceof ServiceProvided provided) {
+                serviceTimes.add(provided.getId().getProvidedAt());
+            }
+        }
+        assertEquals(2, serviceTimes.size());
+        assertTrue(serviceTimes.get(0).isBefore(serviceTimes.get(1)));
+
+        // Both administrations of the same drug are taken from stock in one conditional update
+        verify(drugRepository, times(1)).decrementQuantity(HOSPITAL_ID, TEST_DRUG_NDC, 3);
+        verify(drugRepository, never()).save(any());
+        verify(bedAllocator, times(1)).claim(HOSPITAL_ID, "Room A");
+    }
+
+    @Test
+    void chart_OneInvalidEvent_RejectsWholeBatch() {
+        // Arrange
+        BatchChartDTO batch = new BatchChartDTO(PATIENT_ID, List.of(
+            drug("nurse1", TEST_DRUG_NDC, 3),
+            drug("nurse1", TEST_DRUG_NDC, 3),
+            service("nurse1", "Unknown")
+        ));
+
+        Drug drug = drug(5);
+
+        when(visitRepository.findCurrentVisitById(PATIENT_ID, HOSPITAL_ID)).thenReturn(Optional.of(currentVisit()));
+        when(staffRepository.findAllById(any())).thenReturn(List.of(staff("nurse1")));
+        when(serviceRepository.findAllByHospitalIdAndNames(eq(HOSPITAL_ID), any())).thenReturn(List.of());
+        when(drugRepository.findAllByHospitalIdAndNdcs(eq(HOSPITAL_ID), any())).thenReturn(List.of(drug));
+
+        // Act
+        BatchChartResultDTO result = visitChartingService.chart(HOSPITAL_ID, batch);
+
+        // Verify
+        assertEquals(0, result.getCharted());
+        assertEquals(2, result.getFailed());
+        assertEquals("Skipped", result.getResults().get(0).status());
+        assertEquals("Failed", result.getResults().get(1).status());
+        assertEquals("Not enough in inventory to administer this amount.", result.getResults().get(1).message());
+        assertEquals("Service not found.", result.getResults().get(2).message());
+
+        verify(entityManager, never()).persist(any());
+        verify(visitRepository, never()).bumpCurrentVisitVersion(anyInt(), anyInt());
+        verify(drugRepository, never()).decrementQuantity(anyInt(), anyLong(), anyInt());
+    }
+
+    @Test
+    void chart_StockTakenSinceValidation_RollsBackBatch() {
+        // Arrange
+        BatchChartDTO batch = new BatchChartDTO(PATIENT_ID, List.of(
+            service("nurse1", "X-Ray"),
+            drug("nurse1", TEST_DRUG_NDC, 2)
+        ));
+
+        when(visitRepository.findCurrentVisitById(PATIENT_ID, HOSPITAL_ID)).thenReturn(Optional.of(currentVisit()));
+        when(staffRepository.findAllById(any())).thenReturn(List.of(staff("nurse1")));
+        when(serviceRepository.findAllByHospitalIdAndNames(eq(HOSPITAL_ID), any())).thenReturn(List.of(
+            new com.syncura360.model.Service(new ServiceId(HOSPITAL_ID, "X-Ray"), "Imaging", "", BigDecimal.TEN)
+        ));
+        when(drugRepository.findAllByHospitalIdAndNdcs(eq(HOSPITAL_ID), any())).thenReturn(List.of(drug(5)));
+        when(drugRepository.decrementQuantity(HOSPITAL_ID, TEST_DRUG_NDC, 2)).thenReturn(0);
+
+        // Act
+        BatchChartRejectedException e = assertThrows(BatchChartRejectedException.class,
+            () -> visitChartingService.chart(HOSPITAL_ID, batch));
+
+        // Verify
+        assertEquals(1, e.getResult().getFailed());
+        assertEquals("Skipped", e.getResult().getResults().get(0).status());
+        assertEquals("Not enough in inventory to administer this amount.", e.getResult().getResults().get(1).message());
+        verify(entityManager, never()).persist(any());
+        verify(visitRepository, never()).bumpCurrentVisitVersion(anyInt(), anyInt());
+    }
+
+    @Test
+    void chart_StaffFromOtherHospital_Fails() {
+        // Arrange
+        BatchChartDTO batch = new BatchChartDTO(PATIENT_ID, List.of(service("visitor", "X-Ray")));
+
+        Staff visitor = staff("visitor");
+        Hospital otherHospital = new Hospital();
+        otherHospital.setId(HOSPITAL_ID + 1);
+        visitor.setWorksAt(otherHospital);
+
+        when(visitRepository.findCurrentVisitById(PATIENT_ID, HOSPITAL_ID)).thenReturn(Optional.of(currentVisit()));
+        when(staffRepository.findAllById(any())).thenReturn(List.of(visitor));
+        when(serviceRepository.findAllByHospitalIdAndNames(eq(HOSPITAL_ID), any())).thenReturn(List.of());
+
+        // Act
+        BatchChartResultDTO result = visitChartingService.chart(HOSPITAL_ID, batch);
+
+        // Verify
+        assertEquals(1, result.getFailed());
+        assertEquals("Providing staff not found.", result.getResults().getFirst().message());
+        verify(entityManager, never()).persist(any());
+    }
+
+    @Test
+    void chart_RoomMove_VacatesOldBedAndOccupiesNewOne() {
+        // Arrange
+        BatchChartDTO batch = new BatchChartDTO(PATIENT_ID, List.of(removeRoom(), room("Room B")));
+
+        Visit visit = currentVisit();
+        Room roomA = new Room(new RoomId(HOSPITAL_ID, "Room A"), "General");
+        Room roomB = new Room(new RoomId(HOSPITAL_ID, "Room B"), "General");
+        RoomAssignment current = new RoomAssignment(
+            new RoomAssignmentId(HOSPITAL_ID, PATIENT_ID, visit.getId().getAdmissionDateTime()), false, roomA, 1L
+        );
+
+        when(visitRepository.findCurrentVisitById(PATIENT_ID, HOSPITAL_ID)).thenReturn(Optional.of(visit));
+        when(roomAssignmentRepository.findCurrentAssignmentById(PATIENT_ID, HOSPITAL_ID)).thenReturn(Optional.of(current));
+        when(roomRepository.findById_HospitalIdAndId_RoomNameIn(eq(HOSPITAL_ID), any())).thenReturn(List.of(roomB));
+        when(bedAllocator.releaseBed(HOSPITAL_ID, "Room A", 1L)).thenReturn(true);
+        when(bedAllocator.claim(HOSPITAL_ID, "Room B")).thenReturn(Optional.of(2L));
+
+        ArgumentCaptor<RoomAssignment> assignmentCaptor = ArgumentCaptor.forClass(RoomAssignment.class);
+
+        // Act
+        BatchChartResultDTO result = visitChartingService.chart(HOSPITAL_ID, batch);
+
+        // Verify
+        assertEquals(2, result.getCharted());
+        assertTrue(current.getIsRemoved());
+        assertNotNull(current.getRemovedAt());
+        InOrder beds = inOrder(bedAllocator);
+        beds.verify(bedAllocator).releaseBed(HOSPITAL_ID, "Room A", 1L);
+        beds.verify(bedAllocator).claim(HOSPITAL_ID, "Room B");
+
+        verify(entityManager, times(1)).persist(assignmentCaptor.capture());
+        assertEquals(2L, assignmentCaptor.getValue().getBedNo());
+        assertEquals("Room B", assignmentCaptor.getValue().getRoomName());
+        assertTrue(current.getRemovedAt().isBefore(assignmentCaptor.getValue().getId().getAssignedAt()));
+    }
+
+    @Test
+    void chart_SecondAssignmentWithoutRemoval_Fails() {
+        // Arrange
+        BatchChartDTO batch = new BatchChartDTO(PATIENT_ID, List.of(room("Room A"), room("Room A")));
+
+        Room roomA = new Room(new RoomId(HOSPITAL_ID, "Room A"), "General");
+
+        when(visitRepository.findCurrentVisitById(PATIENT_ID, HOSPITAL_ID)).thenReturn(Optional.of(currentVisit()));
+        when(roomAssignmentRepository.findCurrentAssignmentById(PATIENT_ID, HOSPITAL_ID)).thenReturn(Optional.empty());
+        when(roomRepository.findById_HospitalIdAndId_RoomNameIn(eq(HOSPITAL_ID), any())).thenReturn(List.of(roomA));
+
+        // Act
+        BatchChartResultDTO result = visitChartingService.chart(HOSPITAL_ID, batch);
+
+        // Verify
+        assertEquals(1, result.getFailed());
+        assertEquals("Skipped", result.getResults().get(0).status());
+        assertEquals("Patient is already assigned to a room.", result.getResults().get(1).message());
+        verify(entityManager, never()).persist(any());
+        verifyNoInteractions(bedAllocator);
+    }
+
+    @Test
+    void chart_NoBedLeftAtClaim_RollsBackBatch() {
+        // Arrange
+        BatchChartDTO batch = new BatchChartDTO(PATIENT_ID, List.of(service("nurse1", "X-Ray"), room("Room A")));
+
+        when(visitRepository.findCurrentVisitById(PATIENT_ID, HOSPITAL_ID)).thenReturn(Optional.of(currentVisit()));
+        when(staffRepository.findAllById(any())).thenReturn(List.of(staff("nurse1")));
+        when(serviceRepository.findAllByHospitalIdAndNames(eq(HOSPITAL_ID), any())).thenReturn(List.of(
+            new com.syncura360.model.Service(new ServiceId(HOSPITAL_ID, "X-Ray"), "Imaging", "", BigDecimal.TEN)
+        ));
+        when(roomAssignmentRepository.findCurrentAssignmentById(PATIENT_ID, HOSPITAL_ID)).thenReturn(Optional.empty());
+        when(roomRepository.findById_HospitalIdAndId_RoomNameIn(eq(HOSPITAL_ID), any())).thenReturn(List.of(
+            new Room(new RoomId(HOSPITAL_ID, "Room A"), "General")
+        ));
+        when(bedAllocator.claim(HOSPITAL_ID, "Room A")).thenReturn(Optional.empty());
+
+        // Act
+        BatchChartRejectedException e = assertThrows(BatchChartRejectedException.class,
+            () -> visitChartingService.chart(HOSPITAL_ID, batch));
+
+        // Verify
+        assertEquals("No beds available", e.getResult().getResults().get(1).message());
+        verify(entityManager, never()).persist(any());
+    }
+
+    @Test
+    void chart_VisitNotFound() {
+        // Arrange
+        BatchChartDTO batch = new BatchChartDTO(PATIENT_ID, List.of(service("nurse1", "X-Ray")));
+        when(visitRepository.findCurrentVisitById(PATIENT_ID, HOSPITAL_ID)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(EntityNotFoundException.class, () -> visitChartingService.chart(HOSPITAL_ID, batch));
+        verifyNoInteractions(staffRepository, entityManager);
+    }
+
+    @Test
+    void chart_TooManyEvents() {
+        // Arrange
+        List<ChartEventDTO> events = new ArrayList<>();
+        for (int i = 0; i <= VisitChartingService.MAX_BATCH_EVENTS; i++) {
+            events.add(service("nurse1", "X-Ray"));
+        }
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+            () -> visitChartingService.chart(HOSPITAL_ID, new BatchChartDTO(PATIENT_ID, events)));
+        verifyNoInteractions(visitRepository);
+    }
+}
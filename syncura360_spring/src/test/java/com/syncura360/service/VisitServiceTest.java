@@ -2,9 +2,9 @@ package com.syncura360.service;
 
 import com.syncura360.dto.Visit.*;
 import com.syncura360.model.*;
-import com.syncura360.model.enums.BedStatus;
 import com.syncura360.repository.*;
 import jakarta.persistence.EntityExistsException;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -12,10 +12,20 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -24,6 +34,8 @@ import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 class VisitServiceTest {
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
     @Mock
     private DrugRepository drugRepository;
     @Mock
@@ -43,7 +55,21 @@ class VisitServiceTest {
     @Mock
     private RoomAssignmentRepository roomAssignmentRepository;
     @Mock
+    private VisitArchiveRepository visitArchiveRepository;
+    @Mock
     private BedRepository bedRepository;
+    @Mock
+    private BedAllocator bedAllocator;
+    @Mock
+    private VisitNoteRepository visitNoteRepository;
+    @Mock
+    private VisitSnapshotRepository visitSnapshotRepository;
+    @Mock
+    private VisitSnapshotCodec visitSnapshotCodec;
+    @Mock
+    private BillingService billingService;
+    @Mock
+    private EntityManager entityManager;
     @InjectMocks
     private VisitService visitService;
 
@@ -77,7 +103,7 @@ class VisitServiceTest {
         // Verify
         verify(patientInfoRepository, times(1)).existsById(visitCreationDTO.getPatientID());
         verify(visitRepository, never()).findCurrentVisitById(anyInt(), anyInt());
-        verify(visitRepository, never()).save(any(Visit.class));
+        verify(visitRepository, never()).saveAndFlush(any(Visit.class));
     }
 
     @Test
@@ -100,7 +126,7 @@ class VisitServiceTest {
         // Verify
         verify(patientInfoRepository, times(1)).existsById(PATIENT_ID);
         verify(visitRepository, times(1)).findCurrentVisitById(PATIENT_ID, HOSPITAL_ID);
-        verify(visitRepository, never()).save(any(Visit.class));
+        verify(visitRepository, never()).saveAndFlush(any(Visit.class));
     }
 
     @Test
@@ -123,7 +149,29 @@ class VisitServiceTest {
         // Verify
         verify(patientInfoRepository, times(1)).existsById(PATIENT_ID);
         verify(visitRepository, times(1)).findCurrentVisitById(PATIENT_ID, HOSPITAL_ID);
-        verify(visitRepository, times(1)).save(expectedVisit);
+        verify(visitRepository, times(1)).saveAndFlush(expectedVisit);
+        verify(eventPublisher, times(1)).publishEvent(new CensusFeed.VisitAdmitted(HOSPITAL_ID, PATIENT_ID));
+    }
+
+    @Test
+    void createVisitConcurrentAdmissionRejectedByActiveKey() {
+        // Arrange: the pre-check passes, but another admission committed in between
+        VisitCreationDTO visitCreationDTO = new VisitCreationDTO();
+        visitCreationDTO.setPatientID(PATIENT_ID);
+        visitCreationDTO.setReasonForVisit("Headache");
+
+        when(patientInfoRepository.existsById(PATIENT_ID)).thenReturn(true);
+        when(visitRepository.findCurrentVisitById(PATIENT_ID, HOSPITAL_ID)).thenReturn(Optional.empty());
+        when(visitRepository.saveAndFlush(any(Visit.class)))
+            .thenThrow(new DataIntegrityViolationException("Duplicate entry for key 'uq_visit_active'"));
+
+        // Act and Assert
+        EntityExistsException e = assertThrows(EntityExistsException.class,
+            () -> visitService.createVisit(HOSPITAL_ID, visitCreationDTO));
+        assertEquals("Patient visit is ongoing.", e.getMessage());
+
+        // Verify
+        verify(eventPublisher, never()).publishEvent(any());
     }
 
     @Test
@@ -168,6 +216,58 @@ class VisitServiceTest {
         verify(visitRepository, times(1)).save(visitArgumentCaptor.capture());
         assertEquals(visitSummary, visitArgumentCaptor.getValue().getVisitSummary());
         assertNotNull(visitArgumentCaptor.getValue().getDischargeDateTime());
+        // Stored at the column precision, so the snapshot agrees with the row read back later
+        assertEquals(0, visitArgumentCaptor.getValue().getDischargeDateTime().getNano() % 1_000);
+
+        // The record is frozen at the version the discharge bumped it to
+        ArgumentCaptor<VisitSnapshot> snapshotCaptor = ArgumentCaptor.forClass(VisitSnapshot.class);
+        verify(visitSnapshotRepository, times(1)).save(snapshotCaptor.capture());
+        assertEquals(1, snapshotCaptor.getValue().getVisitVersion());
+        assertEquals(visitId.getAdmissionDateTime(), snapshotCaptor.getValue().getId().getVisitAdmissionDateTime());
+        verify(billingService, times(1)).computeBill(HOSPITAL_ID, existingVisit, existingVisit.getDischargeDateTime());
+    }
+
+    @Test
+    void findRecordSnapshot_OneLookupInsteadOfRebuild() {
+        // Arrange
+        LocalDateTime admission = LocalDateTime.of(2025, 3, 1, 8, 30);
+        byte[] encoded = {1, 2, 3};
+        RecordSnapshotDTO record = new RecordSnapshotDTO(new VisitDetailsDTO(), null);
+        VisitSnapshot snapshot = new VisitSnapshot(
+            new VisitSnapshotId(HOSPITAL_ID, PATIENT_ID, admission), 4, VisitSnapshotCodec.GZIP_JSON, encoded);
+
+        when(visitSnapshotRepository.findByVisit(HOSPITAL_ID, PATIENT_ID, admission)).thenReturn(Optional.of(snapshot));
+        when(visitSnapshotCodec.canDecode(VisitSnapshotCodec.GZIP_JSON)).thenReturn(true);
+        when(visitSnapshotCodec.decode(encoded)).thenReturn(record);
+
+        // Act
+        Optional<VisitService.RecordSnapshot> found = visitService.findRecordSnapshot(HOSPITAL_ID, PATIENT_ID, admission.toString());
+
+        // Assert: same ETag a rebuilt record at that version would have
+        assertTrue(found.isPresent());
+        assertSame(record, found.get().record());
+        assertEquals("W/\"" + PATIENT_ID + "-" + admission + "-4\"", found.get().eTag());
+
+        // Verify: no visit or timeline queries
+        verifyNoInteractions(visitRepository, visitArchiveRepository, serviceProvidedRepository,
+                drugAdministeredRepository, roomAssignmentRepository);
+    }
+
+    @Test
+    void findRecordSnapshot_EmptyWhenNotTakenOrUnreadable() {
+        // Arrange
+        LocalDateTime admission = LocalDateTime.of(2025, 3, 1, 8, 30);
+        VisitSnapshot oldFormat = new VisitSnapshot(
+            new VisitSnapshotId(HOSPITAL_ID, PATIENT_ID, admission), 4, 0, new byte[0]);
+
+        when(visitSnapshotRepository.findByVisit(HOSPITAL_ID, PATIENT_ID, admission)).thenReturn(Optional.empty());
+        when(visitArchiveRepository.findSnapshotByVisit(HOSPITAL_ID, PATIENT_ID, admission))
+                .thenReturn(Optional.empty(), Optional.of(oldFormat));
+
+        // Act and Assert: nothing taken, then only an archived snapshot in a format no longer read
+        assertTrue(visitService.findRecordSnapshot(HOSPITAL_ID, PATIENT_ID, admission.toString()).isEmpty());
+        assertTrue(visitService.findRecordSnapshot(HOSPITAL_ID, PATIENT_ID, admission.toString()).isEmpty());
+        verify(visitSnapshotCodec, never()).decode(any());
     }
 
     @Test
@@ -182,35 +282,58 @@ class VisitServiceTest {
         Visit existingVisit = new Visit(visitId, "Stomach bug");
 
         Room room = new Room(new RoomId(HOSPITAL_ID, ROOM_NAME), "Test Department");
-        Bed bed = new Bed(room);
         RoomAssignment roomAssignment = new RoomAssignment(
             new RoomAssignmentId(HOSPITAL_ID, PATIENT_ID, visitId.getAdmissionDateTime()),
-            false, room
+            false, room, 7L
         );
 
         when(visitRepository.findCurrentVisitById(PATIENT_ID, HOSPITAL_ID)).thenReturn(Optional.of(existingVisit));
         when(roomAssignmentRepository.findCurrentAssignmentById(PATIENT_ID, HOSPITAL_ID)).thenReturn(Optional.of(roomAssignment));
-        when(roomRepository.findById(roomAssignment.getRoom().getId())).thenReturn(Optional.of(room));
-        when(bedRepository.findAllByRoomAndStatus(room, BedStatus.Occupied)).thenReturn(List.of(bed));
+        when(bedAllocator.releaseBed(HOSPITAL_ID, ROOM_NAME, 7L)).thenReturn(true);
 
         ArgumentCaptor<Visit> visitArgumentCaptor = ArgumentCaptor.forClass(Visit.class);
         ArgumentCaptor<RoomAssignment> roomAssignmentArgumentCaptor = ArgumentCaptor.forClass(RoomAssignment.class);
-        ArgumentCaptor<Bed> bedArgumentCaptor = ArgumentCaptor.forClass(Bed.class);
 
         // Act
         visitService.discharge(HOSPITAL_ID, dischargeDTO);
 
         // Verify
-        verify(visitRepository, times(2)).findCurrentVisitById(PATIENT_ID, HOSPITAL_ID);
-        verify(roomAssignmentRepository, times(2)).findCurrentAssignmentById(PATIENT_ID, HOSPITAL_ID);
+        // The visit and assignment are looked up once, and the recorded bed is released by key
+        verify(visitRepository, times(1)).findCurrentVisitById(PATIENT_ID, HOSPITAL_ID);
+        verify(roomAssignmentRepository, times(1)).findCurrentAssignmentById(PATIENT_ID, HOSPITAL_ID);
         verify(visitRepository, times(1)).save(visitArgumentCaptor.capture());
-        verify(bedRepository, times(1)).save(bedArgumentCaptor.capture());
+        verify(bedAllocator, times(1)).releaseBed(HOSPITAL_ID, ROOM_NAME, 7L);
+        verify(bedAllocator, never()).release(anyInt(), any());
+        verify(visitRepository, times(1)).bumpCurrentVisitVersion(PATIENT_ID, HOSPITAL_ID);
         verify(roomAssignmentRepository, times(1)).save(roomAssignmentArgumentCaptor.capture());
 
         assertEquals(visitSummary, visitArgumentCaptor.getValue().getVisitSummary());
-        assertEquals(BedStatus.Vacant, bedArgumentCaptor.getValue().getStatus());
         assertEquals(true, roomAssignmentArgumentCaptor.getValue().getIsRemoved());
         assertNotNull(visitArgumentCaptor.getValue().getDischargeDateTime());
+        assertEquals(visitArgumentCaptor.getValue().getDischargeDateTime(), roomAssignmentArgumentCaptor.getValue().getRemovedAt());
+        verify(eventPublisher, times(1)).publishEvent(new CensusFeed.VisitDischarged(HOSPITAL_ID, PATIENT_ID));
+    }
+
+    @Test
+    void removeRoomBedAlreadyVacant() {
+        // Arrange
+        Room room = new Room(new RoomId(HOSPITAL_ID, ROOM_NAME), "Test Department");
+        RoomAssignment roomAssignment = new RoomAssignment(
+            new RoomAssignmentId(HOSPITAL_ID, PATIENT_ID, ADMISSION_DATE_TIME), false, room, 7L
+        );
+
+        when(visitRepository.findCurrentVisitById(PATIENT_ID, HOSPITAL_ID)).thenReturn(Optional.of(new Visit()));
+        when(roomAssignmentRepository.findCurrentAssignmentById(PATIENT_ID, HOSPITAL_ID)).thenReturn(Optional.of(roomAssignment));
+        when(bedAllocator.releaseBed(HOSPITAL_ID, ROOM_NAME, 7L)).thenReturn(false);
+
+        // Act and Assert
+        assertThrows(EntityNotFoundException.class,
+            () -> visitService.removeRoom(HOSPITAL_ID, new DeleteRoomDTO(PATIENT_ID, ADMISSION_DATE_TIME_STR)));
+
+        // Verify
+        assertFalse(roomAssignment.getIsRemoved());
+        verify(roomAssignmentRepository, never()).save(any());
+        verify(visitRepository, never()).bumpCurrentVisitVersion(anyInt(), anyInt());
     }
 
 
@@ -227,9 +350,8 @@ class VisitServiceTest {
         verify(visitRepository, times(1)).findCurrentVisitById(PATIENT_ID, HOSPITAL_ID);
         verify(roomRepository, never()).findById(any());
         verify(roomAssignmentRepository, never()).findCurrentAssignmentById(anyInt(), anyInt());
-        verify(bedRepository, never()).findAllByRoomAndStatus(any(), any());
+        verify(bedAllocator, never()).claim(anyInt(), any());
         verify(roomAssignmentRepository, never()).save(any());
-        verify(bedRepository, never()).save(any());
     }
 
     @Test
@@ -246,9 +368,8 @@ class VisitServiceTest {
         verify(visitRepository, times(1)).findCurrentVisitById(PATIENT_ID, HOSPITAL_ID);
         verify(roomRepository, times(1)).findById(new RoomId(HOSPITAL_ID, ROOM_NAME));
         verify(roomAssignmentRepository, never()).findCurrentAssignmentById(anyInt(), anyInt());
-        verify(bedRepository, never()).findAllByRoomAndStatus(any(), any());
+        verify(bedAllocator, never()).claim(anyInt(), any());
         verify(roomAssignmentRepository, never()).save(any());
-        verify(bedRepository, never()).save(any());
     }
 
     @Test
@@ -266,9 +387,8 @@ class VisitServiceTest {
         verify(visitRepository, times(1)).findCurrentVisitById(PATIENT_ID, HOSPITAL_ID);
         verify(roomRepository, times(1)).findById(new RoomId(HOSPITAL_ID, ROOM_NAME));
         verify(roomAssignmentRepository, times(1)).findCurrentAssignmentById(PATIENT_ID, HOSPITAL_ID);
-        verify(bedRepository, never()).findAllByRoomAndStatus(any(), any());
+        verify(bedAllocator, never()).claim(anyInt(), any());
         verify(roomAssignmentRepository, never()).save(any());
-        verify(bedRepository, never()).save(any());
     }
 
     @Test
@@ -279,7 +399,7 @@ class VisitServiceTest {
         when(visitRepository.findCurrentVisitById(PATIENT_ID, HOSPITAL_ID)).thenReturn(Optional.of(new Visit()));
         when(roomRepository.findById(new RoomId(HOSPITAL_ID, ROOM_NAME))).thenReturn(Optional.of(mockRoom));
         when(roomAssignmentRepository.findCurrentAssignmentById(PATIENT_ID, HOSPITAL_ID)).thenReturn(Optional.empty());
-        when(bedRepository.findAllByRoomAndStatus(mockRoom, BedStatus.Vacant)).thenReturn(List.of());
+        when(bedAllocator.claim(HOSPITAL_ID, ROOM_NAME)).thenReturn(Optional.empty());
 
         // Act and Assert
         assertThrows(EntityNotFoundException.class, () -> visitService.addRoom(HOSPITAL_ID, addRoomDTO));
@@ -288,9 +408,8 @@ class VisitServiceTest {
         verify(visitRepository, times(1)).findCurrentVisitById(PATIENT_ID, HOSPITAL_ID);
         verify(roomRepository, times(1)).findById(new RoomId(HOSPITAL_ID, ROOM_NAME));
         verify(roomAssignmentRepository, times(1)).findCurrentAssignmentById(PATIENT_ID, HOSPITAL_ID);
-        verify(bedRepository, times(1)).findAllByRoomAndStatus(mockRoom, BedStatus.Vacant);
+        verify(bedAllocator, times(1)).claim(HOSPITAL_ID, ROOM_NAME);
         verify(roomAssignmentRepository, never()).save(any());
-        verify(bedRepository, never()).save(any());
     }
 
     @Test
@@ -298,16 +417,13 @@ class VisitServiceTest {
         // Arrange
         AddRoomDTO addRoomDTO = createAddRoomDTO();
         Room mockRoom = new Room(new RoomId(HOSPITAL_ID, ROOM_NAME), "Department A");
-        Bed mockBed = new Bed();
-        mockBed.setStatus(BedStatus.Vacant);
 
         when(visitRepository.findCurrentVisitById(PATIENT_ID, HOSPITAL_ID)).thenReturn(Optional.of(new Visit()));
         when(roomRepository.findById(new RoomId(HOSPITAL_ID, ROOM_NAME))).thenReturn(Optional.of(mockRoom));
         when(roomAssignmentRepository.findCurrentAssignmentById(PATIENT_ID, HOSPITAL_ID)).thenReturn(Optional.empty());
-        when(bedRepository.findAllByRoomAndStatus(mockRoom, BedStatus.Vacant)).thenReturn(List.of(mockBed));
+        when(bedAllocator.claim(HOSPITAL_ID, ROOM_NAME)).thenReturn(Optional.of(1L));
 
         ArgumentCaptor<RoomAssignment> roomAssignmentCaptor = ArgumentCaptor.forClass(RoomAssignment.class);
-        ArgumentCaptor<Bed> bedCaptor = ArgumentCaptor.forClass(Bed.class);
 
         // Act
         visitService.addRoom(HOSPITAL_ID, addRoomDTO);
@@ -316,7 +432,7 @@ class VisitServiceTest {
         verify(visitRepository, times(1)).findCurrentVisitById(PATIENT_ID, HOSPITAL_ID);
         verify(roomRepository, times(1)).findById(new RoomId(HOSPITAL_ID, ROOM_NAME));
         verify(roomAssignmentRepository, times(1)).findCurrentAssignmentById(PATIENT_ID, HOSPITAL_ID);
-        verify(bedRepository, times(1)).findAllByRoomAndStatus(mockRoom, BedStatus.Vacant);
+        verify(bedAllocator, times(1)).claim(HOSPITAL_ID, ROOM_NAME);
         verify(roomAssignmentRepository, times(1)).save(roomAssignmentCaptor.capture());
 
         RoomAssignment savedAssignment = roomAssignmentCaptor.getValue();
@@ -325,10 +441,96 @@ class VisitServiceTest {
         assertEquals(ADMISSION_DATE_TIME, savedAssignment.getId().getVisitAdmissionDateTime());
         assertFalse(savedAssignment.getIsRemoved());
         assertEquals(mockRoom, savedAssignment.getRoom());
+        assertEquals(1L, savedAssignment.getBedNo());
+
+        // The bed is claimed by the allocator, not loaded and saved here
+        verify(bedRepository, never()).findAllByRoomAndStatus(any(), any());
+        verify(bedRepository, never()).save(any());
+    }
+
+    @Test
+    void transferRoomMovesPatientInOneStep() {
+        // Arrange
+        String targetRoom = "Room B";
+        Room from = new Room(new RoomId(HOSPITAL_ID, ROOM_NAME), "Department A");
+        Room to = new Room(new RoomId(HOSPITAL_ID, targetRoom), "Department B");
+        Visit visit = new Visit(new VisitId(HOSPITAL_ID, PATIENT_ID), "Fall");
+        RoomAssignment oldAssignment = new RoomAssignment(
+            new RoomAssignmentId(HOSPITAL_ID, PATIENT_ID, visit.getId().getAdmissionDateTime()), false, from, 7L
+        );
+
+        when(visitRepository.findCurrentVisitById(PATIENT_ID, HOSPITAL_ID)).thenReturn(Optional.of(visit));
+        when(roomAssignmentRepository.findCurrentAssignmentById(PATIENT_ID, HOSPITAL_ID)).thenReturn(Optional.of(oldAssignment));
+        when(roomRepository.findById(new RoomId(HOSPITAL_ID, targetRoom))).thenReturn(Optional.of(to));
+        when(bedAllocator.claim(HOSPITAL_ID, targetRoom)).thenReturn(Optional.of(12L));
+        when(bedAllocator.releaseBed(HOSPITAL_ID, ROOM_NAME, 7L)).thenReturn(true);
+
+        ArgumentCaptor<RoomAssignment> captor = ArgumentCaptor.forClass(RoomAssignment.class);
 
-        verify(bedRepository, times(1)).save(bedCaptor.capture());
-        assertEquals(BedStatus.Occupied, bedCaptor.getValue().getStatus());
-        assertEquals(mockBed, bedCaptor.getValue());
+        // Act
+        visitService.transferRoom(HOSPITAL_ID, new TransferDTO(PATIENT_ID, targetRoom));
+
+        // Verify: target bed claimed before the old one is released, one version bump for the whole move
+        var order = inOrder(bedAllocator);
+        order.verify(bedAllocator).claim(HOSPITAL_ID, targetRoom);
+        order.verify(bedAllocator).releaseBed(HOSPITAL_ID, ROOM_NAME, 7L);
+        verify(roomAssignmentRepository, times(2)).save(captor.capture());
+        verify(visitRepository, times(1)).bumpCurrentVisitVersion(PATIENT_ID, HOSPITAL_ID);
+
+        RoomAssignment removed = captor.getAllValues().get(0);
+        RoomAssignment added = captor.getAllValues().get(1);
+        assertTrue(removed.getIsRemoved());
+        assertFalse(added.getIsRemoved());
+        assertEquals(targetRoom, added.getRoomName());
+        assertEquals(12L, added.getBedNo());
+        assertEquals(visit.getId().getAdmissionDateTime(), added.getId().getVisitAdmissionDateTime());
+        assertTrue(added.getId().getAssignedAt().isAfter(removed.getRemovedAt()));
+    }
+
+    @Test
+    void transferRoomTargetFullKeepsCurrentBed() {
+        // Arrange
+        String targetRoom = "Room B";
+        Room from = new Room(new RoomId(HOSPITAL_ID, ROOM_NAME), "Department A");
+        RoomAssignment oldAssignment = new RoomAssignment(
+            new RoomAssignmentId(HOSPITAL_ID, PATIENT_ID, ADMISSION_DATE_TIME), false, from, 7L
+        );
+
+        when(visitRepository.findCurrentVisitById(PATIENT_ID, HOSPITAL_ID)).thenReturn(Optional.of(new Visit()));
+        when(roomAssignmentRepository.findCurrentAssignmentById(PATIENT_ID, HOSPITAL_ID)).thenReturn(Optional.of(oldAssignment));
+        when(roomRepository.findById(new RoomId(HOSPITAL_ID, targetRoom)))
+            .thenReturn(Optional.of(new Room(new RoomId(HOSPITAL_ID, targetRoom), "Department B")));
+        when(bedAllocator.claim(HOSPITAL_ID, targetRoom)).thenReturn(Optional.empty());
+
+        // Act and Assert
+        assertThrows(EntityNotFoundException.class,
+            () -> visitService.transferRoom(HOSPITAL_ID, new TransferDTO(PATIENT_ID, targetRoom)));
+
+        // Verify
+        assertFalse(oldAssignment.getIsRemoved());
+        verify(bedAllocator, never()).releaseBed(anyInt(), any(), any());
+        verify(roomAssignmentRepository, never()).save(any());
+        verify(visitRepository, never()).bumpCurrentVisitVersion(anyInt(), anyInt());
+    }
+
+    @Test
+    void transferRoomSameRoomRejected() {
+        // Arrange
+        Room from = new Room(new RoomId(HOSPITAL_ID, ROOM_NAME), "Department A");
+        RoomAssignment oldAssignment = new RoomAssignment(
+            new RoomAssignmentId(HOSPITAL_ID, PATIENT_ID, ADMISSION_DATE_TIME), false, from, 7L
+        );
+
+        when(visitRepository.findCurrentVisitById(PATIENT_ID, HOSPITAL_ID)).thenReturn(Optional.of(new Visit()));
+        when(roomAssignmentRepository.findCurrentAssignmentById(PATIENT_ID, HOSPITAL_ID)).thenReturn(Optional.of(oldAssignment));
+
+        // Act and Assert
+        assertThrows(IllegalArgumentException.class,
+            () -> visitService.transferRoom(HOSPITAL_ID, new TransferDTO(PATIENT_ID, ROOM_NAME)));
+
+        // Verify
+        verifyNoInteractions(bedAllocator);
+        verify(roomAssignmentRepository, never()).save(any());
     }
 
     @Test
@@ -339,7 +541,6 @@ class VisitServiceTest {
         when(visitRepository.findCurrentVisitById(PATIENT_ID, HOSPITAL_ID)).thenReturn(Optional.of(new Visit()));
         when(roomRepository.findById(new RoomId(HOSPITAL_ID, ROOM_NAME))).thenReturn(Optional.of(new Room()));
         when(roomAssignmentRepository.findCurrentAssignmentById(PATIENT_ID, HOSPITAL_ID)).thenReturn(Optional.empty());
-        when(bedRepository.findAllByRoomAndStatus(any(), any())).thenReturn(List.of(new Bed())); // To avoid other exceptions
 
         // Act and Assert
         assertThrows(DateTimeParseException.class, () -> visitService.addRoom(HOSPITAL_ID, addRoomDTO));
@@ -348,9 +549,9 @@ class VisitServiceTest {
         verify(visitRepository, times(1)).findCurrentVisitById(PATIENT_ID, HOSPITAL_ID);
         verify(roomRepository, times(1)).findById(new RoomId(HOSPITAL_ID, ROOM_NAME));
         verify(roomAssignmentRepository, times(1)).findCurrentAssignmentById(PATIENT_ID, HOSPITAL_ID);
-        // Depending on the implementation, bedRepository might or might not be called before the exception
+        // The date time is parsed before a bed is claimed
+        verify(bedAllocator, never()).claim(anyInt(), any());
         verify(roomAssignmentRepository, never()).save(any());
-        verify(bedRepository, never()).save(any());
     }
 
     @Test
@@ -515,6 +716,7 @@ class VisitServiceTest {
         verify(staffRepository, times(1)).findByUsername("testStaff");
         verify(serviceRepository, times(1)).findById(serviceId);
         verify(serviceProvidedRepository, times(1)).save(serviceProvidedCaptor.capture());
+        verify(visitRepository, times(1)).bumpCurrentVisitVersion(PATIENT_ID, HOSPITAL_ID);
 
         ServiceProvided savedServiceProvided = serviceProvidedCaptor.getValue();
         assertEquals(HOSPITAL_ID, savedServiceProvided.getId().getHospitalId());
@@ -609,6 +811,40 @@ class VisitServiceTest {
         verify(drugRepository, never()).save(any()); // For inventory update
     }
 
+    @Test
+    void addDrug_StockTakenSinceRead() {
+        // Arrange
+        AddDrugDTO addDrugDTO = new AddDrugDTO();
+        addDrugDTO.setPatientID(PATIENT_ID);
+        addDrugDTO.setVisitAdmissionDateTime(ADMISSION_DATE_TIME_STR);
+        addDrugDTO.setAdministeredBy("testStaff");
+        addDrugDTO.setDrug(TEST_DRUG_NDC);
+        addDrugDTO.setQuantity(3);
+
+        Staff staff = new Staff();
+        Hospital currentHospital = new Hospital();
+        currentHospital.setId(HOSPITAL_ID);
+        staff.setWorksAt(currentHospital);
+
+        // Read shows enough stock, but another administration takes it before the update
+        Drug staleDrug = new Drug();
+        staleDrug.setQuantity(5);
+        DrugId drugId = new DrugId(HOSPITAL_ID, TEST_DRUG_NDC);
+
+        when(visitRepository.findCurrentVisitById(PATIENT_ID, HOSPITAL_ID)).thenReturn(Optional.of(new Visit()));
+        when(staffRepository.findByUsername("testStaff")).thenReturn(Optional.of(staff));
+        when(drugRepository.findById(drugId)).thenReturn(Optional.of(staleDrug));
+        when(drugRepository.decrementQuantity(HOSPITAL_ID, TEST_DRUG_NDC, 3)).thenReturn(0);
+
+        // Act and Assert
+        EntityNotFoundException e = assertThrows(EntityNotFoundException.class, () -> visitService.addDrug(HOSPITAL_ID, addDrugDTO));
+        assertEquals("Not enough in inventory to administer this amount.", e.getMessage());
+
+        // Verify
+        verify(drugAdministeredRepository, never()).save(any());
+        verify(visitRepository, never()).bumpCurrentVisitVersion(anyInt(), anyInt());
+    }
+
     @Test
     void addDrug_Successful() {
         // Arrange
@@ -632,9 +868,9 @@ class VisitServiceTest {
         when(visitRepository.findCurrentVisitById(PATIENT_ID, HOSPITAL_ID)).thenReturn(Optional.of(new Visit()));
         when(staffRepository.findByUsername("testStaff")).thenReturn(Optional.of(staff));
         when(drugRepository.findById(drugId)).thenReturn(Optional.of(sufficientStockDrug));
+        when(drugRepository.decrementQuantity(HOSPITAL_ID, TEST_DRUG_NDC, 2)).thenReturn(1);
 
         ArgumentCaptor<DrugAdministered> drugAdministeredCaptor = ArgumentCaptor.forClass(DrugAdministered.class);
-        ArgumentCaptor<Drug> drugCaptor = ArgumentCaptor.forClass(Drug.class);
 
         // Act
         visitService.addDrug(HOSPITAL_ID, addDrugDTO);
@@ -648,8 +884,9 @@ class VisitServiceTest {
         assertEquals(TEST_DRUG_NDC, drugAdministeredCaptor.getValue().getDrug().getId().getNdc());
         assertEquals(2, drugAdministeredCaptor.getValue().getQuantity());
 
-        verify(drugRepository, times(1)).save(drugCaptor.capture());
-        assertEquals(8, drugCaptor.getValue().getQuantity());
+        // Inventory is decremented in the database, never by saving a quantity computed in Java
+        verify(drugRepository, never()).save(any());
+        verify(eventPublisher, times(1)).publishEvent(new CensusFeed.InventoryChanged(HOSPITAL_ID, TEST_DRUG_NDC, null, -2));
     }
 
 
@@ -676,9 +913,9 @@ class VisitServiceTest {
         when(visitRepository.findCurrentVisitById(PATIENT_ID, HOSPITAL_ID)).thenReturn(Optional.of(new Visit()));
         when(staffRepository.findByUsername("testStaff")).thenReturn(Optional.of(staff));
         when(drugRepository.findById(drugId)).thenReturn(Optional.of(sufficientStockDrug));
+        when(drugRepository.decrementQuantity(HOSPITAL_ID, TEST_DRUG_NDC, 1)).thenReturn(1);
 
         ArgumentCaptor<DrugAdministered> drugAdministeredCaptor = ArgumentCaptor.forClass(DrugAdministered.class);
-        ArgumentCaptor<Drug> drugCaptor = ArgumentCaptor.forClass(Drug.class);
 
         // Act
         visitService.addDrug(HOSPITAL_ID, addDrugDTO);
@@ -687,13 +924,14 @@ class VisitServiceTest {
         verify(visitRepository, times(1)).findCurrentVisitById(PATIENT_ID, HOSPITAL_ID);
         verify(staffRepository, times(1)).findByUsername("testStaff");
         verify(drugRepository, times(1)).findById(drugId);
+        verify(drugRepository, times(1)).decrementQuantity(HOSPITAL_ID, TEST_DRUG_NDC, 1);
         verify(drugAdministeredRepository, times(1)).save(drugAdministeredCaptor.capture());
 
         assertEquals(1, drugAdministeredCaptor.getValue().getQuantity()); // Verify default quantity
         assertEquals(TEST_DRUG_NDC, drugAdministeredCaptor.getValue().getDrug().getId().getNdc());
 
-        verify(drugRepository, times(1)).save(drugCaptor.capture());
-        assertEquals(4, drugCaptor.getValue().getQuantity());
+        // Inventory is decremented in the database, never by saving a quantity computed in Java
+        verify(drugRepository, never()).save(any());
     }
 
     @Test
@@ -719,4 +957,374 @@ class VisitServiceTest {
         verify(drugRepository, never()).save(any()); // For inventory update
     }
 
-}
\ No newline at end of file
+    @Test
+    void getTimeline_UsesOneQueryPerEventType() {
+        // Arrange
+        Visit visit = new Visit(new VisitId(HOSPITAL_ID, PATIENT_ID), "Chest pain");
+        LocalDateTime admission = visit.getId().getAdmissionDateTime();
+
+        ServiceProvidedRepository.TimelineEntry service = mock(ServiceProvidedRepository.TimelineEntry.class);
+        when(service.getProvidedAt()).thenReturn(admission.plusHours(2));
+        when(service.getServiceName()).thenReturn("X-Ray");
+        when(service.getPerformedByFirstName()).thenReturn("John");
+        when(service.getPerformedByLastName()).thenReturn("Doe");
+        when(service.getCost()).thenReturn(new BigDecimal("120.00"));
+        when(service.getCategory()).thenReturn("Imaging");
+
+        DrugAdministeredRepository.TimelineEntry drug = mock(DrugAdministeredRepository.TimelineEntry.class);
+        when(drug.getAdministeredAt()).thenReturn(admission.plusHours(1));
+        when(drug.getDrugName()).thenReturn("Aspirin");
+        when(drug.getStrength()).thenReturn("81mg");
+        when(drug.getPrice()).thenReturn(new BigDecimal("2.00"));
+        when(drug.getQuantity()).thenReturn(3);
+        when(drug.getAdministeredByFirstName()).thenReturn("Jane");
+        when(drug.getAdministeredByLastName()).thenReturn("Roe");
+
+        RoomAssignmentRepository.TimelineEntry room = mock(RoomAssignmentRepository.TimelineEntry.class);
+        when(room.getAssignedAt()).thenReturn(admission.plusMinutes(30));
+        when(room.getRoomName()).thenReturn(ROOM_NAME);
+        when(room.getDepartment()).thenReturn("ER");
+        when(room.getIsRemoved()).thenReturn(true);
+        when(room.getRemovedAt()).thenReturn(admission.plusHours(3));
+
+        when(visitRepository.findCurrentVisitById(PATIENT_ID, HOSPITAL_ID)).thenReturn(Optional.of(visit));
+        when(serviceProvidedRepository.findTimelineByVisit(HOSPITAL_ID, PATIENT_ID, admission)).thenReturn(List.of(service));
+        when(drugAdministeredRepository.findTimelineByVisit(HOSPITAL_ID, PATIENT_ID, admission)).thenReturn(List.of(drug));
+        when(roomAssignmentRepository.findTimelineByVisit(HOSPITAL_ID, PATIENT_ID, admission)).thenReturn(List.of(room));
+
+        // Act
+        List<TimelineElementDTO> timeline = visitService.getTimeline(HOSPITAL_ID, PATIENT_ID, null, false);
+
+        // Assert, in chronological order
+        assertEquals(5, timeline.size());
+        assertEquals("Patient Admittance", timeline.get(0).getTitle());
+        assertEquals("Assigned to " + ROOM_NAME, timeline.get(1).getTitle());
+        assertEquals("Aspirin Administered", timeline.get(2).getTitle());
+        assertEquals("X-Ray Performed", timeline.get(3).getTitle());
+        assertEquals("Removed from " + ROOM_NAME, timeline.get(4).getTitle());
+        assertTrue(timeline.get(3).getDescription().contains("Performed by: John Doe"));
+
+        // Verify: one visit lookup plus one query per event type, nothing else
+        verify(visitRepository, times(1)).findCurrentVisitById(PATIENT_ID, HOSPITAL_ID);
+        verify(serviceProvidedRepository, times(1)).findTimelineByVisit(HOSPITAL_ID, PATIENT_ID, admission);
+        verify(drugAdministeredRepository, times(1)).findTimelineByVisit(HOSPITAL_ID, PATIENT_ID, admission);
+        verify(roomAssignmentRepository, times(1)).findTimelineByVisit(HOSPITAL_ID, PATIENT_ID, admission);
+        verifyNoMoreInteractions(visitRepository, serviceProvidedRepository, drugAdministeredRepository,
+                roomAssignmentRepository, staffRepository, serviceRepository, drugRepository, roomRepository);
+    }
+
+    @Test
+    void getVisitDetails_ResolvesVisitOnce() {
+        // Arrange
+        Visit visit = new Visit(new VisitId(HOSPITAL_ID, PATIENT_ID), "Chest pain");
+        LocalDateTime admission = visit.getId().getAdmissionDateTime();
+
+        when(visitRepository.findCurrentVisitById(PATIENT_ID, HOSPITAL_ID)).thenReturn(Optional.of(visit));
+        List<VisitNoteRepository.NoteEntry> latest = List.of(noteEntry(admission.plusHours(1), "Stable"));
+        when(visitNoteRepository.findPageByVisit(eq(HOSPITAL_ID), eq(PATIENT_ID), eq(admission), any(), any()))
+                .thenReturn(latest);
+        when(serviceProvidedRepository.findTimelineByVisit(HOSPITAL_ID, PATIENT_ID, admission)).thenReturn(List.of());
+        when(drugAdministeredRepository.findTimelineByVisit(HOSPITAL_ID, PATIENT_ID, admission)).thenReturn(List.of());
+        when(roomAssignmentRepository.findTimelineByVisit(HOSPITAL_ID, PATIENT_ID, admission)).thenReturn(List.of());
+
+        // Act
+        Visit resolved = visitService.findVisit(HOSPITAL_ID, PATIENT_ID, null, false);
+        VisitDetailsDTO details = visitService.getVisitDetails(HOSPITAL_ID, resolved, false);
+
+        // Assert
+        assertEquals("Stable", details.getVisitNote());
+        assertEquals(1, details.getTimeline().size());
+        assertEquals("W/\"" + PATIENT_ID + "-" + admission + "-0\"", VisitService.eTagOf(resolved));
+
+        // Verify
+        verify(visitRepository, times(1)).findCurrentVisitById(PATIENT_ID, HOSPITAL_ID);
+        verifyNoMoreInteractions(visitRepository);
+        // Only the newest note entry is loaded for the details
+        ArgumentCaptor<Pageable> pageableCaptor = ArgumentCaptor.forClass(Pageable.class);
+        verify(visitNoteRepository).findPageByVisit(eq(HOSPITAL_ID), eq(PATIENT_ID), eq(admission), any(), pageableCaptor.capture());
+        assertEquals(1, pageableCaptor.getValue().getPageSize());
+    }
+
+    private static VisitNoteRepository.NoteEntry noteEntry(LocalDateTime createdAt, String note) {
+        VisitNoteRepository.NoteEntry entry = mock(VisitNoteRepository.NoteEntry.class);
+        lenient().when(entry.getCreatedAt()).thenReturn(createdAt);
+        lenient().when(entry.getAuthor()).thenReturn("nurse1");
+        lenient().when(entry.getNote()).thenReturn(note);
+        return entry;
+    }
+
+    @Test
+    void addNote_AppendsEntryAndBumpsVisitVersion() {
+        // Arrange
+        NoteDTO noteDTO = new NoteDTO(PATIENT_ID, ADMISSION_DATE_TIME_STR, "  Resting  ");
+
+        Visit visit = new Visit(new VisitId(HOSPITAL_ID, PATIENT_ID), "Chest pain");
+        when(visitRepository.findCurrentVisitById(PATIENT_ID, HOSPITAL_ID)).thenReturn(Optional.of(visit));
+
+        // Act
+        visitService.addNote(HOSPITAL_ID, "nurse1", noteDTO);
+
+        // Verify: a new row is inserted without a merge, the visit itself is not written
+        ArgumentCaptor<VisitNote> noteCaptor = ArgumentCaptor.forClass(VisitNote.class);
+        verify(entityManager, times(1)).persist(noteCaptor.capture());
+        verify(visitNoteRepository, never()).save(any());
+        assertEquals("Resting", noteCaptor.getValue().getNote());
+        assertEquals("nurse1", noteCaptor.getValue().getAuthor());
+        assertEquals(visit.getId().getAdmissionDateTime(), noteCaptor.getValue().getId().getVisitAdmissionDateTime());
+        verify(visitRepository, never()).save(any());
+        verify(visitRepository, times(1)).bumpCurrentVisitVersion(PATIENT_ID, HOSPITAL_ID);
+    }
+
+    @Test
+    void addNote_RejectsBlankNote() {
+        assertThrows(IllegalArgumentException.class, () ->
+                visitService.addNote(HOSPITAL_ID, "nurse1", new NoteDTO(PATIENT_ID, ADMISSION_DATE_TIME_STR, " ")));
+        verifyNoInteractions(visitRepository, visitNoteRepository, entityManager);
+    }
+
+    @Test
+    void getNotes_PagesNewestFirstWithCursor() {
+        // Arrange: limit 2, the repository returns one extra row
+        Visit visit = new Visit(new VisitId(HOSPITAL_ID, PATIENT_ID), "Chest pain");
+        LocalDateTime admission = visit.getId().getAdmissionDateTime();
+        LocalDateTime cursor = admission.plusHours(5);
+        List<VisitNoteRepository.NoteEntry> entries = List.of(
+                noteEntry(admission.plusHours(4), "Fourth"),
+                noteEntry(admission.plusHours(3), "Third"),
+                noteEntry(admission.plusHours(2), "Second"));
+
+        when(visitRepository.findCurrentVisitById(PATIENT_ID, HOSPITAL_ID)).thenReturn(Optional.of(visit));
+        ArgumentCaptor<Pageable> pageableCaptor = ArgumentCaptor.forClass(Pageable.class);
+        when(visitNoteRepository.findPageByVisit(eq(HOSPITAL_ID), eq(PATIENT_ID), eq(admission), eq(cursor), pageableCaptor.capture()))
+                .thenReturn(entries);
+
+        // Act
+        NotePageDTO page = visitService.getNotes(HOSPITAL_ID, PATIENT_ID, null, false, 2, cursor.toString());
+
+        // Assert
+        assertEquals(2, page.getNotes().size());
+        assertEquals("Fourth", page.getNotes().getFirst().getNote());
+        assertEquals(admission.plusHours(3).toString(), page.getNextCursor());
+        assertEquals(3, pageableCaptor.getValue().getPageSize());
+
+        // Malformed cursor
+        assertThrows(IllegalArgumentException.class, () ->
+                visitService.getNotes(HOSPITAL_ID, PATIENT_ID, null, false, 2, "yesterday"));
+    }
+
+    @Test
+    void getVisits_OneJoinedQueryPerPage() {
+        // Arrange
+        VisitRepository.CensusEntry entry = mock(VisitRepository.CensusEntry.class);
+        when(entry.getPatientId()).thenReturn(PATIENT_ID);
+        when(entry.getAdmissionDateTime()).thenReturn(ADMISSION_DATE_TIME);
+        when(entry.getFirstName()).thenReturn("John");
+        when(entry.getLastName()).thenReturn("Doe");
+        when(entry.getDateOfBirth()).thenReturn(LocalDate.of(1980, 1, 1));
+
+        ArgumentCaptor<Pageable> pageableCaptor = ArgumentCaptor.forClass(Pageable.class);
+        when(visitRepository.findCensus(eq(HOSPITAL_ID), eq("%doe%"), any(), any(), pageableCaptor.capture()))
+                .thenAnswer(invocation -> new PageImpl<>(List.of(entry), invocation.getArgument(4), 41));
+
+        // Act
+        Page<VisitDTO> page = visitService.getVisits(HOSPITAL_ID, 2, 20, "lastName", "desc", " Doe ", null, null);
+
+        // Assert
+        assertEquals(1, page.getContent().size());
+        assertEquals("Doe", page.getContent().getFirst().getLastName());
+        assertEquals(41, page.getTotalElements());
+        assertEquals(2, pageableCaptor.getValue().getPageNumber());
+        assertEquals(Sort.Direction.DESC, pageableCaptor.getValue().getSort().getOrderFor("p.lastName").getDirection());
+
+        // Verify: no per-visit patient lookups
+        verify(visitRepository, times(1)).findCensus(anyInt(), anyString(), any(), any(), any());
+        verifyNoInteractions(patientInfoRepository);
+    }
+
+    @Test
+    void getVisits_ReturnsEveryOpenVisitWhenNoPageRequested() {
+        // Arrange
+        ArgumentCaptor<Pageable> pageableCaptor = ArgumentCaptor.forClass(Pageable.class);
+        when(visitRepository.findCensus(anyInt(), anyString(), any(), any(), pageableCaptor.capture()))
+                .thenReturn(Page.empty());
+
+        // Act
+        assertThrows(NoSuchElementException.class, () ->
+                visitService.getVisits(HOSPITAL_ID, null, null, "lastName", "asc", null, null, null));
+
+        // Assert: unpaged, but still sorted
+        assertTrue(pageableCaptor.getValue().isUnpaged());
+        assertNotNull(pageableCaptor.getValue().getSort().getOrderFor("p.lastName"));
+    }
+
+    @Test
+    void getVisits_CapsPageSize() {
+        // Arrange
+        ArgumentCaptor<Pageable> pageableCaptor = ArgumentCaptor.forClass(Pageable.class);
+        when(visitRepository.findCensus(anyInt(), anyString(), any(), any(), pageableCaptor.capture()))
+                .thenReturn(Page.empty());
+
+        // Act and Assert: nothing found
+        assertThrows(NoSuchElementException.class, () ->
+                visitService.getVisits(HOSPITAL_ID, 0, 10_000, "admissionDateTime", "asc", null, null, null));
+        assertEquals(VisitService.MAX_CENSUS_PAGE_SIZE, pageableCaptor.getValue().getPageSize());
+    }
+
+    @Test
+    void getVisits_RejectsUnknownSort() {
+        assertThrows(IllegalArgumentException.class, () ->
+                visitService.getVisits(HOSPITAL_ID, 0, 20, "phone", "asc", null, null, null));
+        assertThrows(IllegalArgumentException.class, () ->
+                visitService.getVisits(HOSPITAL_ID, 0, 20, "lastName", "sideways", null, null, null));
+        assertThrows(DateTimeParseException.class, () ->
+                visitService.getVisits(HOSPITAL_ID, 0, 20, "lastName", "asc", null, "yesterday", null));
+        verifyNoInteractions(visitRepository);
+    }
+
+    private VisitRepository.RecordEntry recordEntry(int patientId, LocalDateTime discharged) {
+        VisitRepository.RecordEntry entry = mock(VisitRepository.RecordEntry.class);
+        when(entry.getPatientId()).thenReturn(patientId);
+        when(entry.getAdmissionDateTime()).thenReturn(discharged.minusDays(2));
+        when(entry.getFirstName()).thenReturn("John");
+        when(entry.getLastName()).thenReturn("Doe");
+        when(entry.getDateOfBirth()).thenReturn(LocalDate.of(1980, 1, 1));
+        when(entry.getDischargeDateTime()).thenReturn(discharged);
+        return entry;
+    }
+
+    @Test
+    void getRecords_FirstPageReturnsCursorOfLastRow() {
+        // Arrange: limit 2, the repository returns one extra row
+        LocalDateTime discharged = LocalDateTime.of(2025, 3, 1, 12, 0);
+        List<VisitRepository.RecordEntry> entries = List.of(
+                recordEntry(3, discharged), recordEntry(2, discharged.minusHours(1)));
+        VisitRepository.RecordEntry extra = mock(VisitRepository.RecordEntry.class);
+
+        ArgumentCaptor<Pageable> pageableCaptor = ArgumentCaptor.forClass(Pageable.class);
+        when(visitRepository.findRecordPage(eq(HOSPITAL_ID), any(), any(), any(), eq(Integer.MAX_VALUE), isNull(),
+                eq("%"), pageableCaptor.capture()))
+                .thenReturn(List.of(entries.get(0), entries.get(1), extra));
+
+        // Act
+        RecordPageDTO page = visitService.getRecords(HOSPITAL_ID, 2, null, null, null, null, null);
+
+        // Assert
+        assertEquals(2, page.getRecords().size());
+        assertEquals(discharged.minusHours(1) + "_2", page.getNextCursor());
+        assertEquals(3, pageableCaptor.getValue().getPageSize());
+        verifyNoInteractions(patientInfoRepository);
+    }
+
+    @Test
+    void getRecords_WithoutLimitReturnsEveryRecord() {
+        // Arrange: a full first page plus one extra row, then a last page of one
+        int pageSize = VisitService.MAX_RECORD_PAGE_SIZE;
+        LocalDateTime discharged = LocalDateTime.of(2025, 3, 1, 12, 0);
+        List<VisitRepository.RecordEntry> first = new ArrayList<>();
+        for (int i = 0; i < pageSize; i++) {
+            first.add(recordEntry(1000 - i, discharged.minusMinutes(i)));
+        }
+        first.add(mock(VisitRepository.RecordEntry.class));
+        LocalDateTime lastOfFirst = discharged.minusMinutes(pageSize - 1);
+
+        when(visitRepository.findRecordPage(eq(HOSPITAL_ID), any(), any(), any(), eq(Integer.MAX_VALUE), isNull(),
+                eq("%"), any()))
+                .thenReturn(first);
+        when(visitRepository.findRecordPage(eq(HOSPITAL_ID), any(), any(), eq(lastOfFirst), eq(1000 - pageSize + 1),
+                isNull(), eq("%"), any()))
+                .thenReturn(List.of(recordEntry(1, lastOfFirst.minusMinutes(1))));
+
+        // Act
+        RecordPageDTO page = visitService.getRecords(HOSPITAL_ID, null, null, null, null, null, null);
+
+        // Assert
+        assertEquals(pageSize + 1, page.getRecords().size());
+        assertEquals(1, page.getRecords().getLast().getPatientID());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void getRecords_ContinuesFromCursor() {
+        // Arrange
+        LocalDateTime discharged = LocalDateTime.of(2025, 3, 1, 12, 0);
+        when(visitRepository.findRecordPage(eq(HOSPITAL_ID), any(), any(), eq(discharged), eq(7), eq(PATIENT_ID),
+                eq("%doe%"), any()))
+                .thenReturn(List.of());
+
+        // Act
+        RecordPageDTO page = visitService.getRecords(HOSPITAL_ID, null, discharged + "_7", null, null, PATIENT_ID, "DOE");
+
+        // Assert: an empty later page is not an error, and there is no next cursor
+        assertTrue(page.getRecords().isEmpty());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void getRecords_RejectsMalformedCursor() {
+        assertThrows(IllegalArgumentException.class, () ->
+                visitService.getRecords(HOSPITAL_ID, null, "no-cursor", null, null, null, null));
+        assertThrows(IllegalArgumentException.class, () ->
+                visitService.getRecords(HOSPITAL_ID, null, "2025-03-01T12:00_x", null, null, null, null));
+        verifyNoInteractions(visitRepository);
+    }
+
+    @Test
+    void getRecords_ContinuesIntoArchive() {
+        // Arrange: the live table has one record left, the archive supplies the rest of the page
+        LocalDateTime discharged = LocalDateTime.of(2025, 3, 1, 12, 0);
+        List<VisitRepository.RecordEntry> live = List.of(recordEntry(5, discharged));
+        List<VisitRepository.RecordEntry> archived = List.of(recordEntry(4, discharged.minusYears(2)));
+        when(visitRepository.findRecordPage(anyInt(), any(), any(), any(), anyInt(), any(), anyString(), any()))
+                .thenReturn(live);
+        when(visitArchiveRepository.findRecordPage(eq(HOSPITAL_ID), any(), any(), any(), eq(Integer.MAX_VALUE), isNull(),
+                eq("%"), eq(3)))
+                .thenReturn(archived);
+
+        // Act
+        RecordPageDTO page = visitService.getRecords(HOSPITAL_ID, 2, null, null, null, null, null);
+
+        // Assert
+        assertEquals(2, page.getRecords().size());
+        assertEquals(4, page.getRecords().get(1).getPatientID());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void getRecords_MergesDischargeTimeSplitBetweenLiveAndArchive() {
+        // Arrange: patients 9 and 5 were discharged at the same time, and only 9 was archived
+        LocalDateTime discharged = LocalDateTime.of(2024, 3, 1, 12, 0);
+        List<VisitRepository.RecordEntry> live = List.of(recordEntry(5, discharged));
+        List<VisitRepository.RecordEntry> archived = List.of(
+                recordEntry(9, discharged), recordEntry(4, discharged.minusDays(1)));
+        when(visitRepository.findRecordPage(anyInt(), any(), any(), any(), anyInt(), any(), anyString(), any()))
+                .thenReturn(live);
+        when(visitArchiveRepository.findRecordPage(eq(HOSPITAL_ID), any(), any(), any(), eq(Integer.MAX_VALUE), isNull(),
+                eq("%"), eq(3)))
+                .thenReturn(archived);
+
+        // Act
+        RecordPageDTO page = visitService.getRecords(HOSPITAL_ID, 2, null, null, null, null, null);
+
+        // Assert: the archived record of the shared time comes first, and the cursor follows the full key
+        assertEquals(9, page.getRecords().get(0).getPatientID());
+        assertEquals(5, page.getRecords().get(1).getPatientID());
+        assertEquals(discharged + "_5", page.getNextCursor());
+    }
+
+    @Test
+    void findVisit_FallsBackToArchiveForRecords() {
+        // Arrange
+        Visit archived = new Visit(new VisitId(HOSPITAL_ID, PATIENT_ID), "Flu");
+        archived.setArchived(true);
+        when(visitRepository.findRecordById(PATIENT_ID, HOSPITAL_ID, ADMISSION_DATE_TIME)).thenReturn(Optional.empty());
+        when(visitArchiveRepository.findRecordById(PATIENT_ID, HOSPITAL_ID, ADMISSION_DATE_TIME)).thenReturn(Optional.of(archived));
+
+        // Act
+        Visit visit = visitService.findVisit(HOSPITAL_ID, PATIENT_ID, ADMISSION_DATE_TIME_STR, true);
+
+        // Assert
+        assertSame(archived, visit);
+        assertTrue(visit.isArchived());
+    }
+
+}
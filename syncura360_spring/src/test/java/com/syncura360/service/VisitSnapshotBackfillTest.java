@@ -0,0 +1,86 @@
+package com.syncura360.service;
+
+import com.syncura360.model.Visit;
+import com.syncura360.model.VisitId;
+import com.syncura360.repository.VisitRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class VisitSnapshotBackfillTest {
+
+    @Mock
+    private VisitRepository visitRepository;
+    @Mock
+    private VisitService visitService;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private static Visit record(int patientId) {
+        return new Visit(new VisitId(1, patientId), "Checkup");
+    }
+
+    @Test
+    void freezesInBatchesUntilShortBatch() {
+        // Arrange
+        VisitSnapshotBackfill backfill = new VisitSnapshotBackfill(visitRepository, visitService, transactionManager, true, 2, 50);
+        Visit first = record(1);
+        when(visitRepository.findRecordsWithoutSnapshot(PageRequest.of(0, 2)))
+                .thenReturn(List.of(first, record(2)), List.of(record(3)));
+
+        // Act
+        int frozen = backfill.backfill();
+
+        // Assert
+        assertEquals(3, frozen);
+        verify(visitService, times(3)).snapshotRecord(eq(1), any(), eq(0L));
+        verify(visitService).snapshotRecord(1, first, 0L);
+        verify(transactionManager, times(3)).commit(any());
+    }
+
+    @Test
+    void failedRecordIsSkippedAndTheRestFrozen() {
+        // Arrange
+        VisitSnapshotBackfill backfill = new VisitSnapshotBackfill(visitRepository, visitService, transactionManager, true, 2, 50);
+        Visit broken = record(1);
+        Visit second = record(2);
+        Visit third = record(3);
+        when(visitRepository.findRecordsWithoutSnapshot(PageRequest.of(0, 2))).thenReturn(List.of(broken, second));
+        // The broken record is still without snapshot, so the next batch is read one further
+        when(visitRepository.findRecordsWithoutSnapshot(PageRequest.of(0, 3))).thenReturn(List.of(broken, third));
+        lenient().doThrow(new IllegalStateException("unreadable timeline")).when(visitService).snapshotRecord(1, broken, 0L);
+
+        // Act
+        int frozen = backfill.backfill();
+
+        // Assert
+        assertEquals(2, frozen);
+        verify(visitService).snapshotRecord(1, second, 0L);
+        verify(visitService).snapshotRecord(1, third, 0L);
+        verify(visitService, times(1)).snapshotRecord(1, broken, 0L);
+        verify(transactionManager, times(1)).rollback(any());
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    void wholeBatchFailingStops() {
+        // Arrange
+        VisitSnapshotBackfill backfill = new VisitSnapshotBackfill(visitRepository, visitService, transactionManager, true, 2, 50);
+        when(visitRepository.findRecordsWithoutSnapshot(PageRequest.of(0, 2))).thenReturn(List.of(record(1)));
+        doThrow(new IllegalStateException("lock wait timeout")).when(visitService).snapshotRecord(anyInt(), any(), anyLong());
+
+        // Act and Assert
+        assertEquals(0, backfill.backfill());
+        verify(transactionManager, times(1)).rollback(any());
+        verify(transactionManager, never()).commit(any());
+    }
+}
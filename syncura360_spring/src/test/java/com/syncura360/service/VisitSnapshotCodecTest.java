@@ -0,0 +1,47 @@
+package com.syncura360.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.syncura360.dto.Billing.BillDTO;
+import com.syncura360.dto.Billing.ChargeLineDTO;
+import com.syncura360.dto.Billing.RoomDaysDTO;
+import com.syncura360.dto.Visit.RecordSnapshotDTO;
+import com.syncura360.dto.Visit.TimelineElementDTO;
+import com.syncura360.dto.Visit.VisitDetailsDTO;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VisitSnapshotCodecTest {
+
+    private final VisitSnapshotCodec codec = new VisitSnapshotCodec(new ObjectMapper());
+
+    @Test
+    void roundTripsAndCompresses() {
+        // Arrange: a long stay with a repetitive timeline
+        List<TimelineElementDTO> timeline = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            timeline.add(new TimelineElementDTO("2025-03-01T08:" + (i % 60), "Aspirin Administered",
+                    "Administered by: Jane Doe. Name: Aspirin. Strength: 81mg. Quantity: 1. Cost: $0.45"));
+        }
+        BillDTO bill = new BillDTO(100, "2025-03-01T08:00",
+                List.of(new ChargeLineDTO("X-Ray", 1, new BigDecimal("150.50"))),
+                List.of(new ChargeLineDTO("Aspirin 81mg", 200, new BigDecimal("90.00"))),
+                List.of(new RoomDaysDTO("Room A", 3)),
+                new BigDecimal("150.50"), new BigDecimal("90.00"), new BigDecimal("240.50"), "2025-03-04T10:00");
+        RecordSnapshotDTO record = new RecordSnapshotDTO(new VisitDetailsDTO(timeline, "Stable"), bill);
+
+        // Act
+        byte[] encoded = codec.encode(record);
+        RecordSnapshotDTO decoded = codec.decode(encoded);
+
+        // Assert
+        assertEquals(record, decoded);
+        assertTrue(encoded.length < 2_000, "Snapshot should compress well, was " + encoded.length + " bytes");
+        assertTrue(codec.canDecode(VisitSnapshotCodec.GZIP_JSON));
+        assertFalse(codec.canDecode(0));
+    }
+}
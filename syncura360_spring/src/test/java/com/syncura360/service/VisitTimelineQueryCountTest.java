@@ -0,0 +1,68 @@
+package com.syncura360.service;
+
+import com.syncura360.dto.Visit.TimelineElementDTO;
+import com.syncura360.model.Visit;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Counts the statements Hibernate prepares while building a visit timeline against a real database.
+ * Runs only when DATABASE_URL (and the rest of the application environment) is set.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "security.argon2.calibrate-on-startup=false"
+})
+@EnabledIfEnvironmentVariable(named = "DATABASE_URL", matches = ".+")
+class VisitTimelineQueryCountTest {
+
+    @Autowired
+    VisitService visitService;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void getTimeline_FixedNumberOfQueries() {
+        // Use the discharged visit with the most administered drugs as the longest available timeline
+        List<Visit> visits;
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            visits = entityManager
+                    .createQuery("SELECT v FROM Visit v WHERE v.dischargeDateTime IS NOT NULL " +
+                            "ORDER BY (SELECT COUNT(da) FROM DrugAdministered da WHERE da.visit = v) DESC", Visit.class)
+                    .setMaxResults(1)
+                    .getResultList();
+        } finally {
+            entityManager.close();
+        }
+        Assumptions.assumeFalse(visits.isEmpty(), "No discharged visits to build a timeline from.");
+        Visit visit = visits.getFirst();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<TimelineElementDTO> timeline = visitService.getTimeline(
+                visit.getId().getHospitalId(),
+                visit.getId().getPatientId(),
+                visit.getId().getAdmissionDateTime().toString(),
+                true);
+
+        // Visit lookup plus one query each for services, drugs and rooms
+        assertFalse(timeline.isEmpty());
+        assertEquals(4, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityFetchCount());
+    }
+}
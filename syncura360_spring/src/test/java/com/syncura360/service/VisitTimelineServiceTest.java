@@ -0,0 +1,241 @@
+package com.syncura360.service;
+
+import com.syncura360.dto.Visit.TimelinePageDTO;
+import com.syncura360.model.Visit;
+import com.syncura360.model.VisitId;
+import com.syncura360.repository.DrugAdministeredRepository;
+import com.syncura360.repository.RoomAssignmentRepository;
+import com.syncura360.repository.ServiceProvidedRepository;
+import com.syncura360.repository.VisitArchiveRepository;
+import com.syncura360.repository.VisitRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.quality.Strictness;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class VisitTimelineServiceTest {
+
+    @Mock
+    private VisitRepository visitRepository;
+    @Mock
+    private ServiceProvidedRepository serviceProvidedRepository;
+    @Mock
+    private DrugAdministeredRepository drugAdministeredRepository;
+    @Mock
+    private RoomAssignmentRepository roomAssignmentRepository;
+    @Mock
+    private VisitArchiveRepository visitArchiveRepository;
+    @InjectMocks
+    private VisitTimelineService visitTimelineService;
+
+    private static final int HOSPITAL_ID = 1;
+    private static final int PATIENT_ID = 100;
+
+    private Visit visit;
+    private LocalDateTime admission;
+
+    @BeforeEach
+    void setUp() {
+        visit = new Visit(new VisitId(HOSPITAL_ID, PATIENT_ID), "Chest pain");
+        admission = visit.getId().getAdmissionDateTime();
+    }
+
+    private ServiceProvidedRepository.TimelineEntry service(LocalDateTime at, String name) {
+        ServiceProvidedRepository.TimelineEntry entry = mock(ServiceProvidedRepository.TimelineEntry.class,
+                withSettings().strictness(Strictness.LENIENT));
+        when(entry.getProvidedAt()).thenReturn(at);
+        when(entry.getServiceName()).thenReturn(name);
+        when(entry.getPerformedByFirstName()).thenReturn("John");
+        when(entry.getPerformedByLastName()).thenReturn("Doe");
+        when(entry.getCost()).thenReturn(new BigDecimal("10.00"));
+        when(entry.getCategory()).thenReturn("Imaging");
+        return entry;
+    }
+
+    private DrugAdministeredRepository.TimelineEntry drug(LocalDateTime at, String name) {
+        DrugAdministeredRepository.TimelineEntry entry = mock(DrugAdministeredRepository.TimelineEntry.class,
+                withSettings().strictness(Strictness.LENIENT));
+        when(entry.getAdministeredAt()).thenReturn(at);
+        when(entry.getDrugName()).thenReturn(name);
+        when(entry.getStrength()).thenReturn("81mg");
+        when(entry.getPrice()).thenReturn(new BigDecimal("2.00"));
+        when(entry.getQuantity()).thenReturn(1);
+        when(entry.getAdministeredByFirstName()).thenReturn("Jane");
+        when(entry.getAdministeredByLastName()).thenReturn("Roe");
+        return entry;
+    }
+
+    private void stubEmptyRooms() {
+        when(roomAssignmentRepository.findAssignedWindow(anyInt(), anyInt(), any(), any(), any(), any())).thenReturn(List.of());
+        when(roomAssignmentRepository.findRemovedWindow(anyInt(), anyInt(), any(), any(), any(), any())).thenReturn(List.of());
+    }
+
+    @Test
+    void firstPageMergesSourcesChronologically() {
+        // Arrange
+        List<ServiceProvidedRepository.TimelineEntry> services =
+                List.of(service(admission.plusHours(1), "X-Ray"), service(admission.plusHours(3), "MRI"));
+        List<DrugAdministeredRepository.TimelineEntry> drugs = List.of(drug(admission.plusHours(2), "Aspirin"));
+        when(visitRepository.findCurrentVisitById(PATIENT_ID, HOSPITAL_ID)).thenReturn(Optional.of(visit));
+        when(serviceProvidedRepository.findTimelineWindow(eq(HOSPITAL_ID), eq(PATIENT_ID), eq(admission), any(), any(), any()))
+                .thenReturn(services);
+        when(drugAdministeredRepository.findTimelineWindow(eq(HOSPITAL_ID), eq(PATIENT_ID), eq(admission), any(), any(), any()))
+                .thenReturn(drugs);
+        stubEmptyRooms();
+
+        // Act
+        TimelinePageDTO page = visitTimelineService.getTimelinePage(HOSPITAL_ID, PATIENT_ID, null, false, 3, null, null, null);
+
+        // Assert
+        assertEquals(3, page.getTimeline().size());
+        assertEquals("Patient Admittance", page.getTimeline().get(0).getTitle());
+        assertEquals("X-Ray Performed", page.getTimeline().get(1).getTitle());
+        assertEquals("Aspirin Administered", page.getTimeline().get(2).getTitle());
+        assertTrue(page.isHasMore());
+        assertEquals(admission.plusHours(2) + "_DRUG", page.getNextCursor());
+        assertEquals(admission + "_ADMISSION", page.getPreviousCursor());
+
+        // Verify each source was asked for one more row than the page, in ascending order
+        ArgumentCaptor<Pageable> pageable = ArgumentCaptor.forClass(Pageable.class);
+        verify(serviceProvidedRepository).findTimelineWindow(eq(HOSPITAL_ID), eq(PATIENT_ID), eq(admission), any(), any(), pageable.capture());
+        assertEquals(4, pageable.getValue().getPageSize());
+        assertEquals(Sort.Direction.ASC, pageable.getValue().getSort().getOrderFor("id.providedAt").getDirection());
+    }
+
+    @Test
+    void afterCursorExcludesCursorEventOnly() {
+        // Arrange
+        LocalDateTime at = admission.plusHours(2);
+        when(visitRepository.findCurrentVisitById(PATIENT_ID, HOSPITAL_ID)).thenReturn(Optional.of(visit));
+        when(serviceProvidedRepository.findTimelineWindow(anyInt(), anyInt(), any(), any(), any(), any())).thenReturn(List.of());
+        when(drugAdministeredRepository.findTimelineWindow(anyInt(), anyInt(), any(), any(), any(), any())).thenReturn(List.of());
+        stubEmptyRooms();
+
+        // Act
+        TimelinePageDTO page = visitTimelineService.getTimelinePage(HOSPITAL_ID, PATIENT_ID, null, false, null, at + "_DRUG", null, null);
+
+        // Assert: the admission is before the cursor, and nothing else is left
+        assertTrue(page.getTimeline().isEmpty());
+        assertFalse(page.isHasMore());
+        assertNull(page.getNextCursor());
+
+        // Verify sources ordered before the cursor's move strictly past it, later ones may share its timestamp
+        verify(serviceProvidedRepository).findTimelineWindow(eq(HOSPITAL_ID), eq(PATIENT_ID), eq(admission), eq(at.plusNanos(1)), any(), any());
+        verify(drugAdministeredRepository).findTimelineWindow(eq(HOSPITAL_ID), eq(PATIENT_ID), eq(admission), eq(at.plusNanos(1)), any(), any());
+        verify(roomAssignmentRepository).findAssignedWindow(eq(HOSPITAL_ID), eq(PATIENT_ID), eq(admission), eq(at), any(), any());
+        verify(roomAssignmentRepository).findRemovedWindow(eq(HOSPITAL_ID), eq(PATIENT_ID), eq(admission), eq(at), any(), any());
+    }
+
+    @Test
+    void beforeCursorReturnsClosestEventsInChronologicalOrder() {
+        // Arrange: repositories answer newest first when paging backwards
+        List<ServiceProvidedRepository.TimelineEntry> services =
+                List.of(service(admission.plusHours(3), "MRI"), service(admission.plusHours(1), "X-Ray"));
+        List<DrugAdministeredRepository.TimelineEntry> drugs = List.of(drug(admission.plusHours(2), "Aspirin"));
+        when(visitRepository.findCurrentVisitById(PATIENT_ID, HOSPITAL_ID)).thenReturn(Optional.of(visit));
+        when(serviceProvidedRepository.findTimelineWindow(anyInt(), anyInt(), any(), any(), any(), any())).thenReturn(services);
+        when(drugAdministeredRepository.findTimelineWindow(anyInt(), anyInt(), any(), any(), any(), any())).thenReturn(drugs);
+        stubEmptyRooms();
+
+        // Act
+        TimelinePageDTO page = visitTimelineService.getTimelinePage(HOSPITAL_ID, PATIENT_ID, null, false, 2,
+                null, admission.plusHours(4) + "_SERVICE", null);
+
+        // Assert
+        assertEquals(2, page.getTimeline().size());
+        assertEquals("Aspirin Administered", page.getTimeline().get(0).getTitle());
+        assertEquals("MRI Performed", page.getTimeline().get(1).getTitle());
+        assertTrue(page.isHasMore());
+
+        ArgumentCaptor<Pageable> pageable = ArgumentCaptor.forClass(Pageable.class);
+        verify(drugAdministeredRepository).findTimelineWindow(anyInt(), anyInt(), any(), any(), any(), pageable.capture());
+        assertEquals(Sort.Direction.DESC, pageable.getValue().getSort().getOrderFor("id.administeredAt").getDirection());
+    }
+
+    @Test
+    void sinceSkipsAdmissionEvent() {
+        // Arrange
+        LocalDateTime since = admission.plusMinutes(1);
+        List<ServiceProvidedRepository.TimelineEntry> services = List.of(service(admission.plusHours(1), "X-Ray"));
+        when(visitRepository.findCurrentVisitById(PATIENT_ID, HOSPITAL_ID)).thenReturn(Optional.of(visit));
+        when(serviceProvidedRepository.findTimelineWindow(anyInt(), anyInt(), any(), eq(since), any(), any()))
+                .thenReturn(services);
+        when(drugAdministeredRepository.findTimelineWindow(anyInt(), anyInt(), any(), eq(since), any(), any())).thenReturn(List.of());
+        stubEmptyRooms();
+
+        // Act
+        TimelinePageDTO page = visitTimelineService.getTimelinePage(HOSPITAL_ID, PATIENT_ID, null, false, null, null, null, since.toString());
+
+        // Assert
+        assertEquals(1, page.getTimeline().size());
+        assertEquals("X-Ray Performed", page.getTimeline().getFirst().getTitle());
+        assertFalse(page.isHasMore());
+    }
+
+    @Test
+    void invalidCursorRejectedBeforeQuerying() {
+        assertThrows(IllegalArgumentException.class, () ->
+                visitTimelineService.getTimelinePage(HOSPITAL_ID, PATIENT_ID, null, false, null, "yesterday", null, null));
+        assertThrows(IllegalArgumentException.class, () ->
+                visitTimelineService.getTimelinePage(HOSPITAL_ID, PATIENT_ID, null, false, null, admission + "_DRUG", admission + "_DRUG", null));
+
+        verifyNoInteractions(visitRepository, serviceProvidedRepository, drugAdministeredRepository, roomAssignmentRepository);
+    }
+
+    @Test
+    void visitNotFound() {
+        when(visitRepository.findCurrentVisitById(PATIENT_ID, HOSPITAL_ID)).thenReturn(Optional.empty());
+
+        assertThrows(EntityNotFoundException.class, () ->
+                visitTimelineService.getTimelinePage(HOSPITAL_ID, PATIENT_ID, null, false, null, null, null, null));
+        verifyNoInteractions(serviceProvidedRepository, drugAdministeredRepository, roomAssignmentRepository);
+    }
+
+    @Test
+    void mergeStopsAtMax() {
+        TimelineEvent a = TimelineEvent.admission(visit);
+        Iterator<TimelineEvent> services = List.of(
+                TimelineEvent.service(service(admission.plusHours(1), "X-Ray")),
+                TimelineEvent.service(service(admission.plusHours(5), "MRI"))).iterator();
+        Iterator<TimelineEvent> drugs = List.of(
+                TimelineEvent.drug(drug(admission.plusHours(2), "Aspirin"))).iterator();
+
+        List<TimelineEvent> merged = VisitTimelineService.merge(
+                List.of(List.of(a).iterator(), services, drugs), TimelineEvent.CHRONOLOGICAL, 3);
+
+        assertEquals(3, merged.size());
+        assertEquals(TimelineEvent.Source.ADMISSION, merged.get(0).source());
+        assertEquals(TimelineEvent.Source.SERVICE, merged.get(1).source());
+        assertEquals(TimelineEvent.Source.DRUG, merged.get(2).source());
+        assertTrue(services.hasNext());
+    }
+
+    @Test
+    void drugWithoutPriceStillRendered() {
+        // Archived drug that has since been removed from the inventory
+        DrugAdministeredRepository.TimelineEntry removed = drug(admission.plusHours(1), "NDC 12345678901");
+        when(removed.getPrice()).thenReturn(null);
+
+        TimelineEvent event = TimelineEvent.drug(removed);
+
+        assertEquals("NDC 12345678901 Administered", event.element().getTitle());
+        assertTrue(event.element().getDescription().endsWith("Cost: unknown"));
+    }
+}